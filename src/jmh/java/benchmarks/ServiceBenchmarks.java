@@ -0,0 +1,158 @@
+package benchmarks;
+
+import database.ConnectionLease;
+import database.DatabaseManager;
+import database.SchemaInitializer;
+import models.CompatibilityIssue;
+import models.CompatibilityRule;
+import models.Component;
+import models.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import services.CompatibilityService;
+import services.ComponentService;
+import services.ConfigurationService;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Регрессионные замеры горячих путей сервисов и работы с БД. Каждый замер выполняется
+ * на синтетическом каталоге заданного размера во временном файле SQLite и в базе в памяти;
+ * JMH запускает каждый замер в отдельной JVM, поэтому изменяющие данные замеры
+ * (createConfiguration) не влияют на остальные.
+ *
+ * Пропускная способность с доверительным интервалом, байт на операцию и сборки мусора —
+ * через профилировщик GC, результаты в JSON для сравнения с прошлым прогоном:
+ * <pre>
+ * gradle jmh                                       (-prof gc -rf json, build/results/jmh/results.json)
+ * java -jar build/libs/*-jmh.jar ServiceBenchmarks.getComponentById -p size=10000 -prof gc -rf json
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServiceBenchmarks {
+    private static final int CONFIGURATION_ITEMS = 7;
+    private static final int MAPPED_ROWS = 1000;
+
+    @Param({ "1000", "10000" })
+    int size;
+
+    /** file — временный файл SQLite, memory — база в памяти */
+    @Param({ "file", "memory" })
+    String db;
+
+    private DatabaseManager dbManager;
+    private ComponentService componentService;
+    private ConfigurationService configurationService;
+    private CompatibilityService compatibilityService;
+    private List<Configuration> configurations;
+    private List<Component> catalog;
+    private Random random;
+
+    @Setup
+    public void setUp() throws SQLException {
+        dbManager = open(db);
+        BenchmarkSupport.seed(dbManager, size);
+        componentService = new ComponentService(dbManager);
+        configurationService = new ConfigurationService(dbManager, componentService);
+        compatibilityService = new CompatibilityService(CompatibilityRule.defaults());
+        configurations = configurationService.getAllConfigurations();
+        catalog = componentService.getAllComponents();
+        random = new Random(7);
+    }
+
+    @TearDown
+    public void tearDown() {
+        dbManager.closeConnection();
+    }
+
+    @Benchmark
+    public List<CompatibilityIssue> validateConfiguration() {
+        return compatibilityService.validateConfiguration(configurations.get(random.nextInt(configurations.size())));
+    }
+
+    @Benchmark
+    public Component getComponentById() {
+        return componentService.getComponentById(1 + random.nextInt(size));
+    }
+
+    @Benchmark
+    public Component getComponentByIdUncached() {
+        int id = 1 + random.nextInt(size);
+        componentService.getCache().evict(id);
+        return componentService.getComponentById(id);
+    }
+
+    @Benchmark
+    public List<Component> getAllComponents() {
+        return componentService.getAllComponents();
+    }
+
+    /** Отображение MAPPED_ROWS строк; в замер входит и выборка строк курсором */
+    @Benchmark
+    @OperationsPerInvocation(MAPPED_ROWS)
+    public int resultSetToComponent() throws SQLException {
+        int sink = 0;
+        try (ConnectionLease lease = dbManager.lease()) {
+            PreparedStatement pstmt = lease.prepareStatement("SELECT * FROM components ORDER BY id LIMIT " + MAPPED_ROWS);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    sink += componentService.resultSetToComponent(rs).getQuantity();
+                }
+            }
+        }
+        return sink;
+    }
+
+    @Benchmark
+    public List<Configuration> getAllConfigurations() {
+        return configurationService.getAllConfigurations();
+    }
+
+    /** Сумма цен всего каталога целыми копейками; операция — весь каталог */
+    @Benchmark
+    public long calculateTotalPrice() {
+        return ConfigurationService.calculateTotalPrice(catalog);
+    }
+
+    /** Каждая операция добавляет конфигурацию */
+    @Benchmark
+    public Configuration createConfiguration() {
+        List<Integer> ids = new ArrayList<>(CONFIGURATION_ITEMS);
+        for (int i = 0; i < CONFIGURATION_ITEMS; i++) {
+            ids.add(1 + random.nextInt(size));
+        }
+        return configurationService.createConfiguration("Бенчмарк", ids);
+    }
+
+    private static DatabaseManager open(String database) {
+        if (database.equals("file")) {
+            return BenchmarkSupport.openTempDatabase("service-bench");
+        }
+        if (database.equals("memory")) {
+            DatabaseManager dbManager = new DatabaseManager("jdbc:sqlite::memory:");
+            new SchemaInitializer(dbManager);
+            return dbManager;
+        }
+        throw new IllegalArgumentException("Неизвестная база данных: " + database + " (ожидается file или memory)");
+    }
+}
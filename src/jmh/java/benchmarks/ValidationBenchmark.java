@@ -0,0 +1,192 @@
+package benchmarks;
+
+import models.CompatibilityIssue;
+import models.CompatibilityRule;
+import models.Component;
+import models.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import services.CompatibilityRuleEngine;
+import services.CompatibilityService;
+import services.ValidationCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность и выделение памяти на вызов validateConfiguration:
+ * прежняя реализация (шесть проходов по списку, промежуточные списки) против однопроходной
+ * и однопроходной с кэшем результатов (ValidationCache). Сборки чередуются по кругу.
+ * Байт на вызов — gc.alloc.rate.norm профилировщика GC:
+ * <pre>
+ * java -jar build/libs/*-jmh.jar ValidationBenchmark -prof gc -rf json
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+    private List<Configuration> samples;
+    private CompatibilityService service;
+    private CompatibilityService cached;
+    private int next;
+    private int nextId = 1;
+
+    @Setup
+    public void setUp() {
+        samples = samples();
+        service = new CompatibilityService(CompatibilityRule.defaults());
+        cached = new CompatibilityService(CompatibilityRule.defaults(), new ValidationCache());
+    }
+
+    @Benchmark
+    public List<CompatibilityIssue> legacy() {
+        return LegacyValidator.validate(sample());
+    }
+
+    @Benchmark
+    public List<CompatibilityIssue> singlePass() {
+        return service.validateConfiguration(sample());
+    }
+
+    @Benchmark
+    public List<CompatibilityIssue> singlePassCached() {
+        return cached.validateConfiguration(sample());
+    }
+
+    private Configuration sample() {
+        Configuration configuration = samples.get(next);
+        next = next + 1 == samples.size() ? 0 : next + 1;
+        return configuration;
+    }
+
+    /** Типичные сборки: корректная, с несовпадением сокета, без блока питания, со слабым БП */
+    private List<Configuration> samples() {
+        Component cpu = component("Intel Core i7-13700K", "Процессор", "LGA1700", "DDR5", null, 125);
+        Component amdBoard = component("ASUS ROG Strix B650", "Материнская плата", "AM5", "DDR5", "ATX", 0);
+        Component intelBoard = component("MSI PRO Z790-A", "Материнская плата", "LGA1700", "DDR5", "ATX", 0);
+        Component memory = component("Kingston Fury 32GB DDR5", "Оперативная память", null, "DDR5", null, 0);
+        Component gpu = component("GeForce RTX 4070", "Видеокарта", null, null, null, 200);
+        Component chassis = component("Fractal North", "Корпус", null, null, "ATX", 0);
+        Component psu = component("Corsair RM850", "Блок питания", null, null, null, 850);
+        Component weakPsu = component("Be Quiet 450", "Блок питания", null, null, null, 450);
+        Component ssd = component("Samsung 990 Pro", "Накопитель", null, null, null, 0);
+
+        List<Configuration> samples = new ArrayList<>();
+        samples.add(configuration(cpu, intelBoard, memory, gpu, chassis, psu, ssd));
+        samples.add(configuration(cpu, amdBoard, memory, gpu, chassis, psu, ssd));
+        samples.add(configuration(cpu, intelBoard, memory, gpu, chassis, ssd));
+        samples.add(configuration(cpu, intelBoard, memory, gpu, chassis, weakPsu, ssd));
+        return samples;
+    }
+
+    private Component component(String name, String type, String socket, String memoryType,
+                                String formFactor, int power) {
+        Component component = new Component(name, type, 1000, 1, "", socket, memoryType, formFactor, power, 0);
+        component.setId(nextId++);
+        return component;
+    }
+
+    private static Configuration configuration(Component... components) {
+        Configuration configuration = new Configuration("bench");
+        for (Component component : components) {
+            configuration.addComponent(component);
+        }
+        return configuration;
+    }
+
+    /** Копия реализации CompatibilityService до перехода на правила и слоты — точка отсчёта */
+    private static final class LegacyValidator {
+
+        static List<CompatibilityIssue> validate(Configuration configuration) {
+            List<CompatibilityIssue> issues = new ArrayList<>();
+            List<Component> components = configuration.getComponents();
+            issues.addAll(checkSocket(components));
+            issues.addAll(checkMemory(components));
+            issues.addAll(checkFormFactor(components));
+            issues.addAll(checkPowerSupply(components));
+            return issues;
+        }
+
+        static List<CompatibilityIssue> checkSocket(List<Component> components) {
+            List<CompatibilityIssue> issues = new ArrayList<>();
+            Component cpu = find(components, "Процессор");
+            Component motherboard = find(components, "Материнская плата");
+            if (cpu != null && motherboard != null && cpu.getSocket() != null && motherboard.getSocket() != null
+                    && !cpu.getSocket().equals(motherboard.getSocket())) {
+                issues.add(new CompatibilityIssue("SOCKET_MISMATCH",
+                    String.format("Несовместимость сокетов: Процессор %s (сокет %s) не подходит к материнской плате %s (сокет %s)",
+                        cpu.getName(), cpu.getSocket(), motherboard.getName(), motherboard.getSocket()), "ERROR"));
+            }
+            return issues;
+        }
+
+        static List<CompatibilityIssue> checkMemory(List<Component> components) {
+            List<CompatibilityIssue> issues = new ArrayList<>();
+            Component memory = find(components, "Оперативная память");
+            Component motherboard = find(components, "Материнская плата");
+            if (memory != null && motherboard != null && memory.getMemoryType() != null && motherboard.getMemoryType() != null
+                    && !memory.getMemoryType().equals(motherboard.getMemoryType())) {
+                issues.add(new CompatibilityIssue("MEMORY_MISMATCH",
+                    String.format("Несовместимость памяти: Оперативная память %s (%s) не поддерживается материнской платой %s (%s)",
+                        memory.getName(), memory.getMemoryType(), motherboard.getName(), motherboard.getMemoryType()), "ERROR"));
+            }
+            return issues;
+        }
+
+        static List<CompatibilityIssue> checkFormFactor(List<Component> components) {
+            List<CompatibilityIssue> issues = new ArrayList<>();
+            Component motherboard = find(components, "Материнская плата");
+            Component chassis = find(components, "Корпус");
+            if (motherboard != null && chassis != null
+                    && !CompatibilityRuleEngine.isFormFactorCompatible(motherboard.getFormFactor(), chassis.getFormFactor())) {
+                issues.add(new CompatibilityIssue("FORM_FACTOR_MISMATCH",
+                    String.format("Несовместимость форм-факторов: Материнская плата %s (%s) не помещается в корпус %s (%s)",
+                        motherboard.getName(), motherboard.getFormFactor(), chassis.getName(), chassis.getFormFactor()), "ERROR"));
+            }
+            return issues;
+        }
+
+        static List<CompatibilityIssue> checkPowerSupply(List<Component> components) {
+            List<CompatibilityIssue> issues = new ArrayList<>();
+            Component psu = find(components, "Блок питания");
+            if (psu == null) {
+                issues.add(new CompatibilityIssue("NO_PSU", "Отсутствует блок питания", "ERROR"));
+                return issues;
+            }
+            int totalPower = 100;
+            for (Component comp : components) {
+                if (comp.getPowerRequirements() > 0
+                        && (comp.getType().equals("Процессор") || comp.getType().equals("Видеокарта"))) {
+                    totalPower += comp.getPowerRequirements();
+                }
+            }
+            if (psu.getPowerRequirements() < totalPower) {
+                issues.add(new CompatibilityIssue("INSUFFICIENT_POWER",
+                    String.format("Недостаточная мощность БП: требуется %dW, а блок питания %s имеет %dW",
+                        totalPower, psu.getName(), psu.getPowerRequirements()), "ERROR"));
+            } else if (psu.getPowerRequirements() < totalPower + 100) {
+                issues.add(new CompatibilityIssue("LOW_POWER_MARGIN",
+                    String.format("Малая мощность БП: рекомендуется запас 100W+ (текущий запас: %dW)",
+                        psu.getPowerRequirements() - totalPower), "WARNING"));
+            }
+            return issues;
+        }
+
+        static Component find(List<Component> components, String type) {
+            return components.stream().filter(c -> c.getType().equals(type)).findFirst().orElse(null);
+        }
+    }
+}
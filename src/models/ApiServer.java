@@ -0,0 +1,453 @@
+package api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import models.CompatibilityIssue;
+import models.Component;
+import models.ComponentQuery;
+import models.ComponentSearchResult;
+import models.Configuration;
+import models.ConfigurationPage;
+import services.CompatibilityService;
+import services.ComponentSearchService;
+import services.ComponentService;
+import services.ConfigurationRevalidator;
+import services.ConfigurationService;
+import utils.LatencyHistogram;
+import utils.Metrics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HTTP/JSON-доступ к каталогу, конфигурациям и проверке совместимости, чтобы один
+ * узел обслуживал все терминалы магазина вместо отдельной копии приложения на каждом.
+ *
+ * <pre>
+ * GET  /api/health
+ * GET  /api/components?q=&amp;type=&amp;socket=&amp;memoryType=&amp;formFactor=&amp;minPrice=&amp;maxPrice=&amp;inStock=&amp;sort=&amp;offset=&amp;limit=
+ * GET  /api/components/suggest?prefix=&amp;limit=
+ * GET  /api/components/{id}
+ * GET  /api/configurations?offset=&amp;limit=
+ * POST /api/configurations   name=...&amp;ids=1,2,3
+ * POST /api/validate         ids=1,2,3
+ * </pre>
+ * Параметры принимаются в строке запроса или в теле application/x-www-form-urlencoded.
+ *
+ * Сервер — com.sun.net.httpserver из JDK. На JDK 21+ каждый запрос выполняется в своём
+ * виртуальном потоке: ожидание соединения из пула БД не занимает поток ОС, и тысячи
+ * одновременных запросов стоят лишь очереди за соединениями. На более ранних JDK
+ * используется ограниченный пул потоков. Длительность запросов по маршрутам попадает
+ * в Metrics.global() как операции "HTTP &lt;метод&gt; &lt;шаблон пути&gt;".
+ */
+public class ApiServer {
+    public static final int DEFAULT_PORT = 8080;
+    private static final int BACKLOG = 4096;
+    private static final int FALLBACK_THREADS = 64;
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final int MAX_PAGE_SIZE = 500;
+
+    /** Простаивающих keep-alive соединений, которые сервер держит открытыми */
+    private static final int MAX_IDLE_CONNECTIONS = 4096;
+
+    static {
+        // По умолчанию HttpServer держит не больше 200 простаивающих соединений и закрывает
+        // лишние; терминал, успевший отправить запрос в закрытое соединение, получает обрыв
+        if (System.getProperty("sun.net.httpserver.maxIdleConnections") == null) {
+            System.setProperty("sun.net.httpserver.maxIdleConnections", String.valueOf(MAX_IDLE_CONNECTIONS));
+        }
+    }
+
+    private static final LatencyHistogram UNMATCHED_LATENCY = Metrics.global().operation("HTTP (нет маршрута)");
+
+    private final ComponentService componentService;
+    private final ComponentSearchService searchService;
+    private final ConfigurationService configurationService;
+    private final CompatibilityService compatibilityService;
+    private final ConfigurationRevalidator revalidator;
+    private final List<Route> routes = new ArrayList<>();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /** Ошибка запроса, которая возвращается клиенту с кодом status */
+    static final class ApiError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        ApiError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    static ApiError badRequest(String message) {
+        return new ApiError(400, message);
+    }
+
+    private static final class Request {
+        final RequestParams params;
+        final int id;
+
+        Request(RequestParams params, int id) {
+            this.params = params;
+            this.id = id;
+        }
+    }
+
+    private static final class Response {
+        final int status;
+        final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Response handle(Request request);
+    }
+
+    /** Шаблон пути из сегментов; "{id}" совпадает с целым числом */
+    private static final class Route {
+        final String method;
+        final String[] segments;
+        final Handler handler;
+        final LatencyHistogram latency;
+
+        Route(String method, String template, Handler handler) {
+            this.method = method;
+            this.segments = split(template);
+            this.handler = handler;
+            this.latency = Metrics.global().operation("HTTP " + method + " " + template);
+        }
+
+        /** id из пути, 0 без {id}, или -1, если путь не подходит */
+        int match(String[] path) {
+            if (path.length != segments.length) return -1;
+            int id = 0;
+            for (int i = 0; i < path.length; i++) {
+                if (segments[i].equals("{id}")) {
+                    id = parseId(path[i]);
+                    if (id <= 0) return -1;
+                } else if (!segments[i].equals(path[i])) {
+                    return -1;
+                }
+            }
+            return id;
+        }
+    }
+
+    /**
+     * @param revalidator фоновая перепроверка, которая сохранит статус новых конфигураций; может быть null
+     */
+    public ApiServer(ComponentService componentService, ComponentSearchService searchService,
+                     ConfigurationService configurationService, CompatibilityService compatibilityService,
+                     ConfigurationRevalidator revalidator) {
+        this.componentService = componentService;
+        this.searchService = searchService;
+        this.configurationService = configurationService;
+        this.compatibilityService = compatibilityService;
+        this.revalidator = revalidator;
+
+        route("GET", "/api/health", request -> ok(new JsonWriter().beginObject().field("status", "UP").endObject()));
+        route("GET", "/api/components", this::searchComponents);
+        route("GET", "/api/components/suggest", this::suggestComponents);
+        route("GET", "/api/components/{id}", this::getComponent);
+        route("GET", "/api/configurations", this::listConfigurations);
+        route("POST", "/api/configurations", this::createConfiguration);
+        route("POST", "/api/validate", this::validate);
+    }
+
+    /** Запускает сервер; port 0 — любой свободный. Возвращает фактический порт */
+    public synchronized int start(int port) throws IOException {
+        if (server != null) throw new IllegalStateException("Сервер уже запущен");
+
+        server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/api/", this::dispatch);
+        server.start();
+        return server.getAddress().getPort();
+    }
+
+    /** Останавливает приём запросов и ждёт завершения начатых не дольше delaySeconds */
+    public synchronized void stop(int delaySeconds) {
+        if (server == null) return;
+        server.stop(delaySeconds);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(delaySeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        server = null;
+    }
+
+    /** Каким исполнителем обрабатываются запросы — для журнала запуска */
+    public static String describeExecutor() {
+        return supportsVirtualThreads() ? "виртуальные потоки" : "пул из " + FALLBACK_THREADS + " потоков";
+    }
+
+    /**
+     * Поток на запрос: виртуальный, если JDK их поддерживает (метод ищется через отражение,
+     * чтобы код собирался и на JDK 17), иначе ограниченный пул потоков-демонов.
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger counter = new AtomicInteger();
+            return Executors.newFixedThreadPool(FALLBACK_THREADS, r -> {
+                Thread thread = new Thread(r, "api-worker-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private static boolean supportsVirtualThreads() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private void route(String method, String template, Handler handler) {
+        routes.add(new Route(method, template, handler));
+    }
+
+    private void dispatch(HttpExchange exchange) {
+        long start = System.nanoTime();
+        LatencyHistogram latency = UNMATCHED_LATENCY;
+        try {
+            String[] path = split(exchange.getRequestURI().getPath());
+            String method = exchange.getRequestMethod().toUpperCase(Locale.ROOT);
+            Route route = null;
+            int id = -1;
+            List<String> allowed = new ArrayList<>();
+            for (Route candidate : routes) {
+                int match = candidate.match(path);
+                if (match < 0) continue;
+                allowed.add(candidate.method);
+                if (candidate.method.equals(method)) {
+                    route = candidate;
+                    id = match;
+                    break;
+                }
+            }
+
+            Response response;
+            if (route == null) {
+                if (allowed.isEmpty()) {
+                    response = error(404, "маршрут не найден");
+                } else {
+                    exchange.getResponseHeaders().set("Allow", String.join(", ", allowed));
+                    response = error(405, "метод не поддерживается");
+                }
+            } else {
+                latency = route.latency;
+                response = handle(exchange, route, id);
+            }
+            send(exchange, response);
+        } catch (IOException e) {
+            // Клиент закрыл соединение, не дождавшись ответа
+        } finally {
+            exchange.close();
+            latency.recordSince(start);
+        }
+    }
+
+    private Response handle(HttpExchange exchange, Route route, int id) throws IOException {
+        try {
+            RequestParams params = new RequestParams(exchange.getRequestURI().getRawQuery(), readForm(exchange));
+            return route.handler.handle(new Request(params, id));
+        } catch (ApiError e) {
+            return error(e.status, e.getMessage());
+        } catch (RuntimeException e) {
+            System.err.println("❌ Ошибка обработки запроса " + exchange.getRequestURI() + ": " + e);
+            return error(500, "внутренняя ошибка сервера");
+        }
+    }
+
+    private Response searchComponents(Request request) {
+        RequestParams params = request.params;
+        ComponentQuery query = new ComponentQuery(params.get("q"));
+        query.setType(params.get("type"));
+        query.setSocket(params.get("socket"));
+        query.setMemoryType(params.get("memoryType"));
+        query.setFormFactor(params.get("formFactor"));
+        query.setMinPrice(params.getMoney("minPrice"));
+        query.setMaxPrice(params.getMoney("maxPrice"));
+        query.setInStockOnly(params.getBoolean("inStock"));
+        query.setSort(parseSort(params.get("sort")));
+        query.setOffset(params.getInt("offset", 0, 0, Integer.MAX_VALUE));
+        query.setLimit(params.getInt("limit", query.getLimit(), 1, MAX_PAGE_SIZE));
+
+        ComponentSearchResult result = searchService.search(query);
+        return ok(new JsonWriter().beginObject()
+            .field("total", result.getTotal())
+            .field("offset", result.getOffset())
+            .field("hasMore", result.hasMore())
+            .components("items", result.getComponents())
+            .counts("typeCounts", result.getTypeCounts())
+            .endObject());
+    }
+
+    private Response suggestComponents(Request request) {
+        String prefix = request.params.get("prefix");
+        if (prefix == null) throw badRequest("не указан параметр prefix");
+        List<Component> components = searchService.suggest(prefix, request.params.getInt("limit", 10, 1, 50));
+        return ok(new JsonWriter().beginObject().components("items", components).endObject());
+    }
+
+    private Response getComponent(Request request) {
+        Component component = componentService.getComponentById(request.id);
+        if (component == null) throw new ApiError(404, "комплектующее " + request.id + " не найдено");
+        return ok(new JsonWriter().component(component));
+    }
+
+    private Response listConfigurations(Request request) {
+        int offset = request.params.getInt("offset", 0, 0, Integer.MAX_VALUE);
+        int limit = request.params.getInt("limit", 20, 1, MAX_PAGE_SIZE);
+        ConfigurationPage page = configurationService.getConfigurationsPage(offset, limit);
+        if (page == null) throw new ApiError(500, "не удалось прочитать конфигурации");
+
+        JsonWriter json = new JsonWriter().beginObject()
+            .field("offset", offset)
+            .field("hasMore", page.hasMore())
+            .beginArray("items");
+        for (Configuration configuration : page.getConfigurations()) {
+            json.configuration(configuration);
+        }
+        return ok(json.endArray().endObject());
+    }
+
+    private Response createConfiguration(Request request) {
+        String name = request.params.get("name");
+        if (name == null) throw badRequest("не указан параметр name");
+        List<Integer> ids = request.params.getIds("ids");
+        if (ids.isEmpty()) throw badRequest("не выбрано ни одного комплектующего");
+
+        // Проверка до записи: конфигурация с хотя бы одним несуществующим id не сохраняется
+        Map<Integer, Component> found = componentService.getComponentsByIds(ids);
+        Set<Integer> unknown = new TreeSet<>();
+        Configuration draft = new Configuration(name);
+        for (int id : ids) {
+            Component component = found.get(id);
+            if (component == null) {
+                unknown.add(id);
+            } else {
+                draft.addComponent(component);
+            }
+        }
+        if (!unknown.isEmpty()) throw badRequest("не найдены комплектующие " + unknown);
+
+        Configuration configuration = configurationService.saveConfiguration(draft);
+        if (configuration == null) throw new ApiError(500, "не удалось сохранить конфигурацию");
+
+        List<CompatibilityIssue> issues = compatibilityService.validateConfiguration(configuration);
+        configuration.setCompatibilityStatus(CompatibilityService.statusOf(issues));
+        if (revalidator != null) {
+            revalidator.requestRevalidation(new int[] {configuration.getId()});
+        }
+        return new Response(201, new JsonWriter().beginObject()
+            .field("id", configuration.getId())
+            .field("name", configuration.getName())
+            .money("totalPrice", configuration.getTotalPrice())
+            .field("status", configuration.getCompatibilityStatus())
+            .components("components", configuration.getComponents())
+            .issues("issues", issues)
+            .endObject().toString());
+    }
+
+    private Response validate(Request request) {
+        List<Integer> ids = request.params.getIds("ids");
+        List<Component> components = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            Component component = componentService.getComponentById(id);
+            if (component == null) throw badRequest("комплектующее " + id + " не найдено");
+            components.add(component);
+        }
+
+        List<CompatibilityIssue> issues = compatibilityService.validateComponents(components);
+        return ok(new JsonWriter().beginObject()
+            .field("status", CompatibilityService.statusOf(issues))
+            .issues("issues", issues)
+            .endObject());
+    }
+
+    private static ComponentQuery.Sort parseSort(String value) {
+        if (value == null) return ComponentQuery.Sort.RELEVANCE;
+        try {
+            return ComponentQuery.Sort.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw badRequest("sort: relevance, price_asc или price_desc");
+        }
+    }
+
+    /** Тело формы; тело других типов не принимается, пустое тело — не ошибка */
+    private static String readForm(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (body.length == 0) return null;
+            if (body.length > MAX_BODY_BYTES) throw new ApiError(413, "тело запроса больше " + MAX_BODY_BYTES + " байт");
+
+            String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+            if (contentType != null && !contentType.startsWith("application/x-www-form-urlencoded")) {
+                throw new ApiError(415, "ожидается application/x-www-form-urlencoded");
+            }
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Response ok(JsonWriter json) {
+        return new Response(200, json.toString());
+    }
+
+    private static Response error(int status, String message) {
+        return new Response(status, new JsonWriter().beginObject()
+            .field("status", status)
+            .field("error", message)
+            .endObject().toString());
+    }
+
+    private static void send(HttpExchange exchange, Response response) throws IOException {
+        byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(response.status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String[] split(String path) {
+        String trimmed = path.replaceAll("^/+|/+$", "");
+        return trimmed.isEmpty() ? new String[0] : trimmed.split("/+");
+    }
+
+    private static int parseId(String segment) {
+        try {
+            return Integer.parseInt(segment);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package models;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Словарь значений атрибута комплектующего (сокет, тип памяти, форм-фактор).
+ * Каждое значение получает небольшой целочисленный код и хранится в одном экземпляре,
+ * поэтому Component держит только код, а сравнение значений — это сравнение чисел.
+ * Код 0 означает «не указано».
+ */
+public class AttributeDictionary {
+    public static final AttributeDictionary SOCKETS = new AttributeDictionary("socket");
+    public static final AttributeDictionary MEMORY_TYPES = new AttributeDictionary("memory_type");
+    public static final AttributeDictionary FORM_FACTORS = new AttributeDictionary("form_factor",
+            "ATX", "E-ATX", "Micro-ATX", "Mini-ITX");
+
+    /** Коды форм-факторов, закреплённые порядком регистрации выше */
+    public static final int FF_ATX = 1;
+    public static final int FF_E_ATX = 2;
+    public static final int FF_MICRO_ATX = 3;
+    public static final int FF_MINI_ITX = 4;
+
+    private final String attribute;
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[16];
+    private int size = 1;
+
+    private AttributeDictionary(String attribute, String... predefined) {
+        this.attribute = attribute;
+        for (String value : predefined) {
+            code(value);
+        }
+    }
+
+    public String getAttribute() { return attribute; }
+
+    /** Код значения; новое значение регистрируется */
+    public int code(String value) {
+        if (value == null) return 0;
+        Integer code = codes.get(value);
+        if (code != null) return code;
+
+        String normalized = value.trim();
+        if (normalized.isEmpty()) return 0;
+        return register(value, normalized);
+    }
+
+    /** Код значения без регистрации; -1, если значение не встречалось */
+    public int find(String value) {
+        if (value == null || value.isBlank()) return 0;
+        Integer code = codes.get(value.trim());
+        return code != null ? code : -1;
+    }
+
+    public String value(int code) {
+        return code > 0 ? values[code] : null;
+    }
+
+    public int size() {
+        return size - 1;
+    }
+
+    private synchronized int register(String raw, String normalized) {
+        Integer code = codes.get(normalized);
+        if (code == null) {
+            code = size;
+            String[] table = values;
+            if (code == table.length) {
+                table = Arrays.copyOf(table, table.length * 2);
+            }
+            table[code] = normalized;
+            values = table;
+            size++;
+            codes.put(normalized, code);
+        }
+        if (!raw.equals(normalized)) {
+            codes.putIfAbsent(raw, code);
+        }
+        return code;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AttributeDictionary{attribute='%s', values=%d}", attribute, size());
+    }
+}
@@ -0,0 +1,137 @@
+package benchmarks;
+
+import database.DatabaseManager;
+import database.SchemaInitializer;
+import utils.Money;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Общие утилиты для консольных бенчмарков и замеров JMH
+ */
+public class BenchmarkSupport {
+    private static final String[] TYPES = {
+        "Процессор", "Материнская плата", "Оперативная память", "Видеокарта", "Накопитель", "Блок питания", "Корпус"
+    };
+    private static final String[][] PLATFORMS = { { "LGA1700", "DDR5" }, { "AM5", "DDR5" }, { "AM4", "DDR4" } };
+    private static final String[] FORM_FACTORS = { "ATX", "Micro-ATX", "Mini-ITX" };
+
+    private BenchmarkSupport() {}
+
+    /** Создаёт временную базу SQLite со схемой приложения */
+    public static DatabaseManager openTempDatabase(String prefix) {
+        try {
+            File file = File.createTempFile(prefix, ".db");
+            file.deleteOnExit();
+            DatabaseManager dbManager = new DatabaseManager("jdbc:sqlite:" + file.getAbsolutePath());
+            new SchemaInitializer(dbManager);
+            return dbManager;
+        } catch (IOException e) {
+            throw new IllegalStateException("Не удалось создать временную базу данных", e);
+        }
+    }
+
+    /** Размеры прогонов из аргументов командной строки либо значения по умолчанию */
+    public static int[] parseSizes(String[] args, int... defaults) {
+        if (args.length == 0) return defaults;
+        int[] sizes = new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i].replace("_", ""));
+        }
+        return sizes;
+    }
+
+    /** Лучшее время из нескольких прогонов после прогрева, в миллисекундах */
+    public static <T> double bestOfMillis(int warmups, int runs, Supplier<T> body) {
+        for (int i = 0; i < warmups; i++) {
+            body.get();
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            body.get();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1_000_000.0;
+    }
+
+    /** Байты, выделенные текущим потоком с его запуска */
+    public static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    /** Каталог из size комплектующих всех основных типов и size / 10 конфигураций */
+    public static void seed(DatabaseManager dbManager, int size) throws SQLException {
+        Random random = new Random(42);
+        Connection conn = dbManager.getConnection();
+        conn.setAutoCommit(false);
+        try (PreparedStatement component = conn.prepareStatement("""
+                INSERT INTO components (name, type, price, quantity, specifications, socket, memory_type,
+                                        form_factor, power_requirements, max_memory)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                """);
+             PreparedStatement config = conn.prepareStatement(
+                "INSERT INTO configurations (id, name, total_price) VALUES (?, ?, 0)");
+             PreparedStatement item = conn.prepareStatement(
+                "INSERT INTO configuration_items (config_id, component_id, quantity) VALUES (?, ?, 1)")) {
+
+            for (int i = 0; i < size; i++) {
+                String type = TYPES[i % TYPES.length];
+                String[] platform = PLATFORMS[random.nextInt(PLATFORMS.length)];
+                component.setString(1, type + " " + i);
+                component.setString(2, type);
+                component.setLong(3, (1000 + random.nextInt(100_000)) * Money.KOPECKS_PER_RUBLE);
+                component.setInt(4, random.nextInt(50));
+                component.setString(5, "Синтетическая позиция для замеров");
+                component.setString(6, platform[0]);
+                component.setString(7, platform[1]);
+                component.setString(8, FORM_FACTORS[random.nextInt(FORM_FACTORS.length)]);
+                component.setInt(9, type.equals("Блок питания") ? 450 + 50 * random.nextInt(12) : random.nextInt(300));
+                component.setInt(10, 64 + 64 * random.nextInt(3));
+                component.addBatch();
+            }
+            component.executeBatch();
+
+            int configurations = Math.max(1, size / 10);
+            for (int id = 1; id <= configurations; id++) {
+                config.setInt(1, id);
+                config.setString(2, "Сборка " + id);
+                config.addBatch();
+                // Позиции по одной каждого типа: id i относится к типу TYPES[(i - 1) % TYPES.length]
+                for (int t = 0; t < TYPES.length && t < size; t++) {
+                    int block = random.nextInt(Math.max(1, size / TYPES.length));
+                    item.setInt(1, id);
+                    item.setInt(2, Math.min(size, block * TYPES.length + t + 1));
+                    item.addBatch();
+                }
+            }
+            config.executeBatch();
+            item.executeBatch();
+            conn.commit();
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /** Параметры вида --имя=значение */
+    public static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Ожидался параметр вида --имя=значение: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+}
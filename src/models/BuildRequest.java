@@ -0,0 +1,60 @@
+package models;
+
+import utils.Money;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Параметры подбора сборки: бюджет, обязательные типы, закреплённые комплектующие
+ */
+public class BuildRequest {
+    /** Критерий ранжирования найденных сборок */
+    public enum Objective {
+        /** Самые дешёвые сборки */
+        CHEAPEST,
+        /** Сборки, максимально использующие бюджет (цена — единственная доступная оценка качества) */
+        BEST_VALUE
+    }
+
+    /** Бюджет в копейках */
+    private long budget;
+    private List<ComponentType> requiredTypes = new ArrayList<>();
+    private List<Integer> pinnedComponentIds = new ArrayList<>();
+    private int limit = 5;
+    private Objective objective = Objective.CHEAPEST;
+
+    public BuildRequest() {}
+
+    public BuildRequest(long budget, List<ComponentType> requiredTypes) {
+        this.budget = budget;
+        this.requiredTypes = new ArrayList<>(requiredTypes);
+    }
+
+    // Getters and Setters
+    public long getBudget() { return budget; }
+    public void setBudget(long budget) { this.budget = budget; }
+
+    public List<ComponentType> getRequiredTypes() { return requiredTypes; }
+    public void setRequiredTypes(List<ComponentType> requiredTypes) { this.requiredTypes = requiredTypes; }
+
+    public List<Integer> getPinnedComponentIds() { return pinnedComponentIds; }
+    public void setPinnedComponentIds(List<Integer> pinnedComponentIds) { this.pinnedComponentIds = pinnedComponentIds; }
+
+    public void pin(int componentId) {
+        this.pinnedComponentIds.add(componentId);
+    }
+
+    /** Сколько лучших сборок вернуть */
+    public int getLimit() { return limit; }
+    public void setLimit(int limit) { this.limit = limit; }
+
+    public Objective getObjective() { return objective; }
+    public void setObjective(Objective objective) { this.objective = objective; }
+
+    @Override
+    public String toString() {
+        return String.format("BuildRequest{budget=%s, types=%s, pinned=%s, limit=%d, objective=%s}",
+                Money.toPlainString(budget), requiredTypes, pinnedComponentIds, limit, objective);
+    }
+}
@@ -0,0 +1,38 @@
+package models;
+
+import java.util.List;
+
+/**
+ * Результат подбора сборок: найденные конфигурации в порядке убывания качества
+ * и статистика перебора
+ */
+public class BuildSearchResult {
+    private List<Configuration> builds;
+    private long visitedNodes;
+    private long elapsedNanos;
+    private boolean complete;
+
+    public BuildSearchResult(List<Configuration> builds, long visitedNodes, long elapsedNanos, boolean complete) {
+        this.builds = builds;
+        this.visitedNodes = visitedNodes;
+        this.elapsedNanos = elapsedNanos;
+        this.complete = complete;
+    }
+
+    // Getters
+    public List<Configuration> getBuilds() { return builds; }
+
+    /** Число рассмотренных вариантов выбора комплектующего */
+    public long getVisitedNodes() { return visitedNodes; }
+
+    public double getElapsedMillis() { return elapsedNanos / 1_000_000.0; }
+
+    /** false, если перебор остановлен по лимиту узлов и результат может быть не оптимальным */
+    public boolean isComplete() { return complete; }
+
+    @Override
+    public String toString() {
+        return String.format("BuildSearchResult{builds=%d, visitedNodes=%d, elapsed=%.2fms, complete=%b}",
+                builds.size(), visitedNodes, getElapsedMillis(), complete);
+    }
+}
@@ -0,0 +1,433 @@
+package services;
+
+import models.BuildRequest;
+import models.BuildSearchResult;
+import models.Component;
+import models.ComponentType;
+import models.Configuration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Подбор совместимых сборок под бюджет.
+ * Типы перебираются в порядке распространения ограничений: процессор → материнская плата
+ * (по сокету) → память (по типу памяти) → корпус (по форм-фактору) → остальные → блок питания
+ * (по суммарной мощности). Кандидаты уровня заранее сужаются пересечением множеств
+ * CompatibilityMatrix для уже выбранных связанных правилами комплектующих и отсортированы
+ * по цене, поэтому ветви отсекаются по нижней/верхней оценке стоимости (ветви и границы),
+ * а не перебором декартова произведения.
+ */
+public class BuildSolver {
+    /** Состав сборки по умолчанию */
+    public static final List<ComponentType> DEFAULT_TYPES = List.of(
+        ComponentType.PROCESSOR, ComponentType.MOTHERBOARD, ComponentType.MEMORY,
+        ComponentType.STORAGE, ComponentType.CASE, ComponentType.POWER_SUPPLY);
+
+    private static final List<ComponentType> SEARCH_ORDER = List.of(
+        ComponentType.PROCESSOR, ComponentType.MOTHERBOARD, ComponentType.MEMORY, ComponentType.CASE,
+        ComponentType.GPU, ComponentType.COOLER, ComponentType.STORAGE, ComponentType.POWER_SUPPLY);
+
+    /** Предел числа рассмотренных узлов, после которого возвращается лучшее из найденного */
+    public static final long DEFAULT_NODE_LIMIT = 5_000_000;
+
+    private final ComponentCatalogCache catalog;
+    private final CompatibilityService compatibilityService;
+    private final CompatibilityMatrix matrix;
+    /** Матрица без подписки на изменения каталога перестраивается вместе с индексом */
+    private final boolean rebuildMatrix;
+    private volatile CatalogIndex index;
+    private long nodeLimit = DEFAULT_NODE_LIMIT;
+
+    public BuildSolver(ComponentService componentService, CompatibilityService compatibilityService) {
+        this(componentService.getCache(), compatibilityService,
+             new CompatibilityMatrix(componentService.getCache(), compatibilityService.getRuleEngine()), false);
+        componentService.addListener(matrix);
+    }
+
+    public BuildSolver(ComponentCatalogCache catalog, CompatibilityService compatibilityService) {
+        this(catalog, compatibilityService, new CompatibilityMatrix(catalog, compatibilityService.getRuleEngine()), true);
+    }
+
+    /** Решатель с общей матрицей, которую вызывающий держит подписанной на изменения каталога */
+    public BuildSolver(ComponentCatalogCache catalog, CompatibilityService compatibilityService,
+                       CompatibilityMatrix matrix) {
+        this(catalog, compatibilityService, matrix, false);
+    }
+
+    private BuildSolver(ComponentCatalogCache catalog, CompatibilityService compatibilityService,
+                        CompatibilityMatrix matrix, boolean rebuildMatrix) {
+        this.catalog = catalog;
+        this.compatibilityService = compatibilityService;
+        this.matrix = matrix;
+        this.rebuildMatrix = rebuildMatrix;
+    }
+
+    public CompatibilityMatrix getMatrix() {
+        return matrix;
+    }
+
+    public void setNodeLimit(long nodeLimit) {
+        this.nodeLimit = nodeLimit;
+    }
+
+    public BuildSearchResult solve(BuildRequest request) {
+        long start = System.nanoTime();
+        if (request.getBudget() <= 0 || request.getLimit() <= 0) {
+            System.err.println("❌ Некорректные параметры подбора: " + request);
+            return new BuildSearchResult(new ArrayList<>(), 0, System.nanoTime() - start, true);
+        }
+
+        // Закреплённые комплектующие: по одному на тип, типы вне перечисления идут в сборку как есть
+        Map<ComponentType, Component> pinned = new EnumMap<>(ComponentType.class);
+        List<Component> extras = new ArrayList<>();
+        for (int id : request.getPinnedComponentIds()) {
+            Component component = catalog.get(id);
+            if (component == null) {
+                System.err.println("❌ Закреплённое комплектующее не найдено: " + id);
+                return new BuildSearchResult(new ArrayList<>(), 0, System.nanoTime() - start, true);
+            }
+            if (component.getComponentType() == ComponentType.OTHER) {
+                extras.add(component);
+            } else if (pinned.putIfAbsent(component.getComponentType(), component) != null) {
+                System.err.println("❌ Закреплено несколько комплектующих типа " + component.getType());
+                return new BuildSearchResult(new ArrayList<>(), 0, System.nanoTime() - start, true);
+            }
+        }
+
+        // Без блока питания сборка не проходит проверку совместимости
+        Set<ComponentType> types = new LinkedHashSet<>(request.getRequiredTypes());
+        types.addAll(pinned.keySet());
+        types.add(ComponentType.POWER_SUPPLY);
+
+        long extrasPrice = 0;
+        for (Component extra : extras) {
+            extrasPrice += extra.getPrice();
+        }
+
+        CatalogIndex catalogIndex = index();
+        List<Level> levels = new ArrayList<>();
+        for (ComponentType type : SEARCH_ORDER) {
+            if (!types.contains(type)) continue;
+
+            Component fixed = pinned.get(type);
+            TypeIndex candidates = fixed != null ? new TypeIndex(new Component[] { fixed }) : catalogIndex.get(type);
+            Level level = new Level(type, candidates, parentsOf(type, levels), request.getBudget() - extrasPrice);
+            if (level.isEmpty()) {
+                return new BuildSearchResult(new ArrayList<>(), 0, System.nanoTime() - start, true);
+            }
+            levels.add(level);
+        }
+
+        Search search = new Search(levels.toArray(new Level[0]), request, compatibilityService.getRuleEngine().snapshot());
+        search.run(extrasPrice);
+
+        List<Configuration> builds = new ArrayList<>();
+        for (Component[] build : search.results()) {
+            Configuration configuration = toConfiguration("Сборка #" + (builds.size() + 1), build, extras);
+            if (configuration != null) {
+                builds.add(configuration);
+            }
+        }
+        return new BuildSearchResult(builds, search.nodes, System.nanoTime() - start, !search.truncated);
+    }
+
+    /** Слоты предыдущих уровней, связанные с типом правилами совместимости */
+    private int[] parentsOf(ComponentType type, List<Level> previous) {
+        return previous.stream()
+            .filter(level -> matrix.isRelated(level.type, type))
+            .mapToInt(level -> level.slot)
+            .toArray();
+    }
+
+    /**
+     * Индекс каталога, перестраиваемый только после изменения кэша или матрицы:
+     * сохранённые в индексе выборки кандидатов зависят от обоих.
+     */
+    private CatalogIndex index() {
+        long version = catalog.getModificationCount();
+        CatalogIndex current = index;
+        if (current == null || current.version != version || current.matrixVersion != matrix.getVersion()) {
+            if (rebuildMatrix && current != null && current.version != version) {
+                matrix.rebuild();
+            }
+            current = new CatalogIndex(version, matrix.getVersion(), catalog.getAll());
+            index = current;
+        }
+        return current;
+    }
+
+    /** Итоговая проверка сервисом совместимости; сборки с ошибками отбрасываются */
+    private Configuration toConfiguration(String name, Component[] build, List<Component> extras) {
+        Configuration configuration = new Configuration(name);
+        for (Component component : build) {
+            configuration.addComponent(component);
+        }
+        for (Component extra : extras) {
+            configuration.addComponent(extra);
+        }
+
+        String status = CompatibilityService.statusOf(compatibilityService.validateConfiguration(configuration));
+        if (Configuration.STATUS_INCOMPATIBLE.equals(status)) return null;
+
+        configuration.setCompatibilityStatus(status);
+        return configuration;
+    }
+
+    /** Комплектующие в наличии, разложенные по типам и отсортированные по цене */
+    private static final class CatalogIndex {
+        final long version;
+        final long matrixVersion;
+        final Map<ComponentType, TypeIndex> byType = new EnumMap<>(ComponentType.class);
+
+        CatalogIndex(long version, long matrixVersion, List<Component> components) {
+            this.version = version;
+            this.matrixVersion = matrixVersion;
+            Map<ComponentType, List<Component>> grouped = new EnumMap<>(ComponentType.class);
+            for (Component component : components) {
+                if (component.getQuantity() > 0 && component.getComponentType() != ComponentType.OTHER) {
+                    grouped.computeIfAbsent(component.getComponentType(), t -> new ArrayList<>()).add(component);
+                }
+            }
+            grouped.forEach((type, list) -> byType.put(type, new TypeIndex(list.toArray(new Component[0]))));
+        }
+
+        TypeIndex get(ComponentType type) {
+            TypeIndex typeIndex = byType.get(type);
+            return typeIndex != null ? typeIndex : new TypeIndex(new Component[0]);
+        }
+    }
+
+    /**
+     * Кандидаты одного типа по возрастанию цены и их выборки, совместимые с выбранными
+     * родителями. Выборка зависит только от групп матрицы у родителей, поэтому сохраняется
+     * по их номерам и переиспользуется между узлами и запросами.
+     */
+    private static final class TypeIndex {
+        /** Номер группы занимает 16 бит ключа выборки */
+        private static final int MAX_KEYED_PARENTS = 4;
+
+        final Component[] byPrice;
+        final BitSet ids = new BitSet();
+        private final Map<Long, Component[]> byParentGroups = new ConcurrentHashMap<>();
+
+        TypeIndex(Component[] components) {
+            Arrays.sort(components, Comparator.comparingLong(Component::getPrice));
+            this.byPrice = components;
+            for (Component component : components) {
+                ids.set(component.getId());
+            }
+        }
+
+        Component[] compatibleWith(CompatibilityMatrix matrix, ComponentType type, Component[] parents) {
+            long key = 0;
+            boolean keyed = parents.length <= MAX_KEYED_PARENTS;
+            for (int i = 0; keyed && i < parents.length; i++) {
+                int group = matrix.groupOf(parents[i].getId());
+                keyed = group >= 0 && group < 0xFFFF;
+                key = key << 16 | (group + 1);
+            }
+            return keyed
+                ? byParentGroups.computeIfAbsent(key, k -> select(matrix, type, parents))
+                : select(matrix, type, parents);
+        }
+
+        /** Пересечение множеств совместимых партнёров всех родителей, в порядке цены */
+        private Component[] select(CompatibilityMatrix matrix, ComponentType type, Component[] parents) {
+            BitSet allowed = (BitSet) ids.clone();
+            for (Component parent : parents) {
+                matrix.retainCompatible(allowed, parent.getId(), type);
+            }
+            int count = allowed.cardinality();
+            if (count == byPrice.length) return byPrice;
+
+            Component[] selected = new Component[count];
+            int n = 0;
+            for (Component candidate : byPrice) {
+                if (allowed.get(candidate.getId())) selected[n++] = candidate;
+            }
+            return selected;
+        }
+    }
+
+    /** Уровень перебора: тип комплектующего и оценки цены его кандидатов в пределах бюджета */
+    private static final class Level {
+        final ComponentType type;
+        final int slot;
+        final TypeIndex candidates;
+        /** Слоты выбранных ранее уровней, с которыми тип связан правилами */
+        final int[] parentSlots;
+        final long minPrice;
+        final long maxPrice;
+        final boolean affordable;
+
+        Level(ComponentType type, TypeIndex candidates, int[] parentSlots, long budget) {
+            this.type = type;
+            this.slot = type.ordinal();
+            this.candidates = candidates;
+            this.parentSlots = parentSlots;
+            Component[] all = candidates.byPrice;
+            int last = lastAffordable(all, budget);
+            this.affordable = last >= 0;
+            this.minPrice = last >= 0 ? all[0].getPrice() : 0;
+            this.maxPrice = last >= 0 ? all[last].getPrice() : 0;
+        }
+
+        boolean isEmpty() {
+            return !affordable;
+        }
+
+        Component[] candidatesFor(Component[] slots, CompatibilityMatrix matrix) {
+            if (parentSlots.length == 0) return candidates.byPrice;
+            Component[] parents = new Component[parentSlots.length];
+            for (int i = 0; i < parents.length; i++) {
+                parents[i] = slots[parentSlots[i]];
+            }
+            return candidates.compatibleWith(matrix, type, parents);
+        }
+    }
+
+    /** Индекс последнего кандидата с ценой не выше maxPrice или -1 */
+    private static int lastAffordable(Component[] candidates, long maxPrice) {
+        int low = 0;
+        int high = candidates.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (candidates[mid].getPrice() <= maxPrice) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    /** Состояние одного поиска в глубину */
+    private final class Search {
+        final Level[] levels;
+        final long budget;
+        final int limit;
+        final boolean cheapest;
+        final CompatibilityRuleEngine.Snapshot rules;
+        final Component[] slots;
+        final long[] restMin;
+        final long[] restMax;
+        /** Худшая из лучших сборок наверху кучи */
+        final PriorityQueue<Candidate> best;
+        long nodes;
+        boolean truncated;
+
+        Search(Level[] levels, BuildRequest request, CompatibilityRuleEngine.Snapshot rules) {
+            this.levels = levels;
+            this.budget = request.getBudget();
+            this.limit = request.getLimit();
+            this.cheapest = request.getObjective() == BuildRequest.Objective.CHEAPEST;
+            this.rules = rules;
+            this.slots = new Component[rules.slotCount()];
+            this.restMin = new long[levels.length + 1];
+            this.restMax = new long[levels.length + 1];
+            for (int depth = levels.length - 1; depth >= 0; depth--) {
+                restMin[depth] = restMin[depth + 1] + levels[depth].minPrice;
+                restMax[depth] = restMax[depth + 1] + levels[depth].maxPrice;
+            }
+            Comparator<Candidate> byPrice = Comparator.comparingLong(c -> c.total);
+            this.best = new PriorityQueue<>(limit + 1, cheapest ? byPrice.reversed() : byPrice);
+        }
+
+        void run(long basePrice) {
+            if (basePrice + restMin[0] <= budget) {
+                descend(0, basePrice, 0);
+            }
+        }
+
+        /** Сборки от лучшей к худшей */
+        List<Component[]> results() {
+            List<Candidate> sorted = new ArrayList<>(best);
+            sorted.sort(best.comparator().reversed());
+            List<Component[]> result = new ArrayList<>(sorted.size());
+            for (Candidate candidate : sorted) {
+                result.add(candidate.components);
+            }
+            return result;
+        }
+
+        private void descend(int depth, long partial, int power) {
+            if (depth == levels.length) {
+                record(partial);
+                return;
+            }
+
+            Level level = levels[depth];
+            Component[] candidates = level.candidatesFor(slots, matrix);
+            long rest = restMin[depth + 1];
+
+            if (cheapest) {
+                for (Component candidate : candidates) {
+                    long total = partial + candidate.getPrice();
+                    if (total + rest > budget) break;
+                    if (best.size() == limit && total + rest >= best.peek().total) break;
+                    if (!visit(depth, level, candidate, total, power)) return;
+                }
+            } else {
+                for (int i = lastAffordable(candidates, budget - partial - rest); i >= 0; i--) {
+                    Component candidate = candidates[i];
+                    long total = partial + candidate.getPrice();
+                    if (best.size() == limit && Math.min(budget, total + restMax[depth + 1]) <= best.peek().total) break;
+                    if (!visit(depth, level, candidate, total, power)) return;
+                }
+            }
+        }
+
+        /** @return false, если исчерпан лимит узлов */
+        private boolean visit(int depth, Level level, Component candidate, long total, int power) {
+            if (++nodes > nodeLimit) {
+                truncated = true;
+                return false;
+            }
+
+            int consumed = power;
+            if (level.type == ComponentType.PROCESSOR || level.type == ComponentType.GPU) {
+                consumed += Math.max(candidate.getPowerRequirements(), 0);
+            } else if (level.type == ComponentType.POWER_SUPPLY
+                    && candidate.getPowerRequirements() < consumed + CompatibilityService.POWER_RESERVE) {
+                return true;
+            }
+
+            // Попарные правила уже учтены отбором кандидатов по матрице
+            slots[level.slot] = candidate;
+            descend(depth + 1, total, consumed);
+            slots[level.slot] = null;
+            return !truncated;
+        }
+
+        private void record(long total) {
+            Component[] components = new Component[levels.length];
+            for (int i = 0; i < levels.length; i++) {
+                components[i] = slots[levels[i].slot];
+            }
+            best.add(new Candidate(total, components));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+    }
+
+    private static final class Candidate {
+        final long total;
+        final Component[] components;
+
+        Candidate(long total, Component[] components) {
+            this.total = total;
+            this.components = components;
+        }
+    }
+}
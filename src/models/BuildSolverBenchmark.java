@@ -0,0 +1,110 @@
+package benchmarks;
+
+import models.BuildRequest;
+import models.BuildSearchResult;
+import models.CompatibilityRule;
+import models.Component;
+import models.ComponentType;
+import services.BuildSolver;
+import services.CompatibilityService;
+import services.ComponentCatalogCache;
+import utils.Money;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Время подбора сборок на синтетическом каталоге с заданным числом позиций в каждой категории.
+ * Запуск: java benchmarks.BuildSolverBenchmark [позиций в категории...], по умолчанию 1000 5000.
+ */
+public class BuildSolverBenchmark {
+    private static final String[][] PLATFORMS = {
+        { "LGA1700", "DDR5" }, { "LGA1700", "DDR4" }, { "AM5", "DDR5" }, { "AM4", "DDR4" }, { "LGA1851", "DDR5" }
+    };
+    private static final String[] FORM_FACTORS = { "ATX", "Micro-ATX", "Mini-ITX", "E-ATX" };
+
+    public static void main(String[] args) {
+        int[] sizes = BenchmarkSupport.parseSizes(args, 1_000, 5_000);
+        CompatibilityService compatibilityService = new CompatibilityService(CompatibilityRule.defaults());
+
+        System.out.printf("%-10s %-34s %-10s %-12s %-8s %s%n",
+                "Позиций", "Запрос", "Мс", "Узлов", "Сборок", "Полный");
+        for (int size : sizes) {
+            ComponentCatalogCache catalog = catalog(size);
+            BuildSolver solver = new BuildSolver(catalog, compatibilityService);
+            int pinnedCpu = catalog.getByType(ComponentType.PROCESSOR.getDisplayName()).get(size / 2).getId();
+
+            List<ComponentType> gaming = new ArrayList<>(BuildSolver.DEFAULT_TYPES);
+            gaming.add(ComponentType.GPU);
+
+            report(size, "дешёвые, базовый состав", solver, request(150_000, BuildSolver.DEFAULT_TYPES,
+                    BuildRequest.Objective.CHEAPEST, 0));
+            report(size, "дешёвые, с видеокартой", solver, request(250_000, gaming,
+                    BuildRequest.Objective.CHEAPEST, 0));
+            report(size, "дешёвые, закреплён процессор", solver, request(250_000, gaming,
+                    BuildRequest.Objective.CHEAPEST, pinnedCpu));
+            report(size, "в бюджет, с видеокартой", solver, request(150_000, gaming,
+                    BuildRequest.Objective.BEST_VALUE, 0));
+        }
+    }
+
+    private static BuildRequest request(long rubles, List<ComponentType> types, BuildRequest.Objective objective,
+                                        int pinnedId) {
+        BuildRequest request = new BuildRequest(rubles * Money.KOPECKS_PER_RUBLE, types);
+        request.setObjective(objective);
+        request.setLimit(10);
+        if (pinnedId > 0) {
+            request.pin(pinnedId);
+        }
+        return request;
+    }
+
+    private static void report(int size, String label, BuildSolver solver, BuildRequest request) {
+        BuildSearchResult[] last = new BuildSearchResult[1];
+        double millis = BenchmarkSupport.bestOfMillis(3, 5, () -> last[0] = solver.solve(request));
+        BuildSearchResult result = last[0];
+        System.out.printf("%-10d %-34s %-10.2f %-12d %-8d %s%n", size, label, millis,
+                result.getVisitedNodes(), result.getBuilds().size(), result.isComplete() ? "да" : "нет");
+    }
+
+    /** Каталог с равномерно распределёнными платформами, форм-факторами и ценами */
+    private static ComponentCatalogCache catalog(int perType) {
+        Random random = new Random(42);
+        ComponentCatalogCache catalog = new ComponentCatalogCache();
+        int[] nextId = { 1 };
+
+        for (int i = 0; i < perType; i++) {
+            String[] platform = PLATFORMS[random.nextInt(PLATFORMS.length)];
+            String formFactor = FORM_FACTORS[random.nextInt(FORM_FACTORS.length)];
+
+            add(catalog, nextId, "CPU " + i, "Процессор", price(random, 8_000, 90_000),
+                    platform[0], null, null, 65 + random.nextInt(190));
+            add(catalog, nextId, "Board " + i, "Материнская плата", price(random, 6_000, 60_000),
+                    platform[0], platform[1], formFactor, 0);
+            add(catalog, nextId, "RAM " + i, "Оперативная память", price(random, 3_000, 40_000),
+                    null, PLATFORMS[random.nextInt(PLATFORMS.length)][1], null, 0);
+            add(catalog, nextId, "GPU " + i, "Видеокарта", price(random, 15_000, 250_000),
+                    null, null, null, 75 + random.nextInt(400));
+            add(catalog, nextId, "SSD " + i, "Накопитель", price(random, 3_000, 35_000), null, null, null, 0);
+            add(catalog, nextId, "Case " + i, "Корпус", price(random, 3_000, 30_000),
+                    null, null, FORM_FACTORS[random.nextInt(FORM_FACTORS.length)], 0);
+            add(catalog, nextId, "PSU " + i, "Блок питания", price(random, 4_000, 35_000),
+                    null, null, null, 400 + 50 * random.nextInt(17));
+        }
+        return catalog;
+    }
+
+    /** Цена в копейках между min и max рублей */
+    private static long price(Random random, int min, int max) {
+        return (min + random.nextInt(max - min)) * Money.KOPECKS_PER_RUBLE + random.nextInt(100);
+    }
+
+    private static void add(ComponentCatalogCache catalog, int[] nextId, String name, String type, long price,
+                            String socket, String memoryType, String formFactor, int power) {
+        Component component = new Component(name, type, price, 1 + nextId[0] % 7, "",
+                socket, memoryType, formFactor, power, 0);
+        component.setId(nextId[0]++);
+        catalog.put(component);
+    }
+}
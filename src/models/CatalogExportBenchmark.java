@@ -0,0 +1,214 @@
+package benchmarks;
+
+import database.ConnectionLease;
+import database.DatabaseManager;
+import models.CatalogFormat;
+import models.Component;
+import models.ExportReport;
+import services.CatalogExporter;
+import services.ComponentService;
+import utils.CsvFormat;
+import utils.Money;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Экспорт каталога: список getAllComponents с записью в файл против курсорной выгрузки CatalogExporter
+ * (время и удерживаемая куча), и согласованность трёх файлов при параллельной записи в БД.
+ * Запуск: java benchmarks.CatalogExportBenchmark [комплектующих...], по умолчанию 500000.
+ */
+public class CatalogExportBenchmark {
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    public static void main(String[] args) throws IOException, SQLException, InterruptedException {
+        int[] sizes = BenchmarkSupport.parseSizes(args, 500_000);
+        Path directory = Files.createTempDirectory("export-bench");
+
+        for (int size : sizes) {
+            DatabaseManager dbManager = BenchmarkSupport.openTempDatabase("export-bench");
+            seed(dbManager.getConnection(), size);
+            ComponentService componentService = new ComponentService(dbManager);
+            CatalogExporter exporter = new CatalogExporter(dbManager);
+            System.out.printf("Комплектующих: %d%n", size);
+
+            long start = System.nanoTime();
+            exportMaterialized(componentService, directory.resolve("list.csv"));
+            long elapsed = System.nanoTime() - start;
+            long retained = retainedHeap(() -> exportMaterialized(componentService, directory.resolve("list.csv")));
+            print("список + запись", elapsed, retained, Files.size(directory.resolve("list.csv")));
+
+            for (String name : new String[] { "catalog.csv", "catalog.jsonl", "catalog.csv.gz" }) {
+                ExportReport report = exporter.exportCatalog(directory.resolve(name));
+                if (!report.isSuccessful()) {
+                    System.err.println("❌ " + report.getError());
+                    continue;
+                }
+                retained = retainedHeap(() -> exporter.exportCatalog(directory.resolve(name)));
+                print("курсор, " + name, (long) (report.getElapsedSeconds() * 1e9), retained, report.getBytes());
+            }
+
+            checkSnapshot(dbManager, exporter, directory, size);
+            dbManager.closeConnection();
+        }
+
+        try (var files = Files.list(directory)) {
+            for (Path file : files.toList()) Files.deleteIfExists(file);
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    /** Прежний способ: весь каталог списком в памяти, затем запись в файл */
+    private static void exportMaterialized(ComponentService componentService, Path file) throws IOException {
+        List<Component> components = componentService.getAllComponents();
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("id,name,type,price,quantity,specifications");
+            out.newLine();
+            for (Component c : components) {
+                out.write(c.getId() + "," + CsvFormat.escape(c.getName(), ',') + "," + CsvFormat.escape(c.getType(), ',')
+                        + "," + Money.toPlainString(c.getPrice()) + "," + c.getQuantity() + "," + CsvFormat.escape(c.getSpecifications(), ','));
+                out.newLine();
+            }
+        }
+    }
+
+    /**
+     * Пока идёт выгрузка, другой поток создаёт конфигурации вместе с позициями.
+     * В согласованном снимке каждая позиция ссылается на выгруженную конфигурацию и наоборот.
+     */
+    private static void checkSnapshot(DatabaseManager dbManager, CatalogExporter exporter, Path directory, int size)
+            throws InterruptedException, IOException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger created = new AtomicInteger();
+        Thread writer = new Thread(() -> {
+            while (running.get()) {
+                try (ConnectionLease lease = dbManager.lease()) {
+                    lease.beginTransaction();
+                    PreparedStatement config = lease.prepareStatement(
+                            "INSERT INTO configurations (name, total_price, compatibility_status) VALUES (?, 0, 'OK')");
+                    config.setString(1, "Сборка " + created.get());
+                    config.executeUpdate();
+                    long configId;
+                    try (ResultSet rs = lease.prepareStatement("SELECT last_insert_rowid()").executeQuery()) {
+                        rs.next();
+                        configId = rs.getLong(1);
+                    }
+                    PreparedStatement item = lease.prepareStatement(
+                            "INSERT INTO configuration_items (config_id, component_id, quantity) VALUES (?, ?, 1)");
+                    item.setLong(1, configId);
+                    for (int i = 0; i < 3; i++) {
+                        item.setInt(2, 1 + (created.get() * 3 + i) % size);
+                        item.executeUpdate();
+                    }
+                    lease.commit();
+                    created.incrementAndGet();
+                } catch (SQLException e) {
+                    System.err.println("❌ " + e.getMessage());
+                    return;
+                }
+            }
+        }, "export-bench-writer");
+        writer.start();
+        Thread.sleep(100);
+
+        ExportReport report = exporter.exportAll(directory, CatalogFormat.CSV, false);
+        running.set(false);
+        writer.join();
+        if (!report.isSuccessful()) {
+            System.err.println("❌ " + report.getError());
+            return;
+        }
+
+        Set<String> configIds = firstColumn(directory.resolve("configurations.csv"));
+        Set<String> itemConfigIds = firstColumn(directory.resolve("configuration_items.csv"));
+        System.out.printf("  Снимок при параллельной записи: %s, создано конфигураций во время выгрузки %d, в файле %d%n",
+                configIds.equals(itemConfigIds) ? "согласован" : "❌ НЕ согласован", created.get(), configIds.size());
+    }
+
+    private static Set<String> firstColumn(Path file) throws IOException {
+        Set<String> values = new HashSet<>();
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            in.readLine();
+            for (String line = in.readLine(); line != null; line = in.readLine()) {
+                values.add(line.substring(0, line.indexOf(',')));
+            }
+        }
+        return values;
+    }
+
+    private static void print(String label, long nanos, long retainedBytes, long fileBytes) {
+        System.out.printf("  %-26s %8.0f мс, удерживается %6.1f МБ, файл %6.1f МБ%n", label, nanos / 1_000_000.0,
+                retainedBytes / 1048576.0, fileBytes / 1048576.0);
+    }
+
+    /**
+     * Наибольший объём живых данных в куче во время прогона: отдельный поток периодически
+     * собирает мусор и замеряет занятую кучу. Время этим прогоном не измеряется.
+     */
+    private static long retainedHeap(Task task) throws IOException {
+        long baseline = usedHeap();
+        AtomicLong peak = new AtomicLong();
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread sampler = new Thread(() -> {
+            while (running.get()) {
+                peak.accumulateAndGet(usedHeap(), Math::max);
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "export-bench-heap");
+        sampler.start();
+        try {
+            task.run();
+        } finally {
+            running.set(false);
+            sampler.interrupt();
+        }
+        return Math.max(0, peak.get() - baseline);
+    }
+
+    private interface Task {
+        void run() throws IOException;
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+
+    private static void seed(Connection conn, int size) throws SQLException {
+        conn.setAutoCommit(false);
+        try (PreparedStatement component = conn.prepareStatement(
+                "INSERT INTO components (name, type, price, quantity, specifications) VALUES (?, ?, ?, 5, ?)")) {
+            for (int i = 0; i < size; i++) {
+                component.setString(1, "Компонент " + i);
+                component.setString(2, i % 2 == 0 ? "Накопитель" : "Корпус");
+                component.setLong(3, (1000 + i % 5000) * Money.KOPECKS_PER_RUBLE);
+                component.setString(4, "Характеристики, комплектующего \"" + i + "\"");
+                component.addBatch();
+                if (i % 10_000 == 0) {
+                    component.executeBatch();
+                }
+            }
+            component.executeBatch();
+            conn.commit();
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+}
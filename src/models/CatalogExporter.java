@@ -0,0 +1,215 @@
+package services;
+
+import database.ConnectionLease;
+import database.DatabaseManager;
+import models.CatalogFormat;
+import models.ExportReport;
+import utils.CsvFormat;
+import utils.JsonLines;
+import utils.Money;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Потоковая выгрузка каталога и конфигураций в CSV или JSON Lines, при необходимости со сжатием gzip.
+ * Строки пишутся из курсора прямо в буферизованный файл, без промежуточных объектов и списков.
+ * Все таблицы одной выгрузки читаются в одной транзакции чтения — в режиме WAL это согласованный
+ * снимок, который параллельная запись не меняет. Файл пишется рядом во временный
+ * и атомарно заменяет прежний, поэтому потребитель не видит недописанную выгрузку.
+ */
+public class CatalogExporter {
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private static final String COMPONENTS_SQL = """
+        SELECT id, name, type, price, quantity, specifications, socket, memory_type, form_factor,
+               power_requirements, max_memory
+        FROM components ORDER BY id
+        """;
+    private static final String CONFIGURATIONS_SQL =
+        "SELECT id, name, total_price, created_date, compatibility_status FROM configurations ORDER BY id";
+    /** Колонки в копейках; в файл пишутся рублями с двумя знаками, как их принимает импорт */
+    private static final Set<String> MONEY_COLUMNS = Set.of("price", "total_price");
+    private static final String ITEMS_SQL =
+        "SELECT config_id, component_id, quantity FROM configuration_items ORDER BY config_id, component_id";
+
+    private final DatabaseManager dbManager;
+
+    public CatalogExporter(DatabaseManager dbManager) {
+        this.dbManager = dbManager;
+    }
+
+    /** Выгрузка каталога в файл; формат и сжатие — по расширению (.csv, .jsonl, .gz) */
+    public ExportReport exportCatalog(Path file) {
+        CatalogFormat format = CatalogFormat.fromFileName(file.getFileName().toString());
+        if (format == null) {
+            return new ExportReport(Map.of(), 0, 0,
+                    "Неизвестный формат файла (ожидается .csv, .jsonl или .json): " + file.getFileName());
+        }
+        return export(List.of(new Target("components", COMPONENTS_SQL, file)), format);
+    }
+
+    /**
+     * Каталог, конфигурации и их позиции — три файла в каталоге directory
+     * (components, configurations, configuration_items) из одного снимка БД.
+     */
+    public ExportReport exportAll(Path directory, CatalogFormat format, boolean gzip) {
+        String extension = (format == CatalogFormat.CSV ? ".csv" : ".jsonl") + (gzip ? ".gz" : "");
+        return export(List.of(
+                new Target("components", COMPONENTS_SQL, directory.resolve("components" + extension)),
+                new Target("configurations", CONFIGURATIONS_SQL, directory.resolve("configurations" + extension)),
+                new Target("configuration_items", ITEMS_SQL, directory.resolve("configuration_items" + extension))),
+            format);
+    }
+
+    /** Таблица выгрузки и её файл */
+    private static final class Target {
+        final String table;
+        final String sql;
+        final Path file;
+        Path temp;
+
+        Target(String table, String sql, Path file) {
+            this.table = table;
+            this.sql = sql;
+            this.file = file;
+        }
+    }
+
+    private ExportReport export(List<Target> targets, CatalogFormat format) {
+        long start = System.nanoTime();
+        Map<String, Long> rows = new LinkedHashMap<>();
+        List<Path> written = new ArrayList<>();
+
+        try {
+            try (ConnectionLease lease = dbManager.lease()) {
+                // Транзакция только читает: все запросы видят одно и то же состояние БД
+                lease.beginTransaction();
+                for (Target target : targets) {
+                    Path parent = target.file.toAbsolutePath().getParent();
+                    Files.createDirectories(parent);
+                    target.temp = Files.createTempFile(parent, target.file.getFileName().toString(), ".part");
+                    written.add(target.temp);
+                    rows.put(target.table, write(lease, target, format));
+                }
+                lease.commit();
+            }
+
+            long bytes = 0;
+            for (Target target : targets) {
+                bytes += Files.size(target.temp);
+                Files.move(target.temp, target.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return new ExportReport(rows, bytes, System.nanoTime() - start, null);
+        } catch (SQLException | IOException e) {
+            for (Path temp : written) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    // временный файл останется рядом с выгрузкой
+                }
+            }
+            return new ExportReport(rows, 0, System.nanoTime() - start, "Ошибка экспорта: " + e.getMessage());
+        }
+    }
+
+    private long write(ConnectionLease lease, Target target, CatalogFormat format) throws SQLException, IOException {
+        PreparedStatement pstmt = lease.prepareStatement(target.sql);
+        pstmt.setFetchSize(DEFAULT_FETCH_SIZE);
+        long rows = 0;
+
+        try (ResultSet rs = pstmt.executeQuery(); Writer out = open(target)) {
+            ResultSetMetaData meta = rs.getMetaData();
+            int columns = meta.getColumnCount();
+            String[] names = new String[columns];
+            boolean[] money = new boolean[columns];
+            for (int i = 0; i < columns; i++) {
+                names[i] = meta.getColumnLabel(i + 1);
+                money[i] = MONEY_COLUMNS.contains(names[i]);
+            }
+
+            if (format == CatalogFormat.CSV) {
+                for (int i = 0; i < columns; i++) {
+                    if (i > 0) out.write(',');
+                    out.write(names[i]);
+                }
+                out.write('\n');
+            }
+
+            while (rs.next()) {
+                if (format == CatalogFormat.CSV) {
+                    writeCsvRow(out, rs, money);
+                } else {
+                    writeJsonRow(out, rs, names, money);
+                }
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    private static Writer open(Target target) throws IOException {
+        OutputStream stream = Files.newOutputStream(target.temp);
+        if (target.file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".gz")) {
+            stream = new GZIPOutputStream(stream, WRITE_BUFFER_SIZE);
+        }
+        return new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+    }
+
+    private static void writeCsvRow(Writer out, ResultSet rs, boolean[] money) throws SQLException, IOException {
+        for (int i = 1; i <= money.length; i++) {
+            if (i > 1) out.write(',');
+            if (money[i - 1]) {
+                String amount = moneyText(rs, i);
+                if (amount != null) out.write(amount);
+            } else {
+                out.write(CsvFormat.escape(rs.getString(i), ','));
+            }
+        }
+        out.write('\n');
+    }
+
+    /** Числа пишутся числами, текст — строками, NULL — null */
+    private static void writeJsonRow(Writer out, ResultSet rs, String[] names, boolean[] money)
+            throws SQLException, IOException {
+        out.write('{');
+        for (int i = 0; i < names.length; i++) {
+            if (i > 0) out.write(", ");
+            out.write(JsonLines.quote(names[i]));
+            out.write(": ");
+            if (money[i]) {
+                String amount = moneyText(rs, i + 1);
+                out.write(amount != null ? amount : "null");
+                continue;
+            }
+            Object value = rs.getObject(i + 1);
+            if (value instanceof Number) {
+                out.write(value.toString());
+            } else {
+                out.write(JsonLines.quote(value != null ? value.toString() : null));
+            }
+        }
+        out.write("}\n");
+    }
+
+    private static String moneyText(ResultSet rs, int column) throws SQLException {
+        long kopecks = rs.getLong(column);
+        return rs.wasNull() ? null : Money.toPlainString(kopecks);
+    }
+}
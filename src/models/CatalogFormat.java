@@ -0,0 +1,27 @@
+package models;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Формат файла каталога для импорта и экспорта
+ */
+public enum CatalogFormat {
+    CSV,
+    JSON_LINES;
+
+    /** Поля записи каталога: заголовок CSV и ключи JSON Lines совпадают с колонками components */
+    public static final List<String> COLUMNS = List.of("name", "type", "price", "quantity", "specifications",
+            "socket", "memory_type", "form_factor", "power_requirements", "max_memory");
+
+    /** Формат по расширению файла (.csv, .jsonl, .ndjson, .json), также сжатого .gz; null — неизвестен */
+    public static CatalogFormat fromFileName(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".gz")) {
+            name = name.substring(0, name.length() - 3);
+        }
+        if (name.endsWith(".csv")) return CSV;
+        if (name.endsWith(".jsonl") || name.endsWith(".ndjson") || name.endsWith(".json")) return JSON_LINES;
+        return null;
+    }
+}
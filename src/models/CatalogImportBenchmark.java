@@ -0,0 +1,102 @@
+package benchmarks;
+
+import database.DatabaseManager;
+import models.Component;
+import models.ImportReport;
+import services.CatalogImporter;
+import services.ComponentService;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Импорт прайс-листа: построчный addComponent против конвейера CatalogImporter
+ * (CSV и JSON Lines, первичная загрузка и повторная — только обновления).
+ * Запуск: java benchmarks.CatalogImportBenchmark [строк...], по умолчанию 1000000.
+ */
+public class CatalogImportBenchmark {
+    private static final String[] TYPES = { "Процессор", "Материнская плата", "Оперативная память", "Видеокарта",
+                                            "Накопитель", "Блок питания", "Корпус", "Охлаждение" };
+    /** Построчный путь слишком медленный для полного файла — измеряется на части строк */
+    private static final int LEGACY_ROWS = 20_000;
+
+    public static void main(String[] args) throws IOException {
+        int[] sizes = BenchmarkSupport.parseSizes(args, 1_000_000);
+
+        for (int size : sizes) {
+            Path csv = writeFeed(size, false);
+            Path jsonl = writeFeed(size, true);
+            System.out.printf("Строк: %d (CSV %.0f МБ, JSON Lines %.0f МБ)%n", size,
+                    Files.size(csv) / 1048576.0, Files.size(jsonl) / 1048576.0);
+
+            DatabaseManager legacyDb = BenchmarkSupport.openTempDatabase("import-rows");
+            ComponentService legacyService = new ComponentService(legacyDb);
+            Random random = new Random(1);
+            long start = System.nanoTime();
+            for (int i = 0; i < Math.min(size, LEGACY_ROWS); i++) {
+                legacyService.addComponent(new Component("Товар " + i, TYPES[random.nextInt(TYPES.length)],
+                        1000 + random.nextInt(100_000), random.nextInt(50), "Гарантия 12 мес.", null, null, null, 0, 0));
+            }
+            double legacyRate = Math.min(size, LEGACY_ROWS) / ((System.nanoTime() - start) / 1_000_000_000.0);
+            legacyDb.closeConnection();
+            System.out.printf("  %-28s %10.0f строк/с%n", "addComponent по строке", legacyRate);
+
+            for (Path feed : new Path[] { csv, jsonl }) {
+                DatabaseManager dbManager = BenchmarkSupport.openTempDatabase("import-feed");
+                ComponentService componentService = new ComponentService(dbManager);
+                CatalogImporter importer = new CatalogImporter(dbManager, componentService);
+                String format = feed == csv ? "CSV" : "JSON Lines";
+
+                ImportReport first = importer.importFile(feed);
+                print(format + ", загрузка", first);
+                ImportReport second = importer.importFile(feed);
+                print(format + ", обновление", second);
+                dbManager.closeConnection();
+            }
+
+            Files.deleteIfExists(csv);
+            Files.deleteIfExists(jsonl);
+        }
+    }
+
+    private static void print(String label, ImportReport report) {
+        System.out.printf("  %-28s %10.0f строк/с, %.1f с (добавлено %d, обновлено %d, отклонено %d)%s%n", label,
+                report.getRowsPerSecond(), report.getElapsedSeconds(), report.getInserted(), report.getUpdated(),
+                report.getRejected(), report.isSuccessful() ? "" : " ❌ " + report.getError());
+    }
+
+    /** Синтетический прайс-лист; примерно каждая тысячная строка содержит ошибку */
+    private static Path writeFeed(int size, boolean json) throws IOException {
+        File file = File.createTempFile("supplier-feed", json ? ".jsonl" : ".csv");
+        file.deleteOnExit();
+        Random random = new Random(7);
+
+        try (BufferedWriter out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            if (!json) {
+                out.write("name;type;price;quantity;specifications;socket");
+                out.newLine();
+            }
+            for (int i = 0; i < size; i++) {
+                String type = TYPES[random.nextInt(TYPES.length)];
+                String price = random.nextInt(1000) == 0 ? "по запросу" : String.valueOf(1000 + random.nextInt(100_000));
+                int quantity = random.nextInt(50);
+                String specs = "Гарантия " + (12 + random.nextInt(24)) + " мес.";
+                String socket = type.equals("Процессор") ? (random.nextBoolean() ? "AM5" : "LGA1700") : "";
+                if (json) {
+                    out.write(String.format("{\"name\": \"Товар %d\", \"type\": \"%s\", \"price\": \"%s\", " +
+                            "\"quantity\": %d, \"specifications\": \"%s\", \"socket\": \"%s\"}",
+                            i, type, price, quantity, specs, socket));
+                } else {
+                    out.write(String.format("Товар %d;%s;%s;%d;\"%s\";%s", i, type, price, quantity, specs, socket));
+                }
+                out.newLine();
+            }
+        }
+        return file.toPath();
+    }
+}
@@ -0,0 +1,531 @@
+package services;
+
+import database.ConnectionLease;
+import database.DatabaseManager;
+import database.SchemaInitializer;
+import models.CatalogFormat;
+import models.Component;
+import models.ImportRejection;
+import models.ImportReport;
+import utils.CsvFormat;
+import utils.JsonLines;
+import utils.Money;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Массовый импорт прайс-листов поставщиков (CSV или JSON Lines, в том числе .gz).
+ * Конвейер: поток чтения режет файл на порции строк, рабочие потоки разбирают и проверяют их,
+ * а вызывающий поток по порядку записывает комплектующие пакетами addBatch в крупных транзакциях.
+ * Строка с уже существующими названием и типом обновляет комплектующее, иначе добавляется новое.
+ */
+public class CatalogImporter {
+    public static final int DEFAULT_BATCH_SIZE = 5000;
+    public static final int DEFAULT_COMMIT_ROWS = 50_000;
+    /** Строк файла в одной задаче разбора */
+    private static final int CHUNK_LINES = 2048;
+    /** Сколько отклонённых строк с причинами попадает в отчёт; счётчик ведётся по всем */
+    private static final int MAX_REPORTED_REJECTIONS = 1000;
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+    private static final String KEYS_SQL = "SELECT id, type, name FROM components";
+    /*
+     * Замена триггеров на вставку для пакета добавленных строк с id от ? до ?
+     * (см. SchemaInitializer.SEARCH_INDEX_INSERT_TRIGGER_SQL и INVENTORY_INSERT_TRIGGER_SQL)
+     */
+    private static final String INDEX_INSERTED_SQL =
+        "INSERT INTO components_fts(rowid, name, specifications) SELECT id, name, specifications FROM components " +
+        "WHERE id BETWEEN ? AND ?";
+    private static final String SUMMARIZE_INSERTED_SQL = """
+        INSERT INTO inventory_summary
+        SELECT type, COUNT(*), SUM(quantity), SUM(price * quantity),
+               SUM(quantity > 0 AND quantity < %1$d), SUM(quantity <= 0)
+        FROM components WHERE id BETWEEN ? AND ? GROUP BY type
+        ON CONFLICT(type) DO UPDATE SET
+            item_count = item_count + excluded.item_count,
+            units = units + excluded.units,
+            stock_value = stock_value + excluded.stock_value,
+            low_stock_items = low_stock_items + excluded.low_stock_items,
+            out_of_stock_items = out_of_stock_items + excluded.out_of_stock_items
+        """.formatted(SchemaInitializer.LOW_STOCK_THRESHOLD);
+    /** Необязательные поля, которых нет в строке файла, сохраняют прежние значения */
+    private static final String UPDATE_SQL = """
+        UPDATE components SET price = ?, quantity = COALESCE(?, quantity),
+            specifications = COALESCE(?, specifications), socket = COALESCE(?, socket),
+            memory_type = COALESCE(?, memory_type), form_factor = COALESCE(?, form_factor),
+            power_requirements = COALESCE(?, power_requirements), max_memory = COALESCE(?, max_memory),
+            version = version + 1
+        WHERE id = ?
+        """;
+    private static final Future<ParsedChunk> END = CompletableFuture.completedFuture(null);
+
+    private final DatabaseManager dbManager;
+    private final ComponentService componentService;
+    private final int workers;
+    private final int batchSize;
+    private final int commitRows;
+
+    public CatalogImporter(DatabaseManager dbManager, ComponentService componentService) {
+        this(dbManager, componentService, Math.max(1, Runtime.getRuntime().availableProcessors() - 1),
+             DEFAULT_BATCH_SIZE, DEFAULT_COMMIT_ROWS);
+    }
+
+    public CatalogImporter(DatabaseManager dbManager, ComponentService componentService,
+                           int workers, int batchSize, int commitRows) {
+        this.dbManager = dbManager;
+        this.componentService = componentService;
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.commitRows = commitRows;
+    }
+
+    /** Импорт с форматом по расширению файла */
+    public ImportReport importFile(Path file) {
+        CatalogFormat format = CatalogFormat.fromFileName(file.getFileName().toString());
+        if (format == null) {
+            return new ImportReport(0, 0, 0, 0, List.of(), 0,
+                    "Неизвестный формат файла (ожидается .csv, .jsonl или .json): " + file.getFileName());
+        }
+        return importFile(file, format);
+    }
+
+    public ImportReport importFile(Path file, CatalogFormat format) {
+        long start = System.nanoTime();
+        ExecutorService parsers = Executors.newFixedThreadPool(workers, r -> {
+            Thread thread = new Thread(r, "catalog-import-parser");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Ограниченная очередь: чтение не уходит далеко вперёд записи
+        BlockingQueue<Future<ParsedChunk>> chunks = new ArrayBlockingQueue<>(workers * 2);
+        LineReader reader = new LineReader(file, format, parsers, chunks);
+        Thread readerThread = new Thread(reader, "catalog-import-reader");
+        readerThread.setDaemon(true);
+        readerThread.start();
+
+        Writer writer = new Writer();
+        String error;
+        try {
+            error = writer.write(chunks, reader);
+        } finally {
+            readerThread.interrupt();
+            parsers.shutdownNow();
+        }
+
+        if (writer.inserted + writer.updated > 0) {
+            // Кэш, поисковый индекс и статусы конфигураций обновляются одним проходом, а не по строке
+            componentService.reloadCache();
+        }
+        return new ImportReport(writer.rows, writer.inserted, writer.updated, writer.rejected,
+                writer.rejections, System.nanoTime() - start, error);
+    }
+
+    /** Строка прайс-листа, прошедшая проверку */
+    private static final class ImportRow {
+        final Component component;
+        /** Остаток указан в файле; иначе при обновлении сохраняется прежний */
+        final boolean hasQuantity;
+
+        ImportRow(Component component, boolean hasQuantity) {
+            this.component = component;
+            this.hasQuantity = hasQuantity;
+        }
+    }
+
+    /** Порция разобранных строк файла */
+    private static final class ParsedChunk {
+        final List<ImportRow> rows = new ArrayList<>();
+        final List<ImportRejection> rejections = new ArrayList<>();
+        int lines;
+    }
+
+    /** Читает файл и отправляет порции строк на разбор, сохраняя их порядок в очереди */
+    private final class LineReader implements Runnable {
+        private final Path file;
+        private final CatalogFormat format;
+        private final ExecutorService parsers;
+        private final BlockingQueue<Future<ParsedChunk>> chunks;
+        volatile String error;
+
+        LineReader(Path file, CatalogFormat format, ExecutorService parsers, BlockingQueue<Future<ParsedChunk>> chunks) {
+            this.file = file;
+            this.format = format;
+            this.parsers = parsers;
+            this.chunks = chunks;
+        }
+
+        @Override
+        public void run() {
+            try {
+                readAll();
+            } catch (IOException | IllegalArgumentException e) {
+                error = "Ошибка чтения файла: " + e.getMessage();
+            } catch (InterruptedException e) {
+                return; // запись прекращена, дочитывать файл незачем
+            }
+            try {
+                chunks.put(END);
+            } catch (InterruptedException e) {
+                // запись уже прекращена
+            }
+        }
+
+        private void readAll() throws IOException, InterruptedException {
+            try (BufferedReader in = open(file)) {
+                long lineNumber = 0;
+                int[] columns = null;
+                char separator = ',';
+
+                if (format == CatalogFormat.CSV) {
+                    String header;
+                    do {
+                        header = in.readLine();
+                        lineNumber++;
+                    } while (header != null && header.isBlank());
+                    if (header == null) return;
+                    separator = CsvFormat.detectSeparator(header);
+                    columns = csvColumns(header.replace("\uFEFF", ""), separator);
+                }
+
+                List<String> lines = new ArrayList<>(CHUNK_LINES);
+                long firstLine = lineNumber + 1;
+                String line;
+                while ((line = in.readLine()) != null) {
+                    lines.add(line);
+                    if (lines.size() == CHUNK_LINES) {
+                        submit(firstLine, lines, columns, separator);
+                        firstLine += lines.size();
+                        lines = new ArrayList<>(CHUNK_LINES);
+                    }
+                }
+                if (!lines.isEmpty()) {
+                    submit(firstLine, lines, columns, separator);
+                }
+            }
+        }
+
+        private void submit(long firstLine, List<String> lines, int[] columns, char separator) throws InterruptedException {
+            chunks.put(parsers.submit(() -> parse(firstLine, lines, format, columns, separator)));
+        }
+    }
+
+    private static BufferedReader open(Path file) throws IOException {
+        if (file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".gz")) {
+            return new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(Files.newInputStream(file), READ_BUFFER_SIZE), StandardCharsets.UTF_8),
+                    READ_BUFFER_SIZE);
+        }
+        return Files.newBufferedReader(file, StandardCharsets.UTF_8);
+    }
+
+    /** Индексы колонок CatalogFormat.COLUMNS в заголовке CSV, -1 — колонки нет */
+    private static int[] csvColumns(String header, char separator) {
+        List<String> names = CsvFormat.parseLine(header, separator);
+        if (names == null) {
+            throw new IllegalArgumentException("в заголовке CSV не закрыта кавычка");
+        }
+
+        int[] columns = new int[CatalogFormat.COLUMNS.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = -1;
+            for (int j = 0; j < names.size(); j++) {
+                if (names.get(j).trim().equalsIgnoreCase(CatalogFormat.COLUMNS.get(i))) {
+                    columns[i] = j;
+                    break;
+                }
+            }
+        }
+        for (String required : List.of("name", "type", "price")) {
+            if (columns[CatalogFormat.COLUMNS.indexOf(required)] < 0) {
+                throw new IllegalArgumentException("в заголовке CSV нет колонки " + required);
+            }
+        }
+        return columns;
+    }
+
+    private static ParsedChunk parse(long firstLine, List<String> lines, CatalogFormat format,
+                                     int[] columns, char separator) {
+        ParsedChunk chunk = new ParsedChunk();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (line.isBlank()) continue;
+
+            chunk.lines++;
+            try {
+                Function<String, String> fields;
+                if (format == CatalogFormat.CSV) {
+                    List<String> values = CsvFormat.parseLine(line, separator);
+                    if (values == null) throw new IllegalArgumentException("не закрыта кавычка");
+                    fields = column -> {
+                        int index = columns[CatalogFormat.COLUMNS.indexOf(column)];
+                        return index >= 0 && index < values.size() ? values.get(index) : null;
+                    };
+                } else {
+                    fields = JsonLines.parseObject(line)::get;
+                }
+                chunk.rows.add(toRow(fields));
+            } catch (IllegalArgumentException e) {
+                chunk.rejections.add(new ImportRejection(firstLine + i, e.getMessage()));
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * Проверка и преобразование строки прайс-листа. Обязательны название, тип и цена;
+     * пустые необязательные поля означают отсутствие значения.
+     */
+    private static ImportRow toRow(Function<String, String> fields) {
+        String name = text(fields, "name");
+        String type = text(fields, "type");
+        if (name == null) throw new IllegalArgumentException("не указано название");
+        if (type == null) throw new IllegalArgumentException("не указан тип");
+
+        String priceText = text(fields, "price");
+        if (priceText == null) throw new IllegalArgumentException("не указана цена");
+        long price = money(priceText);
+
+        Component component = new Component(name, type, price,
+                (int) integer(fields, "quantity", "количество"),
+                text(fields, "specifications"),
+                text(fields, "socket"),
+                text(fields, "memory_type"),
+                text(fields, "form_factor"),
+                (int) integer(fields, "power_requirements", "мощность"),
+                (int) integer(fields, "max_memory", "максимальный объём памяти"));
+        return new ImportRow(component, text(fields, "quantity") != null);
+    }
+
+    private static String text(Function<String, String> fields, String column) {
+        String value = fields.apply(column);
+        if (value == null) return null;
+        value = value.trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /** Неотрицательное число; допускаются пробелы между разрядами и десятичная запятая */
+    private static double number(String text, String label) {
+        String normalized = text.replace(" ", "").replace("\u00A0", "").replace(',', '.');
+        try {
+            double value = Double.parseDouble(normalized);
+            if (Double.isFinite(value) && value >= 0) return value;
+        } catch (NumberFormatException ignored) {
+            // сообщение ниже
+        }
+        throw new IllegalArgumentException("некорректное значение «" + text + "» (" + label + ")");
+    }
+
+    /** Цена в рублях без округления: больше двух знаков после запятой — ошибка строки */
+    private static long money(String text) {
+        try {
+            long kopecks = Money.parse(text);
+            if (kopecks >= 0) return kopecks;
+        } catch (IllegalArgumentException | ArithmeticException ignored) {
+            // сообщение ниже
+        }
+        throw new IllegalArgumentException("некорректное значение «" + text + "» (цена)");
+    }
+
+    private static long integer(Function<String, String> fields, String column, String label) {
+        String value = text(fields, column);
+        if (value == null) return 0;
+        double number = number(value, label);
+        if (number != Math.rint(number) || number > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("некорректное значение «" + value + "» (" + label + ")");
+        }
+        return (long) number;
+    }
+
+    private static String key(Component component) {
+        return component.getType() + '\u0000' + component.getName();
+    }
+
+    /**
+     * Запись порций в порядке файла. Счётчики добавленных и обновлённых учитывают
+     * только зафиксированные транзакции.
+     */
+    private final class Writer {
+        long rows;
+        long rejected;
+        long inserted;
+        long updated;
+        final List<ImportRejection> rejections = new ArrayList<>();
+
+        private final Map<String, Integer> known = new HashMap<>();
+        private final Map<String, Component> pendingInserts = new LinkedHashMap<>();
+        private int pendingUpdates;
+        private long uncommittedInserted;
+        private long uncommittedUpdated;
+        private int uncommittedRows;
+
+        String write(BlockingQueue<Future<ParsedChunk>> chunks, LineReader reader) {
+            try (ConnectionLease lease = dbManager.lease()) {
+                loadKeys(lease);
+                PreparedStatement insert = lease.prepareStatement(ComponentService.INSERT_SQL);
+                PreparedStatement update = lease.prepareStatement(UPDATE_SQL);
+
+                begin(lease);
+                while (true) {
+                    Future<ParsedChunk> next = chunks.take();
+                    if (next == END) break;
+
+                    ParsedChunk chunk = next.get();
+                    rows += chunk.lines;
+                    rejected += chunk.rejections.size();
+                    for (ImportRejection rejection : chunk.rejections) {
+                        if (rejections.size() == MAX_REPORTED_REJECTIONS) break;
+                        rejections.add(rejection);
+                    }
+
+                    for (ImportRow row : chunk.rows) {
+                        stage(row, update);
+                        if (pendingInserts.size() + pendingUpdates >= batchSize) {
+                            flush(lease, insert, update);
+                        }
+                        if (++uncommittedRows >= commitRows) {
+                            flush(lease, insert, update);
+                            commit(lease);
+                            begin(lease);
+                        }
+                    }
+                }
+
+                if (reader.error != null) {
+                    return reader.error; // незафиксированный остаток откатывается при закрытии аренды
+                }
+                flush(lease, insert, update);
+                commit(lease);
+                return null;
+            } catch (SQLException e) {
+                return "Ошибка записи в БД: " + e.getMessage();
+            } catch (ExecutionException e) {
+                return "Ошибка разбора файла: " + e.getCause();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return "Импорт прерван";
+            }
+        }
+
+        private void loadKeys(ConnectionLease lease) throws SQLException {
+            try (ResultSet rs = lease.prepareStatement(KEYS_SQL).executeQuery()) {
+                while (rs.next()) {
+                    known.put(rs.getString("type") + '\u0000' + rs.getString("name"), rs.getInt("id"));
+                }
+            }
+        }
+
+        private void stage(ImportRow row, PreparedStatement update) throws SQLException {
+            Component component = row.component;
+            String key = key(component);
+            Integer id = known.get(key);
+            if (id != null) {
+                bindUpdate(update, row, id);
+                update.addBatch();
+                pendingUpdates++;
+                uncommittedUpdated++;
+            } else if (pendingInserts.put(key, component) != null) {
+                uncommittedUpdated++; // повтор строки, ещё не записанной в этом пакете: побеждает последняя
+            } else {
+                uncommittedInserted++;
+            }
+        }
+
+        private void bindUpdate(PreparedStatement update, ImportRow row, int id) throws SQLException {
+            Component component = row.component;
+            update.setLong(1, component.getPrice());
+            update.setObject(2, row.hasQuantity ? component.getQuantity() : null);
+            update.setString(3, component.getSpecifications());
+            update.setString(4, component.getSocket());
+            update.setString(5, component.getMemoryType());
+            update.setString(6, component.getFormFactor());
+            update.setObject(7, component.getPowerRequirements() > 0 ? component.getPowerRequirements() : null);
+            update.setObject(8, component.getMaxMemory() > 0 ? component.getMaxMemory() : null);
+            update.setInt(9, id);
+        }
+
+        private void flush(ConnectionLease lease, PreparedStatement insert, PreparedStatement update) throws SQLException {
+            if (pendingUpdates > 0) {
+                update.executeBatch();
+                pendingUpdates = 0;
+            }
+            if (pendingInserts.isEmpty()) return;
+
+            for (Component component : pendingInserts.values()) {
+                componentService.setComponentParameters(insert, component);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+
+            // AUTOINCREMENT внутри одной транзакции выдаёт пакету подряд идущие id
+            long lastId;
+            try (ResultSet rs = lease.prepareStatement("SELECT last_insert_rowid()").executeQuery()) {
+                rs.next();
+                lastId = rs.getLong(1);
+            }
+            int firstId = (int) (lastId - pendingInserts.size() + 1);
+            int id = firstId;
+            for (String key : pendingInserts.keySet()) {
+                known.put(key, id++);
+            }
+            pendingInserts.clear();
+
+            for (String sql : new String[] { INDEX_INSERTED_SQL, SUMMARIZE_INSERTED_SQL }) {
+                PreparedStatement pstmt = lease.prepareStatement(sql);
+                pstmt.setInt(1, firstId);
+                pstmt.setLong(2, lastId);
+                pstmt.executeUpdate();
+            }
+        }
+
+        /**
+         * Начинает транзакцию без триггеров на вставку: FTS5 сбрасывает буфер на каждой вставке
+         * из триггера, а сводка остатков и счётчик версий каталога получали бы по записи на строку.
+         * Вместо них пакет обрабатывается двумя запросами в flush, а версия увеличивается при фиксации. Триггеры возвращаются в той же транзакции,
+         * так что другие соединения их отсутствия не видят.
+         */
+        private void begin(ConnectionLease lease) throws SQLException {
+            lease.beginWriteTransaction();
+            try (Statement stmt = lease.getConnection().createStatement()) {
+                stmt.executeUpdate("DROP TRIGGER IF EXISTS components_fts_insert");
+                stmt.executeUpdate("DROP TRIGGER IF EXISTS inventory_summary_insert");
+                stmt.executeUpdate("DROP TRIGGER IF EXISTS catalog_version_insert");
+            }
+        }
+
+        private void commit(ConnectionLease lease) throws SQLException {
+            try (Statement stmt = lease.getConnection().createStatement()) {
+                stmt.executeUpdate(SchemaInitializer.SEARCH_INDEX_INSERT_TRIGGER_SQL);
+                stmt.executeUpdate(SchemaInitializer.INVENTORY_INSERT_TRIGGER_SQL);
+                stmt.executeUpdate(SchemaInitializer.CATALOG_VERSION_INSERT_TRIGGER_SQL);
+                // Вставки транзакции прошли без триггера счётчика — одно увеличение на транзакцию
+                stmt.executeUpdate("UPDATE catalog_version SET version = version + 1");
+            }
+            lease.commit();
+            inserted += uncommittedInserted;
+            updated += uncommittedUpdated;
+            uncommittedInserted = 0;
+            uncommittedUpdated = 0;
+            uncommittedRows = 0;
+        }
+    }
+}
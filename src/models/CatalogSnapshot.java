@@ -0,0 +1,269 @@
+package services;
+
+import models.CatalogVersion;
+import models.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Снимок каталога комплектующих в компактном колоночном формате для быстрого запуска.
+ * Файл отображается в память; числовые поля хранятся массивами по колонкам, тип, сокет,
+ * тип памяти и форм-фактор — номерами в общем словаре строк, название и характеристики —
+ * длинами и общим блоком байтов UTF-8. Снимок помечен версией каталога, из которой он построен.
+ *
+ * <pre>
+ * MAGIC, FORMAT, version, instance, count
+ * словарь: размер, строки (длина + UTF-8); номер 0 — NULL
+ * int[count]: id, type, socket, memory_type, form_factor, quantity, power_requirements, max_memory,
+ *             version, длина name, длина specifications (-1 — NULL)
+ * long[count]: price в копейках
+ * байты name и specifications всех строк подряд
+ * MAGIC
+ * </pre>
+ */
+public class CatalogSnapshot {
+    private static final int MAGIC = 0x50435353; // "PCSS"
+    private static final int FORMAT = 3;
+    private static final int INT_COLUMNS = 11;
+
+    private static final int ID = 0, TYPE = 1, SOCKET = 2, MEMORY_TYPE = 3, FORM_FACTOR = 4,
+                             QUANTITY = 5, POWER = 6, MAX_MEMORY = 7, VERSION = 8,
+                             NAME_LENGTH = 9, SPEC_LENGTH = 10;
+
+    private final ByteBuffer buffer;
+    private final CatalogVersion version;
+    private final int count;
+    private final String[] dictionary;
+    private final int columnsOffset;
+    private final int pricesOffset;
+    /** Смещения названия и характеристик строки i в буфере, вычисляются при открытии */
+    private final int[] nameOffsets;
+    private final int[] specOffsets;
+
+    private CatalogSnapshot(ByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT) {
+            throw new IllegalArgumentException("неизвестный формат файла");
+        }
+        long number = buffer.getLong();
+        String instance = readString(buffer);
+        this.version = new CatalogVersion(instance, number);
+        this.count = buffer.getInt();
+
+        dictionary = new String[buffer.getInt()];
+        for (int i = 1; i < dictionary.length; i++) {
+            dictionary[i] = readString(buffer).intern();
+        }
+
+        columnsOffset = buffer.position();
+        pricesOffset = columnsOffset + INT_COLUMNS * 4 * count;
+        int text = pricesOffset + 8 * count;
+
+        nameOffsets = new int[count];
+        specOffsets = new int[count];
+        for (int i = 0; i < count; i++) {
+            nameOffsets[i] = text;
+            text += Math.max(0, column(NAME_LENGTH, i));
+            specOffsets[i] = text;
+            text += Math.max(0, column(SPEC_LENGTH, i));
+        }
+        if (text + 4 != buffer.limit() || buffer.getInt(text) != MAGIC) {
+            throw new IllegalArgumentException("файл повреждён или записан не полностью");
+        }
+    }
+
+    /** Открывает снимок; null, если файла нет или он не читается */
+    public static CatalogSnapshot open(Path file) {
+        if (!Files.isRegularFile(file)) return null;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // Отображение остаётся действительным и после закрытия канала
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new CatalogSnapshot(buffer);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("❌ Снимок каталога " + file + " не прочитан: " + e.getMessage());
+            return null;
+        }
+    }
+
+    public CatalogVersion getVersion() { return version; }
+
+    public int size() { return count; }
+
+    public int id(int row) { return column(ID, row); }
+
+    public String type(int row) { return dictionary[column(TYPE, row)]; }
+
+    public long price(int row) { return buffer.getLong(pricesOffset + 8 * row); }
+
+    public int quantity(int row) { return column(QUANTITY, row); }
+
+    public String name(int row) { return text(nameOffsets[row], column(NAME_LENGTH, row)); }
+
+    public String specifications(int row) { return text(specOffsets[row], column(SPEC_LENGTH, row)); }
+
+    public Component toComponent(int row) {
+        Component component = new Component(name(row), type(row), price(row), quantity(row), specifications(row),
+                dictionary[column(SOCKET, row)], dictionary[column(MEMORY_TYPE, row)],
+                dictionary[column(FORM_FACTOR, row)], column(POWER, row), column(MAX_MEMORY, row));
+        component.setId(id(row));
+        component.setVersion(column(VERSION, row));
+        return component;
+    }
+
+    /** Все комплектующие снимка; строки декодируются через общий буфер без промежуточных массивов */
+    public List<Component> toComponents() {
+        List<Component> components = new ArrayList<>(count);
+        byte[] scratch = new byte[256];
+        for (int i = 0; i < count; i++) {
+            int nameLength = column(NAME_LENGTH, i);
+            int specLength = column(SPEC_LENGTH, i);
+            scratch = fit(scratch, Math.max(nameLength, specLength));
+            Component component = new Component(text(nameOffsets[i], nameLength, scratch), type(i), price(i),
+                    quantity(i), text(specOffsets[i], specLength, scratch), dictionary[column(SOCKET, i)],
+                    dictionary[column(MEMORY_TYPE, i)], dictionary[column(FORM_FACTOR, i)],
+                    column(POWER, i), column(MAX_MEMORY, i));
+            component.setId(id(i));
+            component.setVersion(column(VERSION, i));
+            components.add(component);
+        }
+        return components;
+    }
+
+    private int column(int column, int row) {
+        return buffer.getInt(columnsOffset + 4 * (column * count + row));
+    }
+
+    private String text(int offset, int length) {
+        return length < 0 ? null : text(offset, length, new byte[length]);
+    }
+
+    private String text(int offset, int length, byte[] scratch) {
+        if (length < 0) return null;
+        buffer.get(offset, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] fit(byte[] scratch, int length) {
+        return length <= scratch.length ? scratch : new byte[Math.max(length, scratch.length * 2)];
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Колонки нового снимка: комплектующие добавляются по одному, затем снимок записывается в файл */
+    public static final class Builder {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> dictionary = new ArrayList<>(List.of(""));
+        private int[][] ints = new int[INT_COLUMNS][1024];
+        private long[] prices = new long[1024];
+        private final List<byte[]> texts = new ArrayList<>();
+        private int count;
+
+        public void add(Component component) {
+            if (count == prices.length) {
+                for (int c = 0; c < INT_COLUMNS; c++) {
+                    ints[c] = Arrays.copyOf(ints[c], count * 2);
+                }
+                prices = Arrays.copyOf(prices, count * 2);
+            }
+            byte[] name = bytes(component.getName());
+            byte[] specifications = bytes(component.getSpecifications());
+
+            ints[ID][count] = component.getId();
+            ints[TYPE][count] = code(component.getType());
+            ints[SOCKET][count] = code(component.getSocket());
+            ints[MEMORY_TYPE][count] = code(component.getMemoryType());
+            ints[FORM_FACTOR][count] = code(component.getFormFactor());
+            ints[QUANTITY][count] = component.getQuantity();
+            ints[POWER][count] = component.getPowerRequirements();
+            ints[MAX_MEMORY][count] = component.getMaxMemory();
+            ints[VERSION][count] = component.getVersion();
+            ints[NAME_LENGTH][count] = name != null ? name.length : -1;
+            ints[SPEC_LENGTH][count] = specifications != null ? specifications.length : -1;
+            prices[count] = component.getPrice();
+            texts.add(name);
+            texts.add(specifications);
+            count++;
+        }
+
+        /**
+         * Записывает снимок комплектующих, прочитанных из версии version каталога.
+         * Файл собирается рядом во временном и атомарно заменяет прежний.
+         */
+        public void write(Path file, CatalogVersion version) throws IOException {
+            Path parent = file.toAbsolutePath().getParent();
+            Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".part");
+            try {
+                try (DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                    writeTo(out, version);
+                }
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        private void writeTo(DataOutputStream out, CatalogVersion version) throws IOException {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeLong(version.getVersion());
+            writeString(out, version.getInstance());
+            out.writeInt(count);
+
+            out.writeInt(dictionary.size());
+            for (String value : dictionary.subList(1, dictionary.size())) {
+                writeString(out, value);
+            }
+            for (int c = 0; c < INT_COLUMNS; c++) {
+                for (int i = 0; i < count; i++) {
+                    out.writeInt(ints[c][i]);
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                out.writeLong(prices[i]);
+            }
+            for (byte[] text : texts) {
+                if (text != null) out.write(text);
+            }
+            out.writeInt(MAGIC);
+        }
+
+        private int code(String value) {
+            if (value == null) return 0;
+            return codes.computeIfAbsent(value, v -> {
+                dictionary.add(v);
+                return dictionary.size() - 1;
+            });
+        }
+
+        private static byte[] bytes(String value) {
+            return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+        }
+
+        private static void writeString(DataOutputStream out, String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package services;
+
+import database.ConnectionLease;
+import database.DatabaseManager;
+import models.CatalogVersion;
+import models.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.*;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Хранение снимка каталога (CatalogSnapshot) рядом с базой данных.
+ * При запуске кэш заполняется из снимка, а не построчным чтением SQLite. Если снимок отстал
+ * от catalog_version, каталог перечитывается из БД в фоне; после изменений каталога
+ * снимок перезаписывается в фоне, когда изменения на SAVE_DELAY_SECONDS затихают.
+ */
+public class CatalogSnapshotStore implements ComponentChangeListener {
+    public static final Path DEFAULT_FILE = Path.of("pc_configurator.snapshot");
+    private static final long SAVE_DELAY_SECONDS = 30;
+    private static final String VERSION_SQL = "SELECT instance, version FROM catalog_version WHERE id = 1";
+    private static final String COMPONENTS_SQL = "SELECT * FROM components ORDER BY id";
+
+    private final DatabaseManager dbManager;
+    private final Path file;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "catalog-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ComponentService componentService;
+    private CatalogVersion loadedVersion;
+    private ScheduledFuture<?> pendingSave;
+    private volatile CatalogVersion savedVersion;
+
+    public CatalogSnapshotStore(DatabaseManager dbManager, Path file) {
+        this.dbManager = dbManager;
+        this.file = file;
+    }
+
+    /** Каталог из снимка (возможно, устаревшего) или null, если снимка нет */
+    public List<Component> load() {
+        CatalogSnapshot snapshot = CatalogSnapshot.open(file);
+        if (snapshot == null) return null;
+
+        loadedVersion = snapshot.getVersion();
+        savedVersion = loadedVersion;
+        return snapshot.toComponents();
+    }
+
+    /**
+     * Подключает сервис, кэш которого заполнен из load() или из БД: устаревший снимок
+     * перечитывается из БД, отсутствующий — записывается, дальше снимок следует за изменениями.
+     */
+    public void attach(ComponentService componentService) {
+        this.componentService = componentService;
+        componentService.addListener(this);
+
+        if (loadedVersion == null) {
+            scheduleSave(0);
+        } else if (!loadedVersion.equals(currentVersion())) {
+            System.out.println("ℹ️ Снимок каталога устарел, каталог перечитывается в фоне");
+            // reloadCache оповещает подписчиков, в том числе этот — снимок будет перезаписан
+            executor.execute(componentService::reloadCache);
+        }
+    }
+
+    /** Версия каталога в БД или null при ошибке */
+    public CatalogVersion currentVersion() {
+        try (ConnectionLease lease = dbManager.lease()) {
+            try (ResultSet rs = lease.prepareStatement(VERSION_SQL).executeQuery()) {
+                return rs.next() ? new CatalogVersion(rs.getString(1), rs.getLong(2)) : null;
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Ошибка чтения версии каталога: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** Версия, из которой построен файл снимка */
+    public CatalogVersion getSavedVersion() {
+        return savedVersion;
+    }
+
+    /**
+     * Записывает снимок текущего каталога. Версия и строки читаются в одной транзакции,
+     * поэтому снимок точно соответствует своей версии даже при параллельной записи.
+     */
+    public boolean save() {
+        try (ConnectionLease lease = dbManager.lease()) {
+            lease.beginTransaction();
+            CatalogVersion version = currentVersion();
+            if (version == null) return false;
+            if (version.equals(savedVersion)) return true;
+
+            CatalogSnapshot.Builder snapshot = new CatalogSnapshot.Builder();
+            PreparedStatement pstmt = lease.prepareStatement(COMPONENTS_SQL);
+            pstmt.setFetchSize(ComponentService.DEFAULT_FETCH_SIZE);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    snapshot.add(componentService.resultSetToComponent(rs));
+                }
+            }
+            lease.commit();
+            snapshot.write(file, version);
+            savedVersion = version;
+            return true;
+        } catch (SQLException | IOException e) {
+            System.err.println("❌ Ошибка записи снимка каталога: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Останавливает фоновую запись, дожидаясь начатой. Отложенные изменения попадут
+     * в снимок при следующем запуске.
+     */
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void onComponentAdded(Component component) {
+        scheduleSave(SAVE_DELAY_SECONDS);
+    }
+
+    @Override
+    public void onComponentUpdated(Component component) {
+        scheduleSave(SAVE_DELAY_SECONDS);
+    }
+
+    @Override
+    public void onComponentDeleted(int componentId) {
+        scheduleSave(SAVE_DELAY_SECONDS);
+    }
+
+    @Override
+    public void onStockChanged(Component component) {
+        scheduleSave(SAVE_DELAY_SECONDS);
+    }
+
+    @Override
+    public void onCatalogReloaded() {
+        scheduleSave(0);
+    }
+
+    private synchronized void scheduleSave(long delaySeconds) {
+        if (executor.isShutdown()) return;
+        if (pendingSave != null) {
+            pendingSave.cancel(false);
+        }
+        pendingSave = executor.schedule(this::save, delaySeconds, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,95 @@
+package benchmarks;
+
+import database.DatabaseManager;
+import models.Component;
+import services.ComponentService;
+import utils.Money;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.sql.*;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Обход каталога списком (getAllComponents) и курсором (streamComponents):
+ * время до первой строки и объём кучи, удерживаемой на середине обхода.
+ * Запуск: java benchmarks.CatalogStreamBenchmark [комплектующих...], по умолчанию 200000.
+ */
+public class CatalogStreamBenchmark {
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    public static void main(String[] args) throws SQLException {
+        int[] sizes = BenchmarkSupport.parseSizes(args, 200_000);
+
+        System.out.printf("%-14s %-8s %-18s %-14s %s%n", "Комплектующих", "Способ", "До первой строки, мс",
+                "Весь обход, мс", "Удерживается, МБ");
+        for (int size : sizes) {
+            DatabaseManager dbManager = BenchmarkSupport.openTempDatabase("stream-bench");
+            seed(dbManager.getConnection(), size);
+            ComponentService componentService = new ComponentService(dbManager);
+
+            long baseline = usedHeap();
+            long start = System.nanoTime();
+            List<Component> components = componentService.getAllComponents();
+            double firstRow = (System.nanoTime() - start) / 1_000_000.0;
+            long retained = usedHeap() - baseline; // список ещё используется ниже
+            long rows = 0;
+            for (Component component : components) {
+                if (component.getId() > 0) rows++;
+            }
+            double total = (System.nanoTime() - start) / 1_000_000.0;
+            print(size, "список", firstRow, total, retained);
+            components = null;
+
+            baseline = usedHeap();
+            long[] streamed = new long[3]; // строк, время до первой строки, удерживаемая куча
+            start = System.nanoTime();
+            try (Stream<Component> stream = componentService.streamComponents()) {
+                long begin = start;
+                stream.forEach(component -> {
+                    if (streamed[0]++ == 0) streamed[1] = System.nanoTime() - begin;
+                    if (streamed[0] == size / 2) streamed[2] = usedHeap();
+                });
+            }
+            total = (System.nanoTime() - start) / 1_000_000.0;
+            print(size, "курсор", streamed[1] / 1_000_000.0, total, streamed[2] - baseline);
+
+            if (streamed[0] != rows) {
+                System.err.println("❌ Число строк курсора и списка не совпадает");
+            }
+            dbManager.closeConnection();
+        }
+    }
+
+    private static void print(int size, String method, double firstRow, double total, long retainedBytes) {
+        System.out.printf("%-14d %-8s %-18.1f %-14.1f %.1f%n", size, method, firstRow, total,
+                Math.max(0, retainedBytes) / (1024.0 * 1024.0));
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+
+    private static void seed(Connection conn, int size) throws SQLException {
+        conn.setAutoCommit(false);
+        try (PreparedStatement component = conn.prepareStatement(
+                "INSERT INTO components (name, type, price, quantity, specifications) VALUES (?, ?, ?, 5, ?)")) {
+            for (int i = 0; i < size; i++) {
+                component.setString(1, "Компонент " + i);
+                component.setString(2, i % 2 == 0 ? "Накопитель" : "Корпус");
+                component.setLong(3, (1000 + i % 5000) * Money.KOPECKS_PER_RUBLE);
+                component.setString(4, "Характеристики комплектующего " + i);
+                component.addBatch();
+                if (i % 10_000 == 0) {
+                    component.executeBatch();
+                }
+            }
+            component.executeBatch();
+            conn.commit();
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+}
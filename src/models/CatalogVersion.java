@@ -0,0 +1,39 @@
+package models;
+
+import java.util.Objects;
+
+/**
+ * Версия каталога из таблицы catalog_version: идентификатор базы и счётчик изменений components
+ */
+public class CatalogVersion {
+    private String instance;
+    private long version;
+
+    public CatalogVersion(String instance, long version) {
+        this.instance = instance;
+        this.version = version;
+    }
+
+    // Getters
+    public String getInstance() { return instance; }
+
+    public long getVersion() { return version; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CatalogVersion)) return false;
+        CatalogVersion other = (CatalogVersion) o;
+        return version == other.version && Objects.equals(instance, other.instance);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(instance, version);
+    }
+
+    @Override
+    public String toString() {
+        return instance + "#" + version;
+    }
+}
@@ -1,12 +1,13 @@
 package models;
 
 /**
- * Модель проблемы совместимости
+ * Модель проблемы совместимости. Неизменяема: ValidationCache отдаёт одни и те же
+ * экземпляры всем, кто проверяет одинаковый набор комплектующих.
  */
 public class CompatibilityIssue {
-    private String type;
-    private String description;
-    private String severity; // ERROR, WARNING, INFO
+    private final String type;
+    private final String description;
+    private final String severity; // ERROR, WARNING, INFO
 
     public CompatibilityIssue(String type, String description, String severity) {
         this.type = type;
@@ -14,15 +15,12 @@ public class CompatibilityIssue {
         this.severity = severity;
     }
 
-    // Getters and Setters
+    // Getters
     public String getType() { return type; }
-    public void setType(String type) { this.type = type; }
 
     public String getDescription() { return description; }
-    public void setDescription(String description) { this.description = description; }
 
     public String getSeverity() { return severity; }
-    public void setSeverity(String severity) { this.severity = severity; }
 
     @Override
     public String toString() {
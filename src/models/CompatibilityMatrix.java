@@ -0,0 +1,277 @@
+package services;
+
+import models.Component;
+import models.ComponentType;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Предвычисленная попарная совместимость комплектующих по правилам CompatibilityRuleEngine.
+ *
+ * Комплектующие каждого типа разбиты на группы с одинаковыми значениями полей, от которых
+ * зависят правила (сокет, тип памяти, форм-фактор...). Для группы и каждого связанного
+ * правилами типа хранится BitSet id совместимых партнёров, поэтому вопрос «какие платы
+ * подходят к процессору» — это чтение готового множества, а отбор кандидатов — операция AND.
+ * Правила проверяются только при появлении новой группы; индекс обновляется по событиям
+ * ComponentService и перестраивается целиком при перезагрузке каталога или правил.
+ */
+public class CompatibilityMatrix implements ComponentChangeListener {
+    private final ComponentCatalogCache catalog;
+    private final CompatibilityRuleEngine ruleEngine;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private CompatibilityRuleEngine.Snapshot rules;
+    private final List<Group> groups = new ArrayList<>();
+    private final Map<Integer, Map<List<Object>, Group>> groupsBySlot = new HashMap<>();
+    private final Map<Integer, BitSet> idsBySlot = new HashMap<>();
+    private final Map<Integer, Group> groupById = new HashMap<>();
+    private volatile long version;
+
+    /** Комплектующие одного слота с одинаковой сигнатурой правил */
+    private static final class Group {
+        final int id;
+        final int slot;
+        /** Отдельная копия полей первого участника: экземпляры из кэша могут меняться на месте */
+        final Component representative;
+        final BitSet members = new BitSet();
+        /** Слот партнёра → id совместимых партнёров */
+        final Map<Integer, BitSet> partners = new HashMap<>();
+        /** Совместимые группы связанных слотов, которым нужно сообщать об изменении состава */
+        final List<Group> compatible = new ArrayList<>();
+
+        Group(int id, int slot, Component representative) {
+            this.id = id;
+            this.slot = slot;
+            this.representative = representative;
+        }
+    }
+
+    public CompatibilityMatrix(ComponentCatalogCache catalog, CompatibilityRuleEngine ruleEngine) {
+        this.catalog = catalog;
+        this.ruleEngine = ruleEngine;
+        rebuild();
+    }
+
+    /** Перестраивает матрицу по текущему кэшу каталога и набору правил */
+    public void rebuild() {
+        List<Component> components = new ArrayList<>(catalog.getAll());
+        components.sort(Comparator.comparingInt(Component::getId));
+        lock.writeLock().lock();
+        try {
+            rules = ruleEngine.snapshot();
+            groups.clear();
+            groupsBySlot.clear();
+            idsBySlot.clear();
+            groupById.clear();
+            for (Component component : components) {
+                add(component);
+            }
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Номер состояния матрицы; меняется при каждом изменении */
+    public long getVersion() {
+        return version;
+    }
+
+    /** Есть ли правила совместимости между двумя типами */
+    public boolean isRelated(ComponentType first, ComponentType second) {
+        lock.readLock().lock();
+        try {
+            return rules.related(first.ordinal(), second.ordinal());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * id комплектующих типа partnerType, совместимых с componentId (новое множество).
+     * Для типов без правил между ними — все комплектующие partnerType; null, если componentId неизвестен.
+     */
+    public BitSet compatibleWith(int componentId, ComponentType partnerType) {
+        lock.readLock().lock();
+        try {
+            Group group = current(componentId);
+            if (group == null) return null;
+            BitSet partners = partnersOf(group, partnerType.ordinal());
+            return partners != null ? (BitSet) partners.clone() : new BitSet();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Оставляет в candidates только комплектующие типа partnerType, совместимые с componentId */
+    public void retainCompatible(BitSet candidates, int componentId, ComponentType partnerType) {
+        lock.readLock().lock();
+        try {
+            Group group = current(componentId);
+            if (group == null) return;
+            BitSet partners = partnersOf(group, partnerType.ordinal());
+            if (partners != null) {
+                candidates.and(partners);
+            } else {
+                candidates.clear();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Совместимы ли два комплектующих; неизвестные и несвязанные правилами считаются совместимыми */
+    public boolean isCompatible(int firstId, int secondId) {
+        lock.readLock().lock();
+        try {
+            Group first = current(firstId);
+            Group second = current(secondId);
+            if (first == null || second == null) return true;
+            BitSet partners = first.partners.get(second.slot);
+            return partners == null || partners.get(secondId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Номер группы комплектующего или -1. У комплектующих одной группы одинаковые
+     * множества совместимых партнёров, поэтому номер годится как ключ для кэширования отборов.
+     */
+    public int groupOf(int componentId) {
+        lock.readLock().lock();
+        try {
+            Group group = current(componentId);
+            return group != null ? group.id : -1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void onComponentAdded(Component component) {
+        update(component);
+    }
+
+    @Override
+    public void onComponentUpdated(Component component) {
+        update(component);
+    }
+
+    @Override
+    public void onComponentDeleted(int componentId) {
+        lock.writeLock().lock();
+        try {
+            remove(componentId);
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onCatalogReloaded() {
+        rebuild();
+    }
+
+    private void update(Component component) {
+        lock.writeLock().lock();
+        try {
+            remove(component.getId());
+            add(component);
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Группа комплектующего; после перезагрузки правил матрица сначала перестраивается */
+    private Group current(int componentId) {
+        if (rules != ruleEngine.snapshot()) {
+            lock.readLock().unlock();
+            try {
+                rebuild();
+            } finally {
+                lock.readLock().lock();
+            }
+        }
+        return groupById.get(componentId);
+    }
+
+    /** Совместимые партнёры слота; для несвязанных правилами слотов — все комплектующие слота */
+    private BitSet partnersOf(Group group, int partnerSlot) {
+        BitSet partners = group.partners.get(partnerSlot);
+        return partners != null ? partners : idsBySlot.get(partnerSlot);
+    }
+
+    private void add(Component component) {
+        int slot = rules.slotOf(component);
+        if (slot < 0 || component.getId() <= 0) return;
+
+        List<Object> signature = rules.signature(component, slot);
+        Map<List<Object>, Group> slotGroups = groupsBySlot.computeIfAbsent(slot, s -> new HashMap<>());
+        Group group = slotGroups.get(signature);
+        if (group == null) {
+            group = newGroup(slot, component);
+            slotGroups.put(signature, group);
+        }
+
+        int id = component.getId();
+        group.members.set(id);
+        for (Group other : group.compatible) {
+            other.partners.get(slot).set(id);
+        }
+        idsBySlot.computeIfAbsent(slot, s -> new BitSet()).set(id);
+        groupById.put(id, group);
+    }
+
+    /**
+     * Новая группа сравнивается по правилам с представителями всех групп связанных слотов.
+     * Связанный слот без подходящих групп ограничивает пустым множеством, а не «всеми».
+     */
+    private Group newGroup(int slot, Component component) {
+        Group group = new Group(groups.size(), slot, copyOf(component));
+        for (int partnerSlot = 0; partnerSlot < rules.slotCount(); partnerSlot++) {
+            if (rules.related(slot, partnerSlot)) {
+                group.partners.put(partnerSlot, new BitSet());
+            }
+        }
+        for (Group other : groups) {
+            BitSet partners = group.partners.get(other.slot);
+            if (partners != null && rules.compatible(group.representative, slot, other.representative, other.slot)) {
+                partners.or(other.members);
+                group.compatible.add(other);
+                other.compatible.add(group);
+            }
+        }
+        groups.add(group);
+        return group;
+    }
+
+    private void remove(int componentId) {
+        Group group = groupById.remove(componentId);
+        if (group == null) return;
+
+        group.members.clear(componentId);
+        for (Group other : group.compatible) {
+            other.partners.get(group.slot).clear(componentId);
+        }
+        idsBySlot.get(group.slot).clear(componentId);
+    }
+
+    private static Component copyOf(Component component) {
+        Component copy = new Component(component.getName(), component.getType(), component.getPrice(),
+                component.getQuantity(), component.getSpecifications(), component.getSocket(),
+                component.getMemoryType(), component.getFormFactor(), component.getPowerRequirements(),
+                component.getMaxMemory());
+        copy.setId(component.getId());
+        return copy;
+    }
+}
@@ -0,0 +1,146 @@
+package benchmarks;
+
+import models.CompatibilityRule;
+import models.Component;
+import models.ComponentType;
+import services.CompatibilityMatrix;
+import services.CompatibilityRuleEngine;
+import services.CompatibilityService;
+import services.ComponentCatalogCache;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Вопросы «какие платы подходят к процессору» и «какие платы подходят к процессору и памяти»:
+ * проверка правил для каждого кандидата против готовых множеств CompatibilityMatrix,
+ * а также цена обновления матрицы по одному изменённому комплектующему и полной перестройки.
+ * Запуск: java benchmarks.CompatibilityMatrixBenchmark [позиций в категории...], по умолчанию 20000.
+ */
+public class CompatibilityMatrixBenchmark {
+    private static final String[][] PLATFORMS = {
+        { "LGA1700", "DDR5" }, { "LGA1700", "DDR4" }, { "AM5", "DDR5" }, { "AM4", "DDR4" }, { "LGA1851", "DDR5" }
+    };
+    private static final String[] FORM_FACTORS = { "ATX", "Micro-ATX", "Mini-ITX", "E-ATX" };
+    private static final int QUERIES = 1_000;
+    private static final int UPDATES = 10_000;
+
+    public static void main(String[] args) {
+        int[] sizes = BenchmarkSupport.parseSizes(args, 20_000);
+        CompatibilityService compatibilityService = new CompatibilityService(CompatibilityRule.defaults());
+        CompatibilityRuleEngine.Snapshot rules = compatibilityService.getRuleEngine().snapshot();
+        int cpuSlot = ComponentType.PROCESSOR.ordinal();
+        int boardSlot = ComponentType.MOTHERBOARD.ordinal();
+        int memorySlot = ComponentType.MEMORY.ordinal();
+
+        for (int size : sizes) {
+            ComponentCatalogCache catalog = catalog(size);
+            List<Component> cpus = catalog.getByType(ComponentType.PROCESSOR.getDisplayName());
+            List<Component> boards = catalog.getByType(ComponentType.MOTHERBOARD.getDisplayName());
+            List<Component> memory = catalog.getByType(ComponentType.MEMORY.getDisplayName());
+
+            long start = System.nanoTime();
+            CompatibilityMatrix matrix = new CompatibilityMatrix(catalog, compatibilityService.getRuleEngine());
+            double buildMillis = (System.nanoTime() - start) / 1_000_000.0;
+            System.out.printf("Позиций в категории: %d, всего %d; построение матрицы %.0f мс%n",
+                    size, catalog.size(), buildMillis);
+
+            Random random = new Random(11);
+            int[] cpuIds = new int[QUERIES];
+            int[] memoryIds = new int[QUERIES];
+            for (int i = 0; i < QUERIES; i++) {
+                cpuIds[i] = cpus.get(random.nextInt(cpus.size())).getId();
+                memoryIds[i] = memory.get(random.nextInt(memory.size())).getId();
+            }
+
+            long[] counts = new long[4];
+            double scanOne = BenchmarkSupport.bestOfMillis(1, 3, () -> {
+                counts[0] = 0;
+                for (int q = 0; q < QUERIES; q++) {
+                    Component cpu = catalog.get(cpuIds[q]);
+                    for (Component board : boards) {
+                        if (rules.compatible(cpu, cpuSlot, board, boardSlot)) counts[0]++;
+                    }
+                }
+                return counts[0];
+            });
+            double matrixOne = BenchmarkSupport.bestOfMillis(1, 3, () -> {
+                counts[1] = 0;
+                for (int q = 0; q < QUERIES; q++) {
+                    counts[1] += matrix.compatibleWith(cpuIds[q], ComponentType.MOTHERBOARD).cardinality();
+                }
+                return counts[1];
+            });
+            double scanTwo = BenchmarkSupport.bestOfMillis(1, 3, () -> {
+                counts[2] = 0;
+                for (int q = 0; q < QUERIES; q++) {
+                    Component cpu = catalog.get(cpuIds[q]);
+                    Component ram = catalog.get(memoryIds[q]);
+                    for (Component board : boards) {
+                        if (rules.compatible(cpu, cpuSlot, board, boardSlot)
+                                && rules.compatible(ram, memorySlot, board, boardSlot)) counts[2]++;
+                    }
+                }
+                return counts[2];
+            });
+            double matrixTwo = BenchmarkSupport.bestOfMillis(1, 3, () -> {
+                counts[3] = 0;
+                for (int q = 0; q < QUERIES; q++) {
+                    BitSet fits = matrix.compatibleWith(cpuIds[q], ComponentType.MOTHERBOARD);
+                    matrix.retainCompatible(fits, memoryIds[q], ComponentType.MOTHERBOARD);
+                    counts[3] += fits.cardinality();
+                }
+                return counts[3];
+            });
+
+            System.out.printf("  Платы к процессору:          правила %8.1f мкс, матрица %6.1f мкс на запрос%s%n",
+                    scanOne * 1000 / QUERIES, matrixOne * 1000 / QUERIES, counts[0] == counts[1] ? "" : " ❌ расхождение");
+            System.out.printf("  Платы к процессору и памяти: правила %8.1f мкс, матрица %6.1f мкс на запрос%s%n",
+                    scanTwo * 1000 / QUERIES, matrixTwo * 1000 / QUERIES, counts[2] == counts[3] ? "" : " ❌ расхождение");
+
+            start = System.nanoTime();
+            for (int i = 0; i < UPDATES; i++) {
+                Component board = boards.get(random.nextInt(boards.size()));
+                String[] platform = PLATFORMS[random.nextInt(PLATFORMS.length)];
+                board.setSocket(platform[0]);
+                board.setMemoryType(platform[1]);
+                board.setFormFactor(FORM_FACTORS[random.nextInt(FORM_FACTORS.length)]);
+                catalog.put(board);
+                matrix.onComponentUpdated(board);
+            }
+            double perUpdate = (System.nanoTime() - start) / 1_000.0 / UPDATES;
+            double rebuild = BenchmarkSupport.bestOfMillis(1, 3, () -> {
+                matrix.rebuild();
+                return matrix.getVersion();
+            });
+            System.out.printf("  Изменение платы: %.1f мкс на обновление матрицы, полная перестройка %.0f мс%n",
+                    perUpdate, rebuild);
+        }
+    }
+
+    /** Каталог с равномерно распределёнными платформами и форм-факторами */
+    private static ComponentCatalogCache catalog(int perType) {
+        Random random = new Random(42);
+        ComponentCatalogCache catalog = new ComponentCatalogCache();
+        int id = 1;
+        for (int i = 0; i < perType; i++) {
+            String[] platform = PLATFORMS[random.nextInt(PLATFORMS.length)];
+            id = add(catalog, id, "CPU " + i, "Процессор", platform[0], null, null);
+            id = add(catalog, id, "Board " + i, "Материнская плата", platform[0], platform[1],
+                    FORM_FACTORS[random.nextInt(FORM_FACTORS.length)]);
+            id = add(catalog, id, "RAM " + i, "Оперативная память", null,
+                    PLATFORMS[random.nextInt(PLATFORMS.length)][1], null);
+            id = add(catalog, id, "Case " + i, "Корпус", null, null, FORM_FACTORS[random.nextInt(FORM_FACTORS.length)]);
+        }
+        return catalog;
+    }
+
+    private static int add(ComponentCatalogCache catalog, int id, String name, String type,
+                           String socket, String memoryType, String formFactor) {
+        Component component = new Component(name, type, 10_000, 5, "", socket, memoryType, formFactor, 0, 0);
+        component.setId(id);
+        catalog.put(component);
+        return id + 1;
+    }
+}
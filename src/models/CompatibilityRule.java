@@ -0,0 +1,63 @@
+package models;
+
+import java.util.List;
+
+/**
+ * Модель правила совместимости из таблицы compatibility_rules
+ */
+public class CompatibilityRule {
+    private int id;
+    private String ruleType;
+    private String componentType1;
+    private String componentType2;
+    private String condition;
+    private String description;
+
+    public CompatibilityRule() {}
+
+    public CompatibilityRule(String ruleType, String componentType1, String componentType2,
+                             String condition, String description) {
+        this.ruleType = ruleType;
+        this.componentType1 = componentType1;
+        this.componentType2 = componentType2;
+        this.condition = condition;
+        this.description = description;
+    }
+
+    /** Стандартный набор правил, которым заполняется новая база */
+    public static List<CompatibilityRule> defaults() {
+        return List.of(
+            new CompatibilityRule("SOCKET_MATCH", "Процессор", "Материнская плата", "socket = socket",
+                "Несовместимость сокетов: Процессор {1.name} (сокет {1.socket}) не подходит к материнской плате {2.name} (сокет {2.socket})"),
+            new CompatibilityRule("MEMORY_MATCH", "Оперативная память", "Материнская плата", "memory_type = memory_type",
+                "Несовместимость памяти: Оперативная память {1.name} ({1.memory_type}) не поддерживается материнской платой {2.name} ({2.memory_type})"),
+            new CompatibilityRule("FORM_FACTOR_MATCH", "Материнская плата", "Корпус", "form_factor FITS form_factor",
+                "Несовместимость форм-факторов: Материнская плата {1.name} ({1.form_factor}) не помещается в корпус {2.name} ({2.form_factor})")
+        );
+    }
+
+    // Getters and Setters
+    public int getId() { return id; }
+    public void setId(int id) { this.id = id; }
+
+    public String getRuleType() { return ruleType; }
+    public void setRuleType(String ruleType) { this.ruleType = ruleType; }
+
+    public String getComponentType1() { return componentType1; }
+    public void setComponentType1(String componentType1) { this.componentType1 = componentType1; }
+
+    public String getComponentType2() { return componentType2; }
+    public void setComponentType2(String componentType2) { this.componentType2 = componentType2; }
+
+    public String getCondition() { return condition; }
+    public void setCondition(String condition) { this.condition = condition; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    @Override
+    public String toString() {
+        return String.format("CompatibilityRule{id=%d, type='%s', %s -> %s, condition='%s'}",
+                id, ruleType, componentType1, componentType2, condition);
+    }
+}
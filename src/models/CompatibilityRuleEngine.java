@@ -0,0 +1,683 @@
+package services;
+
+import database.ConnectionLease;
+import database.DatabaseManager;
+import models.CompatibilityIssue;
+import models.CompatibilityRule;
+import models.AttributeDictionary;
+import models.Component;
+import models.ComponentType;
+
+import java.sql.*;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Движок правил совместимости из таблицы compatibility_rules.
+ *
+ * Условие правила разбирается и компилируется один раз при загрузке:
+ * <pre>
+ *   условие   := сравнение (AND сравнение)*
+ *   сравнение := операнд оператор операнд
+ *   операнд   := [1.|2.]поле | 'строка' | число
+ *   оператор  := = | != | &lt; | &lt;= | &gt; | &gt;= | FITS
+ * </pre>
+ * Поле без префикса слева относится к первому компоненту правила, справа — ко второму.
+ * Неуказанные значения полей (NULL, 0 у числовых атрибутов) правило не нарушают; константы
+ * и остаток на складе сравниваются всегда, поэтому условие quantity > 0 при нуле нарушается.
+ * Описание правила служит шаблоном сообщения: {1.name}, {2.socket} и т.п.
+ * Правило вида X_MATCH при нарушении даёт проблему X_MISMATCH.
+ *
+ * Каждому типу компонента, упомянутому в правилах, назначается номер слота; правила
+ * индексируются по слоту первого компонента. Набор правил неизменяем и заменяется
+ * целиком при reload(), поэтому проверка не разбирает условия и не блокируется.
+ */
+public class CompatibilityRuleEngine {
+    private static final Pattern TOKEN = Pattern.compile(
+            "\\s*(?:([12])\\.([A-Za-z_]+)|(\\d+)|'([^']*)'|(!=|<=|>=|=|<|>)|([A-Za-z_]+))");
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{([12])\\.([A-Za-z_]+)}");
+
+    private static final int CUSTOM_SLOT_BASE = ComponentType.values().length;
+
+    private final DatabaseManager dbManager;
+    private volatile Snapshot snapshot;
+    private long version;
+
+    public CompatibilityRuleEngine(DatabaseManager dbManager) {
+        this.dbManager = dbManager;
+        install(List.of());
+        reload();
+    }
+
+    /** Движок с фиксированным набором правил, без базы данных */
+    public CompatibilityRuleEngine(List<CompatibilityRule> rules) {
+        this.dbManager = null;
+        install(rules);
+    }
+
+    /** Перечитывает правила из БД без перезапуска приложения */
+    public void reload() {
+        if (dbManager == null) return;
+
+        List<CompatibilityRule> rules = new ArrayList<>();
+        String sql = "SELECT * FROM compatibility_rules ORDER BY id";
+
+        try (ConnectionLease lease = dbManager.lease();
+             ResultSet rs = lease.prepareStatement(sql).executeQuery()) {
+            while (rs.next()) {
+                CompatibilityRule rule = new CompatibilityRule(
+                    rs.getString("rule_type"),
+                    rs.getString("component_type1"),
+                    rs.getString("component_type2"),
+                    rs.getString("condition"),
+                    rs.getString("description"));
+                rule.setId(rs.getInt("id"));
+                rules.add(rule);
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Ошибка загрузки правил совместимости: " + e.getMessage());
+            return;
+        }
+
+        install(rules);
+    }
+
+    /** Компилирует набор правил и атомарно подменяет им текущий */
+    public synchronized void install(List<CompatibilityRule> rules) {
+        Map<String, Integer> customSlots = new HashMap<>();
+        List<List<CompiledRule>> bySlot = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        int count = 0;
+
+        for (CompatibilityRule rule : rules) {
+            String key = rule.getComponentType1() + '\u0000' + rule.getComponentType2() + '\u0000' + rule.getCondition();
+            if (!seen.add(key)) continue; // дубликаты от старых версий инициализатора схемы
+
+            try {
+                CompiledRule compiled = compile(rule);
+                int firstSlot = slotFor(rule.getComponentType1(), customSlots);
+                compiled.secondSlot = slotFor(rule.getComponentType2(), customSlots);
+                while (bySlot.size() <= firstSlot) {
+                    bySlot.add(new ArrayList<>());
+                }
+                bySlot.get(firstSlot).add(compiled);
+                count++;
+            } catch (IllegalArgumentException e) {
+                System.err.println("❌ Правило совместимости #" + rule.getId() + " пропущено: " + e.getMessage());
+            }
+        }
+
+        CompiledRule[][] rulesBySlot = new CompiledRule[CUSTOM_SLOT_BASE + customSlots.size()][];
+        for (int slot = 0; slot < rulesBySlot.length; slot++) {
+            rulesBySlot[slot] = slot < bySlot.size() ? bySlot.get(slot).toArray(new CompiledRule[0]) : new CompiledRule[0];
+        }
+        snapshot = new Snapshot(Map.copyOf(customSlots), rulesBySlot, count, ++version);
+    }
+
+    /** Слот типа: порядковый номер ComponentType, для типов вне перечисления — следующие номера */
+    private static int slotFor(String typeName, Map<String, Integer> customSlots) {
+        ComponentType type = ComponentType.fromName(typeName);
+        if (type != ComponentType.OTHER) return type.ordinal();
+
+        Integer slot = customSlots.get(typeName);
+        if (slot == null) {
+            slot = CUSTOM_SLOT_BASE + customSlots.size();
+            customSlots.put(typeName, slot);
+        }
+        return slot;
+    }
+
+    /** Текущий набор правил; остаётся согласованным, даже если во время проверки правила перезагрузят */
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    /** Номер загруженного набора правил; увеличивается при каждой перезагрузке */
+    public long getVersion() {
+        return snapshot.version;
+    }
+
+    public int getRuleCount() {
+        return snapshot.count;
+    }
+
+    public static boolean isFormFactorCompatible(String motherboardFF, String chassisFF) {
+        if (motherboardFF == null || chassisFF == null) return true;
+        return isFormFactorCompatible(AttributeDictionary.FORM_FACTORS.find(motherboardFF),
+                                      AttributeDictionary.FORM_FACTORS.find(chassisFF));
+    }
+
+    /** Помещается ли плата в корпус; коды из AttributeDictionary.FORM_FACTORS, 0 — не указан */
+    public static boolean isFormFactorCompatible(int motherboardFF, int chassisFF) {
+        if (motherboardFF == 0 || chassisFF == 0) return true;
+
+        return switch (motherboardFF) {
+            case AttributeDictionary.FF_ATX -> chassisFF == AttributeDictionary.FF_ATX || chassisFF == AttributeDictionary.FF_E_ATX;
+            case AttributeDictionary.FF_MICRO_ATX -> chassisFF == AttributeDictionary.FF_ATX || chassisFF == AttributeDictionary.FF_MICRO_ATX;
+            case AttributeDictionary.FF_MINI_ITX -> chassisFF == AttributeDictionary.FF_ATX || chassisFF == AttributeDictionary.FF_MICRO_ATX
+                    || chassisFF == AttributeDictionary.FF_MINI_ITX;
+            default -> true;
+        };
+    }
+
+    // ---------------------------------------------------------------- компиляция
+
+    private CompiledRule compile(CompatibilityRule rule) {
+        if (rule.getRuleType() == null || rule.getComponentType1() == null
+                || rule.getComponentType2() == null || rule.getCondition() == null) {
+            throw new IllegalArgumentException("не заданы тип правила, типы компонентов или условие");
+        }
+
+        List<String[]> tokens = tokenize(rule.getCondition());
+        List<Condition> parts = new ArrayList<>();
+        Field firstField = null;
+        Field secondField = null;
+        EnumSet<Field> firstFields = EnumSet.noneOf(Field.class);
+        EnumSet<Field> secondFields = EnumSet.noneOf(Field.class);
+
+        int pos = 0;
+        while (true) {
+            if (pos + 3 > tokens.size()) {
+                throw new IllegalArgumentException("неполное сравнение в условии '" + rule.getCondition() + "'");
+            }
+            Operand left = operand(tokens.get(pos), 1);
+            String op = operator(tokens.get(pos + 1));
+            Operand right = operand(tokens.get(pos + 2), 2);
+            parts.add(comparison(left, op, right));
+            collectField(tokens.get(pos), 1, firstFields, secondFields);
+            collectField(tokens.get(pos + 2), 2, firstFields, secondFields);
+            if (firstField == null) {
+                firstField = left.field;
+                secondField = right.field;
+            }
+            pos += 3;
+
+            if (pos == tokens.size()) break;
+            if (!"AND".equalsIgnoreCase(tokens.get(pos)[1])) {
+                throw new IllegalArgumentException("ожидался AND, найдено '" + tokens.get(pos)[1] + "'");
+            }
+            pos++;
+        }
+
+        Condition condition = parts.size() == 1 ? parts.get(0) : allOf(parts.toArray(new Condition[0]));
+        MessageTemplate message = MessageTemplate.compile(rule.getDescription(), firstField, secondField);
+        String ruleType = rule.getRuleType();
+        String issueType = ruleType.endsWith("_MATCH")
+                ? ruleType.substring(0, ruleType.length() - "_MATCH".length()) + "_MISMATCH"
+                : ruleType;
+
+        return new CompiledRule(issueType, condition, message,
+                firstFields.toArray(new Field[0]), secondFields.toArray(new Field[0]));
+    }
+
+    /** Запоминает поле операнда в наборе полей первого или второго компонента */
+    private static void collectField(String[] token, int defaultSide, Set<Field> firstFields, Set<Field> secondFields) {
+        if (!"field".equals(token[0])) return;
+        boolean first = token[2] != null ? token[2].equals("1") : defaultSide == 1;
+        (first ? firstFields : secondFields).add(Field.byName(token[1]));
+    }
+
+    /** Токены условия: {вид, текст, сторона}; вид — field, number, string, op, word */
+    private static List<String[]> tokenize(String condition) {
+        List<String[]> tokens = new ArrayList<>();
+        Matcher m = TOKEN.matcher(condition);
+        int pos = 0;
+        while (pos < condition.length()) {
+            if (condition.substring(pos).isBlank()) break;
+            if (!m.find(pos) || m.start() != pos) {
+                throw new IllegalArgumentException("непонятный фрагмент условия: '" + condition.substring(pos).trim() + "'");
+            }
+            if (m.group(1) != null) tokens.add(new String[] {"field", m.group(2), m.group(1)});
+            else if (m.group(3) != null) tokens.add(new String[] {"number", m.group(3), null});
+            else if (m.group(4) != null) tokens.add(new String[] {"string", m.group(4), null});
+            else if (m.group(5) != null) tokens.add(new String[] {"op", m.group(5), null});
+            else if ("FITS".equalsIgnoreCase(m.group(6)) || "AND".equalsIgnoreCase(m.group(6))) tokens.add(new String[] {"op", m.group(6).toUpperCase(), null});
+            else tokens.add(new String[] {"field", m.group(6), null});
+            pos = m.end();
+        }
+        return tokens;
+    }
+
+    private static String operator(String[] token) {
+        if (!"op".equals(token[0]) || "AND".equals(token[1])) {
+            throw new IllegalArgumentException("ожидался оператор сравнения, найдено '" + token[1] + "'");
+        }
+        return token[1];
+    }
+
+    private static Operand operand(String[] token, int defaultSide) {
+        switch (token[0]) {
+            case "number":
+                int value = Integer.parseInt(token[1]);
+                return Operand.number(null, (a, b) -> value);
+            case "string":
+                String text = token[1];
+                return Operand.literal(text);
+            case "field":
+                Field field = Field.byName(token[1]);
+                boolean first = token[2] != null ? token[2].equals("1") : defaultSide == 1;
+                if (field.code != null) {
+                    ToIntFunction<Component> code = field.code;
+                    Function<Component, String> get = field.text;
+                    return Operand.coded(field,
+                        first ? (a, b) -> get.apply(a) : (a, b) -> get.apply(b),
+                        first ? (a, b) -> code.applyAsInt(a) : (a, b) -> code.applyAsInt(b));
+                }
+                if (field.number != null) {
+                    ToIntFunction<Component> get = field.number;
+                    return Operand.number(field, first ? (a, b) -> get.applyAsInt(a) : (a, b) -> get.applyAsInt(b));
+                }
+                Function<Component, String> get = field.text;
+                return Operand.text(field, first ? (a, b) -> get.apply(a) : (a, b) -> get.apply(b));
+            default:
+                throw new IllegalArgumentException("ожидался операнд, найдено '" + token[1] + "'");
+        }
+    }
+
+    private static Condition comparison(Operand left, String op, Operand right) {
+        if (left.isNumber() != right.isNumber()) {
+            throw new IllegalArgumentException("сравнение строки с числом");
+        }
+
+        if (left.isNumber()) {
+            NumberValue l = left.number;
+            NumberValue r = right.number;
+            boolean lo = left.optional();
+            boolean ro = right.optional();
+            return switch (op) {
+                case "=" -> numeric(l, lo, r, ro, (x, y) -> x == y);
+                case "!=" -> numeric(l, lo, r, ro, (x, y) -> x != y);
+                case "<" -> numeric(l, lo, r, ro, (x, y) -> x < y);
+                case "<=" -> numeric(l, lo, r, ro, (x, y) -> x <= y);
+                case ">" -> numeric(l, lo, r, ro, (x, y) -> x > y);
+                case ">=" -> numeric(l, lo, r, ro, (x, y) -> x >= y);
+                default -> throw new IllegalArgumentException("оператор " + op + " неприменим к числам");
+            };
+        }
+
+        Condition coded = codedComparison(left, op, right);
+        if (coded != null) return coded;
+
+        TextValue l = left.text;
+        TextValue r = right.text;
+        return switch (op) {
+            case "=" -> textual(l, r, String::equals);
+            case "!=" -> textual(l, r, (x, y) -> !x.equals(y));
+            case "FITS" -> textual(l, r, CompatibilityRuleEngine::isFormFactorCompatible);
+            default -> throw new IllegalArgumentException("оператор " + op + " неприменим к строкам");
+        };
+    }
+
+    /**
+     * Сравнение по кодам словаря: поле с полем того же атрибута или поле со строковой константой.
+     * Возвращает null, если операнды так сравнить нельзя.
+     */
+    private static Condition codedComparison(Operand left, String op, Operand right) {
+        NumberValue l;
+        NumberValue r;
+        boolean lo = left.code != null;
+        boolean ro = right.code != null;
+        if (lo && ro && left.field.dictionary == right.field.dictionary) {
+            l = left.code;
+            r = right.code;
+        } else if (lo && right.literal != null) {
+            int constant = left.field.dictionary.code(right.literal);
+            l = left.code;
+            r = (a, b) -> constant;
+        } else if (ro && left.literal != null) {
+            int constant = right.field.dictionary.code(left.literal);
+            l = (a, b) -> constant;
+            r = right.code;
+        } else {
+            return null;
+        }
+
+        return switch (op) {
+            case "=" -> numeric(l, lo, r, ro, (x, y) -> x == y);
+            case "!=" -> numeric(l, lo, r, ro, (x, y) -> x != y);
+            case "FITS" -> numeric(l, lo, r, ro, CompatibilityRuleEngine::isFormFactorCompatible);
+            default -> throw new IllegalArgumentException("оператор " + op + " неприменим к строкам");
+        };
+    }
+
+    /** Сравнение чисел; 0 у стороны с optional — значение не указано, правило не нарушено */
+    private static Condition numeric(NumberValue left, boolean leftOptional,
+                                     NumberValue right, boolean rightOptional, IntComparison cmp) {
+        return (a, b) -> {
+            int x = left.get(a, b);
+            int y = right.get(a, b);
+            return (leftOptional && x == 0) || (rightOptional && y == 0) || cmp.test(x, y);
+        };
+    }
+
+    private static Condition textual(TextValue left, TextValue right, TextComparison cmp) {
+        return (a, b) -> {
+            String x = left.get(a, b);
+            String y = right.get(a, b);
+            return x == null || y == null || cmp.test(x, y);
+        };
+    }
+
+    private static Condition allOf(Condition[] parts) {
+        return (a, b) -> {
+            for (Condition part : parts) {
+                if (!part.test(a, b)) return false;
+            }
+            return true;
+        };
+    }
+
+    // ---------------------------------------------------------------- модель
+
+    private interface Condition {
+        boolean test(Component first, Component second);
+    }
+
+    private interface TextValue {
+        String get(Component first, Component second);
+    }
+
+    private interface NumberValue {
+        int get(Component first, Component second);
+    }
+
+    private interface IntComparison {
+        boolean test(int x, int y);
+    }
+
+    private interface TextComparison {
+        boolean test(String x, String y);
+    }
+
+    private static final class Operand {
+        final Field field;
+        final TextValue text;
+        final NumberValue number;
+        final NumberValue code;
+        final String literal;
+
+        private Operand(Field field, TextValue text, NumberValue number, NumberValue code, String literal) {
+            this.field = field;
+            this.text = text;
+            this.number = number;
+            this.code = code;
+            this.literal = literal;
+        }
+
+        static Operand text(Field field, TextValue value) { return new Operand(field, value, null, null, null); }
+
+        static Operand number(Field field, NumberValue value) { return new Operand(field, null, value, null, null); }
+
+        static Operand coded(Field field, TextValue text, NumberValue code) { return new Operand(field, text, null, code, null); }
+
+        static Operand literal(String value) { return new Operand(null, (a, b) -> value, null, null, value); }
+
+        boolean isNumber() { return number != null; }
+
+        /** 0 означает «не указано»: только у полей-атрибутов, не у констант */
+        boolean optional() { return field != null && field.optional; }
+    }
+
+    /** Поля Component, доступные в условиях и шаблонах сообщений */
+    enum Field {
+        NAME("name", Component::getName, null),
+        TYPE("type", Component::getType, null),
+        SOCKET("socket", AttributeDictionary.SOCKETS, Component::getSocket, Component::getSocketCode),
+        MEMORY_TYPE("memory_type", AttributeDictionary.MEMORY_TYPES, Component::getMemoryType, Component::getMemoryTypeCode),
+        FORM_FACTOR("form_factor", AttributeDictionary.FORM_FACTORS, Component::getFormFactor, Component::getFormFactorCode),
+        POWER_REQUIREMENTS("power_requirements", null, Component::getPowerRequirements),
+        MAX_MEMORY("max_memory", null, Component::getMaxMemory),
+        /** Остаток: 0 — настоящее значение, а не «не указано» */
+        QUANTITY("quantity", null, Component::getQuantity, false);
+
+        final String column;
+        final Function<Component, String> text;
+        final ToIntFunction<Component> number;
+        final AttributeDictionary dictionary;
+        final ToIntFunction<Component> code;
+        /** Числовое значение 0 означает «не указано» */
+        final boolean optional;
+
+        Field(String column, Function<Component, String> text, ToIntFunction<Component> number) {
+            this(column, text, number, true);
+        }
+
+        Field(String column, Function<Component, String> text, ToIntFunction<Component> number, boolean optional) {
+            this(column, null, text, number, null, optional);
+        }
+
+        Field(String column, AttributeDictionary dictionary, Function<Component, String> text, ToIntFunction<Component> code) {
+            this(column, dictionary, text, null, code, true);
+        }
+
+        private Field(String column, AttributeDictionary dictionary, Function<Component, String> text,
+                      ToIntFunction<Component> number, ToIntFunction<Component> code, boolean optional) {
+            this.column = column;
+            this.dictionary = dictionary;
+            this.text = text;
+            this.number = number;
+            this.code = code;
+            this.optional = optional;
+        }
+
+        String render(Component component) {
+            if (number != null) return String.valueOf(number.applyAsInt(component));
+            String value = text.apply(component);
+            return value != null ? value : "-";
+        }
+
+        static Field byName(String name) {
+            for (Field field : values()) {
+                if (field.column.equalsIgnoreCase(name)) return field;
+            }
+            throw new IllegalArgumentException("неизвестное поле '" + name + "'");
+        }
+    }
+
+    /** Шаблон сообщения, разобранный при компиляции правила */
+    private static final class MessageTemplate {
+        private final String[] literals;
+        private final Field[] fields;
+        private final boolean[] first;
+
+        private MessageTemplate(String[] literals, Field[] fields, boolean[] first) {
+            this.literals = literals;
+            this.fields = fields;
+            this.first = first;
+        }
+
+        static MessageTemplate compile(String description, Field firstField, Field secondField) {
+            String template = description != null ? description : "";
+            if (!PLACEHOLDER.matcher(template).find()) {
+                // Старые описания без подстановок дополняем участниками проверки
+                String firstPart = firstField != null ? " ({1." + firstField.column + "})" : "";
+                String secondPart = secondField != null ? " ({2." + secondField.column + "})" : "";
+                template += ": {1.name}" + firstPart + ", {2.name}" + secondPart;
+            }
+
+            List<String> literals = new ArrayList<>();
+            List<Field> fields = new ArrayList<>();
+            List<Boolean> sides = new ArrayList<>();
+            Matcher m = PLACEHOLDER.matcher(template);
+            int last = 0;
+            while (m.find()) {
+                literals.add(template.substring(last, m.start()));
+                fields.add(Field.byName(m.group(2)));
+                sides.add(m.group(1).equals("1"));
+                last = m.end();
+            }
+            literals.add(template.substring(last));
+
+            boolean[] first = new boolean[sides.size()];
+            for (int i = 0; i < first.length; i++) {
+                first[i] = sides.get(i);
+            }
+            return new MessageTemplate(literals.toArray(new String[0]), fields.toArray(new Field[0]), first);
+        }
+
+        String render(Component a, Component b) {
+            StringBuilder sb = new StringBuilder(literals[0]);
+            for (int i = 0; i < fields.length; i++) {
+                sb.append(fields[i].render(first[i] ? a : b)).append(literals[i + 1]);
+            }
+            return sb.toString();
+        }
+    }
+
+    private static final class CompiledRule {
+        final String issueType;
+        final Condition condition;
+        final MessageTemplate message;
+        /** Поля первого и второго компонента, от которых зависит условие */
+        final Field[] firstFields;
+        final Field[] secondFields;
+        int secondSlot;
+
+        CompiledRule(String issueType, Condition condition, MessageTemplate message,
+                     Field[] firstFields, Field[] secondFields) {
+            this.issueType = issueType;
+            this.condition = condition;
+            this.message = message;
+            this.firstFields = firstFields;
+            this.secondFields = secondFields;
+        }
+    }
+
+    /**
+     * Неизменяемый скомпилированный набор правил. Слот компонента — порядковый номер
+     * его ComponentType; типам вне перечисления, упомянутым в правилах, выделены доп. слоты.
+     */
+    public static final class Snapshot {
+        private final Map<String, Integer> customSlots;
+        private final CompiledRule[][] rulesBySlot;
+        private final int count;
+        private final long version;
+
+        /** Поля, от которых зависят правила слота, и пары слотов, связанные правилами */
+        private final Field[][] fieldsBySlot;
+        private final boolean[][] related;
+
+        private Snapshot(Map<String, Integer> customSlots, CompiledRule[][] rulesBySlot, int count, long version) {
+            this.customSlots = customSlots;
+            this.rulesBySlot = rulesBySlot;
+            this.count = count;
+            this.version = version;
+
+            int slots = rulesBySlot.length;
+            List<EnumSet<Field>> fields = new ArrayList<>();
+            for (int slot = 0; slot < slots; slot++) {
+                fields.add(EnumSet.noneOf(Field.class));
+            }
+            related = new boolean[slots][slots];
+            for (int slot = 0; slot < slots; slot++) {
+                for (CompiledRule rule : rulesBySlot[slot]) {
+                    fields.get(slot).addAll(Arrays.asList(rule.firstFields));
+                    fields.get(rule.secondSlot).addAll(Arrays.asList(rule.secondFields));
+                    related[slot][rule.secondSlot] = true;
+                    related[rule.secondSlot][slot] = true;
+                }
+            }
+            fieldsBySlot = new Field[slots][];
+            for (int slot = 0; slot < slots; slot++) {
+                fieldsBySlot[slot] = fields.get(slot).toArray(new Field[0]);
+            }
+        }
+
+        public int slotCount() {
+            return rulesBySlot.length;
+        }
+
+        /** Номер набора правил, см. CompatibilityRuleEngine.getVersion() */
+        public long getVersion() {
+            return version;
+        }
+
+        /** Слот компонента или -1 для типа вне перечисления, не упомянутого в правилах */
+        public int slotOf(Component component) {
+            ComponentType type = component.getComponentType();
+            if (type != ComponentType.OTHER) return type.ordinal();
+            if (customSlots.isEmpty() || component.getType() == null) return -1;
+            Integer slot = customSlots.get(component.getType());
+            return slot != null ? slot : -1;
+        }
+
+        /**
+         * Проверяет правила для компонентов, разложенных по слотам.
+         * Рассматриваются только правила, оба типа которых присутствуют в сборке;
+         * список проблем создаётся при первой найденной проблеме.
+         *
+         * @return issues, новый список или null, если проблем нет и issues == null
+         */
+        public List<CompatibilityIssue> evaluate(Component[] componentsBySlot, List<CompatibilityIssue> issues) {
+            for (int slot = 0; slot < rulesBySlot.length; slot++) {
+                Component first = componentsBySlot[slot];
+                if (first == null) continue;
+
+                for (CompiledRule rule : rulesBySlot[slot]) {
+                    Component second = componentsBySlot[rule.secondSlot];
+                    if (second != null && !rule.condition.test(first, second)) {
+                        if (issues == null) issues = new ArrayList<>(4);
+                        issues.add(new CompatibilityIssue(rule.issueType, rule.message.render(first, second), "ERROR"));
+                    }
+                }
+            }
+            return issues;
+        }
+
+        /** Есть ли правила между компонентами двух разных слотов */
+        public boolean related(int firstSlot, int secondSlot) {
+            return firstSlot != secondSlot && related[firstSlot][secondSlot];
+        }
+
+        /** Совместимы ли два компонента по всем правилам между их слотами (в обе стороны) */
+        public boolean compatible(Component first, int firstSlot, Component second, int secondSlot) {
+            for (CompiledRule rule : rulesBySlot[firstSlot]) {
+                if (rule.secondSlot == secondSlot && !rule.condition.test(first, second)) return false;
+            }
+            for (CompiledRule rule : rulesBySlot[secondSlot]) {
+                if (rule.secondSlot == firstSlot && !rule.condition.test(second, first)) return false;
+            }
+            return true;
+        }
+
+        /**
+         * Значения полей компонента, от которых зависят правила его слота. Компоненты слота
+         * с равными сигнатурами правила не различают: совместимость достаточно проверить для одного.
+         */
+        public List<Object> signature(Component component, int slot) {
+            Field[] fields = fieldsBySlot[slot];
+            Object[] values = new Object[fields.length];
+            for (int i = 0; i < fields.length; i++) {
+                Field field = fields[i];
+                values[i] = field.code != null ? (Object) field.code.applyAsInt(component)
+                          : field.number != null ? (Object) field.number.applyAsInt(component)
+                          : field.text.apply(component);
+            }
+            return Arrays.asList(values);
+        }
+
+        /**
+         * Совместим ли компонент из слота slot с уже заполненными слотами.
+         * В отличие от evaluate ничего не создаёт — для перебора кандидатов.
+         */
+        public boolean accepts(Component[] componentsBySlot, int slot) {
+            Component candidate = componentsBySlot[slot];
+            for (CompiledRule rule : rulesBySlot[slot]) {
+                Component other = componentsBySlot[rule.secondSlot];
+                if (other != null && !rule.condition.test(candidate, other)) return false;
+            }
+            for (int first = 0; first < rulesBySlot.length; first++) {
+                Component other = componentsBySlot[first];
+                if (other == null || first == slot) continue;
+
+                for (CompiledRule rule : rulesBySlot[first]) {
+                    if (rule.secondSlot == slot && !rule.condition.test(other, candidate)) return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -2,155 +2,191 @@ package services;
 
 import database.DatabaseManager;
 import models.Component;
+import models.ComponentType;
 import models.CompatibilityIssue;
+import models.CompatibilityRule;
 import models.Configuration;
+import utils.LatencyHistogram;
+import utils.Metrics;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Сервис для проверки совместимости компонентов
  */
 public class CompatibilityService {
+    /** Запас мощности на остальные компоненты и рекомендуемый запас БП, Вт */
+    static final int POWER_RESERVE = 100;
+
+    /** Проверка занимает доли микросекунды — замеряется в среднем каждый 16-й вызов */
+    private static final LatencyHistogram VALIDATE_LATENCY =
+        Metrics.global().operation("CompatibilityService.validateComponents", 16);
+
     private DatabaseManager dbManager;
+    private CompatibilityRuleEngine ruleEngine;
+    private final ValidationCache cache;
+    private final ThreadLocal<Component[]> scratchSlots = new ThreadLocal<>();
 
     public CompatibilityService(DatabaseManager dbManager) {
+        this(dbManager, null);
+    }
+
+    /**
+     * Сервис с кэшем результатов проверки; cache должен быть подписан на изменения
+     * каталога (ComponentService.addListener), иначе он не узнает об изменённых комплектующих.
+     */
+    public CompatibilityService(DatabaseManager dbManager, ValidationCache cache) {
         this.dbManager = dbManager;
+        this.ruleEngine = new CompatibilityRuleEngine(dbManager);
+        this.cache = cache;
     }
 
-    public List<CompatibilityIssue> validateConfiguration(Configuration configuration) {
-        List<CompatibilityIssue> issues = new ArrayList<>();
-        List<Component> components = configuration.getComponents();
+    /** Сервис без базы данных с заданным набором правил */
+    public CompatibilityService(List<CompatibilityRule> rules) {
+        this(rules, null);
+    }
 
-        // Проверяем основные правила совместимости
-        issues.addAll(checkSocketCompatibility(components));
-        issues.addAll(checkMemoryCompatibility(components));
-        issues.addAll(checkFormFactorCompatibility(components));
-        issues.addAll(checkPowerSupplyCompatibility(components));
+    public CompatibilityService(List<CompatibilityRule> rules, ValidationCache cache) {
+        this.ruleEngine = new CompatibilityRuleEngine(rules);
+        this.cache = cache;
+    }
 
-        return issues;
+    /**
+     * Проверяет конфигурацию за один проход по компонентам: компоненты раскладываются
+     * по слотам типов (учитывается первый компонент каждого типа), попутно считается
+     * потребляемая мощность. Объекты проблем создаются только при их обнаружении;
+     * если проблем нет, возвращается неизменяемый пустой список.
+     * С кэшем повторная проверка того же набора возвращает сохранённый неизменяемый список.
+     */
+    public List<CompatibilityIssue> validateConfiguration(Configuration configuration) {
+        return validateComponents(configuration.getComponents());
     }
 
-    private List<CompatibilityIssue> checkSocketCompatibility(List<Component> components) {
-        List<CompatibilityIssue> issues = new ArrayList<>();
-        
-        Component cpu = findComponentByType(components, "Процессор");
-        Component motherboard = findComponentByType(components, "Материнская плата");
-        
-        if (cpu != null && motherboard != null) {
-            if (cpu.getSocket() != null && motherboard.getSocket() != null && 
-                !cpu.getSocket().equals(motherboard.getSocket())) {
-                issues.add(new CompatibilityIssue(
-                    "SOCKET_MISMATCH",
-                    String.format("Несовместимость сокетов: Процессор %s (сокет %s) не подходит к материнской плате %s (сокет %s)",
-                                 cpu.getName(), cpu.getSocket(), motherboard.getName(), motherboard.getSocket()),
-                    "ERROR"
-                ));
+    /** То же для набора комплектующих без объекта конфигурации */
+    public List<CompatibilityIssue> validateComponents(List<Component> components) {
+        long start = VALIDATE_LATENCY.start();
+        CompatibilityRuleEngine.Snapshot rules = ruleEngine.snapshot();
+        Component[] slots = scratch(rules.slotCount());
+        int consumedPower = 0;
+        boolean duplicateSlots = false;
+
+        try {
+            for (int i = 0, n = components.size(); i < n; i++) {
+                Component component = components.get(i);
+                int slot = rules.slotOf(component);
+                if (slot < 0) continue;
+
+                if (slots[slot] == null) {
+                    slots[slot] = component;
+                } else {
+                    duplicateSlots = true;
+                }
+                ComponentType type = component.getComponentType();
+                if ((type == ComponentType.PROCESSOR || type == ComponentType.GPU) && component.getPowerRequirements() > 0) {
+                    consumedPower += component.getPowerRequirements();
+                }
             }
-        }
-        
-        return issues;
-    }
 
-    private List<CompatibilityIssue> checkMemoryCompatibility(List<Component> components) {
-        List<CompatibilityIssue> issues = new ArrayList<>();
-        
-        Component memory = findComponentByType(components, "Оперативная память");
-        Component motherboard = findComponentByType(components, "Материнская плата");
-        
-        if (memory != null && motherboard != null) {
-            if (memory.getMemoryType() != null && motherboard.getMemoryType() != null && 
-                !memory.getMemoryType().equals(motherboard.getMemoryType())) {
-                issues.add(new CompatibilityIssue(
-                    "MEMORY_MISMATCH",
-                    String.format("Несовместимость памяти: Оперативная память %s (%s) не поддерживается материнской платой %s (%s)",
-                                 memory.getName(), memory.getMemoryType(), motherboard.getName(), motherboard.getMemoryType()),
-                    "ERROR"
-                ));
+            ValidationCache.Fingerprint key = null;
+            long stamp = 0;
+            if (cache != null) {
+                key = ValidationCache.fingerprint(components, rules.getVersion(), duplicateSlots);
+                if (key != null) {
+                    stamp = cache.stamp();
+                    List<CompatibilityIssue> cached = cache.get(key);
+                    if (cached != null) return counted(cached);
+                }
             }
+
+            // Попарные правила из compatibility_rules
+            List<CompatibilityIssue> issues = rules.evaluate(slots, null);
+
+            // Мощность БП зависит от всей сборки, а не от пары компонентов
+            issues = checkPowerSupply(slots[ComponentType.POWER_SUPPLY.ordinal()], consumedPower + POWER_RESERVE, issues);
+
+            if (issues == null) issues = Collections.emptyList();
+            if (key != null) {
+                cache.put(key, stamp, issues);
+            }
+            return counted(issues);
+        } finally {
+            Arrays.fill(slots, null);
+            VALIDATE_LATENCY.recordSince(start);
         }
-        
-        return issues;
     }
 
-    private List<CompatibilityIssue> checkFormFactorCompatibility(List<Component> components) {
-        List<CompatibilityIssue> issues = new ArrayList<>();
-        
-        Component motherboard = findComponentByType(components, "Материнская плата");
-        Component chassis = findComponentByType(components, "Корпус");
-        
-        if (motherboard != null && chassis != null) {
-            if (!isFormFactorCompatible(motherboard.getFormFactor(), chassis.getFormFactor())) {
-                issues.add(new CompatibilityIssue(
-                    "FORM_FACTOR_MISMATCH",
-                    String.format("Несовместимость форм-факторов: Материнская плата %s (%s) не помещается в корпус %s (%s)",
-                                 motherboard.getName(), motherboard.getFormFactor(), chassis.getName(), chassis.getFormFactor()),
-                    "ERROR"
-                ));
-            }
+    /** Статус конфигурации для compatibility_status по результату проверки */
+    public static String statusOf(List<CompatibilityIssue> issues) {
+        String status = Configuration.STATUS_COMPATIBLE;
+        for (CompatibilityIssue issue : issues) {
+            if ("ERROR".equals(issue.getSeverity())) return Configuration.STATUS_INCOMPATIBLE;
+            status = Configuration.STATUS_WARNINGS;
         }
-        
-        return issues;
+        return status;
+    }
+
+    /** Перечитывает правила совместимости из БД */
+    public void reloadRules() {
+        ruleEngine.reload();
+    }
+
+    public CompatibilityRuleEngine getRuleEngine() {
+        return ruleEngine;
     }
 
-    private List<CompatibilityIssue> checkPowerSupplyCompatibility(List<Component> components) {
-        List<CompatibilityIssue> issues = new ArrayList<>();
-        
-        Component psu = findComponentByType(components, "Блок питания");
+    /** Кэш результатов проверки или null, если сервис без кэша */
+    public ValidationCache getCache() {
+        return cache;
+    }
+
+    private List<CompatibilityIssue> checkPowerSupply(Component psu, int totalPower, List<CompatibilityIssue> issues) {
         if (psu == null) {
-            issues.add(new CompatibilityIssue("NO_PSU", "Отсутствует блок питания", "ERROR"));
-            return issues;
+            return addIssue(issues, new CompatibilityIssue("NO_PSU", "Отсутствует блок питания", "ERROR"));
         }
-        
-        int totalPower = calculateTotalPowerConsumption(components);
-        
+
         if (psu.getPowerRequirements() < totalPower) {
-            issues.add(new CompatibilityIssue(
+            return addIssue(issues, new CompatibilityIssue(
                 "INSUFFICIENT_POWER",
                 String.format("Недостаточная мощность БП: требуется %dW, а блок питания %s имеет %dW",
                              totalPower, psu.getName(), psu.getPowerRequirements()),
                 "ERROR"
             ));
-        } else if (psu.getPowerRequirements() < totalPower + 100) {
-            issues.add(new CompatibilityIssue(
+        } else if (psu.getPowerRequirements() < totalPower + POWER_RESERVE) {
+            return addIssue(issues, new CompatibilityIssue(
                 "LOW_POWER_MARGIN",
                 String.format("Малая мощность БП: рекомендуется запас 100W+ (текущий запас: %dW)",
                              psu.getPowerRequirements() - totalPower),
                 "WARNING"
             ));
         }
-        
+
         return issues;
     }
 
-    private int calculateTotalPowerConsumption(List<Component> components) {
-        int totalPower = 0;
-        for (Component comp : components) {
-            if (comp.getPowerRequirements() > 0 && 
-                (comp.getType().equals("Процессор") || comp.getType().equals("Видеокарта"))) {
-                totalPower += comp.getPowerRequirements();
-            }
+    /** Учитывает найденные проблемы в Metrics по типу */
+    private static List<CompatibilityIssue> counted(List<CompatibilityIssue> issues) {
+        for (int i = 0, n = issues.size(); i < n; i++) {
+            Metrics.global().countIssue(issues.get(i).getType());
         }
-        // Добавляем запас 100W для остальных компонентов
-        return totalPower + 100;
+        return issues;
     }
 
-    private Component findComponentByType(List<Component> components, String type) {
-        return components.stream()
-                .filter(c -> c.getType().equals(type))
-                .findFirst()
-                .orElse(null);
+    private static List<CompatibilityIssue> addIssue(List<CompatibilityIssue> issues, CompatibilityIssue issue) {
+        if (issues == null) issues = new ArrayList<>(2);
+        issues.add(issue);
+        return issues;
     }
 
-    private boolean isFormFactorCompatible(String motherboardFF, String chassisFF) {
-        if (motherboardFF == null || chassisFF == null) return true;
-        
-        return switch (motherboardFF) {
-            case "ATX" -> chassisFF.equals("ATX") || chassisFF.equals("E-ATX");
-            case "Micro-ATX" -> chassisFF.equals("ATX") || chassisFF.equals("Micro-ATX");
-            case "Mini-ITX" -> chassisFF.equals("ATX") || chassisFF.equals("Micro-ATX") || chassisFF.equals("Mini-ITX");
-            default -> true;
-        };
+    private Component[] scratch(int size) {
+        Component[] slots = scratchSlots.get();
+        if (slots == null || slots.length < size) {
+            slots = new Component[size];
+            scratchSlots.set(slots);
+        }
+        return slots;
     }
 }
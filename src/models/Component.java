@@ -1,34 +1,42 @@
 package models;
 
+import utils.Money;
+
 /**
- * Модель комплектующего ПК
+ * Модель комплектующего ПК.
+ * Тип хранится как ComponentType, а сокет, тип памяти и форм-фактор — как коды
+ * AttributeDictionary: строки разделяются всеми экземплярами, а сравниваются числа.
  */
 public class Component {
     private int id;
     private String name;
-    private String type;
-    private double price;
+    private ComponentType componentType = ComponentType.OTHER;
+    private String customType;
+    /** Цена в копейках */
+    private long price;
     private int quantity;
     private String specifications;
-    private String socket;
-    private String memoryType;
-    private String formFactor;
+    private int socket;
+    private int memoryType;
+    private int formFactor;
     private int powerRequirements;
     private int maxMemory;
+    /** Номер изменения строки в БД; обновление по устаревшей версии отклоняется */
+    private int version;
 
     public Component() {}
 
-    public Component(String name, String type, double price, int quantity, 
+    public Component(String name, String type, long price, int quantity, 
                     String specifications, String socket, String memoryType, 
                     String formFactor, int powerRequirements, int maxMemory) {
         this.name = name;
-        this.type = type;
+        setType(type);
         this.price = price;
         this.quantity = quantity;
         this.specifications = specifications;
-        this.socket = socket;
-        this.memoryType = memoryType;
-        this.formFactor = formFactor;
+        setSocket(socket);
+        setMemoryType(memoryType);
+        setFormFactor(formFactor);
         this.powerRequirements = powerRequirements;
         this.maxMemory = maxMemory;
     }
@@ -40,11 +48,22 @@ public class Component {
     public String getName() { return name; }
     public void setName(String name) { this.name = name; }
 
-    public String getType() { return type; }
-    public void setType(String type) { this.type = type; }
+    public String getType() {
+        return componentType != ComponentType.OTHER ? componentType.getDisplayName() : customType;
+    }
+    public void setType(String type) {
+        this.componentType = ComponentType.fromName(type);
+        this.customType = componentType == ComponentType.OTHER ? type : null;
+    }
+
+    public ComponentType getComponentType() { return componentType; }
+    public void setComponentType(ComponentType componentType) {
+        this.componentType = componentType;
+        this.customType = null;
+    }
 
-    public double getPrice() { return price; }
-    public void setPrice(double price) { this.price = price; }
+    public long getPrice() { return price; }
+    public void setPrice(long price) { this.price = price; }
 
     public int getQuantity() { return quantity; }
     public void setQuantity(int quantity) { this.quantity = quantity; }
@@ -52,14 +71,17 @@ public class Component {
     public String getSpecifications() { return specifications; }
     public void setSpecifications(String specifications) { this.specifications = specifications; }
 
-    public String getSocket() { return socket; }
-    public void setSocket(String socket) { this.socket = socket; }
+    public String getSocket() { return AttributeDictionary.SOCKETS.value(socket); }
+    public void setSocket(String socket) { this.socket = AttributeDictionary.SOCKETS.code(socket); }
+    public int getSocketCode() { return socket; }
 
-    public String getMemoryType() { return memoryType; }
-    public void setMemoryType(String memoryType) { this.memoryType = memoryType; }
+    public String getMemoryType() { return AttributeDictionary.MEMORY_TYPES.value(memoryType); }
+    public void setMemoryType(String memoryType) { this.memoryType = AttributeDictionary.MEMORY_TYPES.code(memoryType); }
+    public int getMemoryTypeCode() { return memoryType; }
 
-    public String getFormFactor() { return formFactor; }
-    public void setFormFactor(String formFactor) { this.formFactor = formFactor; }
+    public String getFormFactor() { return AttributeDictionary.FORM_FACTORS.value(formFactor); }
+    public void setFormFactor(String formFactor) { this.formFactor = AttributeDictionary.FORM_FACTORS.code(formFactor); }
+    public int getFormFactorCode() { return formFactor; }
 
     public int getPowerRequirements() { return powerRequirements; }
     public void setPowerRequirements(int powerRequirements) { this.powerRequirements = powerRequirements; }
@@ -67,9 +89,31 @@ public class Component {
     public int getMaxMemory() { return maxMemory; }
     public void setMaxMemory(int maxMemory) { this.maxMemory = maxMemory; }
 
+    public int getVersion() { return version; }
+    public void setVersion(int version) { this.version = version; }
+
+    /** Независимая копия: экземпляры в кэше каталога не меняются, правки делаются в копии */
+    public Component copy() {
+        Component copy = new Component();
+        copy.id = id;
+        copy.name = name;
+        copy.componentType = componentType;
+        copy.customType = customType;
+        copy.price = price;
+        copy.quantity = quantity;
+        copy.specifications = specifications;
+        copy.socket = socket;
+        copy.memoryType = memoryType;
+        copy.formFactor = formFactor;
+        copy.powerRequirements = powerRequirements;
+        copy.maxMemory = maxMemory;
+        copy.version = version;
+        return copy;
+    }
+
     @Override
     public String toString() {
-        return String.format("Component{id=%d, name='%s', type='%s', price=%.2f, quantity=%d}",
-                id, name, type, price, quantity);
+        return String.format("Component{id=%d, name='%s', type='%s', price=%s, quantity=%d}",
+                id, name, getType(), Money.toPlainString(price), quantity);
     }
 }
@@ -0,0 +1,180 @@
+package services;
+
+import models.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Кэш каталога комплектующих в памяти.
+ * Основной индекс — массив, адресуемый id (идентификаторы в SQLite плотные),
+ * поэтому поиск по id не обращается к БД и не создаёт объектов.
+ * Вторичный индекс — по типу комплектующего. Запись выполняется под блокировкой кэша,
+ * чтение — без блокировок.
+ * Закэшированные экземпляры — неизменяемые снимки, общие для всех читателей: изменение
+ * заменяет запись новым экземпляром, а не правит старый.
+ */
+public class ComponentCatalogCache {
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int MAX_DENSE_ID = 1 << 22;
+
+    private volatile AtomicReferenceArray<Component> byId = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+    private final Map<Integer, Component> sparseById = new ConcurrentHashMap<>();
+    private final Map<String, Map<Integer, Component>> byType = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile int size;
+    private volatile long modificationCount;
+
+    public Component get(int id) {
+        Component component = peek(id);
+        if (component != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return component;
+    }
+
+    /** Чтение без учёта в счётчиках попаданий */
+    public Component peek(int id) {
+        AtomicReferenceArray<Component> table = byId;
+        if (id > 0 && id < table.length()) {
+            return table.get(id);
+        }
+        return id >= MAX_DENSE_ID ? sparseById.get(id) : null;
+    }
+
+    public synchronized void put(Component component) {
+        int id = component.getId();
+        if (id <= 0) return;
+
+        Component previous = store(id, component);
+        if (previous != null) {
+            removeFromTypeIndex(id);
+        } else {
+            size++;
+        }
+        if (component.getType() != null) {
+            byType.computeIfAbsent(component.getType(), t -> new ConcurrentHashMap<>()).put(id, component);
+        }
+        modificationCount++;
+    }
+
+    /**
+     * Заменяет запись копией с остатком и версией, прочитанными из БД после изменения
+     * остатка. Более старая версия не применяется: ответы параллельных резервирований
+     * могут прийти не по порядку. Возвращает новый экземпляр или null.
+     */
+    public synchronized Component applyStock(int id, int quantity, int version) {
+        Component current = peek(id);
+        if (current == null || current.getVersion() >= version) return null;
+        Component component = current.copy();
+        component.setQuantity(quantity);
+        component.setVersion(version);
+        put(component);
+        return component;
+    }
+
+    public synchronized void evict(int id) {
+        Component previous = store(id, null);
+        if (previous != null) {
+            removeFromTypeIndex(id);
+            size--;
+            modificationCount++;
+        }
+    }
+
+    /** Полностью заменяет содержимое кэша; счётчики попаданий сохраняются */
+    public synchronized void reload(Collection<Component> components) {
+        byId = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+        sparseById.clear();
+        byType.clear();
+        size = 0;
+        modificationCount++;
+        for (Component component : components) {
+            put(component);
+        }
+    }
+
+    public List<Component> getByType(String type) {
+        Map<Integer, Component> components = byType.get(type);
+        if (components == null) return new ArrayList<>();
+
+        List<Component> result = new ArrayList<>(components.values());
+        result.sort(Comparator.comparing(Component::getName, Comparator.nullsLast(Comparator.naturalOrder())));
+        return result;
+    }
+
+    public List<Component> getAll() {
+        List<Component> result = new ArrayList<>(size);
+        for (Map<Integer, Component> components : byType.values()) {
+            result.addAll(components.values());
+        }
+        return result;
+    }
+
+    public int size() { return size; }
+
+    /** Растёт при каждом изменении содержимого; позволяет строить производные индексы лениво */
+    public long getModificationCount() { return modificationCount; }
+
+    public long getHitCount() { return hits.sum(); }
+
+    public long getMissCount() { return misses.sum(); }
+
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    public void resetStatistics() {
+        hits.reset();
+        misses.reset();
+    }
+
+    private Component store(int id, Component component) {
+        if (id >= MAX_DENSE_ID) {
+            return component == null ? sparseById.remove(id) : sparseById.put(id, component);
+        }
+        AtomicReferenceArray<Component> table = byId;
+        if (id >= table.length()) {
+            if (component == null) return null;
+            table = grow(table, id);
+        }
+        return table.getAndSet(id, component);
+    }
+
+    private AtomicReferenceArray<Component> grow(AtomicReferenceArray<Component> table, int id) {
+        int capacity = table.length();
+        while (capacity <= id) {
+            capacity <<= 1;
+        }
+        AtomicReferenceArray<Component> grown = new AtomicReferenceArray<>(capacity);
+        for (int i = 0; i < table.length(); i++) {
+            grown.set(i, table.get(i));
+        }
+        byId = grown;
+        return grown;
+    }
+
+    private void removeFromTypeIndex(int id) {
+        // Тип мог измениться у того же экземпляра, поэтому чистим все корзины — их единицы
+        for (Map<Integer, Component> components : byType.values()) {
+            components.remove(id);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ComponentCatalogCache{size=%d, hits=%d, misses=%d, hitRate=%.2f}",
+                size, getHitCount(), getMissCount(), getHitRate());
+    }
+}
@@ -0,0 +1,25 @@
+package services;
+
+import models.Component;
+
+/**
+ * Подписчик на изменения каталога комплектующих в ComponentService.
+ * Вызывается в потоке, выполнившем изменение, после успешной записи в БД.
+ */
+public interface ComponentChangeListener {
+
+    default void onComponentAdded(Component component) {}
+
+    default void onComponentUpdated(Component component) {}
+
+    default void onComponentDeleted(int componentId) {}
+
+    /**
+     * Изменились только остаток и версия (резервирование склада). Совместимость от остатка
+     * не зависит, поэтому проверки и матрицу это событие не затрагивает.
+     */
+    default void onStockChanged(Component component) {}
+
+    /** Каталог целиком перечитан из БД */
+    default void onCatalogReloaded() {}
+}
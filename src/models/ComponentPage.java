@@ -0,0 +1,39 @@
+package models;
+
+import java.util.List;
+
+/**
+ * Страница каталога с курсором для keyset-пагинации по (type, name, id)
+ */
+public class ComponentPage {
+    private List<Component> components;
+    private String lastType;
+    private String lastName;
+    private int lastId;
+    private boolean hasMore;
+
+    public ComponentPage(List<Component> components, String lastType, String lastName, int lastId, boolean hasMore) {
+        this.components = components;
+        this.lastType = lastType;
+        this.lastName = lastName;
+        this.lastId = lastId;
+        this.hasMore = hasMore;
+    }
+
+    // Getters
+    public List<Component> getComponents() { return components; }
+
+    public String getLastType() { return lastType; }
+
+    public String getLastName() { return lastName; }
+
+    public int getLastId() { return lastId; }
+
+    public boolean hasMore() { return hasMore; }
+
+    @Override
+    public String toString() {
+        return String.format("ComponentPage{size=%d, lastId=%d, hasMore=%b}",
+                components.size(), lastId, hasMore);
+    }
+}
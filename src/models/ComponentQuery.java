@@ -0,0 +1,74 @@
+package models;
+
+/**
+ * Параметры поиска комплектующих: текст, фильтры по атрибутам и страница результата.
+ * Незаданные (null) фильтры не применяются.
+ */
+public class ComponentQuery {
+    /** Порядок результатов; без текста RELEVANCE равносилен PRICE_ASC */
+    public enum Sort { RELEVANCE, PRICE_ASC, PRICE_DESC }
+
+    private String text;
+    private String type;
+    private String socket;
+    private String memoryType;
+    private String formFactor;
+    /** Границы цены в копейках, включительно */
+    private Long minPrice;
+    private Long maxPrice;
+    private boolean inStockOnly;
+    private Sort sort = Sort.RELEVANCE;
+    private int offset;
+    private int limit = 20;
+
+    public ComponentQuery() {}
+
+    public ComponentQuery(String text) {
+        this.text = text;
+    }
+
+    // Getters and Setters
+    public String getText() { return text; }
+    public void setText(String text) { this.text = text; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public String getSocket() { return socket; }
+    public void setSocket(String socket) { this.socket = socket; }
+
+    public String getMemoryType() { return memoryType; }
+    public void setMemoryType(String memoryType) { this.memoryType = memoryType; }
+
+    public String getFormFactor() { return formFactor; }
+    public void setFormFactor(String formFactor) { this.formFactor = formFactor; }
+
+    public Long getMinPrice() { return minPrice; }
+    public void setMinPrice(Long minPrice) { this.minPrice = minPrice; }
+
+    public Long getMaxPrice() { return maxPrice; }
+    public void setMaxPrice(Long maxPrice) { this.maxPrice = maxPrice; }
+
+    public boolean isInStockOnly() { return inStockOnly; }
+    public void setInStockOnly(boolean inStockOnly) { this.inStockOnly = inStockOnly; }
+
+    public Sort getSort() { return sort; }
+    public void setSort(Sort sort) { this.sort = sort; }
+
+    public int getOffset() { return offset; }
+    public void setOffset(int offset) { this.offset = offset; }
+
+    public int getLimit() { return limit; }
+    public void setLimit(int limit) { this.limit = limit; }
+
+    public boolean hasText() {
+        return text != null && !text.isBlank();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ComponentQuery{text='%s', type=%s, socket=%s, memoryType=%s, formFactor=%s, " +
+                "price=%s..%s, inStockOnly=%b, sort=%s, offset=%d, limit=%d}", text, type, socket, memoryType,
+                formFactor, minPrice, maxPrice, inStockOnly, sort, offset, limit);
+    }
+}
@@ -0,0 +1,446 @@
+package services;
+
+import models.AttributeDictionary;
+import models.Component;
+import models.ComponentQuery;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Инвертированный индекс каталога в памяти: битовые множества id по типу, сокету,
+ * типу памяти и форм-фактору, упорядоченный индекс цен и отсортированный словарь
+ * слов названий для подсказок по префиксу. Обновляется по событиям ComponentService.
+ */
+public class ComponentSearchIndex implements ComponentChangeListener {
+    private final ComponentCatalogCache catalog;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final BitSet all = new BitSet();
+    private final BitSet inStock = new BitSet();
+    private final Map<String, BitSet> byType = new HashMap<>();
+    private final Map<Integer, BitSet> bySocket = new HashMap<>();
+    private final Map<Integer, BitSet> byMemoryType = new HashMap<>();
+    private final Map<Integer, BitSet> byFormFactor = new HashMap<>();
+    private final TreeMap<Long, IntList> byPrice = new TreeMap<>();
+    private final TreeMap<String, IntList> byToken = new TreeMap<>();
+
+    public ComponentSearchIndex(ComponentCatalogCache catalog) {
+        this.catalog = catalog;
+        rebuild();
+    }
+
+    /** Перестраивает индекс по текущему содержимому кэша каталога */
+    public void rebuild() {
+        // По возрастанию id списки словаря заполняются добавлением в конец и остаются упорядоченными
+        List<Component> components = new ArrayList<>(catalog.getAll());
+        components.sort(Comparator.comparingInt(Component::getId));
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            all.clear();
+            inStock.clear();
+            byType.clear();
+            bySocket.clear();
+            byMemoryType.clear();
+            byFormFactor.clear();
+            byPrice.clear();
+            byToken.clear();
+            for (Component component : components) {
+                add(component);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onComponentAdded(Component component) {
+        update(component);
+    }
+
+    @Override
+    public void onComponentUpdated(Component component) {
+        update(component);
+    }
+
+    @Override
+    public void onStockChanged(Component component) {
+        lock.writeLock().lock();
+        try {
+            if (entries.containsKey(component.getId())) {
+                inStock.set(component.getId(), component.getQuantity() > 0);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onComponentDeleted(int componentId) {
+        lock.writeLock().lock();
+        try {
+            remove(componentId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onCatalogReloaded() {
+        rebuild();
+    }
+
+    /**
+     * id, удовлетворяющие фильтрам запроса по атрибутам, или null, если фильтров нет.
+     * Возвращается новое множество, которое вызывающий может изменять.
+     */
+    public BitSet filter(ComponentQuery query) {
+        lock.readLock().lock();
+        try {
+            BitSet result = null;
+            result = and(result, query.getType() != null ? byType.get(query.getType()) : null, query.getType() != null);
+            result = and(result, codeSet(bySocket, AttributeDictionary.SOCKETS, query.getSocket()), query.getSocket() != null);
+            result = and(result, codeSet(byMemoryType, AttributeDictionary.MEMORY_TYPES, query.getMemoryType()),
+                         query.getMemoryType() != null);
+            result = and(result, codeSet(byFormFactor, AttributeDictionary.FORM_FACTORS, query.getFormFactor()),
+                         query.getFormFactor() != null);
+            result = and(result, inStock, query.isInStockOnly());
+            if (query.getMinPrice() != null || query.getMaxPrice() != null) {
+                result = and(result, priceRange(query.getMinPrice(), query.getMaxPrice()), true);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * id из allowed (null — все) в порядке цены, начиная с позиции offset.
+     * Обходится только упорядоченный индекс цен, без сортировки результата.
+     */
+    public int[] orderedByPrice(BitSet allowed, boolean ascending, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            int[] page = new int[limit];
+            int size = 0;
+            int skipped = 0;
+            NavigableMap<Long, IntList> prices = ascending ? byPrice : byPrice.descendingMap();
+            for (IntList ids : prices.values()) {
+                for (int i = 0; i < ids.size; i++) {
+                    int id = ids.values[i];
+                    if (allowed != null && !allowed.get(id)) continue;
+                    if (skipped++ < offset) continue;
+                    page[size++] = id;
+                    if (size == limit) return page;
+                }
+            }
+            return Arrays.copyOf(page, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long priceOf(int id) {
+        lock.readLock().lock();
+        try {
+            Entry entry = entries.get(id);
+            return entry != null ? entry.price : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Распределение id из matched по типам */
+    public Map<String, Integer> typeCounts(BitSet matched) {
+        lock.readLock().lock();
+        try {
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            for (Map.Entry<String, BitSet> type : byType.entrySet()) {
+                int count = matched == null ? type.getValue().cardinality() : cardinalityOfAnd(type.getValue(), matched);
+                if (count > 0) {
+                    counts.put(type.getKey(), count);
+                }
+            }
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Подсказки по началу названия: каждое слово запроса должно быть префиксом
+     * какого-либо слова названия. Перебирается диапазон словаря того слова запроса,
+     * которому соответствует меньше всего комплектующих; остальные слова проверяются по записи.
+     */
+    public int[] suggest(String prefix, int limit) {
+        String[] queryTokens = tokenize(prefix);
+        if (queryTokens.length == 0 || limit <= 0) return new int[0];
+
+        lock.readLock().lock();
+        try {
+            String anchor = queryTokens[0];
+            long anchorPostings = Long.MAX_VALUE;
+            for (String token : queryTokens) {
+                long postings = postingsWithPrefix(token, anchorPostings);
+                if (postings < anchorPostings) {
+                    anchor = token;
+                    anchorPostings = postings;
+                }
+            }
+
+            int[] result = new int[limit];
+            int size = 0;
+            Set<Integer> seen = queryTokens.length > 1 ? new HashSet<>() : null;
+            for (IntList ids : withPrefix(anchor).values()) {
+                for (int i = 0; i < ids.size; i++) {
+                    int id = ids.values[i];
+                    if (seen != null && (!seen.add(id) || !matchesAll(entries.get(id).tokens, queryTokens))) continue;
+                    if (seen == null && contains(result, size, id)) continue;
+                    result[size++] = id;
+                    if (size == limit) return result;
+                }
+            }
+            return Arrays.copyOf(result, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Слова в нижнем регистре без повторов; разделители — всё, кроме букв и цифр */
+    public static String[] tokenize(String text) {
+        if (text == null) return new String[0];
+
+        String lower = text.toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String token = lower.substring(start, i);
+                if (!tokens.contains(token)) tokens.add(token);
+                start = -1;
+            }
+        }
+        return tokens.toArray(new String[0]);
+    }
+
+    private NavigableMap<String, IntList> withPrefix(String prefix) {
+        return byToken.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    /** Число вхождений слов с префиксом; подсчёт прекращается, как только превышен limit */
+    private long postingsWithPrefix(String prefix, long limit) {
+        long postings = 0;
+        for (IntList ids : withPrefix(prefix).values()) {
+            postings += ids.size;
+            if (postings >= limit) break;
+        }
+        return postings;
+    }
+
+    private void update(Component component) {
+        lock.writeLock().lock();
+        try {
+            remove(component.getId());
+            add(component);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(Component component) {
+        int id = component.getId();
+        if (id <= 0) return;
+
+        Entry entry = new Entry(component);
+        entries.put(id, entry);
+        all.set(id);
+        if (entry.inStock) inStock.set(id);
+        if (entry.type != null) byType.computeIfAbsent(entry.type, t -> new BitSet()).set(id);
+        if (entry.socket != 0) bySocket.computeIfAbsent(entry.socket, c -> new BitSet()).set(id);
+        if (entry.memoryType != 0) byMemoryType.computeIfAbsent(entry.memoryType, c -> new BitSet()).set(id);
+        if (entry.formFactor != 0) byFormFactor.computeIfAbsent(entry.formFactor, c -> new BitSet()).set(id);
+        byPrice.computeIfAbsent(entry.price, p -> new IntList()).add(id);
+        for (String token : entry.tokens) {
+            byToken.computeIfAbsent(token, t -> new IntList()).add(id);
+        }
+    }
+
+    private void remove(int id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) return;
+
+        all.clear(id);
+        inStock.clear(id);
+        clear(byType, entry.type, id);
+        clear(bySocket, entry.socket, id);
+        clear(byMemoryType, entry.memoryType, id);
+        clear(byFormFactor, entry.formFactor, id);
+        removeFromList(byPrice, entry.price, id);
+        for (String token : entry.tokens) {
+            removeFromList(byToken, token, id);
+        }
+    }
+
+    private static <K> void clear(Map<K, BitSet> index, K key, int id) {
+        BitSet ids = key != null ? index.get(key) : null;
+        if (ids != null) ids.clear(id);
+    }
+
+    private static <K> void removeFromList(Map<K, IntList> index, K key, int id) {
+        IntList ids = index.get(key);
+        if (ids != null && ids.remove(id) && ids.size == 0) {
+            index.remove(key);
+        }
+    }
+
+    private static BitSet and(BitSet result, BitSet filter, boolean applies) {
+        if (!applies) return result;
+        if (filter == null) return new BitSet(); // значение фильтра не встречается в каталоге
+        if (result == null) return (BitSet) filter.clone();
+        result.and(filter);
+        return result;
+    }
+
+    private static BitSet codeSet(Map<Integer, BitSet> index, AttributeDictionary dictionary, String value) {
+        if (value == null) return null;
+        int code = dictionary.find(value);
+        return code > 0 ? index.get(code) : null;
+    }
+
+    private BitSet priceRange(Long min, Long max) {
+        NavigableMap<Long, IntList> range = byPrice;
+        if (min != null && max != null) {
+            range = byPrice.subMap(min, true, max, true);
+        } else if (min != null) {
+            range = byPrice.tailMap(min, true);
+        } else if (max != null) {
+            range = byPrice.headMap(max, true);
+        }
+
+        BitSet ids = new BitSet();
+        for (IntList list : range.values()) {
+            for (int i = 0; i < list.size; i++) {
+                ids.set(list.values[i]);
+            }
+        }
+        return ids;
+    }
+
+    private static int cardinalityOfAnd(BitSet a, BitSet b) {
+        BitSet copy = (BitSet) a.clone();
+        copy.and(b);
+        return copy.cardinality();
+    }
+
+    private static boolean matchesAll(String[] tokens, String[] queryTokens) {
+        for (String query : queryTokens) {
+            boolean found = false;
+            for (String token : tokens) {
+                if (token.startsWith(query)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) return false;
+        }
+        return true;
+    }
+
+    private static boolean contains(int[] values, int size, int value) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) return true;
+        }
+        return false;
+    }
+
+    /** Значения атрибутов на момент индексации — по ним запись удаляется из индекса */
+    private static final class Entry {
+        final String type;
+        final int socket;
+        final int memoryType;
+        final int formFactor;
+        final long price;
+        final boolean inStock;
+        final String[] tokens;
+
+        Entry(Component component) {
+            this.type = component.getType();
+            this.socket = component.getSocketCode();
+            this.memoryType = component.getMemoryTypeCode();
+            this.formFactor = component.getFormFactorCode();
+            this.price = component.getPrice();
+            this.inStock = component.getQuantity() > 0;
+            this.tokens = tokenize(component.getName());
+        }
+    }
+
+    /** Упорядоченный по возрастанию список id */
+    private static final class IntList {
+        int[] values = new int[2];
+        int size;
+
+        void add(int value) {
+            if (size > 0 && values[size - 1] >= value) {
+                insert(value);
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private void insert(int value) {
+            int position = Arrays.binarySearch(values, 0, size, value);
+            if (position >= 0) return;
+            position = -position - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(values, position, values, position + 1, size - position);
+            values[position] = value;
+            size++;
+        }
+
+        boolean remove(int value) {
+            int position = Arrays.binarySearch(values, 0, size, value);
+            if (position < 0) return false;
+            System.arraycopy(values, position + 1, values, position, size - position - 1);
+            size--;
+            return true;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ComponentSearchIndex{components=%d, tokens=%d, prices=%d}",
+                size(), byToken.size(), byPrice.size());
+    }
+}
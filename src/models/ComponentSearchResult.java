@@ -0,0 +1,41 @@
+package models;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Страница результатов поиска комплектующих с общим числом совпадений
+ * и их распределением по типам
+ */
+public class ComponentSearchResult {
+    private List<Component> components;
+    private int total;
+    private int offset;
+    private Map<String, Integer> typeCounts;
+
+    public ComponentSearchResult(List<Component> components, int total, int offset, Map<String, Integer> typeCounts) {
+        this.components = components;
+        this.total = total;
+        this.offset = offset;
+        this.typeCounts = typeCounts;
+    }
+
+    // Getters
+    public List<Component> getComponents() { return components; }
+
+    public int getTotal() { return total; }
+
+    public int getOffset() { return offset; }
+
+    /** Число совпадений по каждому типу комплектующих */
+    public Map<String, Integer> getTypeCounts() { return typeCounts; }
+
+    public boolean hasMore() {
+        return offset + components.size() < total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ComponentSearchResult{size=%d, total=%d, offset=%d}", components.size(), total, offset);
+    }
+}
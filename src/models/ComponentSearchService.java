@@ -0,0 +1,121 @@
+package services;
+
+import database.ConnectionLease;
+import database.DatabaseManager;
+import models.Component;
+import models.ComponentQuery;
+import models.ComponentSearchResult;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Поиск по каталогу: текст — через полнотекстовый индекс components_fts с ранжированием bm25,
+ * фильтры по атрибутам, диапазон цен и подсказки по префиксу — через ComponentSearchIndex в памяти.
+ */
+public class ComponentSearchService {
+    /** Совпадение в названии весит больше, чем в характеристиках */
+    private static final String RANKED_SQL =
+        "SELECT rowid FROM components_fts WHERE components_fts MATCH ? ORDER BY bm25(components_fts, 10.0, 1.0)";
+    private static final String UNRANKED_SQL = "SELECT rowid FROM components_fts WHERE components_fts MATCH ?";
+
+    private final DatabaseManager dbManager;
+    private final ComponentService componentService;
+    private final ComponentSearchIndex index;
+
+    public ComponentSearchService(DatabaseManager dbManager, ComponentService componentService) {
+        this.dbManager = dbManager;
+        this.componentService = componentService;
+        this.index = new ComponentSearchIndex(componentService.getCache());
+        componentService.addListener(index);
+    }
+
+    public ComponentSearchIndex getIndex() {
+        return index;
+    }
+
+    public ComponentSearchResult search(ComponentQuery query) {
+        int offset = Math.max(0, query.getOffset());
+        int limit = Math.max(0, query.getLimit());
+        BitSet allowed = index.filter(query);
+        String match = query.hasText() ? toMatchExpression(query.getText()) : null;
+
+        if (match == null) {
+            int total = allowed != null ? allowed.cardinality() : index.size();
+            int[] page = index.orderedByPrice(allowed, query.getSort() != ComponentQuery.Sort.PRICE_DESC, offset, limit);
+            return new ComponentSearchResult(resolve(page), total, offset, index.typeCounts(allowed));
+        }
+
+        boolean ranked = query.getSort() == ComponentQuery.Sort.RELEVANCE;
+        BitSet matched = new BitSet();
+        int[] window = new int[limit];
+        int windowSize = 0;
+        int total = 0;
+
+        try (ConnectionLease lease = dbManager.lease()) {
+            PreparedStatement pstmt = lease.prepareStatement(ranked ? RANKED_SQL : UNRANKED_SQL);
+            pstmt.setString(1, match);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    int id = rs.getInt(1);
+                    if (allowed != null && !allowed.get(id)) continue;
+                    matched.set(id);
+                    if (ranked && total >= offset && windowSize < limit) {
+                        window[windowSize++] = id;
+                    }
+                    total++;
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Ошибка поиска комплектующих: " + e.getMessage());
+            return new ComponentSearchResult(new ArrayList<>(), 0, offset, Map.of());
+        }
+
+        int[] page = ranked
+            ? Arrays.copyOf(window, windowSize)
+            : index.orderedByPrice(matched, query.getSort() == ComponentQuery.Sort.PRICE_ASC, offset, limit);
+        return new ComponentSearchResult(resolve(page), total, offset, index.typeCounts(matched));
+    }
+
+    /** Подсказки по мере ввода названия; запрос к БД не выполняется */
+    public List<Component> suggest(String prefix, int limit) {
+        return resolve(index.suggest(prefix, limit));
+    }
+
+    /**
+     * Каждое слово — префиксный запрос FTS5 в кавычках, слова объединяются через AND.
+     * Кавычки экранируются удвоением, поэтому пользовательский ввод не разбирается как синтаксис.
+     */
+    static String toMatchExpression(String text) {
+        String[] tokens = ComponentSearchIndex.tokenize(text);
+        if (tokens.length == 0) return null;
+
+        StringBuilder match = new StringBuilder();
+        for (String token : tokens) {
+            if (match.length() > 0) match.append(' ');
+            match.append('"').append(token.replace("\"", "\"\"")).append("\"*");
+        }
+        return match.toString();
+    }
+
+    private List<Component> resolve(int[] ids) {
+        List<Integer> idList = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            idList.add(id);
+        }
+        Map<Integer, Component> byId = componentService.getComponentsByIds(idList);
+
+        List<Component> components = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Component component = byId.get(id);
+            if (component != null) {
+                components.add(component);
+            }
+        }
+        return components;
+    }
+}
@@ -1,108 +1,462 @@
 package services;
 
+import database.ConnectionLease;
 import database.DatabaseManager;
 import models.Component;
+import models.ComponentPage;
+import utils.LatencyHistogram;
+import utils.Metrics;
 
 import java.sql.*;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Сервис для работы с комплектующими
  */
 public class ComponentService {
+    /** Порция строк курсора по умолчанию */
+    public static final int DEFAULT_FETCH_SIZE = 500;
+
+    private static final int MAX_IN_PARAMETERS = 500;
+
+    /** Параметры 1-10 заполняет setComponentParameters */
+    static final String INSERT_SQL = """
+        INSERT INTO components (name, type, price, quantity, specifications,
+                                socket, memory_type, form_factor, power_requirements, max_memory)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+    /**
+     * Параметры 1-10 заполняет setComponentParameters, 11 — id, 12 — версия, с которой
+     * строка была прочитана. Строку, изменённую с тех пор другим пользователем или
+     * резервированием, запрос не затрагивает.
+     */
+    private static final String UPDATE_SQL = """
+        UPDATE components SET name=?, type=?, price=?, quantity=?, specifications=?,
+                              socket=?, memory_type=?, form_factor=?, power_requirements=?, max_memory=?,
+                              version = version + 1
+        WHERE id=? AND version=?
+        RETURNING version
+        """;
+    private static final String DELETE_SQL = "DELETE FROM components WHERE id = ?";
+    private static final String ORDERED_SQL = "SELECT * FROM components ORDER BY type, name, id";
+    /** Строки после (type, name, id) последней строки предыдущей страницы; использует idx_components_type_name */
+    private static final String KEYSET_SQL =
+        "SELECT * FROM components WHERE (type, name, id) > (?, ?, ?) ORDER BY type, name, id LIMIT ?";
+
+    private static final LatencyHistogram GET_ALL_LATENCY = Metrics.global().operation("ComponentService.getAllComponents");
+    private static final LatencyHistogram GET_PAGE_LATENCY = Metrics.global().operation("ComponentService.getComponentsPage");
+    /** Только чтения из БД: попадания в кэш учитывает ComponentCatalogCache */
+    private static final LatencyHistogram GET_BY_ID_LATENCY = Metrics.global().operation("ComponentService.getComponentById");
+    private static final LatencyHistogram GET_BY_IDS_LATENCY = Metrics.global().operation("ComponentService.getComponentsByIds");
+    private static final LatencyHistogram ADD_LATENCY = Metrics.global().operation("ComponentService.addComponent");
+    private static final LatencyHistogram UPDATE_LATENCY = Metrics.global().operation("ComponentService.updateComponent");
+    private static final LatencyHistogram DELETE_LATENCY = Metrics.global().operation("ComponentService.deleteComponent");
+    private static final LatencyHistogram RELOAD_LATENCY = Metrics.global().operation("ComponentService.reloadCache");
+
     private DatabaseManager dbManager;
+    private ComponentCatalogCache cache;
+    private final List<ComponentChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile ComponentWriteBehind writeBehind;
 
     public ComponentService(DatabaseManager dbManager) {
         this.dbManager = dbManager;
+        this.cache = new ComponentCatalogCache();
+        reloadCache();
+    }
+
+    /**
+     * Кэш заполняется из снимка каталога, если он есть, иначе из БД;
+     * актуальность снимка проверяет и восстанавливает в фоне CatalogSnapshotStore.
+     */
+    public ComponentService(DatabaseManager dbManager, CatalogSnapshotStore snapshots) {
+        this.dbManager = dbManager;
+        this.cache = new ComponentCatalogCache();
+        List<Component> components = snapshots.load();
+        if (components != null) {
+            cache.reload(components);
+        } else {
+            reloadCache();
+        }
+        snapshots.attach(this);
+    }
+
+    /** Перечитывает весь каталог из БД в кэш */
+    public void reloadCache() {
+        long start = System.nanoTime();
+        try {
+            cache.reload(getAllComponents());
+            notifyListeners(ComponentChangeListener::onCatalogReloaded);
+        } finally {
+            RELOAD_LATENCY.recordSince(start);
+        }
+    }
+
+    public void addListener(ComponentChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(ComponentChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    public ComponentCatalogCache getCache() {
+        return cache;
     }
 
     public List<Component> getAllComponents() {
-        List<Component> components = new ArrayList<>();
-        String sql = "SELECT * FROM components ORDER BY type, name";
+        long start = System.nanoTime();
+        try {
+            try (Stream<Component> components = streamComponents()) {
+                return components.collect(Collectors.toCollection(ArrayList::new));
+            }
+        } finally {
+            GET_ALL_LATENCY.recordSince(start);
+        }
+    }
+
+    public Stream<Component> streamComponents() {
+        return streamComponents(DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Все комплектующие в порядке (type, name, id); строки читаются из курсора по мере обхода.
+     * Поток держит соединение из пула до закрытия, поэтому его нужно закрывать (try-with-resources).
+     */
+    public Stream<Component> streamComponents(int fetchSize) {
+        return stream(ORDERED_SQL, fetchSize);
+    }
+
+    /** Обход каталога без накопления списка; курсор закрывается по завершении */
+    public void forEachComponent(Consumer<Component> action) {
+        try (Stream<Component> components = streamComponents()) {
+            components.forEach(action);
+        }
+    }
+
+    /**
+     * Страница каталога в порядке (type, name, id); previous == null — первая страница.
+     * Следующая страница ищется по ключу последней строки, а не через OFFSET.
+     */
+    public ComponentPage getComponentsPage(ComponentPage previous, int limit) {
+        long start = System.nanoTime();
+        try {
+            Stream<Component> rows = previous == null
+                ? stream(ORDERED_SQL + " LIMIT ?", limit, limit + 1)
+                : stream(KEYSET_SQL, limit, previous.getLastType(), previous.getLastName(), previous.getLastId(), limit + 1);
 
-        try (ResultSet rs = dbManager.executeQuery(sql)) {
-            while (rs != null && rs.next()) {
-                components.add(resultSetToComponent(rs));
+            List<Component> components;
+            try (rows) {
+                components = rows.collect(Collectors.toCollection(ArrayList::new));
             }
+            boolean hasMore = components.size() > limit;
+            if (hasMore) {
+                components.remove(limit);
+            }
+            if (components.isEmpty()) {
+                return new ComponentPage(components, null, null, 0, false);
+            }
+            Component last = components.get(components.size() - 1);
+            return new ComponentPage(components, last.getType(), last.getName(), last.getId(), hasMore);
+        } finally {
+            GET_PAGE_LATENCY.recordSince(start);
+        }
+    }
+
+    private Stream<Component> stream(String sql, int fetchSize, Object... params) {
+        ComponentCursor cursor;
+        try {
+            cursor = new ComponentCursor(dbManager.lease());
         } catch (SQLException e) {
             System.err.println("❌ Ошибка получения комплектующих: " + e.getMessage());
+            return Stream.empty();
         }
 
-        return components;
+        try {
+            cursor.open(sql, fetchSize, params);
+            return StreamSupport.stream(cursor, false).onClose(cursor::close);
+        } catch (SQLException e) {
+            cursor.close();
+            System.err.println("❌ Ошибка получения комплектующих: " + e.getMessage());
+            return Stream.empty();
+        }
     }
 
+    /** Копия комплектующего, которую можно править и передавать в updateComponent */
     public Component getComponentById(int id) {
+        Component cached = cache.get(id);
+        if (cached != null) {
+            return cached.copy();
+        }
+
         String sql = "SELECT * FROM components WHERE id = ?";
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
+        long start = System.nanoTime();
+
+        try (ConnectionLease lease = dbManager.lease()) {
+            PreparedStatement pstmt = lease.prepareStatement(sql);
             pstmt.setInt(1, id);
-            ResultSet rs = pstmt.executeQuery();
-            
-            if (rs.next()) {
-                return resultSetToComponent(rs);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    Component component = resultSetToComponent(rs);
+                    cache.put(component);
+                    return component.copy();
+                }
             }
         } catch (SQLException e) {
             System.err.println("❌ Ошибка получения комплектующего: " + e.getMessage());
+        } finally {
+            GET_BY_ID_LATENCY.recordSince(start);
         }
         
         return null;
     }
 
-    public boolean addComponent(Component component) {
-        String sql = """
-            INSERT INTO components (name, type, price, quantity, specifications, 
-                                  socket, memory_type, form_factor, power_requirements, max_memory)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-        """;
+    /**
+     * Комплектующие по id; отсутствующие в БД в результат не попадают.
+     * Возвращаются общие экземпляры кэша — только для чтения.
+     * Промахи кэша читаются одним запросом IN (...) на каждые 500 id.
+     */
+    public Map<Integer, Component> getComponentsByIds(Collection<Integer> ids) {
+        Map<Integer, Component> result = new HashMap<>();
+        Set<Integer> misses = new LinkedHashSet<>();
+        for (int id : ids) {
+            if (result.containsKey(id) || misses.contains(id)) continue;
+            Component cached = cache.get(id);
+            if (cached != null) {
+                result.put(id, cached);
+            } else {
+                misses.add(id);
+            }
+        }
+        if (misses.isEmpty()) return result;
 
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
-            setComponentParameters(pstmt, component);
-            pstmt.executeUpdate();
-            return true;
+        List<Integer> missing = new ArrayList<>(misses);
+        long start = System.nanoTime();
+
+        try (ConnectionLease lease = dbManager.lease()) {
+            for (int from = 0; from < missing.size(); from += MAX_IN_PARAMETERS) {
+                List<Integer> batch = missing.subList(from, Math.min(from + MAX_IN_PARAMETERS, missing.size()));
+                PreparedStatement pstmt = lease.prepareStatement(
+                    "SELECT * FROM components WHERE id IN (?" + ",?".repeat(batch.size() - 1) + ")");
+                for (int i = 0; i < batch.size(); i++) {
+                    pstmt.setInt(i + 1, batch.get(i));
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        Component component = resultSetToComponent(rs);
+                        cache.put(component);
+                        result.put(component.getId(), component);
+                    }
+                }
+            }
         } catch (SQLException e) {
-            System.err.println("❌ Ошибка добавления комплектующего: " + e.getMessage());
-            return false;
+            System.err.println("❌ Ошибка получения комплектующих: " + e.getMessage());
+        } finally {
+            GET_BY_IDS_LATENCY.recordSince(start);
         }
+        return result;
     }
 
-    public boolean updateComponent(Component component) {
-        String sql = """
-            UPDATE components SET name=?, type=?, price=?, quantity=?, specifications=?,
-                                socket=?, memory_type=?, form_factor=?, power_requirements=?, max_memory=?
-            WHERE id=?
-        """;
+    /** Общие экземпляры кэша — только для чтения */
+    public List<Component> getComponentsByType(String type) {
+        return cache.getByType(type);
+    }
 
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
-            setComponentParameters(pstmt, component);
-            pstmt.setInt(11, component.getId());
-            pstmt.executeUpdate();
-            return true;
-        } catch (SQLException e) {
-            System.err.println("❌ Ошибка обновления комплектующего: " + e.getMessage());
-            return false;
+    public boolean addComponent(Component component) {
+        long start = System.nanoTime();
+        try {
+            try (ConnectionLease lease = dbManager.lease()) {
+                insert(lease, component);
+                added(component);
+                return true;
+            } catch (SQLException e) {
+                System.err.println("❌ Ошибка добавления комплектующего: " + e.getMessage());
+                return false;
+            }
+        } finally {
+            ADD_LATENCY.recordSince(start);
+        }
+    }
+
+    public boolean updateComponent(Component component) {
+        long start = System.nanoTime();
+        try {
+            try (ConnectionLease lease = dbManager.lease()) {
+                int version = update(lease, component);
+                if (version == 0) {
+                    updateRejected(component);
+                    return false;
+                }
+                updated(component, version);
+                return true;
+            } catch (SQLException e) {
+                System.err.println("❌ Ошибка обновления комплектующего: " + e.getMessage());
+                return false;
+            }
+        } finally {
+            UPDATE_LATENCY.recordSince(start);
         }
     }
 
     public boolean deleteComponent(int id) {
-        String sql = "DELETE FROM components WHERE id = ?";
+        long start = System.nanoTime();
+        try {
+            try (ConnectionLease lease = dbManager.lease()) {
+                deleted(id, delete(lease, id) > 0);
+                return true;
+            } catch (SQLException e) {
+                System.err.println("❌ Ошибка удаления комплектующего: " + e.getMessage());
+                return false;
+            }
+        } finally {
+            DELETE_LATENCY.recordSince(start);
+        }
+    }
 
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
-            pstmt.setInt(1, id);
-            pstmt.executeUpdate();
-            return true;
-        } catch (SQLException e) {
-            System.err.println("❌ Ошибка удаления комплектующего: " + e.getMessage());
-            return false;
+    /**
+     * Включает отложенную запись: методы *Async ставят изменения в очередь, а фоновый
+     * поток записывает их группами. Очередь опустошается при закрытии соединения с БД.
+     */
+    public synchronized ComponentWriteBehind enableWriteBehind(int capacity, int batchSize, Duration flushInterval) {
+        if (writeBehind == null) {
+            writeBehind = new ComponentWriteBehind(dbManager, this, capacity, batchSize, flushInterval);
+        }
+        return writeBehind;
+    }
+
+    public ComponentWriteBehind getWriteBehind() {
+        return writeBehind;
+    }
+
+    /**
+     * Добавление с отложенной записью; future завершается после фиксации в БД, и к этому
+     * моменту экземпляру присвоен id. Без включённой отложенной записи выполняется сразу,
+     * как addComponent.
+     */
+    public CompletableFuture<Boolean> addComponentAsync(Component component) {
+        ComponentWriteBehind queue = writeBehind;
+        return queue != null ? queue.add(component) : CompletableFuture.completedFuture(addComponent(component));
+    }
+
+    /**
+     * Изменение с отложенной записью. В очередь ставится копия экземпляра: его дальнейшие
+     * правки в запись не попадают, а кэш и подписчики видят изменение только после фиксации.
+     * Следующую правку того же экземпляра можно ставить, не дожидаясь future: незаписанные
+     * изменения сливаются, а записанное передаёт экземпляру новую версию.
+     */
+    public CompletableFuture<Boolean> updateComponentAsync(Component component) {
+        ComponentWriteBehind queue = writeBehind;
+        return queue != null ? queue.update(component) : CompletableFuture.completedFuture(updateComponent(component));
+    }
+
+    public CompletableFuture<Boolean> deleteComponentAsync(int id) {
+        ComponentWriteBehind queue = writeBehind;
+        return queue != null ? queue.delete(id) : CompletableFuture.completedFuture(deleteComponent(id));
+    }
+
+    /** Вставляет строку в текущей аренде и присваивает экземпляру id */
+    void insert(ConnectionLease lease, Component component) throws SQLException {
+        PreparedStatement pstmt = lease.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+        setComponentParameters(pstmt, component);
+        pstmt.executeUpdate();
+
+        try (ResultSet keys = pstmt.getGeneratedKeys()) {
+            if (keys.next()) {
+                component.setId(keys.getInt(1));
+            }
         }
     }
 
-    private Component resultSetToComponent(ResultSet rs) throws SQLException {
+    /** Возвращает новую версию строки или 0, если строка изменена с момента чтения или удалена */
+    int update(ConnectionLease lease, Component component) throws SQLException {
+        PreparedStatement pstmt = lease.prepareStatement(UPDATE_SQL);
+        setComponentParameters(pstmt, component);
+        pstmt.setInt(11, component.getId());
+        pstmt.setInt(12, component.getVersion());
+        try (ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    int delete(ConnectionLease lease, int id) throws SQLException {
+        PreparedStatement pstmt = lease.prepareStatement(DELETE_SQL);
+        pstmt.setInt(1, id);
+        return pstmt.executeUpdate();
+    }
+
+    // Вызываются после фиксации записи: кладут в кэш копию записанного состояния
+    // (экземпляр вызывающего остаётся его собственным) и оповещают подписчиков
+
+    void added(Component component) {
+        Component snapshot = component.copy();
+        cache.put(snapshot);
+        notifyListeners(listener -> listener.onComponentAdded(snapshot));
+    }
+
+    /** version — версия строки после записи, прочитанная из БД (см. update) */
+    void updated(Component component, int version) {
+        component.setVersion(version);
+        Component snapshot = component.copy();
+        cache.put(snapshot);
+        notifyListeners(listener -> listener.onComponentUpdated(snapshot));
+    }
+
+    void updateRejected(Component component) {
+        cache.evict(component.getId());
+        System.err.println("❌ Комплектующее изменено другим пользователем или удалено, перечитайте его");
+    }
+
+    void deleted(int id, boolean existed) {
+        cache.evict(id);
+        if (existed) {
+            notifyListeners(listener -> listener.onComponentDeleted(id));
+        }
+    }
+
+    /** Остаток комплектующего изменён в БД помимо updateComponent, например резервированием */
+    void stockChanged(int id, int quantity, int version) {
+        Component component = cache.applyStock(id, quantity, version);
+        if (component != null) {
+            notifyListeners(listener -> listener.onStockChanged(component));
+        }
+    }
+
+    /**
+     * Запись уже зафиксирована, поэтому ошибка подписчика не отменяет её и не мешает
+     * остальным подписчикам, а только выводится.
+     */
+    private void notifyListeners(Consumer<ComponentChangeListener> event) {
+        for (ComponentChangeListener listener : listeners) {
+            try {
+                event.accept(listener);
+            } catch (RuntimeException e) {
+                System.err.println("❌ Ошибка подписчика " + listener.getClass().getSimpleName()
+                    + " на изменение каталога: " + e);
+            }
+        }
+    }
+
+    public Component resultSetToComponent(ResultSet rs) throws SQLException {
         Component component = new Component();
         component.setId(rs.getInt("id"));
         component.setName(rs.getString("name"));
         component.setType(rs.getString("type"));
-        component.setPrice(rs.getDouble("price"));
+        component.setPrice(rs.getLong("price"));
         component.setQuantity(rs.getInt("quantity"));
         component.setSpecifications(rs.getString("specifications"));
         component.setSocket(rs.getString("socket"));
@@ -110,13 +464,14 @@ public class ComponentService {
         component.setFormFactor(rs.getString("form_factor"));
         component.setPowerRequirements(rs.getInt("power_requirements"));
         component.setMaxMemory(rs.getInt("max_memory"));
+        component.setVersion(rs.getInt("version"));
         return component;
     }
 
-    private void setComponentParameters(PreparedStatement pstmt, Component component) throws SQLException {
+    void setComponentParameters(PreparedStatement pstmt, Component component) throws SQLException {
         pstmt.setString(1, component.getName());
         pstmt.setString(2, component.getType());
-        pstmt.setDouble(3, component.getPrice());
+        pstmt.setLong(3, component.getPrice());
         pstmt.setInt(4, component.getQuantity());
         pstmt.setString(5, component.getSpecifications());
         pstmt.setString(6, component.getSocket());
@@ -125,4 +480,56 @@ public class ComponentService {
         pstmt.setInt(9, component.getPowerRequirements());
         pstmt.setInt(10, component.getMaxMemory());
     }
+
+    /**
+     * Курсор по результату запроса: строка превращается в Component только при обходе.
+     * Запрос не берётся из кэша аренды, потому что курсор может пережить соседние вызовы
+     * в том же потоке; по исчерпании или close() запрос закрывается, а соединение возвращается в пул.
+     */
+    private final class ComponentCursor extends Spliterators.AbstractSpliterator<Component> {
+        private final ConnectionLease lease;
+        private PreparedStatement pstmt;
+        private ResultSet rs;
+        private boolean closed;
+
+        ComponentCursor(ConnectionLease lease) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.lease = lease;
+        }
+
+        void open(String sql, int fetchSize, Object[] params) throws SQLException {
+            pstmt = lease.getConnection().prepareStatement(sql);
+            pstmt.setFetchSize(fetchSize);
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setObject(i + 1, params[i]);
+            }
+            rs = pstmt.executeQuery();
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Component> action) {
+            if (closed) return false;
+            try {
+                if (rs.next()) {
+                    action.accept(resultSetToComponent(rs));
+                    return true;
+                }
+            } catch (SQLException e) {
+                System.err.println("❌ Ошибка чтения комплектующих: " + e.getMessage());
+            }
+            close();
+            return false;
+        }
+
+        void close() {
+            if (closed) return;
+            closed = true;
+            try {
+                if (pstmt != null) pstmt.close();
+            } catch (SQLException e) {
+                System.err.println("❌ Ошибка закрытия курсора: " + e.getMessage());
+            }
+            lease.close();
+        }
+    }
 }
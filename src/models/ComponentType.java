@@ -0,0 +1,47 @@
+package models;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Тип комплектующего. В БД хранится русское название типа.
+ */
+public enum ComponentType {
+    PROCESSOR("Процессор"),
+    MOTHERBOARD("Материнская плата"),
+    MEMORY("Оперативная память"),
+    GPU("Видеокарта"),
+    STORAGE("Накопитель"),
+    POWER_SUPPLY("Блок питания"),
+    CASE("Корпус"),
+    COOLER("Охлаждение"),
+    /** Тип, отсутствующий в перечислении; исходное название хранится в Component */
+    OTHER(null);
+
+    private static final Map<String, ComponentType> BY_NAME = new HashMap<>();
+
+    static {
+        for (ComponentType type : values()) {
+            if (type.displayName != null) {
+                BY_NAME.put(type.displayName, type);
+            }
+        }
+    }
+
+    private final String displayName;
+
+    ComponentType(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() { return displayName; }
+
+    public static ComponentType fromName(String name) {
+        if (name == null) return OTHER;
+        ComponentType type = BY_NAME.get(name);
+        if (type == null) {
+            type = BY_NAME.get(name.trim());
+        }
+        return type != null ? type : OTHER;
+    }
+}
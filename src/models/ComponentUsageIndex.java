@@ -0,0 +1,132 @@
+package services;
+
+import database.ConnectionLease;
+import database.DatabaseManager;
+
+import java.sql.*;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Обратный индекс «комплектующее → конфигурации, в которые оно входит».
+ * Хранится как мультиотображение на примитивных int-массивах, адресуемое id комплектующего,
+ * и строится из configuration_items по индексу idx_configuration_items_component.
+ */
+public class ComponentUsageIndex {
+    private static final int[] EMPTY = new int[0];
+    private static final int MAX_DENSE_ID = 1 << 22;
+
+    private IntList[] dense = new IntList[256];
+    private final Map<Integer, IntList> sparse = new HashMap<>();
+    private long size;
+
+    public ComponentUsageIndex() {}
+
+    public ComponentUsageIndex(DatabaseManager dbManager) {
+        reload(dbManager);
+    }
+
+    /** Перестраивает индекс по configuration_items */
+    public synchronized void reload(DatabaseManager dbManager) {
+        dense = new IntList[256];
+        sparse.clear();
+        size = 0;
+
+        String sql = "SELECT component_id, config_id FROM configuration_items ORDER BY component_id";
+        try (ConnectionLease lease = dbManager.lease();
+             ResultSet rs = lease.prepareStatement(sql).executeQuery()) {
+            while (rs.next()) {
+                IntList list = list(rs.getInt(1), true);
+                if (list != null) {
+                    list.add(rs.getInt(2));
+                    size++;
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Ошибка построения индекса использования комплектующих: " + e.getMessage());
+        }
+    }
+
+    /** Регистрирует состав новой конфигурации */
+    public synchronized void add(int configurationId, List<Integer> componentIds) {
+        for (int componentId : componentIds) {
+            IntList list = list(componentId, true);
+            if (list != null) {
+                list.add(configurationId);
+                size++;
+            }
+        }
+    }
+
+    /** Конфигурации, содержащие комплектующее, по возрастанию id */
+    public synchronized int[] configurationsOf(int componentId) {
+        IntList list = list(componentId, false);
+        return list != null ? list.toSortedArray() : EMPTY;
+    }
+
+    /** Удаляет комплектующее из индекса и возвращает конфигурации, в которые оно входило */
+    public synchronized int[] removeComponent(int componentId) {
+        IntList list = list(componentId, false);
+        if (list == null) return EMPTY;
+
+        if (componentId < MAX_DENSE_ID) {
+            dense[componentId] = null;
+        } else {
+            sparse.remove(componentId);
+        }
+        size -= list.size;
+        return list.toSortedArray();
+    }
+
+    public synchronized int usageCount(int componentId) {
+        IntList list = list(componentId, false);
+        return list != null ? list.size : 0;
+    }
+
+    /** Число пар «комплектующее — конфигурация» */
+    public synchronized long size() {
+        return size;
+    }
+
+    private IntList list(int componentId, boolean create) {
+        if (componentId <= 0) return null;
+        if (componentId >= MAX_DENSE_ID) {
+            return create ? sparse.computeIfAbsent(componentId, id -> new IntList()) : sparse.get(componentId);
+        }
+        if (componentId >= dense.length) {
+            if (!create) return null;
+            dense = Arrays.copyOf(dense, Math.max(dense.length * 2, componentId + 1));
+        }
+        IntList list = dense[componentId];
+        if (list == null && create) {
+            list = new IntList();
+            dense[componentId] = list;
+        }
+        return list;
+    }
+
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toSortedArray() {
+            int[] result = Arrays.copyOf(values, size);
+            Arrays.sort(result);
+            return result;
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("ComponentUsageIndex{pairs=%d}", size);
+    }
+}
@@ -0,0 +1,356 @@
+package services;
+
+import database.ConnectionLease;
+import database.DatabaseManager;
+import models.Component;
+import utils.LatencyHistogram;
+import utils.Metrics;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Отложенная запись изменений каталога для массовой приёмки товара.
+ * Изменения попадают в неблокирующую очередь, а один поток-писатель собирает их в группы
+ * (до batchSize изменений или flushInterval с первого из них) и фиксирует группу одной
+ * транзакцией. В очередь ставится копия комплектующего на момент вызова: кэш и подписчики
+ * видят её только после фиксации.
+ *
+ * Повторные изменения одного id от одного и того же экземпляра вызывающего (приёмка одной
+ * позиции несколькими сканами) сливаются в группе в одну запись последнего состояния
+ * с версией, ожидавшейся первым из них; версия проверяется один раз. Если предыдущее
+ * изменение этого экземпляра уже зафиксировано, следующее проверяется по записанной им версии.
+ * Изменение того же id от другого экземпляра начинает новую транзакцию, и проверка версии
+ * отклоняет правку, сделанную по устаревшему состоянию. Удаление поглощает более ранние
+ * изменения того же id в группе. Future изменения завершается после фиксации: true —
+ * изменение записано, false — отклонено или не записалось (ошибка уже выведена).
+ *
+ * Очередь ограничена capacity незавершёнными изменениями: при переполнении вызывающий
+ * поток ждёт, пока писатель не догонит. При закрытии соединения с БД очередь
+ * дописывается до конца.
+ */
+public class ComponentWriteBehind {
+    public static final int DEFAULT_CAPACITY = 10_000;
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofMillis(50);
+
+    private static final LatencyHistogram FLUSH_LATENCY = Metrics.global().operation("ComponentWriteBehind.flush");
+
+    private enum Kind { INSERT, UPDATE, DELETE }
+
+    /** Изменение в очереди; поглощённые им более ранние изменения завершаются с тем же результатом */
+    private static final class Op {
+        final Kind kind;
+        /** Копия, которая записывается в БД и после фиксации попадает в кэш */
+        final Component component;
+        /** Экземпляр вызывающего: получает id добавленной строки и новую версию */
+        final Component source;
+        final int id;
+        final CompletableFuture<Boolean> future = new CompletableFuture<>();
+        List<CompletableFuture<Boolean>> absorbed;
+        /** Удалено строк или, для изменения, новая версия строки (0 — отклонено) */
+        int rows;
+
+        Op(Kind kind, Component source, int id) {
+            this.kind = kind;
+            this.source = source;
+            this.component = source != null ? source.copy() : null;
+            this.id = id;
+        }
+
+        void absorb(Op earlier) {
+            if (absorbed == null) absorbed = new ArrayList<>();
+            absorbed.add(earlier.future);
+            if (earlier.absorbed != null) absorbed.addAll(earlier.absorbed);
+        }
+
+        int weight() {
+            return absorbed == null ? 1 : 1 + absorbed.size();
+        }
+
+        void complete(boolean result) {
+            future.complete(result);
+            if (absorbed != null) {
+                absorbed.forEach(f -> f.complete(result));
+            }
+        }
+    }
+
+    private final DatabaseManager dbManager;
+    private final ComponentService componentService;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final ConcurrentLinkedQueue<Op> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    /** Разрешение на каждое незавершённое изменение — обратное давление на вызывающих */
+    private final Semaphore permits;
+    private final int capacity;
+    private final Thread writer;
+    /** Писатель проверяет очередь перед тем, как уснуть без таймаута */
+    private volatile boolean idle;
+    private volatile boolean closing;
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder transactions = new LongAdder();
+
+    public ComponentWriteBehind(DatabaseManager dbManager, ComponentService componentService) {
+        this(dbManager, componentService, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE, DEFAULT_FLUSH_INTERVAL);
+    }
+
+    public ComponentWriteBehind(DatabaseManager dbManager, ComponentService componentService,
+                                int capacity, int batchSize, Duration flushInterval) {
+        this.dbManager = dbManager;
+        this.componentService = componentService;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalNanos = Math.max(0, flushInterval.toNanos());
+        this.capacity = Math.max(this.batchSize, capacity);
+        this.permits = new Semaphore(this.capacity);
+        this.writer = new Thread(this::runWriter, "component-writer");
+        writer.setDaemon(true);
+        writer.start();
+        dbManager.addCloseHook(this::close);
+    }
+
+    public CompletableFuture<Boolean> add(Component component) {
+        return enqueue(new Op(Kind.INSERT, component, 0));
+    }
+
+    public CompletableFuture<Boolean> update(Component component) {
+        return enqueue(new Op(Kind.UPDATE, component, component.getId()));
+    }
+
+    public CompletableFuture<Boolean> delete(int id) {
+        return enqueue(new Op(Kind.DELETE, null, id));
+    }
+
+    private CompletableFuture<Boolean> enqueue(Op op) {
+        if (closing) {
+            return rejected(op);
+        }
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("❌ Ожидание места в очереди записи прервано");
+            op.complete(false);
+            return op.future;
+        }
+
+        queue.offer(op);
+        // Изменение, поставленное одновременно с закрытием, могло разминуться с последним проходом писателя
+        if (closing && queue.remove(op)) {
+            permits.release();
+            return rejected(op);
+        }
+        // Писатель будится, только если спит без дела или набралась полная группа
+        if (queued.incrementAndGet() >= batchSize || idle) {
+            LockSupport.unpark(writer);
+        }
+        return op.future;
+    }
+
+    private static CompletableFuture<Boolean> rejected(Op op) {
+        System.err.println("❌ Очередь записи закрыта, изменение не принято");
+        op.complete(false);
+        return op.future;
+    }
+
+    private void runWriter() {
+        List<Op> batch = new ArrayList<>(batchSize);
+        while (true) {
+            if (batch.isEmpty()) {
+                idle = true;
+                Op first = poll();
+                if (first == null) {
+                    if (closing) return;
+                    LockSupport.park(this);
+                    continue;
+                }
+                idle = false;
+                batch.add(first);
+            }
+
+            // Окно группировки: ждём полную группу, но не дольше flushInterval
+            long deadline = System.nanoTime() + flushIntervalNanos;
+            while (batch.size() < batchSize) {
+                Op next = poll();
+                if (next != null) {
+                    batch.add(next);
+                    continue;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || closing) break;
+                LockSupport.parkNanos(this, remaining);
+            }
+
+            int consumed = flush(batch);
+            batch.subList(0, consumed).clear();
+        }
+    }
+
+    private Op poll() {
+        Op op = queue.poll();
+        if (op != null) queued.decrementAndGet();
+        return op;
+    }
+
+    /**
+     * Записывает начало группы одной транзакцией и возвращает число обработанных изменений.
+     * Группа обрывается на изменении id, которое нельзя слить с предыдущим (другой экземпляр
+     * или после удаления), — оно уходит в следующую транзакцию и проверяется по версии после него.
+     */
+    private int flush(List<Op> batch) {
+        long start = System.nanoTime();
+        Map<Object, Op> ops = new LinkedHashMap<>();
+        int consumed = 0;
+        for (Op op : batch) {
+            if (op.kind == Kind.INSERT) {
+                ops.put(op, op);
+            } else {
+                Op previous = ops.get(op.id);
+                if (previous != null && op.kind == Kind.UPDATE) {
+                    if (previous.kind != Kind.UPDATE || previous.source != op.source) break;
+                    // Последнее состояние экземпляра поверх версии, с которой он начал править
+                    op.component.setVersion(previous.component.getVersion());
+                }
+                if (previous != null) {
+                    op.absorb(previous);
+                    coalesced.increment();
+                }
+                ops.put(op.id, op);
+            }
+            consumed++;
+        }
+
+        List<Op> group = new ArrayList<>(ops.values());
+        if (!write(group)) {
+            // Одна ошибочная строка не должна отменять остальные изменения группы
+            for (Op op : group) {
+                if (group.size() == 1 || !write(List.of(op))) {
+                    finish(op, false);
+                }
+            }
+        }
+        FLUSH_LATENCY.recordSince(start);
+        return consumed;
+    }
+
+    private boolean write(List<Op> group) {
+        try (ConnectionLease lease = dbManager.lease()) {
+            lease.beginWriteTransaction();
+            for (Op op : group) {
+                switch (op.kind) {
+                    case INSERT -> componentService.insert(lease, op.component);
+                    case UPDATE -> {
+                        // Экземпляру вызывающего новую версию присваивает только этот поток после
+                        // фиксации его предыдущего изменения; копия, снятая раньше, её не видела
+                        if (op.source.getVersion() > op.component.getVersion()) {
+                            op.component.setVersion(op.source.getVersion());
+                        }
+                        op.rows = componentService.update(lease, op.component);
+                    }
+                    case DELETE -> op.rows = componentService.delete(lease, op.id);
+                }
+            }
+            lease.commit();
+        } catch (SQLException | RuntimeException e) {
+            if (group.size() == 1) {
+                System.err.println("❌ Ошибка отложенной записи комплектующего: " + e.getMessage());
+            }
+            return false;
+        }
+
+        transactions.increment();
+        for (Op op : group) {
+            boolean result = op.kind != Kind.UPDATE || op.rows > 0;
+            // Запись зафиксирована: что бы ни случилось при публикации, future завершается,
+            // а поток-писатель продолжает работу
+            try {
+                publish(op, result);
+            } catch (RuntimeException e) {
+                System.err.println("❌ Ошибка публикации записанного изменения: " + e);
+            }
+            written.increment();
+            finish(op, result);
+        }
+        return true;
+    }
+
+    private void publish(Op op, boolean result) {
+        switch (op.kind) {
+            case INSERT -> {
+                op.source.setId(op.component.getId());
+                componentService.added(op.component);
+            }
+            case UPDATE -> {
+                if (result) {
+                    componentService.updated(op.component, op.rows);
+                    op.source.setVersion(op.rows);
+                } else {
+                    componentService.updateRejected(op.component);
+                }
+            }
+            case DELETE -> componentService.deleted(op.id, op.rows > 0);
+        }
+    }
+
+    private void finish(Op op, boolean result) {
+        int weight = op.weight();
+        op.complete(result);
+        permits.release(weight);
+    }
+
+    /** Изменения, ещё не зафиксированные в БД */
+    public int getPendingCount() {
+        return capacity - permits.availablePermits();
+    }
+
+    public long getWrittenCount() { return written.sum(); }
+
+    public long getCoalescedCount() { return coalesced.sum(); }
+
+    public long getTransactionCount() { return transactions.sum(); }
+
+    /**
+     * Перестаёт принимать изменения и дожидается записи уже поставленных.
+     * Вызывается DatabaseManager.closeConnection, пока пул ещё выдаёт соединения.
+     */
+    public void close() {
+        if (closing) return;
+        closing = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("❌ Ожидание записи очереди прервано");
+        }
+
+        // Изменения, поставленные в последний момент: писатель уже мог завершиться
+        List<Op> rest = new ArrayList<>();
+        for (Op op = poll(); op != null; op = poll()) {
+            rest.add(op);
+        }
+        while (!rest.isEmpty()) {
+            List<Op> batch = rest.subList(0, Math.min(batchSize, rest.size()));
+            batch.subList(0, flush(batch)).clear();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Отложенная запись: в очереди %d, записано %d, схлопнуто %d, транзакций %d",
+            getPendingCount(), getWrittenCount(), getCoalescedCount(), getTransactionCount());
+    }
+}
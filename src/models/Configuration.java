@@ -1,5 +1,7 @@
 package models;
 
+import utils.Money;
+
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -8,9 +10,16 @@ import java.util.List;
  * Модель конфигурации ПК
  */
 public class Configuration {
+    /** Значения compatibility_status */
+    public static final String STATUS_UNCHECKED = "UNCHECKED";
+    public static final String STATUS_COMPATIBLE = "COMPATIBLE";
+    public static final String STATUS_WARNINGS = "WARNINGS";
+    public static final String STATUS_INCOMPATIBLE = "INCOMPATIBLE";
+
     private int id;
     private String name;
-    private double totalPrice;
+    /** Стоимость в копейках */
+    private long totalPrice;
     private Date createdDate;
     private String compatibilityStatus;
     private List<Component> components;
@@ -18,7 +27,7 @@ public class Configuration {
     public Configuration() {
         this.components = new ArrayList<>();
         this.createdDate = new Date();
-        this.compatibilityStatus = "UNCHECKED";
+        this.compatibilityStatus = STATUS_UNCHECKED;
     }
 
     public Configuration(String name) {
@@ -33,8 +42,8 @@ public class Configuration {
     public String getName() { return name; }
     public void setName(String name) { this.name = name; }
 
-    public double getTotalPrice() { return totalPrice; }
-    public void setTotalPrice(double totalPrice) { this.totalPrice = totalPrice; }
+    public long getTotalPrice() { return totalPrice; }
+    public void setTotalPrice(long totalPrice) { this.totalPrice = totalPrice; }
 
     public Date getCreatedDate() { return createdDate; }
     public void setCreatedDate(Date createdDate) { this.createdDate = createdDate; }
@@ -47,17 +56,19 @@ public class Configuration {
 
     public void addComponent(Component component) {
         this.components.add(component);
-        this.totalPrice += component.getPrice();
+        this.totalPrice = Math.addExact(totalPrice, component.getPrice());
     }
 
     public void removeComponent(Component component) {
-        this.components.remove(component);
-        this.totalPrice -= component.getPrice();
+        // Целые копейки: добавление и удаление не накапливают ошибку округления
+        if (this.components.remove(component)) {
+            this.totalPrice = Math.subtractExact(totalPrice, component.getPrice());
+        }
     }
 
     @Override
     public String toString() {
-        return String.format("Configuration{id=%d, name='%s', totalPrice=%.2f, components=%d}",
-                id, name, totalPrice, components.size());
+        return String.format("Configuration{id=%d, name='%s', totalPrice=%s, components=%d}",
+                id, name, Money.toPlainString(totalPrice), components.size());
     }
 }
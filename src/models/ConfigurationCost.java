@@ -0,0 +1,49 @@
+package models;
+
+import utils.Money;
+
+/**
+ * Стоимость сохранённой конфигурации по истории цен на момент at
+ */
+public class ConfigurationCost {
+    private int configId;
+    private long at;
+    private long total;
+    private int itemCount;
+    private int pricedItems;
+    private long storedTotal;
+
+    public ConfigurationCost(int configId, long at, long total, int itemCount, int pricedItems, long storedTotal) {
+        this.configId = configId;
+        this.at = at;
+        this.total = total;
+        this.itemCount = itemCount;
+        this.pricedItems = pricedItems;
+        this.storedTotal = storedTotal;
+    }
+
+    // Getters
+    public int getConfigId() { return configId; }
+
+    /** Момент оценки, мс от эпохи */
+    public long getAt() { return at; }
+
+    /** Стоимость в копейках с учётом количества; позиции без цены на этот момент не входят */
+    public long getTotal() { return total; }
+
+    public int getItemCount() { return itemCount; }
+
+    /** Позиций, для которых в истории нашлась цена; меньше itemCount, если комплектующее появилось позже */
+    public int getPricedItems() { return pricedItems; }
+
+    public boolean isComplete() { return pricedItems == itemCount; }
+
+    /** Текущее configurations.total_price */
+    public long getStoredTotal() { return storedTotal; }
+
+    @Override
+    public String toString() {
+        return String.format("ConfigurationCost{configId=%d, at=%d, total=%s, priced=%d/%d, stored=%s}",
+                configId, at, Money.toPlainString(total), pricedItems, itemCount, Money.toPlainString(storedTotal));
+    }
+}
@@ -0,0 +1,28 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Конфигурация к сохранению: название и id комплектующих.
+ * Повторяющийся id означает несколько штук одного комплектующего.
+ */
+public class ConfigurationDraft {
+    private String name;
+    private List<Integer> componentIds;
+
+    public ConfigurationDraft(String name, List<Integer> componentIds) {
+        this.name = name;
+        this.componentIds = new ArrayList<>(componentIds);
+    }
+
+    // Getters
+    public String getName() { return name; }
+
+    public List<Integer> getComponentIds() { return componentIds; }
+
+    @Override
+    public String toString() {
+        return String.format("ConfigurationDraft{name='%s', components=%d}", name, componentIds.size());
+    }
+}
@@ -0,0 +1,111 @@
+package benchmarks;
+
+import database.DatabaseManager;
+import models.Component;
+import models.ConfigurationDraft;
+import services.ComponentService;
+import services.ConfigurationService;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Сохранение партии конфигураций: прежний построчный путь (транзакция и отдельный INSERT
+ * на каждую позицию) против createConfigurations одной транзакцией.
+ * Запуск: java benchmarks.ConfigurationImportBenchmark [конфигураций...], по умолчанию 1000 10000.
+ */
+public class ConfigurationImportBenchmark {
+    private static final int CATALOG_SIZE = 500;
+    private static final int ITEMS_PER_CONFIGURATION = 6;
+
+    public static void main(String[] args) throws SQLException {
+        int[] sizes = BenchmarkSupport.parseSizes(args, 1_000, 10_000);
+
+        System.out.printf("%-12s %-16s %-14s %-10s%n", "Конфигураций", "Построчно, мс", "Пакетно, мс", "Ускорение");
+        for (int size : sizes) {
+            List<ConfigurationDraft> drafts = drafts(size);
+
+            DatabaseManager legacyDb = BenchmarkSupport.openTempDatabase("import-legacy");
+            ComponentService legacyComponents = new ComponentService(legacyDb);
+            seedCatalog(legacyComponents);
+            long start = System.nanoTime();
+            for (ConfigurationDraft draft : drafts) {
+                createLegacy(legacyDb, legacyComponents, draft);
+            }
+            double legacy = (System.nanoTime() - start) / 1_000_000.0;
+            legacyDb.closeConnection();
+
+            DatabaseManager bulkDb = BenchmarkSupport.openTempDatabase("import-bulk");
+            ComponentService bulkComponents = new ComponentService(bulkDb);
+            seedCatalog(bulkComponents);
+            ConfigurationService configurationService = new ConfigurationService(bulkDb, bulkComponents);
+            start = System.nanoTime();
+            configurationService.createConfigurations(drafts);
+            double bulk = (System.nanoTime() - start) / 1_000_000.0;
+            bulkDb.closeConnection();
+
+            System.out.printf("%-12d %-16.1f %-14.1f x%.1f%n", size, legacy, bulk, legacy / bulk);
+        }
+    }
+
+    private static List<ConfigurationDraft> drafts(int size) {
+        List<ConfigurationDraft> drafts = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            List<Integer> ids = new ArrayList<>();
+            for (int j = 0; j < ITEMS_PER_CONFIGURATION; j++) {
+                // id 1-3 заняты тестовыми данными схемы
+                ids.add(4 + (i * 7 + j * 31) % CATALOG_SIZE);
+            }
+            drafts.add(new ConfigurationDraft("Сборка " + i, ids));
+        }
+        return drafts;
+    }
+
+    private static void seedCatalog(ComponentService componentService) {
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            componentService.addComponent(new Component("Компонент " + i, "Накопитель", 1000 + i, 10, "bench",
+                    null, null, null, 0, 0));
+        }
+    }
+
+    /** Прежняя реализация createConfiguration: по запросу на каждую позицию */
+    private static void createLegacy(DatabaseManager dbManager, ComponentService componentService,
+                                     ConfigurationDraft draft) throws SQLException {
+        long totalPrice = 0;
+        for (int id : draft.getComponentIds()) {
+            Component comp = componentService.getComponentById(id);
+            if (comp != null) {
+                totalPrice += comp.getPrice();
+            }
+        }
+
+        Connection conn = dbManager.getConnection();
+        conn.setAutoCommit(false);
+        try (PreparedStatement config = conn.prepareStatement(
+                "INSERT INTO configurations (name, total_price) VALUES (?, ?)", Statement.RETURN_GENERATED_KEYS);
+             PreparedStatement item = conn.prepareStatement(
+                "INSERT INTO configuration_items (config_id, component_id, quantity) VALUES (?, ?, 1)")) {
+            config.setString(1, draft.getName());
+            config.setLong(2, totalPrice);
+            config.executeUpdate();
+
+            int configId;
+            try (ResultSet rs = config.getGeneratedKeys()) {
+                configId = rs.getInt(1);
+            }
+            for (int componentId : draft.getComponentIds()) {
+                item.setInt(1, configId);
+                item.setInt(2, componentId);
+                item.executeUpdate();
+            }
+            conn.commit();
+        } finally {
+            conn.setAutoCommit(true);
+        }
+
+        for (int id : draft.getComponentIds()) {
+            componentService.getComponentById(id);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package benchmarks;
+
+import database.DatabaseManager;
+import models.Component;
+import models.Configuration;
+import services.ComponentService;
+import services.ConfigurationService;
+import utils.Money;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Сравнение загрузки списка конфигураций: прежний путь N+1 против пакетного ConfigurationLoader.
+ * Запуск: java benchmarks.ConfigurationLoadBenchmark [размеры...], по умолчанию 1000 10000 100000.
+ */
+public class ConfigurationLoadBenchmark {
+    private static final int CATALOG_SIZE = 500;
+    private static final int ITEMS_PER_CONFIGURATION = 6;
+
+    public static void main(String[] args) throws SQLException {
+        int[] sizes = BenchmarkSupport.parseSizes(args, 1_000, 10_000, 100_000);
+
+        System.out.printf("%-12s %-14s %-14s %-10s%n", "Конфигураций", "N+1, мс", "Пакетно, мс", "Ускорение");
+        for (int size : sizes) {
+            DatabaseManager dbManager = BenchmarkSupport.openTempDatabase("configurations-bench");
+            seed(dbManager.getConnection(), size);
+
+            ComponentService componentService = new ComponentService(dbManager);
+            ConfigurationService configurationService = new ConfigurationService(dbManager, componentService);
+
+            int warmups = size >= 100_000 ? 0 : 1;
+            int runs = size >= 100_000 ? 1 : 3;
+            double legacy = BenchmarkSupport.bestOfMillis(warmups, runs,
+                    () -> loadLegacy(dbManager, componentService));
+            double batched = BenchmarkSupport.bestOfMillis(warmups, runs,
+                    configurationService::getAllConfigurations);
+
+            System.out.printf("%-12d %-14.1f %-14.1f x%.1f%n", size, legacy, batched, legacy / batched);
+            dbManager.closeConnection();
+        }
+    }
+
+    /** Прежняя реализация getAllConfigurations: отдельный JOIN-запрос на каждую конфигурацию */
+    private static List<Configuration> loadLegacy(DatabaseManager dbManager, ComponentService componentService) {
+        List<Configuration> configurations = new ArrayList<>();
+        String itemsSql = """
+            SELECT c.* FROM components c
+            JOIN configuration_items ci ON c.id = ci.component_id
+            WHERE ci.config_id = ?
+        """;
+
+        try (Statement stmt = dbManager.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT * FROM configurations ORDER BY created_date DESC")) {
+            while (rs.next()) {
+                Configuration config = new Configuration(rs.getString("name"));
+                config.setId(rs.getInt("id"));
+                config.setTotalPrice(rs.getLong("total_price"));
+
+                List<Component> components = new ArrayList<>();
+                try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(itemsSql)) {
+                    pstmt.setInt(1, config.getId());
+                    try (ResultSet items = pstmt.executeQuery()) {
+                        while (items.next()) {
+                            components.add(componentService.resultSetToComponent(items));
+                        }
+                    }
+                }
+                config.setComponents(components);
+                configurations.add(config);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return configurations;
+    }
+
+    private static void seed(Connection conn, int configurations) throws SQLException {
+        conn.setAutoCommit(false);
+        try (PreparedStatement component = conn.prepareStatement(
+                "INSERT INTO components (name, type, price, quantity, specifications) VALUES (?, 'Накопитель', ?, 10, 'bench')");
+             PreparedStatement config = conn.prepareStatement(
+                "INSERT INTO configurations (id, name, total_price) VALUES (?, ?, 0)");
+             PreparedStatement item = conn.prepareStatement(
+                "INSERT INTO configuration_items (config_id, component_id, quantity) VALUES (?, ?, 1)")) {
+
+            for (int i = 0; i < CATALOG_SIZE; i++) {
+                component.setString(1, "Компонент " + i);
+                component.setLong(2, (1000 + i) * Money.KOPECKS_PER_RUBLE);
+                component.addBatch();
+            }
+            component.executeBatch();
+
+            for (int id = 1; id <= configurations; id++) {
+                config.setInt(1, id);
+                config.setString(2, "Сборка " + id);
+                config.addBatch();
+                for (int j = 0; j < ITEMS_PER_CONFIGURATION; j++) {
+                    item.setInt(1, id);
+                    item.setInt(2, (id * 7 + j * 31) % CATALOG_SIZE + 1);
+                    item.addBatch();
+                }
+            }
+            config.executeBatch();
+            item.executeBatch();
+            conn.commit();
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package services;
+
+import database.ConnectionLease;
+import database.DatabaseManager;
+import models.Component;
+import models.Configuration;
+import models.ConfigurationPage;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Пакетный загрузчик конфигураций вместе с их комплектующими.
+ * Любая выборка выполняется ровно двумя запросами: конфигурации и все их позиции,
+ * причём один и тот же компонент разделяется всеми конфигурациями, в которые он входит.
+ * Оба запроса читают в одной транзакции, поэтому окно страницы у них совпадает, даже если
+ * конфигурации добавляются или удаляются между ними.
+ */
+public class ConfigurationLoader {
+    private static final String ORDER = " ORDER BY created_date DESC, id DESC";
+    private static final String KEYSET = " WHERE created_date < ? OR (created_date = ? AND id < ?)";
+
+    /** item_quantity — штук в конфигурации; c.quantity — остаток на складе */
+    private static final String ITEMS_SQL = """
+        SELECT ci.config_id, ci.quantity AS item_quantity, c.* FROM configuration_items ci
+        JOIN components c ON c.id = ci.component_id
+    """;
+
+    private DatabaseManager dbManager;
+    private ComponentService componentService;
+
+    public ConfigurationLoader(DatabaseManager dbManager, ComponentService componentService) {
+        this.dbManager = dbManager;
+        this.componentService = componentService;
+    }
+
+    public List<Configuration> loadAll() {
+        String configSql = "SELECT * FROM configurations" + ORDER;
+        return load(configSql, ITEMS_SQL, new Object[0], Integer.MAX_VALUE).getConfigurations();
+    }
+
+    public ConfigurationPage loadPage(int offset, int limit) {
+        String configSql = "SELECT * FROM configurations" + ORDER + " LIMIT ? OFFSET ?";
+        String itemsSql = ITEMS_SQL + " WHERE ci.config_id IN (SELECT id FROM configurations" + ORDER + " LIMIT ? OFFSET ?)";
+        return load(configSql, itemsSql, new Object[] {limit + 1, offset}, limit);
+    }
+
+    public ConfigurationPage loadFirstPage(int limit) {
+        return loadPage(0, limit);
+    }
+
+    /**
+     * Следующая страница после previous (keyset по created_date, id) — без OFFSET,
+     * поэтому стоимость не растёт с номером страницы.
+     */
+    public ConfigurationPage loadNextPage(ConfigurationPage previous, int limit) {
+        String configSql = "SELECT * FROM configurations" + KEYSET + ORDER + " LIMIT ?";
+        String itemsSql = ITEMS_SQL + " WHERE ci.config_id IN (SELECT id FROM configurations" + KEYSET + ORDER + " LIMIT ?)";
+        Object[] params = {previous.getLastCreatedDate(), previous.getLastCreatedDate(), previous.getLastId(), limit + 1};
+        return load(configSql, itemsSql, params, limit);
+    }
+
+    private ConfigurationPage load(String configSql, String itemsSql, Object[] params, int limit) {
+        List<Configuration> configurations = new ArrayList<>();
+        Map<Integer, Configuration> byId = new HashMap<>();
+        String lastCreatedDate = null;
+        int lastId = 0;
+        boolean hasMore = false;
+
+        try (ConnectionLease lease = dbManager.lease()) {
+            // Транзакция только читает: второй запрос видит те же конфигурации, что и первый
+            lease.beginTransaction();
+            PreparedStatement pstmt = lease.prepareStatement(configSql);
+            bind(pstmt, params);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    if (configurations.size() == limit) {
+                        hasMore = true;
+                        break;
+                    }
+                    Configuration config = resultSetToConfiguration(rs);
+                    lastCreatedDate = rs.getString("created_date");
+                    lastId = config.getId();
+                    configurations.add(config);
+                    byId.put(config.getId(), config);
+                }
+            }
+
+            if (!configurations.isEmpty()) {
+                attachComponents(lease, itemsSql, params, byId);
+            }
+            lease.commit();
+        } catch (SQLException e) {
+            System.err.println("❌ Ошибка получения конфигураций: " + e.getMessage());
+        }
+
+        return new ConfigurationPage(configurations, lastCreatedDate, lastId, hasMore);
+    }
+
+    private void attachComponents(ConnectionLease lease, String itemsSql, Object[] params,
+                                  Map<Integer, Configuration> byId) throws SQLException {
+        Map<Integer, Component> shared = new HashMap<>();
+
+        PreparedStatement pstmt = lease.prepareStatement(itemsSql);
+        bind(pstmt, params);
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                Configuration config = byId.get(rs.getInt("config_id"));
+                if (config == null) continue; // лишняя конфигурация, прочитанная для hasMore
+
+                int componentId = rs.getInt("id");
+                Component component = shared.get(componentId);
+                if (component == null) {
+                    component = componentService.resultSetToComponent(rs);
+                    shared.put(componentId, component);
+                }
+                // Несколько штук одного комплектующего — столько же ссылок, как при сохранении
+                for (int i = rs.getInt("item_quantity"); i > 0; i--) {
+                    config.getComponents().add(component);
+                }
+            }
+        }
+    }
+
+    private void bind(PreparedStatement pstmt, Object[] params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            pstmt.setObject(i + 1, params[i]);
+        }
+    }
+
+    Configuration resultSetToConfiguration(ResultSet rs) throws SQLException {
+        Configuration config = new Configuration();
+        config.setId(rs.getInt("id"));
+        config.setName(rs.getString("name"));
+        config.setTotalPrice(rs.getLong("total_price"));
+        config.setCreatedDate(rs.getTimestamp("created_date"));
+        config.setCompatibilityStatus(rs.getString("compatibility_status"));
+        return config;
+    }
+}
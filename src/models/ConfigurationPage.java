@@ -0,0 +1,36 @@
+package models;
+
+import java.util.List;
+
+/**
+ * Страница конфигураций с курсором для keyset-пагинации по дате создания
+ */
+public class ConfigurationPage {
+    private List<Configuration> configurations;
+    private String lastCreatedDate;
+    private int lastId;
+    private boolean hasMore;
+
+    public ConfigurationPage(List<Configuration> configurations, String lastCreatedDate, int lastId, boolean hasMore) {
+        this.configurations = configurations;
+        this.lastCreatedDate = lastCreatedDate;
+        this.lastId = lastId;
+        this.hasMore = hasMore;
+    }
+
+    // Getters
+    public List<Configuration> getConfigurations() { return configurations; }
+
+    /** Значение created_date последней конфигурации страницы в том виде, в котором оно хранится в БД */
+    public String getLastCreatedDate() { return lastCreatedDate; }
+
+    public int getLastId() { return lastId; }
+
+    public boolean hasMore() { return hasMore; }
+
+    @Override
+    public String toString() {
+        return String.format("ConfigurationPage{size=%d, lastId=%d, hasMore=%b}",
+                configurations.size(), lastId, hasMore);
+    }
+}
@@ -0,0 +1,465 @@
+package services;
+
+import database.ConnectionLease;
+import database.DatabaseManager;
+import models.Component;
+import models.Configuration;
+import models.RevalidationReport;
+
+import java.sql.*;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Перепроверка совместимости сохранённых конфигураций.
+ * Полная перепроверка читает конфигурации порциями по id (keyset), выборочная — только
+ * переданные id. Порция проверяется параллельно в ForkJoinPool, пока из БД читается
+ * следующая, а результаты записываются одной транзакцией на порцию.
+ * Изменения каталога затрагивают только конфигурации из ComponentUsageIndex.
+ */
+public class ConfigurationRevalidator implements ComponentChangeListener {
+    public static final int DEFAULT_CHUNK_SIZE = 4096;
+    /** Конфигураций на одну подзадачу fork-join */
+    private static final int SPLIT_THRESHOLD = 256;
+    /** Параметров в одном списке IN (...) — с запасом ниже лимита SQLite */
+    private static final int MAX_IN_PARAMETERS = 500;
+
+    private static final String CONFIGS_SQL =
+        "SELECT id, compatibility_status FROM configurations WHERE id > ? ORDER BY id LIMIT ?";
+    private static final String ITEMS_SQL =
+        "SELECT config_id, component_id, quantity FROM configuration_items WHERE config_id > ? AND config_id <= ? ORDER BY config_id";
+    private static final String IN_PARAMETERS = "?" + ",?".repeat(MAX_IN_PARAMETERS - 1);
+    private static final String CONFIGS_BY_ID_SQL =
+        "SELECT id, compatibility_status FROM configurations WHERE id IN (" + IN_PARAMETERS + ") ORDER BY id";
+    private static final String ITEMS_BY_ID_SQL =
+        "SELECT config_id, component_id, quantity FROM configuration_items WHERE config_id IN (" + IN_PARAMETERS + ") ORDER BY config_id";
+    private static final String UPDATE_STATUS_SQL = "UPDATE configurations SET compatibility_status = ? WHERE id = ?";
+    private static final String UPDATE_PRICE_SQL = """
+        UPDATE configurations SET total_price = (
+            SELECT COALESCE(SUM(c.price * ci.quantity), 0) FROM configuration_items ci
+            JOIN components c ON c.id = ci.component_id
+            WHERE ci.config_id = configurations.id)
+        WHERE id = ?
+        """;
+    /**
+     * Пересчёт стоимости всех конфигураций с id в [?, ?] одним запросом на порцию полной
+     * перепроверки; перезаписываются только изменившиеся суммы.
+     */
+    private static final String UPDATE_RANGE_PRICE_SQL = """
+        UPDATE configurations SET total_price = p.total
+        FROM (SELECT cfg.id AS config_id, COALESCE(SUM(c.price * ci.quantity), 0) AS total
+              FROM configurations cfg
+              LEFT JOIN configuration_items ci ON ci.config_id = cfg.id
+              LEFT JOIN components c ON c.id = ci.component_id
+              WHERE cfg.id BETWEEN ? AND ?
+              GROUP BY cfg.id) AS p
+        WHERE configurations.id = p.config_id AND configurations.total_price <> p.total
+        """;
+
+    /** Ход перепроверки; вызывается после записи каждой порции */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(long processed, long total, double perSecond);
+    }
+
+    private final DatabaseManager dbManager;
+    private final ComponentService componentService;
+    private final CompatibilityService compatibilityService;
+    private final ComponentUsageIndex usageIndex;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final ExecutorService background = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "configuration-revalidator");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    /** Конфигурации, ожидающие выборочной перепроверки; доступ под блокировкой this */
+    private final BitSet pendingIds = new BitSet();
+    private boolean pendingFull;
+
+    public ConfigurationRevalidator(DatabaseManager dbManager, ComponentService componentService,
+                                    ConfigurationService configurationService, CompatibilityService compatibilityService) {
+        this(dbManager, componentService, configurationService, compatibilityService,
+             Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+    }
+
+    public ConfigurationRevalidator(DatabaseManager dbManager, ComponentService componentService,
+                                    ConfigurationService configurationService, CompatibilityService compatibilityService,
+                                    int parallelism, int chunkSize) {
+        this.dbManager = dbManager;
+        this.componentService = componentService;
+        this.compatibilityService = compatibilityService;
+        this.usageIndex = configurationService.getUsageIndex();
+        this.pool = new ForkJoinPool(parallelism);
+        this.chunkSize = chunkSize;
+    }
+
+    public RevalidationReport revalidateAll() {
+        return revalidateAll(null);
+    }
+
+    /**
+     * Перепроверяет все конфигурации, записывает их статусы и пересчитывает стоимость
+     * по текущим ценам — в том числе после импорта, который перечитывает весь каталог.
+     */
+    public RevalidationReport revalidateAll(ProgressListener listener) {
+        long start = System.nanoTime();
+        Totals totals = new Totals();
+        long total = countConfigurations();
+
+        try {
+            Chunk chunk = readChunk(0);
+            while (chunk != null) {
+                Chunk current = chunk;
+                ForkJoinTask<Void> validation = pool.submit(new ValidateTask(current, 0, current.size()));
+
+                // Следующая порция читается, пока текущая проверяется
+                chunk = current.size() == chunkSize ? readChunk(current.ids[current.size() - 1]) : null;
+
+                validation.join();
+                totals.add(current, write(current, true));
+                totals.report(listener, total, start);
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Ошибка перепроверки конфигураций: " + e.getMessage());
+        }
+
+        return totals.toReport(start);
+    }
+
+    /**
+     * Перепроверяет только указанные конфигурации и пересчитывает их стоимость
+     * по текущим ценам комплектующих.
+     */
+    public RevalidationReport revalidate(int[] configurationIds, ProgressListener listener) {
+        long start = System.nanoTime();
+        Totals totals = new Totals();
+        int[] ids = configurationIds.clone();
+        Arrays.sort(ids);
+
+        try {
+            int from = 0;
+            Chunk chunk = readChunk(ids, from);
+            while (chunk != null) {
+                Chunk current = chunk;
+                ForkJoinTask<Void> validation = pool.submit(new ValidateTask(current, 0, current.size()));
+
+                from += Math.min(MAX_IN_PARAMETERS, ids.length - from);
+                chunk = readChunk(ids, from);
+
+                validation.join();
+                totals.add(current, write(current, false));
+                totals.report(listener, ids.length, start);
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Ошибка перепроверки конфигураций: " + e.getMessage());
+        }
+
+        return totals.toReport(start);
+    }
+
+    /** Ставит полную перепроверку в фоновую очередь */
+    public void requestRevalidation() {
+        synchronized (this) {
+            pendingFull = true;
+        }
+        schedule();
+    }
+
+    /**
+     * Ставит выборочную перепроверку в фоновую очередь. Пока очередь не разобрана,
+     * новые запросы объединяются с ней без повторов.
+     */
+    public void requestRevalidation(int[] configurationIds) {
+        if (configurationIds.length == 0) return;
+
+        synchronized (this) {
+            for (int id : configurationIds) {
+                pendingIds.set(id);
+            }
+        }
+        schedule();
+    }
+
+    @Override
+    public void onComponentUpdated(Component component) {
+        requestRevalidation(usageIndex.configurationsOf(component.getId()));
+    }
+
+    @Override
+    public void onComponentDeleted(int componentId) {
+        requestRevalidation(usageIndex.removeComponent(componentId));
+    }
+
+    @Override
+    public void onCatalogReloaded() {
+        requestRevalidation();
+    }
+
+    public void shutdown() {
+        background.shutdownNow();
+        pool.shutdown();
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            background.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        boolean full;
+        int[] ids;
+        synchronized (this) {
+            scheduled.set(false);
+            full = pendingFull;
+            ids = pendingIds.stream().toArray();
+            pendingFull = false;
+            pendingIds.clear();
+        }
+
+        // Выборочные id, накопленные вместе с полной перепроверкой, проверяются после неё ещё раз:
+        // их изменения могли прийти уже после того, как полная прошла их порцию
+        if (full) {
+            announce(revalidateAll());
+        }
+        if (ids.length > 0) {
+            announce(revalidate(ids, null));
+        }
+    }
+
+    private static void announce(RevalidationReport report) {
+        if (report.getChanged() > 0) {
+            System.out.println("✅ Конфигурации перепроверены: " + report.getChecked()
+                    + ", статус изменился у " + report.getChanged());
+        }
+    }
+
+    private long countConfigurations() {
+        try (ConnectionLease lease = dbManager.lease();
+             ResultSet rs = lease.prepareStatement("SELECT COUNT(*) FROM configurations").executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            System.err.println("❌ Ошибка подсчёта конфигураций: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /** Порция конфигураций с id больше afterId */
+    private Chunk readChunk(int afterId) throws SQLException {
+        try (ConnectionLease lease = dbManager.lease()) {
+            PreparedStatement configs = lease.prepareStatement(CONFIGS_SQL);
+            configs.setInt(1, afterId);
+            configs.setInt(2, chunkSize);
+            ChunkBuilder builder = new ChunkBuilder(chunkSize);
+            builder.readConfigurations(configs);
+            if (builder.size == 0) return null;
+
+            PreparedStatement items = lease.prepareStatement(ITEMS_SQL);
+            items.setInt(1, afterId);
+            items.setInt(2, builder.ids[builder.size - 1]);
+            return builder.readItems(items);
+        }
+    }
+
+    /**
+     * Порция из ids начиная с позиции from; id удалённых конфигураций пропускаются.
+     * Список IN всегда одной длины (хвост дополняется последним id), чтобы запросы
+     * переиспользовались из кэша подготовленных выражений.
+     */
+    private Chunk readChunk(int[] ids, int from) throws SQLException {
+        int count = Math.min(MAX_IN_PARAMETERS, ids.length - from);
+        if (count <= 0) return null;
+
+        try (ConnectionLease lease = dbManager.lease()) {
+            PreparedStatement configs = lease.prepareStatement(CONFIGS_BY_ID_SQL);
+            PreparedStatement items = lease.prepareStatement(ITEMS_BY_ID_SQL);
+            for (int i = 0; i < MAX_IN_PARAMETERS; i++) {
+                int id = ids[from + Math.min(i, count - 1)];
+                configs.setInt(i + 1, id);
+                items.setInt(i + 1, id);
+            }
+
+            ChunkBuilder builder = new ChunkBuilder(count);
+            builder.readConfigurations(configs);
+            return builder.readItems(items);
+        }
+    }
+
+    /**
+     * Записывает статусы порции и пересчитывает её стоимость: порция полной перепроверки
+     * (contiguous) содержит все id своего диапазона и пересчитывается одним запросом.
+     * @return число конфигураций, у которых изменился статус
+     */
+    private int write(Chunk chunk, boolean contiguous) throws SQLException {
+        int changed = 0;
+        try (ConnectionLease lease = dbManager.lease()) {
+            lease.beginWriteTransaction();
+            PreparedStatement status = lease.prepareStatement(UPDATE_STATUS_SQL);
+            for (int i = 0; i < chunk.size(); i++) {
+                if (chunk.statuses[i].equals(chunk.previous[i])) continue;
+
+                status.setString(1, chunk.statuses[i]);
+                status.setInt(2, chunk.ids[i]);
+                status.addBatch();
+                changed++;
+            }
+            if (changed > 0) {
+                status.executeBatch();
+            }
+
+            if (contiguous && chunk.size() > 0) {
+                PreparedStatement price = lease.prepareStatement(UPDATE_RANGE_PRICE_SQL);
+                price.setInt(1, chunk.ids[0]);
+                price.setInt(2, chunk.ids[chunk.size() - 1]);
+                price.executeUpdate();
+            } else if (chunk.size() > 0) {
+                PreparedStatement price = lease.prepareStatement(UPDATE_PRICE_SQL);
+                for (int id : chunk.ids) {
+                    price.setInt(1, id);
+                    price.addBatch();
+                }
+                price.executeBatch();
+            }
+            lease.commit();
+        }
+        return changed;
+    }
+
+    /** Собирает порцию из двух упорядоченных по id конфигурации выборок */
+    private final class ChunkBuilder {
+        final int[] ids;
+        final String[] previous;
+        int size;
+
+        ChunkBuilder(int capacity) {
+            this.ids = new int[capacity];
+            this.previous = new String[capacity];
+        }
+
+        void readConfigurations(PreparedStatement pstmt) throws SQLException {
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    ids[size] = rs.getInt(1);
+                    previous[size] = rs.getString(2);
+                    size++;
+                }
+            }
+        }
+
+        Chunk readItems(PreparedStatement pstmt) throws SQLException {
+            Component[] components = new Component[Math.max(size * 8, 8)];
+            int[] offsets = new int[size + 1];
+            int count = 0;
+            int index = 0;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    int configId = rs.getInt(1);
+                    while (index < size && ids[index] < configId) {
+                        offsets[++index] = count;
+                    }
+                    if (index == size || ids[index] != configId) continue;
+
+                    Component component = componentService.getComponentById(rs.getInt(2));
+                    if (component == null) continue; // позиция ссылается на удалённое комплектующее
+
+                    // Несколько штук одного комплектующего проверяются как несколько позиций
+                    for (int i = rs.getInt(3); i > 0; i--) {
+                        if (count == components.length) {
+                            components = Arrays.copyOf(components, count * 2);
+                        }
+                        components[count++] = component;
+                    }
+                }
+            }
+            while (index < size) {
+                offsets[++index] = count;
+            }
+            return new Chunk(Arrays.copyOf(ids, size), Arrays.copyOf(previous, size), components, offsets);
+        }
+    }
+
+    /** Порция: id конфигураций, их комплектующие подряд в одном массиве и границы по offsets */
+    private static final class Chunk {
+        final int[] ids;
+        final String[] previous;
+        final String[] statuses;
+        final List<Component> components;
+        final int[] offsets;
+
+        Chunk(int[] ids, String[] previous, Component[] components, int[] offsets) {
+            this.ids = ids;
+            this.previous = previous;
+            this.statuses = new String[ids.length];
+            this.components = Arrays.asList(components);
+            this.offsets = offsets;
+        }
+
+        int size() {
+            return ids.length;
+        }
+    }
+
+    private static final class Totals {
+        final long[] byStatus = new long[3];
+        long processed;
+        long changed;
+
+        void add(Chunk chunk, int chunkChanged) {
+            for (String status : chunk.statuses) {
+                switch (status) {
+                    case Configuration.STATUS_COMPATIBLE -> byStatus[0]++;
+                    case Configuration.STATUS_WARNINGS -> byStatus[1]++;
+                    default -> byStatus[2]++;
+                }
+            }
+            processed += chunk.size();
+            changed += chunkChanged;
+        }
+
+        void report(ProgressListener listener, long total, long start) {
+            if (listener == null) return;
+            double seconds = (System.nanoTime() - start) / 1e9;
+            listener.onProgress(processed, total, seconds > 0 ? processed / seconds : 0);
+        }
+
+        RevalidationReport toReport(long start) {
+            return new RevalidationReport(processed, byStatus[0], byStatus[1], byStatus[2], changed, System.nanoTime() - start);
+        }
+    }
+
+    private final class ValidateTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Chunk chunk;
+        private final int from;
+        private final int to;
+
+        ValidateTask(Chunk chunk, int from, int to) {
+            this.chunk = chunk;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SPLIT_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ValidateTask(chunk, from, middle), new ValidateTask(chunk, middle, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                List<Component> components = chunk.components.subList(chunk.offsets[i], chunk.offsets[i + 1]);
+                chunk.statuses[i] = CompatibilityService.statusOf(compatibilityService.validateComponents(components));
+            }
+        }
+    }
+}
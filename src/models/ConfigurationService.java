@@ -1,152 +1,206 @@
 package services;
 
+import database.ConnectionLease;
 import database.DatabaseManager;
 import models.Component;
 import models.Configuration;
+import models.ConfigurationDraft;
+import models.ConfigurationPage;
+import utils.LatencyHistogram;
+import utils.Metrics;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * Сервис для работы с конфигурациями ПК
  */
 public class ConfigurationService {
+    /** Позиций в одном executeBatch при массовом сохранении */
+    private static final int ITEM_BATCH_SIZE = 1000;
+
+    private static final LatencyHistogram GET_ALL_LATENCY = Metrics.global().operation("ConfigurationService.getAllConfigurations");
+    private static final LatencyHistogram GET_PAGE_LATENCY = Metrics.global().operation("ConfigurationService.getConfigurationsPage");
+    private static final LatencyHistogram CREATE_LATENCY = Metrics.global().operation("ConfigurationService.createConfigurations");
+
     private DatabaseManager dbManager;
     private ComponentService componentService;
+    private ConfigurationLoader configurationLoader;
+    private ComponentUsageIndex usageIndex;
 
     public ConfigurationService(DatabaseManager dbManager, ComponentService componentService) {
         this.dbManager = dbManager;
         this.componentService = componentService;
+        this.configurationLoader = new ConfigurationLoader(dbManager, componentService);
+        this.usageIndex = new ComponentUsageIndex(dbManager);
+    }
+
+    public ComponentUsageIndex getUsageIndex() {
+        return usageIndex;
     }
 
     public List<Configuration> getAllConfigurations() {
-        List<Configuration> configurations = new ArrayList<>();
-        String sql = "SELECT * FROM configurations ORDER BY created_date DESC";
-
-        try (ResultSet rs = dbManager.executeQuery(sql)) {
-            while (rs != null && rs.next()) {
-                Configuration config = resultSetToConfiguration(rs);
-                config.setComponents(getConfigurationComponents(config.getId()));
-                configurations.add(config);
-            }
-        } catch (SQLException e) {
-            System.err.println("❌ Ошибка получения конфигураций: " + e.getMessage());
+        long start = System.nanoTime();
+        try {
+            return configurationLoader.loadAll();
+        } finally {
+            GET_ALL_LATENCY.recordSince(start);
         }
-
-        return configurations;
     }
 
-    public Configuration createConfiguration(String name, List<Integer> componentIds) {
-        Connection conn = dbManager.getConnection();
-        
+    public ConfigurationPage getConfigurationsPage(int offset, int limit) {
+        long start = System.nanoTime();
         try {
-            conn.setAutoCommit(false);
-            
-            // Создаем конфигурацию
-            String configSql = "INSERT INTO configurations (name, total_price) VALUES (?, ?)";
-            double totalPrice = calculateTotalPrice(componentIds);
-            
-            try (PreparedStatement pstmt = conn.prepareStatement(configSql, Statement.RETURN_GENERATED_KEYS)) {
-                pstmt.setString(1, name);
-                pstmt.setDouble(2, totalPrice);
-                pstmt.executeUpdate();
-                
-                ResultSet rs = pstmt.getGeneratedKeys();
-                int configId = rs.getInt(1);
-                
-                // Добавляем компоненты
-                addComponentsToConfiguration(configId, componentIds, conn);
-                
-                conn.commit();
-                
-                Configuration config = new Configuration(name);
-                config.setId(configId);
-                config.setTotalPrice(totalPrice);
-                config.setComponents(getComponentsByIds(componentIds));
-                
-                return config;
-            }
-        } catch (SQLException e) {
-            try {
-                conn.rollback();
-            } catch (SQLException ex) {
-                System.err.println("❌ Ошибка отката транзакции: " + ex.getMessage());
-            }
-            System.err.println("❌ Ошибка создания конфигурации: " + e.getMessage());
-            return null;
+            return configurationLoader.loadPage(offset, limit);
         } finally {
-            try {
-                conn.setAutoCommit(true);
-            } catch (SQLException e) {
-                System.err.println("❌ Ошибка восстановления autocommit: " + e.getMessage());
-            }
+            GET_PAGE_LATENCY.recordSince(start);
         }
     }
 
-    private double calculateTotalPrice(List<Integer> componentIds) {
-        double total = 0;
-        for (int id : componentIds) {
-            Component comp = componentService.getComponentById(id);
-            if (comp != null) {
-                total += comp.getPrice();
-            }
+    public ConfigurationPage getNextConfigurationsPage(ConfigurationPage previous, int limit) {
+        long start = System.nanoTime();
+        try {
+            return configurationLoader.loadNextPage(previous, limit);
+        } finally {
+            GET_PAGE_LATENCY.recordSince(start);
         }
-        return total;
     }
 
-    private void addComponentsToConfiguration(int configId, List<Integer> componentIds, Connection conn) throws SQLException {
-        String sql = "INSERT INTO configuration_items (config_id, component_id, quantity) VALUES (?, ?, 1)";
-        
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            for (int componentId : componentIds) {
-                pstmt.setInt(1, configId);
-                pstmt.setInt(2, componentId);
-                pstmt.executeUpdate();
-            }
-        }
+    public Configuration createConfiguration(String name, List<Integer> componentIds) {
+        List<Configuration> created = createConfigurations(List.of(new ConfigurationDraft(name, componentIds)));
+        return created != null ? created.get(0) : null;
     }
 
-    private List<Component> getConfigurationComponents(int configId) {
-        List<Component> components = new ArrayList<>();
-        String sql = """
-            SELECT c.* FROM components c
-            JOIN configuration_items ci ON c.id = ci.component_id
-            WHERE ci.config_id = ?
-        """;
-
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
-            pstmt.setInt(1, configId);
-            ResultSet rs = pstmt.executeQuery();
-            
-            while (rs.next()) {
-                components.add(componentService.resultSetToComponent(rs));
+    /**
+     * Сохраняет конфигурации одной транзакцией: комплектующие всех черновиков читаются
+     * одним проходом, позиции вставляются пакетами. Повторяющиеся id сохраняются как количество.
+     * Черновик без комплектующих или с несуществующими id отклоняет весь пакет.
+     *
+     * @return сохранённые конфигурации в порядке черновиков или null при ошибке (ничего не сохраняется)
+     */
+    public List<Configuration> createConfigurations(List<ConfigurationDraft> drafts) {
+        List<Integer> allIds = new ArrayList<>();
+        for (ConfigurationDraft draft : drafts) {
+            allIds.addAll(draft.getComponentIds());
+        }
+        Map<Integer, Component> components = componentService.getComponentsByIds(allIds);
+
+        List<Configuration> configurations = new ArrayList<>(drafts.size());
+        for (ConfigurationDraft draft : drafts) {
+            String problem = draftProblem(draft, components);
+            if (problem != null) {
+                System.err.println("❌ Ошибка создания конфигурации '" + draft.getName() + "': " + problem);
+                return null;
+            }
+            Configuration config = new Configuration(draft.getName());
+            for (int id : draft.getComponentIds()) {
+                config.addComponent(components.get(id));
             }
-        } catch (SQLException e) {
-            System.err.println("❌ Ошибка получения компонентов конфигурации: " + e.getMessage());
+            configurations.add(config);
         }
+        return saveConfigurations(configurations);
+    }
 
-        return components;
+    /**
+     * Сохраняет конфигурацию с уже найденными комплектующими, не перечитывая их из каталога.
+     * @return та же конфигурация с id и суммой или null при ошибке
+     */
+    public Configuration saveConfiguration(Configuration configuration) {
+        List<Configuration> saved = saveConfigurations(List.of(configuration));
+        return saved != null ? saved.get(0) : null;
     }
 
-    private List<Component> getComponentsByIds(List<Integer> componentIds) {
-        List<Component> components = new ArrayList<>();
-        for (int id : componentIds) {
-            Component comp = componentService.getComponentById(id);
-            if (comp != null) {
-                components.add(comp);
+    /**
+     * Записывает конфигурации с их комплектующими одной транзакцией; id и сумма
+     * проставляются в сами объекты. Конфигурация без комплектующих отклоняет весь пакет.
+     */
+    private List<Configuration> saveConfigurations(List<Configuration> configurations) {
+        long start = System.nanoTime();
+        try {
+            String configSql = "INSERT INTO configurations (name, total_price) VALUES (?, ?)";
+            String itemSql = "INSERT INTO configuration_items (config_id, component_id, quantity) VALUES (?, ?, ?)";
+
+            for (Configuration config : configurations) {
+                if (config.getComponents().isEmpty()) {
+                    System.err.println("❌ Ошибка создания конфигурации '" + config.getName() + "': не выбрано ни одного комплектующего");
+                    return null;
+                }
             }
+
+            List<List<Integer>> createdItems = new ArrayList<>(configurations.size());
+            try (ConnectionLease lease = dbManager.lease()) {
+                lease.beginWriteTransaction();
+                PreparedStatement configStmt = lease.prepareStatement(configSql, Statement.RETURN_GENERATED_KEYS);
+                PreparedStatement itemStmt = lease.prepareStatement(itemSql);
+                int pendingItems = 0;
+
+                for (Configuration config : configurations) {
+                    Map<Integer, Integer> quantities = new LinkedHashMap<>();
+                    for (Component component : config.getComponents()) {
+                        quantities.merge(component.getId(), 1, Integer::sum);
+                    }
+
+                    configStmt.setString(1, config.getName());
+                    config.setTotalPrice(calculateTotalPrice(config.getComponents()));
+                    configStmt.setLong(2, config.getTotalPrice());
+                    configStmt.executeUpdate();
+                    try (ResultSet rs = configStmt.getGeneratedKeys()) {
+                        config.setId(rs.getInt(1));
+                    }
+
+                    for (Map.Entry<Integer, Integer> item : quantities.entrySet()) {
+                        itemStmt.setInt(1, config.getId());
+                        itemStmt.setInt(2, item.getKey());
+                        itemStmt.setInt(3, item.getValue());
+                        itemStmt.addBatch();
+                    }
+                    pendingItems += quantities.size();
+                    if (pendingItems >= ITEM_BATCH_SIZE) {
+                        itemStmt.executeBatch();
+                        pendingItems = 0;
+                    }
+                    createdItems.add(new ArrayList<>(quantities.keySet()));
+                }
+                if (pendingItems > 0) {
+                    itemStmt.executeBatch();
+                }
+
+                lease.commit();
+            } catch (SQLException e) {
+                // Незафиксированная транзакция откатывается при возврате соединения в пул
+                System.err.println("❌ Ошибка создания конфигурации: " + e.getMessage());
+                return null;
+            }
+
+            for (int i = 0; i < configurations.size(); i++) {
+                usageIndex.add(configurations.get(i).getId(), createdItems.get(i));
+            }
+            return configurations;
+        } finally {
+            CREATE_LATENCY.recordSince(start);
         }
-        return components;
     }
 
-    private Configuration resultSetToConfiguration(ResultSet rs) throws SQLException {
-        Configuration config = new Configuration();
-        config.setId(rs.getInt("id"));
-        config.setName(rs.getString("name"));
-        config.setTotalPrice(rs.getDouble("total_price"));
-        config.setCreatedDate(rs.getTimestamp("created_date"));
-        config.setCompatibilityStatus(rs.getString("compatibility_status"));
-        return config;
+    /** Почему черновик нельзя сохранить, или null */
+    private static String draftProblem(ConfigurationDraft draft, Map<Integer, Component> components) {
+        Set<Integer> unknown = new TreeSet<>();
+        for (int id : draft.getComponentIds()) {
+            if (!components.containsKey(id)) unknown.add(id);
+        }
+        return unknown.isEmpty() ? null : "не найдены комплектующие " + unknown;
+    }
+
+    /** Стоимость комплектующих в копейках: сумма целых без округлений и без промежуточных объектов */
+    public static long calculateTotalPrice(List<Component> components) {
+        long total = 0;
+        for (int i = 0, n = components.size(); i < n; i++) {
+            total = Math.addExact(total, components.get(i).getPrice());
+        }
+        return total;
     }
 }
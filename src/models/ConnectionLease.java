@@ -0,0 +1,200 @@
+package database;
+
+import utils.Metrics;
+
+import java.sql.*;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Соединение, выданное из пула DatabaseManager, с кэшем подготовленных запросов.
+ * Подготовленные запросы принадлежат аренде: вызывающий код закрывает только ResultSet,
+ * а close() самой аренды возвращает соединение в пул.
+ * Повторная аренда в том же потоке возвращает ту же аренду, поэтому вложенные вызовы
+ * сервисов не ждут второго соединения и работают в транзакции внешнего вызова.
+ * Фиксирует и откатывает транзакцию только уровень, который её начал: откат на вложенном
+ * уровне лишь помечает транзакцию, и commit() внешнего уровня её откатывает с ошибкой.
+ * Выполнение запросов из кэша учитывается в Metrics.global().
+ */
+public class ConnectionLease implements AutoCloseable {
+    private static final String KEYS_PREFIX = "#keys#";
+
+    private final DatabaseManager owner;
+    private final Connection connection;
+    private final Map<String, PreparedStatement> statements;
+    private int depth;
+    private int transactionDepth;
+    /** Транзакция открыта BEGIN IMMEDIATE в обход setAutoCommit — драйвер о ней не знает */
+    private boolean writeTransaction;
+    /** Вложенный уровень откатил свою часть — зафиксировать транзакцию уже нельзя */
+    private boolean rollbackOnly;
+
+    ConnectionLease(DatabaseManager owner, Connection connection, int statementCacheSize) {
+        this.owner = owner;
+        this.connection = connection;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() <= statementCacheSize) return false;
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    /** Подготовленный запрос из кэша соединения; закрывать его не нужно */
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        return cached(sql, sql, Statement.NO_GENERATED_KEYS);
+    }
+
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? KEYS_PREFIX + sql : sql;
+        return cached(key, sql, autoGeneratedKeys);
+    }
+
+    private PreparedStatement cached(String key, String sql, int autoGeneratedKeys) throws SQLException {
+        PreparedStatement pstmt = statements.get(key);
+        if (pstmt == null || pstmt.isClosed()) {
+            pstmt = TimedStatements.wrap(connection.prepareStatement(sql, autoGeneratedKeys), sql, Metrics.global());
+            statements.put(key, pstmt);
+        } else {
+            pstmt.clearParameters();
+        }
+        return pstmt;
+    }
+
+    /** Начинает транзакцию; внутри уже открытой транзакции ничего не делает */
+    public void beginTransaction() throws SQLException {
+        if (!inTransaction()) {
+            connection.setAutoCommit(false);
+            transactionDepth = depth;
+            rollbackOnly = false;
+        }
+    }
+
+    /**
+     * Начинает транзакцию, сразу захватывая блокировку записи (BEGIN IMMEDIATE) с ожиданием
+     * по busy_timeout. Отложенная транзакция SQLite получает блокировку только при первой
+     * записи и под конкуренцией может сразу завершиться SQLITE_BUSY, не дождавшись её.
+     */
+    public void beginWriteTransaction() throws SQLException {
+        if (!inTransaction()) {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("BEGIN IMMEDIATE");
+            }
+            writeTransaction = true;
+            transactionDepth = depth;
+            rollbackOnly = false;
+        }
+    }
+
+    /**
+     * Фиксирует транзакцию, если её начал этот уровень вложенности.
+     * @throws SQLException в том числе если вложенный уровень откатил транзакцию — тогда она откатывается целиком
+     */
+    public void commit() throws SQLException {
+        if (transactionDepth != depth) return;
+        if (rollbackOnly) {
+            rollbackTransaction();
+            throw new SQLException("Транзакция откатана вложенным вызовом");
+        }
+        if (writeTransaction) {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("COMMIT");
+            }
+            writeTransaction = false;
+        } else if (!connection.getAutoCommit()) {
+            connection.commit();
+            connection.setAutoCommit(true);
+        }
+        transactionDepth = 0;
+    }
+
+    /** Откатывает транзакцию, если её начал этот уровень, иначе помечает её для отката */
+    public void rollback() {
+        try {
+            if (inTransaction() && transactionDepth != depth) {
+                rollbackOnly = true;
+                return;
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Ошибка отката транзакции: " + e.getMessage());
+        }
+        rollbackTransaction();
+    }
+
+    private void rollbackTransaction() {
+        rollbackOnly = false;
+        transactionDepth = 0;
+        try {
+            if (writeTransaction) {
+                writeTransaction = false;
+                try (Statement stmt = connection.createStatement()) {
+                    stmt.execute("ROLLBACK");
+                }
+            } else if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Ошибка отката транзакции: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Завершает уровень аренды: незавершённая транзакция, начатая этим уровнем, откатывается,
+     * а последний уровень возвращает соединение в пул.
+     */
+    @Override
+    public void close() {
+        if (transactionDepth == depth) {
+            rollbackTransaction();
+        }
+        if (--depth > 0) return;
+        rollbackTransaction();
+        owner.release(this);
+    }
+
+    private boolean inTransaction() throws SQLException {
+        return writeTransaction || !connection.getAutoCommit();
+    }
+
+    ConnectionLease acquire() {
+        depth++;
+        return this;
+    }
+
+    boolean isHeld() {
+        return depth > 0;
+    }
+
+    void closeStatements() {
+        Iterator<PreparedStatement> it = statements.values().iterator();
+        while (it.hasNext()) {
+            closeQuietly(it.next());
+            it.remove();
+        }
+    }
+
+    void closePhysically() {
+        closeStatements();
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            System.err.println("❌ Ошибка закрытия соединения: " + e.getMessage());
+        }
+    }
+
+    private static void closeQuietly(Statement stmt) {
+        try {
+            stmt.close();
+        } catch (SQLException ignored) {
+            // соединение уже закрывается
+        }
+    }
+}
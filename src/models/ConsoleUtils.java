@@ -63,6 +63,18 @@ public class ConsoleUtils {
         }
     }
     
+    /** Сумма в рублях (например 1234,50), возвращается в копейках */
+    public static long readMoney(String prompt) {
+        while (true) {
+            System.out.print(prompt + ": ");
+            try {
+                return Money.parse(scanner.nextLine().trim());
+            } catch (IllegalArgumentException | ArithmeticException e) {
+                System.out.println("❌ Ошибка: введите сумму в рублях, не больше двух знаков после запятой");
+            }
+        }
+    }
+    
     public static void pressEnterToContinue() {
         System.out.print("\nНажмите Enter для продолжения...");
         scanner.nextLine();
@@ -0,0 +1,241 @@
+package database;
+
+import utils.Metrics;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.*;
+import java.util.Calendar;
+import java.util.Map;
+
+/**
+ * Курсор, который считает прочитанные строки для Metrics и передаёт их при исчерпании
+ * или закрытии. Остальные методы только делегируют: прямой класс, а не java.lang.reflect.Proxy,
+ * чтобы чтение колонок не упаковывало аргументы и результаты на каждом вызове.
+ */
+final class CountingResultSet implements ResultSet {
+    private final ResultSet rs;
+    private final Metrics metrics;
+    private long rows;
+
+    CountingResultSet(ResultSet rs, Metrics metrics) {
+        this.rs = rs;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean next() throws SQLException {
+        if (rs.next()) {
+            rows++;
+            return true;
+        }
+        flush();
+        return false;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        flush();
+        rs.close();
+    }
+
+    private void flush() {
+        if (rows > 0) {
+            metrics.addRowsRead(rows);
+            rows = 0;
+        }
+    }
+
+    @Override public <T> T unwrap(Class<T> type) throws SQLException { return type.isInstance(this) ? type.cast(this) : rs.unwrap(type); }
+    @Override public boolean isWrapperFor(Class<?> type) throws SQLException { return type.isInstance(this) || rs.isWrapperFor(type); }
+
+    @Override public boolean wasNull() throws SQLException { return rs.wasNull(); }
+    @Override public String getString(int column) throws SQLException { return rs.getString(column); }
+    @Override public boolean getBoolean(int column) throws SQLException { return rs.getBoolean(column); }
+    @Override public byte getByte(int column) throws SQLException { return rs.getByte(column); }
+    @Override public short getShort(int column) throws SQLException { return rs.getShort(column); }
+    @Override public int getInt(int column) throws SQLException { return rs.getInt(column); }
+    @Override public long getLong(int column) throws SQLException { return rs.getLong(column); }
+    @Override public float getFloat(int column) throws SQLException { return rs.getFloat(column); }
+    @Override public double getDouble(int column) throws SQLException { return rs.getDouble(column); }
+    @Override @Deprecated public BigDecimal getBigDecimal(int column, int scale) throws SQLException { return rs.getBigDecimal(column, scale); }
+    @Override public byte[] getBytes(int column) throws SQLException { return rs.getBytes(column); }
+    @Override public Date getDate(int column) throws SQLException { return rs.getDate(column); }
+    @Override public Time getTime(int column) throws SQLException { return rs.getTime(column); }
+    @Override public Timestamp getTimestamp(int column) throws SQLException { return rs.getTimestamp(column); }
+    @Override public InputStream getAsciiStream(int column) throws SQLException { return rs.getAsciiStream(column); }
+    @Override @Deprecated public InputStream getUnicodeStream(int column) throws SQLException { return rs.getUnicodeStream(column); }
+    @Override public InputStream getBinaryStream(int column) throws SQLException { return rs.getBinaryStream(column); }
+    @Override public String getString(String label) throws SQLException { return rs.getString(label); }
+    @Override public boolean getBoolean(String label) throws SQLException { return rs.getBoolean(label); }
+    @Override public byte getByte(String label) throws SQLException { return rs.getByte(label); }
+    @Override public short getShort(String label) throws SQLException { return rs.getShort(label); }
+    @Override public int getInt(String label) throws SQLException { return rs.getInt(label); }
+    @Override public long getLong(String label) throws SQLException { return rs.getLong(label); }
+    @Override public float getFloat(String label) throws SQLException { return rs.getFloat(label); }
+    @Override public double getDouble(String label) throws SQLException { return rs.getDouble(label); }
+    @Override @Deprecated public BigDecimal getBigDecimal(String label, int scale) throws SQLException { return rs.getBigDecimal(label, scale); }
+    @Override public byte[] getBytes(String label) throws SQLException { return rs.getBytes(label); }
+    @Override public Date getDate(String label) throws SQLException { return rs.getDate(label); }
+    @Override public Time getTime(String label) throws SQLException { return rs.getTime(label); }
+    @Override public Timestamp getTimestamp(String label) throws SQLException { return rs.getTimestamp(label); }
+    @Override public InputStream getAsciiStream(String label) throws SQLException { return rs.getAsciiStream(label); }
+    @Override @Deprecated public InputStream getUnicodeStream(String label) throws SQLException { return rs.getUnicodeStream(label); }
+    @Override public InputStream getBinaryStream(String label) throws SQLException { return rs.getBinaryStream(label); }
+    @Override public SQLWarning getWarnings() throws SQLException { return rs.getWarnings(); }
+    @Override public void clearWarnings() throws SQLException { rs.clearWarnings(); }
+    @Override public String getCursorName() throws SQLException { return rs.getCursorName(); }
+    @Override public ResultSetMetaData getMetaData() throws SQLException { return rs.getMetaData(); }
+    @Override public Object getObject(int column) throws SQLException { return rs.getObject(column); }
+    @Override public Object getObject(String label) throws SQLException { return rs.getObject(label); }
+    @Override public int findColumn(String label) throws SQLException { return rs.findColumn(label); }
+    @Override public Reader getCharacterStream(int column) throws SQLException { return rs.getCharacterStream(column); }
+    @Override public Reader getCharacterStream(String label) throws SQLException { return rs.getCharacterStream(label); }
+    @Override public BigDecimal getBigDecimal(int column) throws SQLException { return rs.getBigDecimal(column); }
+    @Override public BigDecimal getBigDecimal(String label) throws SQLException { return rs.getBigDecimal(label); }
+    @Override public boolean isBeforeFirst() throws SQLException { return rs.isBeforeFirst(); }
+    @Override public boolean isAfterLast() throws SQLException { return rs.isAfterLast(); }
+    @Override public boolean isFirst() throws SQLException { return rs.isFirst(); }
+    @Override public boolean isLast() throws SQLException { return rs.isLast(); }
+    @Override public void beforeFirst() throws SQLException { rs.beforeFirst(); }
+    @Override public void afterLast() throws SQLException { rs.afterLast(); }
+    @Override public boolean first() throws SQLException { return rs.first(); }
+    @Override public boolean last() throws SQLException { return rs.last(); }
+    @Override public int getRow() throws SQLException { return rs.getRow(); }
+    @Override public boolean absolute(int column) throws SQLException { return rs.absolute(column); }
+    @Override public boolean relative(int column) throws SQLException { return rs.relative(column); }
+    @Override public boolean previous() throws SQLException { return rs.previous(); }
+    @Override public void setFetchDirection(int column) throws SQLException { rs.setFetchDirection(column); }
+    @Override public int getFetchDirection() throws SQLException { return rs.getFetchDirection(); }
+    @Override public void setFetchSize(int column) throws SQLException { rs.setFetchSize(column); }
+    @Override public int getFetchSize() throws SQLException { return rs.getFetchSize(); }
+    @Override public int getType() throws SQLException { return rs.getType(); }
+    @Override public int getConcurrency() throws SQLException { return rs.getConcurrency(); }
+    @Override public boolean rowUpdated() throws SQLException { return rs.rowUpdated(); }
+    @Override public boolean rowInserted() throws SQLException { return rs.rowInserted(); }
+    @Override public boolean rowDeleted() throws SQLException { return rs.rowDeleted(); }
+    @Override public void updateNull(int column) throws SQLException { rs.updateNull(column); }
+    @Override public void updateBoolean(int column, boolean value) throws SQLException { rs.updateBoolean(column, value); }
+    @Override public void updateByte(int column, byte value) throws SQLException { rs.updateByte(column, value); }
+    @Override public void updateShort(int column, short value) throws SQLException { rs.updateShort(column, value); }
+    @Override public void updateInt(int column, int value) throws SQLException { rs.updateInt(column, value); }
+    @Override public void updateLong(int column, long value) throws SQLException { rs.updateLong(column, value); }
+    @Override public void updateFloat(int column, float value) throws SQLException { rs.updateFloat(column, value); }
+    @Override public void updateDouble(int column, double value) throws SQLException { rs.updateDouble(column, value); }
+    @Override public void updateBigDecimal(int column, BigDecimal value) throws SQLException { rs.updateBigDecimal(column, value); }
+    @Override public void updateString(int column, String value) throws SQLException { rs.updateString(column, value); }
+    @Override public void updateBytes(int column, byte[] value) throws SQLException { rs.updateBytes(column, value); }
+    @Override public void updateDate(int column, Date value) throws SQLException { rs.updateDate(column, value); }
+    @Override public void updateTime(int column, Time value) throws SQLException { rs.updateTime(column, value); }
+    @Override public void updateTimestamp(int column, Timestamp value) throws SQLException { rs.updateTimestamp(column, value); }
+    @Override public void updateAsciiStream(int column, InputStream value, int value3) throws SQLException { rs.updateAsciiStream(column, value, value3); }
+    @Override public void updateBinaryStream(int column, InputStream value, int value3) throws SQLException { rs.updateBinaryStream(column, value, value3); }
+    @Override public void updateCharacterStream(int column, Reader value, int value3) throws SQLException { rs.updateCharacterStream(column, value, value3); }
+    @Override public void updateObject(int column, Object value, int value3) throws SQLException { rs.updateObject(column, value, value3); }
+    @Override public void updateObject(int column, Object value) throws SQLException { rs.updateObject(column, value); }
+    @Override public void updateNull(String label) throws SQLException { rs.updateNull(label); }
+    @Override public void updateBoolean(String label, boolean value) throws SQLException { rs.updateBoolean(label, value); }
+    @Override public void updateByte(String label, byte value) throws SQLException { rs.updateByte(label, value); }
+    @Override public void updateShort(String label, short value) throws SQLException { rs.updateShort(label, value); }
+    @Override public void updateInt(String label, int value) throws SQLException { rs.updateInt(label, value); }
+    @Override public void updateLong(String label, long value) throws SQLException { rs.updateLong(label, value); }
+    @Override public void updateFloat(String label, float value) throws SQLException { rs.updateFloat(label, value); }
+    @Override public void updateDouble(String label, double value) throws SQLException { rs.updateDouble(label, value); }
+    @Override public void updateBigDecimal(String label, BigDecimal value) throws SQLException { rs.updateBigDecimal(label, value); }
+    @Override public void updateString(String label, String value) throws SQLException { rs.updateString(label, value); }
+    @Override public void updateBytes(String label, byte[] value) throws SQLException { rs.updateBytes(label, value); }
+    @Override public void updateDate(String label, Date value) throws SQLException { rs.updateDate(label, value); }
+    @Override public void updateTime(String label, Time value) throws SQLException { rs.updateTime(label, value); }
+    @Override public void updateTimestamp(String label, Timestamp value) throws SQLException { rs.updateTimestamp(label, value); }
+    @Override public void updateAsciiStream(String label, InputStream value, int value3) throws SQLException { rs.updateAsciiStream(label, value, value3); }
+    @Override public void updateBinaryStream(String label, InputStream value, int value3) throws SQLException { rs.updateBinaryStream(label, value, value3); }
+    @Override public void updateCharacterStream(String label, Reader value, int value3) throws SQLException { rs.updateCharacterStream(label, value, value3); }
+    @Override public void updateObject(String label, Object value, int value3) throws SQLException { rs.updateObject(label, value, value3); }
+    @Override public void updateObject(String label, Object value) throws SQLException { rs.updateObject(label, value); }
+    @Override public void insertRow() throws SQLException { rs.insertRow(); }
+    @Override public void updateRow() throws SQLException { rs.updateRow(); }
+    @Override public void deleteRow() throws SQLException { rs.deleteRow(); }
+    @Override public void refreshRow() throws SQLException { rs.refreshRow(); }
+    @Override public void cancelRowUpdates() throws SQLException { rs.cancelRowUpdates(); }
+    @Override public void moveToInsertRow() throws SQLException { rs.moveToInsertRow(); }
+    @Override public void moveToCurrentRow() throws SQLException { rs.moveToCurrentRow(); }
+    @Override public Statement getStatement() throws SQLException { return rs.getStatement(); }
+    @Override public Object getObject(int column, Map<String, Class<?>> value) throws SQLException { return rs.getObject(column, value); }
+    @Override public Ref getRef(int column) throws SQLException { return rs.getRef(column); }
+    @Override public Blob getBlob(int column) throws SQLException { return rs.getBlob(column); }
+    @Override public Clob getClob(int column) throws SQLException { return rs.getClob(column); }
+    @Override public Array getArray(int column) throws SQLException { return rs.getArray(column); }
+    @Override public Object getObject(String label, Map<String, Class<?>> value) throws SQLException { return rs.getObject(label, value); }
+    @Override public Ref getRef(String label) throws SQLException { return rs.getRef(label); }
+    @Override public Blob getBlob(String label) throws SQLException { return rs.getBlob(label); }
+    @Override public Clob getClob(String label) throws SQLException { return rs.getClob(label); }
+    @Override public Array getArray(String label) throws SQLException { return rs.getArray(label); }
+    @Override public Date getDate(int column, Calendar value) throws SQLException { return rs.getDate(column, value); }
+    @Override public Date getDate(String label, Calendar value) throws SQLException { return rs.getDate(label, value); }
+    @Override public Time getTime(int column, Calendar value) throws SQLException { return rs.getTime(column, value); }
+    @Override public Time getTime(String label, Calendar value) throws SQLException { return rs.getTime(label, value); }
+    @Override public Timestamp getTimestamp(int column, Calendar value) throws SQLException { return rs.getTimestamp(column, value); }
+    @Override public Timestamp getTimestamp(String label, Calendar value) throws SQLException { return rs.getTimestamp(label, value); }
+    @Override public URL getURL(int column) throws SQLException { return rs.getURL(column); }
+    @Override public URL getURL(String label) throws SQLException { return rs.getURL(label); }
+    @Override public void updateRef(int column, Ref value) throws SQLException { rs.updateRef(column, value); }
+    @Override public void updateRef(String label, Ref value) throws SQLException { rs.updateRef(label, value); }
+    @Override public void updateBlob(int column, Blob value) throws SQLException { rs.updateBlob(column, value); }
+    @Override public void updateBlob(String label, Blob value) throws SQLException { rs.updateBlob(label, value); }
+    @Override public void updateClob(int column, Clob value) throws SQLException { rs.updateClob(column, value); }
+    @Override public void updateClob(String label, Clob value) throws SQLException { rs.updateClob(label, value); }
+    @Override public void updateArray(int column, Array value) throws SQLException { rs.updateArray(column, value); }
+    @Override public void updateArray(String label, Array value) throws SQLException { rs.updateArray(label, value); }
+    @Override public RowId getRowId(int column) throws SQLException { return rs.getRowId(column); }
+    @Override public RowId getRowId(String label) throws SQLException { return rs.getRowId(label); }
+    @Override public void updateRowId(int column, RowId value) throws SQLException { rs.updateRowId(column, value); }
+    @Override public void updateRowId(String label, RowId value) throws SQLException { rs.updateRowId(label, value); }
+    @Override public int getHoldability() throws SQLException { return rs.getHoldability(); }
+    @Override public boolean isClosed() throws SQLException { return rs.isClosed(); }
+    @Override public void updateNString(int column, String value) throws SQLException { rs.updateNString(column, value); }
+    @Override public void updateNString(String label, String value) throws SQLException { rs.updateNString(label, value); }
+    @Override public void updateNClob(int column, NClob value) throws SQLException { rs.updateNClob(column, value); }
+    @Override public void updateNClob(String label, NClob value) throws SQLException { rs.updateNClob(label, value); }
+    @Override public NClob getNClob(int column) throws SQLException { return rs.getNClob(column); }
+    @Override public NClob getNClob(String label) throws SQLException { return rs.getNClob(label); }
+    @Override public SQLXML getSQLXML(int column) throws SQLException { return rs.getSQLXML(column); }
+    @Override public SQLXML getSQLXML(String label) throws SQLException { return rs.getSQLXML(label); }
+    @Override public void updateSQLXML(int column, SQLXML value) throws SQLException { rs.updateSQLXML(column, value); }
+    @Override public void updateSQLXML(String label, SQLXML value) throws SQLException { rs.updateSQLXML(label, value); }
+    @Override public String getNString(int column) throws SQLException { return rs.getNString(column); }
+    @Override public String getNString(String label) throws SQLException { return rs.getNString(label); }
+    @Override public Reader getNCharacterStream(int column) throws SQLException { return rs.getNCharacterStream(column); }
+    @Override public Reader getNCharacterStream(String label) throws SQLException { return rs.getNCharacterStream(label); }
+    @Override public void updateNCharacterStream(int column, Reader value, long value3) throws SQLException { rs.updateNCharacterStream(column, value, value3); }
+    @Override public void updateNCharacterStream(String label, Reader value, long value3) throws SQLException { rs.updateNCharacterStream(label, value, value3); }
+    @Override public void updateAsciiStream(int column, InputStream value, long value3) throws SQLException { rs.updateAsciiStream(column, value, value3); }
+    @Override public void updateBinaryStream(int column, InputStream value, long value3) throws SQLException { rs.updateBinaryStream(column, value, value3); }
+    @Override public void updateCharacterStream(int column, Reader value, long value3) throws SQLException { rs.updateCharacterStream(column, value, value3); }
+    @Override public void updateAsciiStream(String label, InputStream value, long value3) throws SQLException { rs.updateAsciiStream(label, value, value3); }
+    @Override public void updateBinaryStream(String label, InputStream value, long value3) throws SQLException { rs.updateBinaryStream(label, value, value3); }
+    @Override public void updateCharacterStream(String label, Reader value, long value3) throws SQLException { rs.updateCharacterStream(label, value, value3); }
+    @Override public void updateBlob(int column, InputStream value, long value3) throws SQLException { rs.updateBlob(column, value, value3); }
+    @Override public void updateBlob(String label, InputStream value, long value3) throws SQLException { rs.updateBlob(label, value, value3); }
+    @Override public void updateClob(int column, Reader value, long value3) throws SQLException { rs.updateClob(column, value, value3); }
+    @Override public void updateClob(String label, Reader value, long value3) throws SQLException { rs.updateClob(label, value, value3); }
+    @Override public void updateNClob(int column, Reader value, long value3) throws SQLException { rs.updateNClob(column, value, value3); }
+    @Override public void updateNClob(String label, Reader value, long value3) throws SQLException { rs.updateNClob(label, value, value3); }
+    @Override public void updateNCharacterStream(int column, Reader value) throws SQLException { rs.updateNCharacterStream(column, value); }
+    @Override public void updateNCharacterStream(String label, Reader value) throws SQLException { rs.updateNCharacterStream(label, value); }
+    @Override public void updateAsciiStream(int column, InputStream value) throws SQLException { rs.updateAsciiStream(column, value); }
+    @Override public void updateBinaryStream(int column, InputStream value) throws SQLException { rs.updateBinaryStream(column, value); }
+    @Override public void updateCharacterStream(int column, Reader value) throws SQLException { rs.updateCharacterStream(column, value); }
+    @Override public void updateAsciiStream(String label, InputStream value) throws SQLException { rs.updateAsciiStream(label, value); }
+    @Override public void updateBinaryStream(String label, InputStream value) throws SQLException { rs.updateBinaryStream(label, value); }
+    @Override public void updateCharacterStream(String label, Reader value) throws SQLException { rs.updateCharacterStream(label, value); }
+    @Override public void updateBlob(int column, InputStream value) throws SQLException { rs.updateBlob(column, value); }
+    @Override public void updateBlob(String label, InputStream value) throws SQLException { rs.updateBlob(label, value); }
+    @Override public void updateClob(int column, Reader value) throws SQLException { rs.updateClob(column, value); }
+    @Override public void updateClob(String label, Reader value) throws SQLException { rs.updateClob(label, value); }
+    @Override public void updateNClob(int column, Reader value) throws SQLException { rs.updateNClob(column, value); }
+    @Override public void updateNClob(String label, Reader value) throws SQLException { rs.updateNClob(label, value); }
+    @Override public <T> T getObject(int column, Class<T> value) throws SQLException { return rs.getObject(column, value); }
+    @Override public <T> T getObject(String label, Class<T> value) throws SQLException { return rs.getObject(label, value); }
+}
@@ -0,0 +1,69 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Разбор и запись строк CSV по RFC 4180: поля в двойных кавычках, кавычка внутри поля удваивается.
+ * Поле с переводом строки не поддерживается — прайс-листы поставщиков построчные.
+ */
+public class CsvFormat {
+    private CsvFormat() {}
+
+    /** Разделитель по строке заголовка: выгрузки из русского Excel используют «;» */
+    public static char detectSeparator(String header) {
+        int commas = 0;
+        int semicolons = 0;
+        for (int i = 0; i < header.length(); i++) {
+            char c = header.charAt(i);
+            if (c == ',') commas++;
+            else if (c == ';') semicolons++;
+        }
+        return semicolons > commas ? ';' : ',';
+    }
+
+    /** Поля строки или null, если кавычка не закрыта */
+    public static List<String> parseLine(String line, char separator) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+
+        while (i < line.length()) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == separator) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+            i++;
+        }
+
+        if (quoted) return null;
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /** Значение поля для записи; null записывается пустым полем */
+    public static String escape(String value, char separator) {
+        if (value == null) return "";
+        boolean needsQuotes = value.indexOf(separator) >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!needsQuotes) return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
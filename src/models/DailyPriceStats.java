@@ -0,0 +1,56 @@
+package models;
+
+import utils.Money;
+
+import java.time.LocalDate;
+
+/**
+ * Дневной агрегат истории цен комплектующего. Дни без изменений не хранятся:
+ * в такой день действует closePrice последнего предыдущего дня.
+ */
+public class DailyPriceStats {
+    private int componentId;
+    private LocalDate day;
+    private long minPrice;
+    private long maxPrice;
+    private long avgPrice;
+    private long closePrice;
+    private int closeQuantity;
+    private int changes;
+
+    public DailyPriceStats(int componentId, LocalDate day, long minPrice, long maxPrice, long avgPrice,
+                           long closePrice, int closeQuantity, int changes) {
+        this.componentId = componentId;
+        this.day = day;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.avgPrice = avgPrice;
+        this.closePrice = closePrice;
+        this.closeQuantity = closeQuantity;
+        this.changes = changes;
+    }
+
+    // Getters
+    public int getComponentId() { return componentId; }
+
+    public LocalDate getDay() { return day; }
+
+    /** Цены в копейках; среднее — по записанным за день состояниям, с округлением вниз */
+    public long getMinPrice() { return minPrice; }
+    public long getMaxPrice() { return maxPrice; }
+    public long getAvgPrice() { return avgPrice; }
+
+    /** Цена и остаток на конец дня */
+    public long getClosePrice() { return closePrice; }
+    public int getCloseQuantity() { return closeQuantity; }
+
+    /** Записанных за день изменений */
+    public int getChanges() { return changes; }
+
+    @Override
+    public String toString() {
+        return String.format("DailyPriceStats{componentId=%d, day=%s, min=%s, max=%s, avg=%s, close=%s, changes=%d}",
+                componentId, day, Money.toPlainString(minPrice), Money.toPlainString(maxPrice),
+                Money.toPlainString(avgPrice), Money.toPlainString(closePrice), changes);
+    }
+}
@@ -1,34 +1,165 @@
 package database;
 
+import utils.Metrics;
+
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
- * Менеджер базы данных
+ * Менеджер базы данных.
+ * Держит основное соединение (схема, служебные запросы) и небольшой пул соединений
+ * для сервисов: в режиме WAL читатели работают параллельно и не ждут друг друга.
  */
 public class DatabaseManager {
     private static final String DB_URL = "jdbc:sqlite:pc_configurator.db";
+    private static final int DEFAULT_POOL_SIZE = 4;
+    private static final int STATEMENT_CACHE_SIZE = 64;
+    private static final long LEASE_TIMEOUT_SECONDS = 30;
+
+    private static final String[] PRAGMAS = {
+        "PRAGMA journal_mode = WAL",
+        "PRAGMA synchronous = NORMAL",
+        "PRAGMA mmap_size = 268435456",
+        "PRAGMA cache_size = -65536",
+        "PRAGMA busy_timeout = 5000"
+    };
+
+    private final String dbUrl;
+    private final int poolSize;
     private Connection connection;
+    private final BlockingQueue<ConnectionLease> idle = new LinkedBlockingQueue<>();
+    private final List<ConnectionLease> leases = new ArrayList<>();
+    private final ThreadLocal<ConnectionLease> currentLease = new ThreadLocal<>();
+    private final List<Runnable> closeHooks = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
 
     public DatabaseManager() {
+        this(DB_URL);
+    }
+
+    public DatabaseManager(String dbUrl) {
+        this(dbUrl, DEFAULT_POOL_SIZE);
+    }
+
+    public DatabaseManager(String dbUrl, int poolSize) {
+        this.dbUrl = dbUrl;
+        // Каждое соединение к :memory: открывает отдельную пустую базу — пул не имеет смысла
+        this.poolSize = isInMemory(dbUrl) ? 1 : Math.max(1, poolSize);
         initializeDatabase();
     }
 
     private void initializeDatabase() {
         try {
-            connection = DriverManager.getConnection(DB_URL);
+            connection = openConnection();
             System.out.println("✅ База данных подключена успешно");
         } catch (SQLException e) {
             System.err.println("❌ Ошибка подключения к базе данных: " + e.getMessage());
         }
     }
 
+    private Connection openConnection() throws SQLException {
+        Connection conn = DriverManager.getConnection(dbUrl);
+        try (Statement stmt = conn.createStatement()) {
+            for (String pragma : PRAGMAS) {
+                stmt.execute(pragma);
+            }
+        }
+        return conn;
+    }
+
     public Connection getConnection() {
         return connection;
     }
 
+    /**
+     * Выдаёт соединение из пула. Использовать в try-with-resources:
+     * close() возвращает соединение в пул вместе с его кэшем запросов.
+     */
+    public ConnectionLease lease() throws SQLException {
+        if (closed) {
+            throw new SQLException("Соединение с базой данных закрыто");
+        }
+
+        ConnectionLease lease = currentLease.get();
+        if (lease != null && lease.isHeld()) {
+            return lease.acquire();
+        }
+
+        lease = idle.poll();
+        if (lease == null) {
+            lease = createOrWait();
+        }
+        currentLease.set(lease);
+        return lease.acquire();
+    }
+
+    private ConnectionLease createOrWait() throws SQLException {
+        ConnectionLease lease;
+        synchronized (leases) {
+            if (leases.size() < poolSize) {
+                Connection conn = isInMemory(dbUrl) ? connection : openConnection();
+                lease = new ConnectionLease(this, conn, STATEMENT_CACHE_SIZE);
+                leases.add(lease);
+                return lease;
+            }
+        }
+
+        try {
+            lease = idle.poll(LEASE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Ожидание соединения прервано", e);
+        }
+        if (lease == null) {
+            throw new SQLException("Пул соединений исчерпан: нет свободного соединения за " + LEASE_TIMEOUT_SECONDS + " с");
+        }
+        return lease;
+    }
+
+    void release(ConnectionLease lease) {
+        currentLease.remove();
+        if (closed) {
+            lease.closePhysically();
+        } else {
+            idle.offer(lease);
+        }
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    /**
+     * Действие перед закрытием соединений, например запись отложенных изменений.
+     * Хуки выполняются в обратном порядке регистрации, пока пул ещё выдаёт соединения.
+     */
+    public void addCloseHook(Runnable hook) {
+        closeHooks.add(hook);
+    }
+
     public void closeConnection() {
+        for (int i = closeHooks.size() - 1; i >= 0; i--) {
+            try {
+                closeHooks.get(i).run();
+            } catch (RuntimeException e) {
+                System.err.println("❌ Ошибка при подготовке к закрытию базы данных: " + e.getMessage());
+            }
+        }
+        closeHooks.clear();
+        closed = true;
+        synchronized (leases) {
+            for (ConnectionLease lease : leases) {
+                lease.closePhysically();
+            }
+            leases.clear();
+            idle.clear();
+        }
+
         try {
             if (connection != null && !connection.isClosed()) {
                 connection.close();
@@ -40,8 +171,10 @@ public class DatabaseManager {
     }
 
     public boolean executeUpdate(String sql) {
+        long start = System.nanoTime();
         try (Statement stmt = connection.createStatement()) {
-            stmt.executeUpdate(sql);
+            Metrics.global().addRowsWritten(Math.max(0, stmt.executeUpdate(sql)));
+            Metrics.global().recordQuery(Metrics.global().query(sql), sql, start);
             return true;
         } catch (SQLException e) {
             System.err.println("❌ Ошибка выполнения запроса: " + e.getMessage());
@@ -49,13 +182,30 @@ public class DatabaseManager {
         }
     }
 
+    /** Закрытие возвращённого ResultSet закрывает и его Statement */
     public ResultSet executeQuery(String sql) {
+        Statement stmt = null;
         try {
-            Statement stmt = connection.createStatement();
-            return stmt.executeQuery(sql);
+            stmt = connection.createStatement();
+            stmt.closeOnCompletion();
+            long start = System.nanoTime();
+            ResultSet rs = stmt.executeQuery(sql);
+            Metrics.global().recordQuery(Metrics.global().query(sql), sql, start);
+            return rs;
         } catch (SQLException e) {
             System.err.println("❌ Ошибка выполнения запроса: " + e.getMessage());
+            if (stmt != null) {
+                try {
+                    stmt.close();
+                } catch (SQLException ignored) {
+                    // исходная ошибка уже выведена
+                }
+            }
             return null;
         }
     }
+
+    private static boolean isInMemory(String url) {
+        return url.contains(":memory:") || url.contains("mode=memory");
+    }
 }
@@ -0,0 +1,152 @@
+package services;
+
+import utils.LatencyHistogram;
+import utils.Metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сводка метрик для меню диагностики и JMX: Metrics.global() вместе со счётчиками
+ * кэша каталога и кэша проверок совместимости.
+ */
+public class Diagnostics implements DiagnosticsMXBean {
+    public static final String OBJECT_NAME = "pcconfigurator:type=Diagnostics";
+
+    private final Metrics metrics;
+    private final ComponentCatalogCache catalogCache;
+    private final ValidationCache validationCache;
+
+    public Diagnostics(Metrics metrics, ComponentCatalogCache catalogCache, ValidationCache validationCache) {
+        this.metrics = metrics;
+        this.catalogCache = catalogCache;
+        this.validationCache = validationCache;
+    }
+
+    /** Регистрирует сводку в платформенном MBeanServer; false, если это не удалось */
+    public boolean registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+            return true;
+        } catch (JMException e) {
+            System.err.println("❌ Ошибка регистрации JMX-метрик: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public List<String> getQueryLatencies() {
+        return summaries(metrics.getQueries());
+    }
+
+    @Override
+    public List<String> getOperationLatencies() {
+        return summaries(metrics.getOperations());
+    }
+
+    @Override
+    public long getRowsRead() { return metrics.getRowsRead(); }
+
+    @Override
+    public long getRowsWritten() { return metrics.getRowsWritten(); }
+
+    @Override
+    public long getSlowQueryCount() { return metrics.getSlowQueryCount(); }
+
+    @Override
+    public long getSlowQueryThresholdMillis() { return metrics.getSlowQueryMillis(); }
+
+    @Override
+    public void setSlowQueryThresholdMillis(long millis) { metrics.setSlowQueryMillis(millis); }
+
+    @Override
+    public long getCatalogCacheHits() { return catalogCache.getHitCount(); }
+
+    @Override
+    public long getCatalogCacheMisses() { return catalogCache.getMissCount(); }
+
+    @Override
+    public double getCatalogCacheHitRate() { return catalogCache.getHitRate(); }
+
+    @Override
+    public long getValidationCacheHits() { return validationCache != null ? validationCache.getHitCount() : 0; }
+
+    @Override
+    public long getValidationCacheMisses() { return validationCache != null ? validationCache.getMissCount() : 0; }
+
+    @Override
+    public double getValidationCacheHitRate() { return validationCache != null ? validationCache.getHitRate() : 0; }
+
+    @Override
+    public Map<String, Long> getValidationIssues() { return metrics.getIssueCounts(); }
+
+    @Override
+    public void resetStatistics() {
+        metrics.reset();
+        catalogCache.resetStatistics();
+        if (validationCache != null) {
+            validationCache.resetStatistics();
+        }
+    }
+
+    /** Текстовый отчёт для консоли */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Методы сервисов:\n");
+        appendLatencies(sb, metrics.getOperations());
+        sb.append("\nSQL-запросы:\n");
+        appendLatencies(sb, metrics.getQueries());
+
+        sb.append(String.format("%nСтрок прочитано: %d, записано: %d%n", getRowsRead(), getRowsWritten()));
+        sb.append(String.format("Медленных запросов (от %d мс): %d%n", getSlowQueryThresholdMillis(), getSlowQueryCount()));
+        sb.append(String.format("Кэш каталога: попаданий %d, промахов %d (%.1f%%)%n",
+                getCatalogCacheHits(), getCatalogCacheMisses(), getCatalogCacheHitRate() * 100));
+        if (validationCache != null) {
+            sb.append(String.format("Кэш проверок: попаданий %d, промахов %d (%.1f%%), записей %d%n",
+                    getValidationCacheHits(), getValidationCacheMisses(), getValidationCacheHitRate() * 100,
+                    validationCache.size()));
+        }
+
+        Map<String, Long> issues = getValidationIssues();
+        if (!issues.isEmpty()) {
+            sb.append("Проблемы совместимости:\n");
+            issues.forEach((type, count) -> sb.append(String.format("  %-24s %d%n", type, count)));
+        }
+        return sb.toString();
+    }
+
+    private static void appendLatencies(StringBuilder sb, Map<String, LatencyHistogram> histograms) {
+        boolean any = false;
+        for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            if (histogram.getCount() == 0) continue;
+            sb.append(String.format("  %8d  p50 %9.3f  p99 %9.3f  макс. %9.3f мс  %s%n", histogram.getCount(),
+                    histogram.getPercentileNanos(0.5) / 1e6, histogram.getPercentileNanos(0.99) / 1e6,
+                    histogram.getMaxNanos() / 1e6, entry.getKey()));
+            any = true;
+        }
+        if (!any) {
+            sb.append("  нет данных\n");
+        }
+    }
+
+    private static List<String> summaries(Map<String, LatencyHistogram> histograms) {
+        List<String> lines = new ArrayList<>();
+        histograms.forEach((name, histogram) -> {
+            if (histogram.getCount() > 0) {
+                lines.add(name + ": " + histogram);
+            }
+        });
+        return lines;
+    }
+}
@@ -0,0 +1,40 @@
+package services;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Метрики приложения в JMX (pcconfigurator:type=Diagnostics), например для jconsole.
+ * Длительности — строки-сводки гистограмм: число вызовов, среднее, p50, p99, максимум.
+ */
+public interface DiagnosticsMXBean {
+    List<String> getQueryLatencies();
+
+    List<String> getOperationLatencies();
+
+    long getRowsRead();
+
+    long getRowsWritten();
+
+    long getSlowQueryCount();
+
+    long getSlowQueryThresholdMillis();
+
+    void setSlowQueryThresholdMillis(long millis);
+
+    long getCatalogCacheHits();
+
+    long getCatalogCacheMisses();
+
+    double getCatalogCacheHitRate();
+
+    long getValidationCacheHits();
+
+    long getValidationCacheMisses();
+
+    double getValidationCacheHitRate();
+
+    Map<String, Long> getValidationIssues();
+
+    void resetStatistics();
+}
@@ -0,0 +1,47 @@
+package models;
+
+import java.util.Map;
+
+/**
+ * Итог экспорта: строки по таблицам, размер записанных файлов и время
+ */
+public class ExportReport {
+    private Map<String, Long> rowsByTable;
+    private long bytes;
+    private long elapsedNanos;
+    private String error;
+
+    public ExportReport(Map<String, Long> rowsByTable, long bytes, long elapsedNanos, String error) {
+        this.rowsByTable = rowsByTable;
+        this.bytes = bytes;
+        this.elapsedNanos = elapsedNanos;
+        this.error = error;
+    }
+
+    // Getters
+    public Map<String, Long> getRowsByTable() { return rowsByTable; }
+
+    public long getRows() {
+        return rowsByTable.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /** Размер файлов на диске (после сжатия, если оно включено) */
+    public long getBytes() { return bytes; }
+
+    public double getElapsedSeconds() { return elapsedNanos / 1_000_000_000.0; }
+
+    public double getRowsPerSecond() {
+        return elapsedNanos > 0 ? getRows() * 1_000_000_000.0 / elapsedNanos : 0;
+    }
+
+    /** Ошибка, прервавшая экспорт; прежние версии файлов в этом случае не заменяются */
+    public String getError() { return error; }
+
+    public boolean isSuccessful() { return error == null; }
+
+    @Override
+    public String toString() {
+        return String.format("ExportReport{rows=%s, bytes=%d, %.0f rows/s%s}",
+                rowsByTable, bytes, getRowsPerSecond(), error != null ? ", error=" + error : "");
+    }
+}
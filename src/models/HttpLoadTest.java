@@ -0,0 +1,180 @@
+package benchmarks;
+
+import api.ApiServer;
+import database.DatabaseManager;
+import services.CompatibilityService;
+import services.ComponentSearchService;
+import services.ComponentService;
+import services.ConfigurationService;
+import services.ValidationCache;
+import utils.LatencyHistogram;
+import utils.Metrics;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Нагрузочный тест HTTP API: заданное число одновременных запросов к localhost,
+ * смесь как у кассовых терминалов — поиск по каталогу, карточки, проверка совместимости
+ * и изредка сохранение конфигурации.
+ *
+ * Запуск: java benchmarks.HttpLoadTest [--url=http://host:8080] [--size=20000]
+ *         [--concurrency=100,1000,2000] [--requests=20000]
+ * Без --url поднимается встроенный сервер на временной базе из size комплектующих;
+ * с --url нагружается уже запущенный узел (java Main --serve), id берутся из 1..size.
+ */
+public class HttpLoadTest {
+    private static final String[] TYPES = { "Процессор", "Видеокарта", "Материнская плата", "Накопитель" };
+
+    private static final class Outcome {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder ok = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder errors = new LongAdder();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = BenchmarkSupport.options(args);
+        int size = Integer.parseInt(options.getOrDefault("size", "20000").replace("_", ""));
+        int requests = Integer.parseInt(options.getOrDefault("requests", "20000").replace("_", ""));
+        String[] levels = options.getOrDefault("concurrency", "100,1000,2000").split(",");
+
+        ApiServer server = null;
+        DatabaseManager dbManager = null;
+        String url = options.get("url");
+        if (url == null) {
+            dbManager = BenchmarkSupport.openTempDatabase("http-load");
+            BenchmarkSupport.seed(dbManager, size);
+            size = maxComponentId(dbManager);
+            ComponentService componentService = new ComponentService(dbManager);
+            server = new ApiServer(componentService, new ComponentSearchService(dbManager, componentService),
+                    new ConfigurationService(dbManager, componentService),
+                    new CompatibilityService(dbManager, new ValidationCache()), null);
+            url = "http://localhost:" + server.start(0);
+            System.out.printf("Встроенный сервер: %s, %s, комплектующих: %d%n", url, ApiServer.describeExecutor(), size);
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        // Прогрев JIT и кэшей сервера
+        run(client, url, size, Math.min(requests, 5000), 50);
+
+        System.out.printf("%-12s %-10s %-10s %-10s %-10s %-10s %-8s%n",
+                "одновременно", "запр/с", "p50, мс", "p90, мс", "p99, мс", "макс, мс", "ошибок");
+        for (String level : levels) {
+            int concurrency = Integer.parseInt(level.trim());
+            long start = System.nanoTime();
+            Outcome outcome = run(client, url, size, requests, concurrency);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            LatencyHistogram latency = outcome.latency;
+            System.out.printf("%-12d %-10.0f %-10.2f %-10.2f %-10.2f %-10.2f %-8d%n", concurrency,
+                    outcome.ok.sum() / seconds, latency.getPercentileNanos(0.5) / 1e6,
+                    latency.getPercentileNanos(0.9) / 1e6, latency.getPercentileNanos(0.99) / 1e6,
+                    latency.getMaxNanos() / 1e6, outcome.failed.sum() + outcome.errors.sum());
+        }
+
+        if (server != null) {
+            System.out.println("Сервер, по маршрутам:");
+            Metrics.global().getOperations().forEach((name, histogram) -> {
+                if (name.startsWith("HTTP") && histogram.getCount() > 0) {
+                    System.out.printf("  %-40s %s%n", name, histogram);
+                }
+            });
+            server.stop(1);
+            dbManager.closeConnection();
+        }
+    }
+
+    /** Отправляет requests запросов, держа в полёте не больше concurrency */
+    private static Outcome run(HttpClient client, String url, int maxId, int requests, int concurrency)
+            throws InterruptedException {
+        Outcome outcome = new Outcome();
+        Semaphore inFlight = new Semaphore(concurrency);
+        CountDownLatch done = new CountDownLatch(requests);
+        for (int i = 0; i < requests; i++) {
+            inFlight.acquire();
+            HttpRequest request = nextRequest(url, maxId, i);
+            long start = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).whenComplete((response, error) -> {
+                outcome.latency.recordSince(start);
+                if (error != null) {
+                    outcome.errors.increment();
+                } else if (response.statusCode() / 100 == 2) {
+                    outcome.ok.increment();
+                } else {
+                    outcome.failed.increment();
+                }
+                inFlight.release();
+                done.countDown();
+            });
+        }
+        done.await();
+        return outcome;
+    }
+
+    private static HttpRequest nextRequest(String url, int maxId, int sequence) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int kind = random.nextInt(100);
+        String type = TYPES[random.nextInt(TYPES.length)];
+        if (kind < 30) {
+            return get(url + "/api/components?limit=20&inStock=true&sort=price_asc&type=" + encode(type));
+        }
+        if (kind < 45) {
+            // Название и начало номера, как при наборе в строке поиска
+            return get(url + "/api/components?limit=20&q=" + encode(type + " " + random.nextInt(1000)));
+        }
+        if (kind < 75) {
+            return get(url + "/api/components/" + (1 + random.nextInt(maxId)));
+        }
+        if (kind < 97) {
+            return post(url + "/api/validate", "ids=" + randomIds(random, maxId));
+        }
+        return post(url + "/api/configurations", "name=" + encode("Нагрузка " + sequence) + "&ids=" + randomIds(random, maxId));
+    }
+
+    private static String randomIds(ThreadLocalRandom random, int maxId) {
+        StringBuilder ids = new StringBuilder();
+        for (int i = 0; i < 6; i++) {
+            if (i > 0) ids.append(',');
+            ids.append(1 + random.nextInt(maxId));
+        }
+        return ids.toString();
+    }
+
+    private static HttpRequest get(String uri) {
+        return HttpRequest.newBuilder(URI.create(uri)).timeout(Duration.ofSeconds(60)).GET().build();
+    }
+
+    private static HttpRequest post(String uri, String form) {
+        return HttpRequest.newBuilder(URI.create(uri))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static int maxComponentId(DatabaseManager dbManager) throws SQLException {
+        try (Statement stmt = dbManager.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(id) FROM components")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package models;
+
+/**
+ * Строка файла импорта, не попавшая в каталог, и причина отказа
+ */
+public class ImportRejection {
+    private long lineNumber;
+    private String reason;
+
+    public ImportRejection(long lineNumber, String reason) {
+        this.lineNumber = lineNumber;
+        this.reason = reason;
+    }
+
+    // Getters
+    public long getLineNumber() { return lineNumber; }
+
+    public String getReason() { return reason; }
+
+    @Override
+    public String toString() {
+        return "строка " + lineNumber + ": " + reason;
+    }
+}
@@ -0,0 +1,58 @@
+package models;
+
+import java.util.List;
+
+/**
+ * Итог импорта прайс-листа
+ */
+public class ImportReport {
+    private long rows;
+    private long inserted;
+    private long updated;
+    private long rejected;
+    private List<ImportRejection> rejections;
+    private long elapsedNanos;
+    private String error;
+
+    public ImportReport(long rows, long inserted, long updated, long rejected,
+                        List<ImportRejection> rejections, long elapsedNanos, String error) {
+        this.rows = rows;
+        this.inserted = inserted;
+        this.updated = updated;
+        this.rejected = rejected;
+        this.rejections = rejections;
+        this.elapsedNanos = elapsedNanos;
+        this.error = error;
+    }
+
+    // Getters
+    /** Строк данных в файле (без заголовка и пустых строк) */
+    public long getRows() { return rows; }
+
+    public long getInserted() { return inserted; }
+
+    /** Строк, обновивших существующее комплектующее с тем же названием и типом */
+    public long getUpdated() { return updated; }
+
+    public long getRejected() { return rejected; }
+
+    /** Первые отклонённые строки с причинами; их число ограничено, в отличие от getRejected() */
+    public List<ImportRejection> getRejections() { return rejections; }
+
+    public double getElapsedSeconds() { return elapsedNanos / 1_000_000_000.0; }
+
+    public double getRowsPerSecond() {
+        return elapsedNanos > 0 ? rows * 1_000_000_000.0 / elapsedNanos : 0;
+    }
+
+    /** Ошибка, прервавшая импорт; строки из зафиксированных до неё пакетов остаются в каталоге */
+    public String getError() { return error; }
+
+    public boolean isSuccessful() { return error == null; }
+
+    @Override
+    public String toString() {
+        return String.format("ImportReport{rows=%d, inserted=%d, updated=%d, rejected=%d, %.0f rows/s%s}",
+                rows, inserted, updated, rejected, getRowsPerSecond(), error != null ? ", error=" + error : "");
+    }
+}
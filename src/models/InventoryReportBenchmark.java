@@ -0,0 +1,104 @@
+package benchmarks;
+
+import database.DatabaseManager;
+import database.SchemaInitializer;
+import services.ComponentService;
+import services.InventoryReportService;
+import utils.Money;
+
+import java.sql.*;
+import java.util.Random;
+
+/**
+ * Отчёт по остаткам: агрегация всего каталога против чтения сводки inventory_summary,
+ * и цена поддержки сводки триггерами при изменении остатков.
+ * Запуск: java benchmarks.InventoryReportBenchmark [комплектующих...], по умолчанию 500000.
+ */
+public class InventoryReportBenchmark {
+    private static final String[] TYPES = { "Процессор", "Материнская плата", "Оперативная память", "Видеокарта",
+                                            "Накопитель", "Блок питания", "Корпус", "Охлаждение" };
+    private static final String SCAN_SQL = """
+        SELECT type, COUNT(*), SUM(quantity), SUM(price * quantity),
+               SUM(quantity > 0 AND quantity < %1$d), SUM(quantity <= 0)
+        FROM components GROUP BY type
+        """.formatted(SchemaInitializer.LOW_STOCK_THRESHOLD);
+    private static final int UPDATES = 20_000;
+
+    public static void main(String[] args) throws SQLException {
+        int[] sizes = BenchmarkSupport.parseSizes(args, 500_000);
+
+        for (int size : sizes) {
+            DatabaseManager dbManager = BenchmarkSupport.openTempDatabase("inventory-bench");
+            Connection conn = dbManager.getConnection();
+            seed(conn, size);
+            InventoryReportService reportService = new InventoryReportService(dbManager, new ComponentService(dbManager));
+
+            double scan = BenchmarkSupport.bestOfMillis(1, 5, () -> aggregate(conn));
+            double summary = BenchmarkSupport.bestOfMillis(100, 1000, reportService::getSummary);
+            System.out.printf("Комплектующих: %d%n", size);
+            System.out.printf("  Агрегация каталога: %.2f мс, сводка: %.3f мс (x%.0f)%n", scan, summary, scan / summary);
+
+            double withTriggers = updateStock(conn, size);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("DROP TRIGGER inventory_summary_update");
+            }
+            double withoutTriggers = updateStock(conn, size);
+            System.out.printf("  %d изменений остатка: с триггером %.1f мс, без триггера %.1f мс%n",
+                    UPDATES, withTriggers, withoutTriggers);
+
+            dbManager.closeConnection();
+        }
+    }
+
+    private static int aggregate(Connection conn) {
+        int rows = 0;
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(SCAN_SQL)) {
+            while (rs.next()) rows++;
+        } catch (SQLException e) {
+            System.err.println("❌ " + e.getMessage());
+        }
+        return rows;
+    }
+
+    private static double updateStock(Connection conn, int size) throws SQLException {
+        Random random = new Random(3);
+        long start = System.nanoTime();
+        conn.setAutoCommit(false);
+        try (PreparedStatement update = conn.prepareStatement("UPDATE components SET quantity = ? WHERE id = ?")) {
+            for (int i = 0; i < UPDATES; i++) {
+                update.setInt(1, random.nextInt(20));
+                update.setInt(2, 1 + random.nextInt(size));
+                update.executeUpdate();
+            }
+            conn.commit();
+        } finally {
+            conn.setAutoCommit(true);
+        }
+        return (System.nanoTime() - start) / 1_000_000.0;
+    }
+
+    private static void seed(Connection conn, int size) throws SQLException {
+        Random random = new Random(9);
+        conn.setAutoCommit(false);
+        try (PreparedStatement component = conn.prepareStatement(
+                "INSERT INTO components (name, type, price, quantity, specifications) VALUES (?, ?, ?, ?, 'bench')")) {
+            try (Statement clear = conn.createStatement()) {
+                clear.executeUpdate("DELETE FROM components");
+            }
+            for (int i = 0; i < size; i++) {
+                component.setString(1, "Компонент " + i);
+                component.setString(2, TYPES[random.nextInt(TYPES.length)]);
+                component.setLong(3, (500 + random.nextInt(100_000)) * Money.KOPECKS_PER_RUBLE);
+                component.setInt(4, random.nextInt(20));
+                component.addBatch();
+                if (i % 10_000 == 0) {
+                    component.executeBatch();
+                }
+            }
+            component.executeBatch();
+            conn.commit();
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package services;
+
+import database.ConnectionLease;
+import database.DatabaseManager;
+import database.SchemaInitializer;
+import models.Component;
+import models.InventorySummary;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Отчёт по складу из сводки inventory_summary, которую поддерживают триггеры на components.
+ * Отчёт читает по строке на тип комплектующих, сколько бы позиций ни было в каталоге.
+ */
+public class InventoryReportService {
+    private static final String SUMMARY_SQL = "SELECT * FROM inventory_summary ORDER BY type";
+    private static final String TOTALS_SQL = """
+        SELECT COALESCE(SUM(item_count), 0), COALESCE(SUM(units), 0), COALESCE(SUM(stock_value), 0),
+               COALESCE(SUM(low_stock_items), 0), COALESCE(SUM(out_of_stock_items), 0)
+        FROM inventory_summary
+        """;
+    /** Идёт по частичному индексу idx_components_low_stock */
+    private static final String LOW_STOCK_SQL =
+        "SELECT * FROM components WHERE quantity < " + SchemaInitializer.LOW_STOCK_THRESHOLD + " ORDER BY type, quantity";
+
+    private DatabaseManager dbManager;
+    private ComponentService componentService;
+
+    public InventoryReportService(DatabaseManager dbManager, ComponentService componentService) {
+        this.dbManager = dbManager;
+        this.componentService = componentService;
+    }
+
+    /** Остатки по типам комплектующих */
+    public List<InventorySummary> getSummary() {
+        List<InventorySummary> summary = new ArrayList<>();
+
+        try (ConnectionLease lease = dbManager.lease();
+             ResultSet rs = lease.prepareStatement(SUMMARY_SQL).executeQuery()) {
+            while (rs.next()) {
+                summary.add(new InventorySummary(
+                    rs.getString("type"),
+                    rs.getInt("item_count"),
+                    rs.getLong("units"),
+                    rs.getLong("stock_value"),
+                    rs.getInt("low_stock_items"),
+                    rs.getInt("out_of_stock_items")));
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Ошибка получения отчета по остаткам: " + e.getMessage());
+        }
+
+        return summary;
+    }
+
+    /** Итог по всему складу */
+    public InventorySummary getTotals() {
+        try (ConnectionLease lease = dbManager.lease();
+             ResultSet rs = lease.prepareStatement(TOTALS_SQL).executeQuery()) {
+            if (rs.next()) {
+                return new InventorySummary(null, rs.getInt(1), rs.getLong(2), rs.getLong(3),
+                        rs.getInt(4), rs.getInt(5));
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Ошибка получения отчета по остаткам: " + e.getMessage());
+        }
+        return null;
+    }
+
+    /** Позиции, которых мало или нет на складе, — для дозаказа */
+    public List<Component> getLowStockComponents() {
+        List<Component> components = new ArrayList<>();
+
+        try (ConnectionLease lease = dbManager.lease();
+             ResultSet rs = lease.prepareStatement(LOW_STOCK_SQL).executeQuery()) {
+            while (rs.next()) {
+                components.add(componentService.resultSetToComponent(rs));
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Ошибка получения комплектующих с низким остатком: " + e.getMessage());
+        }
+
+        return components;
+    }
+
+    /**
+     * Пересчитывает сводку по всему каталогу, например после правки components в обход триггеров.
+     * В ходе работы не нужен: триггеры обновляют сводку в той же транзакции, что и каталог.
+     */
+    public boolean rebuildSummary() {
+        try (ConnectionLease lease = dbManager.lease()) {
+            lease.beginWriteTransaction();
+            lease.prepareStatement("DELETE FROM inventory_summary").executeUpdate();
+            lease.prepareStatement(SchemaInitializer.FILL_INVENTORY_SUMMARY_SQL).executeUpdate();
+            lease.commit();
+            return true;
+        } catch (SQLException e) {
+            System.err.println("❌ Ошибка пересчета сводки остатков: " + e.getMessage());
+            return false;
+        }
+    }
+}
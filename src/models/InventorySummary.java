@@ -0,0 +1,47 @@
+package models;
+
+import utils.Money;
+
+/**
+ * Остатки по одному типу комплектующих (или итог по всему складу)
+ */
+public class InventorySummary {
+    private String type;
+    private int itemCount;
+    private long units;
+    private long stockValue;
+    private int lowStockItems;
+    private int outOfStockItems;
+
+    public InventorySummary(String type, int itemCount, long units, long stockValue,
+                            int lowStockItems, int outOfStockItems) {
+        this.type = type;
+        this.itemCount = itemCount;
+        this.units = units;
+        this.stockValue = stockValue;
+        this.lowStockItems = lowStockItems;
+        this.outOfStockItems = outOfStockItems;
+    }
+
+    // Getters
+    public String getType() { return type; }
+
+    /** Число позиций каталога */
+    public int getItemCount() { return itemCount; }
+
+    /** Штук на складе */
+    public long getUnits() { return units; }
+
+    /** Стоимость остатков в копейках: сумма price * quantity */
+    public long getStockValue() { return stockValue; }
+
+    public int getLowStockItems() { return lowStockItems; }
+
+    public int getOutOfStockItems() { return outOfStockItems; }
+
+    @Override
+    public String toString() {
+        return String.format("InventorySummary{type='%s', items=%d, units=%d, value=%s, low=%d, out=%d}",
+                type, itemCount, units, Money.toPlainString(stockValue), lowStockItems, outOfStockItems);
+    }
+}
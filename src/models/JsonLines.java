@@ -0,0 +1,166 @@
+package utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Разбор и запись JSON Lines для плоских записей каталога: одна строка — один объект,
+ * значения — строки, числа, true/false или null. Вложенные объекты и массивы не поддерживаются.
+ */
+public class JsonLines {
+    private JsonLines() {}
+
+    /**
+     * Поля объекта в текстовом виде; null-значения пропускаются.
+     * @throws IllegalArgumentException строка не является плоским JSON-объектом
+     */
+    public static Map<String, String> parseObject(String line) {
+        Parser parser = new Parser(line);
+        Map<String, String> fields = new HashMap<>();
+
+        parser.skipWhitespace();
+        parser.expect('{');
+        parser.skipWhitespace();
+        if (parser.peek() == '}') {
+            parser.next();
+        } else {
+            while (true) {
+                parser.skipWhitespace();
+                String key = parser.readString();
+                parser.skipWhitespace();
+                parser.expect(':');
+                parser.skipWhitespace();
+                String value = parser.readValue();
+                if (value != null) {
+                    fields.put(key, value);
+                }
+                parser.skipWhitespace();
+                char c = parser.next();
+                if (c == '}') break;
+                if (c != ',') throw parser.error("ожидалась «,» или «}»");
+            }
+        }
+        parser.skipWhitespace();
+        if (!parser.atEnd()) throw parser.error("лишние символы после объекта");
+        return fields;
+    }
+
+    /** Строковый литерал JSON; null записывается как null */
+    public static String quote(String value) {
+        if (value == null) return "null";
+
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private static final class Parser {
+        private final String text;
+        private int pos;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        boolean atEnd() {
+            return pos >= text.length();
+        }
+
+        char peek() {
+            if (atEnd()) throw error("неожиданный конец строки");
+            return text.charAt(pos);
+        }
+
+        char next() {
+            char c = peek();
+            pos++;
+            return c;
+        }
+
+        void expect(char expected) {
+            if (next() != expected) throw error("ожидался символ «" + expected + "»");
+        }
+
+        void skipWhitespace() {
+            while (!atEnd() && Character.isWhitespace(text.charAt(pos))) pos++;
+        }
+
+        /** Значение в текстовом виде; null для JSON null */
+        String readValue() {
+            char c = peek();
+            if (c == '"') return readString();
+            if (c == '{' || c == '[') throw error("вложенные объекты и массивы не поддерживаются");
+
+            int start = pos;
+            while (!atEnd() && ",} \t\r\n".indexOf(text.charAt(pos)) < 0) pos++;
+            String literal = text.substring(start, pos);
+            if (literal.isEmpty()) throw error("пустое значение");
+            if (literal.equals("null")) return null;
+            if (!literal.equals("true") && !literal.equals("false") && !isNumber(literal)) {
+                throw error("некорректное значение «" + literal + "»");
+            }
+            return literal;
+        }
+
+        String readString() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                char c = next();
+                if (c == '"') return sb.toString();
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                char escaped = next();
+                switch (escaped) {
+                    case '"', '\\', '/' -> sb.append(escaped);
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'u' -> {
+                        if (pos + 4 > text.length()) throw error("неполная последовательность \\u");
+                        try {
+                            sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("некорректная последовательность \\u");
+                        }
+                        pos += 4;
+                    }
+                    default -> throw error("неизвестная escape-последовательность \\" + escaped);
+                }
+            }
+        }
+
+        private static boolean isNumber(String literal) {
+            try {
+                Double.parseDouble(literal);
+                return true;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("JSON, позиция " + (pos + 1) + ": " + message);
+        }
+    }
+}
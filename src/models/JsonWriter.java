@@ -0,0 +1,145 @@
+package api;
+
+import models.CompatibilityIssue;
+import models.Component;
+import models.Configuration;
+import utils.JsonLines;
+import utils.Money;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Построение JSON-ответов API в один StringBuilder. Запятые между полями и элементами
+ * расставляются автоматически: после '{' и '[' запятая не нужна, перед следующим полем — нужна.
+ */
+final class JsonWriter {
+    private final StringBuilder sb = new StringBuilder(256);
+
+    JsonWriter beginObject() {
+        separate();
+        sb.append('{');
+        return this;
+    }
+
+    JsonWriter endObject() {
+        sb.append('}');
+        return this;
+    }
+
+    JsonWriter beginArray(String name) {
+        key(name);
+        sb.append('[');
+        return this;
+    }
+
+    JsonWriter endArray() {
+        sb.append(']');
+        return this;
+    }
+
+    JsonWriter field(String name, String value) {
+        key(name);
+        sb.append(JsonLines.quote(value));
+        return this;
+    }
+
+    JsonWriter field(String name, long value) {
+        key(name);
+        sb.append(value);
+        return this;
+    }
+
+    /** Сумма в копейках — числом в рублях с двумя знаками: 35000.00 */
+    JsonWriter money(String name, long kopecks) {
+        key(name);
+        Money.appendPlain(sb, kopecks);
+        return this;
+    }
+
+    JsonWriter field(String name, boolean value) {
+        key(name);
+        sb.append(value);
+        return this;
+    }
+
+    JsonWriter value(long value) {
+        separate();
+        sb.append(value);
+        return this;
+    }
+
+    JsonWriter component(Component component) {
+        return beginObject()
+            .field("id", component.getId())
+            .field("name", component.getName())
+            .field("type", component.getType())
+            .money("price", component.getPrice())
+            .field("quantity", component.getQuantity())
+            .field("socket", component.getSocket())
+            .field("memoryType", component.getMemoryType())
+            .field("formFactor", component.getFormFactor())
+            .field("powerRequirements", component.getPowerRequirements())
+            .field("maxMemory", component.getMaxMemory())
+            .field("specifications", component.getSpecifications())
+            .endObject();
+    }
+
+    JsonWriter components(String name, List<Component> components) {
+        beginArray(name);
+        for (Component component : components) {
+            component(component);
+        }
+        return endArray();
+    }
+
+    JsonWriter configuration(Configuration configuration) {
+        return beginObject()
+            .field("id", configuration.getId())
+            .field("name", configuration.getName())
+            .money("totalPrice", configuration.getTotalPrice())
+            .field("createdDate", configuration.getCreatedDate() != null
+                ? configuration.getCreatedDate().toInstant().toString() : null)
+            .field("status", configuration.getCompatibilityStatus())
+            .components("components", configuration.getComponents())
+            .endObject();
+    }
+
+    JsonWriter issues(String name, List<CompatibilityIssue> issues) {
+        beginArray(name);
+        for (CompatibilityIssue issue : issues) {
+            beginObject()
+                .field("type", issue.getType())
+                .field("severity", issue.getSeverity())
+                .field("description", issue.getDescription())
+                .endObject();
+        }
+        return endArray();
+    }
+
+    JsonWriter counts(String name, Map<String, Integer> counts) {
+        key(name);
+        sb.append('{');
+        counts.forEach((key, count) -> field(key, count));
+        sb.append('}');
+        return this;
+    }
+
+    private void key(String name) {
+        separate();
+        sb.append(JsonLines.quote(name)).append(':');
+    }
+
+    private void separate() {
+        if (sb.length() == 0) return;
+        char last = sb.charAt(sb.length() - 1);
+        if (last != '{' && last != '[' && last != ':') {
+            sb.append(',');
+        }
+    }
+
+    @Override
+    public String toString() {
+        return sb.toString();
+    }
+}
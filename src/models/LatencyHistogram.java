@@ -0,0 +1,130 @@
+package utils;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограмма длительностей в наносекундах без блокировок, по образцу HdrHistogram:
+ * корзины логарифмические, каждая степень двойки поделена на 8 равных частей,
+ * поэтому перцентили точны до 12,5% во всём диапазоне. Запись — одно атомарное
+ * приращение счётчика корзины, памяти она не выделяет.
+ *
+ * Для очень частых и коротких вызовов, где два System.nanoTime() сравнимы с самим вызовом,
+ * можно замерять только каждый N-й вызов в среднем (start()/recordSince()): считаются
+ * все вызовы, а распределение строится по выборке.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder samples = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+    private final int sampleMask;
+
+    public LatencyHistogram() {
+        this(1);
+    }
+
+    /** sampleInterval — степень двойки: замеряется в среднем один вызов из sampleInterval */
+    public LatencyHistogram(int sampleInterval) {
+        if (sampleInterval < 1 || Integer.bitCount(sampleInterval) != 1) {
+            throw new IllegalArgumentException("Интервал выборки должен быть степенью двойки: " + sampleInterval);
+        }
+        this.sampleMask = sampleInterval - 1;
+    }
+
+    /** Начало замера: System.nanoTime() или -1, если вызов не попал в выборку (он всё равно учтён) */
+    public long start() {
+        if (sampleMask != 0 && (ThreadLocalRandom.current().nextInt() & sampleMask) != 0) {
+            calls.increment();
+            return -1;
+        }
+        return System.nanoTime();
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(indexOf(nanos));
+        calls.increment();
+        samples.increment();
+        sum.add(nanos);
+        if (nanos > max.get()) {
+            max.accumulateAndGet(nanos, Math::max);
+        }
+    }
+
+    /** Записывает время, прошедшее с момента start (System.nanoTime() или start()); -1 — вне выборки */
+    public long recordSince(long start) {
+        if (start < 0) return -1;
+        long nanos = System.nanoTime() - start;
+        record(nanos);
+        return nanos;
+    }
+
+    /** Число вызовов, включая не попавшие в выборку */
+    public long getCount() { return calls.sum(); }
+
+    public long getMaxNanos() { return max.get(); }
+
+    public double getMeanNanos() {
+        long count = samples.sum();
+        return count == 0 ? 0 : (double) sum.sum() / count;
+    }
+
+    /** Значение, которое не превышает доля quantile (0..1) записей; верхняя граница корзины */
+    public long getPercentileNanos(double quantile) {
+        long count = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) return Math.min(upperBound(i), max.get());
+        }
+        return max.get();
+    }
+
+    /** Обнуляет гистограмму; записи, идущие параллельно, могут частично уцелеть */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        calls.reset();
+        samples.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    private static long upperBound(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int shift = index / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    /** Краткая сводка в миллисекундах: число, среднее, p50, p99, максимум */
+    @Override
+    public String toString() {
+        return String.format("n=%d, среднее %.3f мс, p50 %.3f мс, p99 %.3f мс, макс. %.3f мс",
+                getCount(), getMeanNanos() / 1e6, getPercentileNanos(0.5) / 1e6,
+                getPercentileNanos(0.99) / 1e6, getMaxNanos() / 1e6);
+    }
+}
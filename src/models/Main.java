@@ -1,13 +1,44 @@
+import api.ApiServer;
 import database.DatabaseManager;
 import database.SchemaInitializer;
+import models.BuildRequest;
+import models.BuildSearchResult;
 import models.Component;
 import models.CompatibilityIssue;
+import models.ComponentQuery;
+import models.ComponentSearchResult;
+import models.ComponentType;
+import models.CatalogFormat;
 import models.Configuration;
+import models.ConfigurationCost;
+import models.DailyPriceStats;
+import models.ExportReport;
+import models.ImportRejection;
+import models.ImportReport;
+import models.InventorySummary;
+import models.PricePoint;
+import models.Reservation;
 import services.*;
 import utils.ConsoleUtils;
+import utils.Metrics;
+import utils.Money;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Главный класс приложения - конфигуратор ПК
@@ -15,13 +46,32 @@ import java.util.List;
 public class Main {
     private DatabaseManager dbManager;
     private ComponentService componentService;
+    private CatalogSnapshotStore catalogSnapshots;
     private ConfigurationService configurationService;
     private CompatibilityService compatibilityService;
+    private ValidationCache validationCache;
+    private Diagnostics diagnostics;
+    private BuildSolver buildSolver;
+    private ComponentSearchService componentSearchService;
+    private InventoryReportService inventoryReportService;
+    private CatalogImporter catalogImporter;
+    private CatalogExporter catalogExporter;
+    private ConfigurationRevalidator configurationRevalidator;
+    private StockReservationService reservationService;
+    private PriceHistoryService priceHistoryService;
+    private ApiServer apiServer;
 
     public static void main(String[] args) {
         System.out.println("🚀 Запуск PC Configurator...");
         Main app = new Main();
         app.initialize();
+        // --serve[=порт]: без консоли, только HTTP API для терминалов магазина
+        if (args.length > 0 && args[0].startsWith("--serve")) {
+            int port = args[0].startsWith("--serve=")
+                ? Integer.parseInt(args[0].substring("--serve=".length())) : ApiServer.DEFAULT_PORT;
+            app.serve(port);
+            return;
+        }
         app.run();
     }
 
@@ -30,13 +80,60 @@ public class Main {
         dbManager = new DatabaseManager();
         new SchemaInitializer(dbManager);
         
-        componentService = new ComponentService(dbManager);
+        catalogSnapshots = new CatalogSnapshotStore(dbManager, CatalogSnapshotStore.DEFAULT_FILE);
+        componentService = new ComponentService(dbManager, catalogSnapshots);
         configurationService = new ConfigurationService(dbManager, componentService);
-        compatibilityService = new CompatibilityService(dbManager);
+        // Кэш проверок подписывается раньше фоновой перепроверки, чтобы та не видела устаревших результатов
+        validationCache = new ValidationCache();
+        componentService.addListener(validationCache);
+        compatibilityService = new CompatibilityService(dbManager, validationCache);
+        buildSolver = new BuildSolver(componentService, compatibilityService);
+        componentSearchService = new ComponentSearchService(dbManager, componentService);
+        inventoryReportService = new InventoryReportService(dbManager, componentService);
+        catalogImporter = new CatalogImporter(dbManager, componentService);
+        catalogExporter = new CatalogExporter(dbManager);
+
+        // Статусы и стоимость затронутых конфигураций пересчитываются в фоне при изменении каталога
+        configurationRevalidator = new ConfigurationRevalidator(
+            dbManager, componentService, configurationService, compatibilityService);
+        componentService.addListener(configurationRevalidator);
+        configurationRevalidator.requestRevalidation();
+
+        reservationService = new StockReservationService(dbManager, componentService);
+        reservationService.startSweeper(Duration.ofMinutes(1));
+        // История подключается раньше очереди записи: при закрытии базы очередь дописывается
+        // первой, и её изменения ещё попадают в историю
+        priceHistoryService = new PriceHistoryService(dbManager, componentService);
+        priceHistoryService.startCompaction(Duration.ofHours(6),
+            PriceHistoryService.DEFAULT_RAW_RETENTION, PriceHistoryService.DEFAULT_DAILY_RETENTION);
+        // Приёмка пишет остатки группами; очередь дописывается при закрытии базы
+        componentService.enableWriteBehind(ComponentWriteBehind.DEFAULT_CAPACITY,
+            ComponentWriteBehind.DEFAULT_BATCH_SIZE, ComponentWriteBehind.DEFAULT_FLUSH_INTERVAL);
+
+        diagnostics = new Diagnostics(Metrics.global(), componentService.getCache(), validationCache);
+        diagnostics.registerMBean();
         
         ConsoleUtils.printSuccess("Система инициализирована успешно");
     }
 
+    private void serve(int port) {
+        apiServer = new ApiServer(componentService, componentSearchService, configurationService,
+            compatibilityService, configurationRevalidator);
+        try {
+            int actualPort = apiServer.start(port);
+            ConsoleUtils.printSuccess("HTTP API слушает порт " + actualPort + " (" + ApiServer.describeExecutor() + ")");
+        } catch (IOException e) {
+            ConsoleUtils.printError("Не удалось запустить HTTP API: " + e.getMessage());
+            shutdown();
+            return;
+        }
+        // Поток сервера не демон: приложение работает до остановки процесса
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            apiServer.stop(2);
+            shutdown();
+        }, "api-shutdown"));
+    }
+
     private void run() {
         while (true) {
             showMainMenu();
@@ -50,6 +147,13 @@ public class Main {
                 case 5 -> checkCompatibility();
                 case 6 -> searchComponents();
                 case 7 -> showInventoryReport();
+                case 8 -> suggestBuilds();
+                case 9 -> importCatalog();
+                case 10 -> exportCatalog();
+                case 11 -> showDiagnostics();
+                case 12 -> reserveStock();
+                case 13 -> receiveStock();
+                case 14 -> showPriceHistory();
                 case 0 -> {
                     shutdown();
                     return;
@@ -70,31 +174,39 @@ public class Main {
         System.out.println("5. 🔍 Проверить совместимость");
         System.out.println("6. 🔎 Поиск комплектующих");
         System.out.println("7. 📊 Отчет по остаткам");
+        System.out.println("8. 💡 Подбор сборки под бюджет");
+        System.out.println("9. 📥 Импорт прайс-листа (CSV / JSON Lines)");
+        System.out.println("10. 📤 Экспорт каталога и конфигураций");
+        System.out.println("11. 🩺 Диагностика");
+        System.out.println("12. 🛒 Резервирование склада");
+        System.out.println("13. 📦 Приёмка товара");
+        System.out.println("14. 📈 История цен");
         System.out.println("0. 🚪 Выход");
     }
 
     private void showAllComponents() {
         ConsoleUtils.printHeader("ВСЕ КОМПЛЕКТУЮЩИЕ");
-        List<Component> components = componentService.getAllComponents();
-        
-        if (components.isEmpty()) {
-            ConsoleUtils.printInfo("Комплектующие не найдены");
-            return;
-        }
-        
-        System.out.printf("%-3s %-25s %-15s %-10s %-8s %-10s %s%n", 
-            "ID", "Название", "Тип", "Цена", "Кол-во", "Сокет", "Характеристики");
-        System.out.println("-".repeat(100));
-        
-        for (Component comp : components) {
-            System.out.printf("%-3d %-25s %-15s %-10.2f %-8d %-10s %s%n",
+        int[] printed = {0};
+
+        // Строки печатаются по мере чтения курсора, список каталога не накапливается
+        componentService.forEachComponent(comp -> {
+            if (printed[0]++ == 0) {
+                System.out.printf("%-3s %-25s %-15s %-10s %-8s %-10s %s%n", 
+                    "ID", "Название", "Тип", "Цена", "Кол-во", "Сокет", "Характеристики");
+                System.out.println("-".repeat(100));
+            }
+            System.out.printf("%-3d %-25s %-15s %-10s %-8d %-10s %s%n",
                 comp.getId(),
                 comp.getName(),
                 comp.getType(),
-                comp.getPrice(),
+                Money.format(comp.getPrice()),
                 comp.getQuantity(),
                 comp.getSocket() != null ? comp.getSocket() : "-",
                 comp.getSpecifications());
+        });
+
+        if (printed[0] == 0) {
+            ConsoleUtils.printInfo("Комплектующие не найдены");
         }
     }
 
@@ -103,7 +215,7 @@ public class Main {
         
         String name = ConsoleUtils.readString("Название");
         String type = ConsoleUtils.readString("Тип (Процессор/Материнская плата/Оперативная память/...)");
-        double price = ConsoleUtils.readDouble("Цена");
+        long price = ConsoleUtils.readMoney("Цена, руб.");
         int quantity = ConsoleUtils.readInt("Количество");
         String specs = ConsoleUtils.readString("Характеристики");
         
@@ -144,7 +256,341 @@ public class Main {
         Configuration config = configurationService.createConfiguration(name, componentIds);
         if (config != null) {
             ConsoleUtils.printSuccess("Конфигурация создана: " + config.getName());
-            ConsoleUtils.printInfo("Общая стоимость: " + config.getTotalPrice() + " руб.");
+            ConsoleUtils.printInfo("Общая стоимость: " + Money.format(config.getTotalPrice()) + " руб.");
+        }
+    }
+
+    private void searchComponents() {
+        ConsoleUtils.printHeader("ПОИСК КОМПЛЕКТУЮЩИХ");
+
+        ComponentQuery query = new ComponentQuery(ConsoleUtils.readString("Текст (название, характеристики; пусто - без текста)").trim());
+        String type = ConsoleUtils.readString("Тип (пусто - любой)").trim();
+        if (!type.isEmpty()) query.setType(type);
+        query.setInStockOnly(ConsoleUtils.readString("Только в наличии? (y/n)").trim().equalsIgnoreCase("y"));
+        switch (ConsoleUtils.readInt("Порядок (1 - по релевантности, 2 - сначала дешёвые, 3 - сначала дорогие)")) {
+            case 2 -> query.setSort(ComponentQuery.Sort.PRICE_ASC);
+            case 3 -> query.setSort(ComponentQuery.Sort.PRICE_DESC);
+            default -> query.setSort(ComponentQuery.Sort.RELEVANCE);
+        }
+
+        while (true) {
+            ComponentSearchResult result = componentSearchService.search(query);
+            if (result.getTotal() == 0) {
+                ConsoleUtils.printInfo("Комплектующие не найдены");
+                return;
+            }
+            if (result.getOffset() == 0) {
+                System.out.println("Найдено: " + result.getTotal() + " " + result.getTypeCounts());
+                System.out.printf("%-5s %-30s %-20s %-12s %s%n", "ID", "Название", "Тип", "Цена", "Кол-во");
+                System.out.println("-".repeat(80));
+            }
+            for (Component comp : result.getComponents()) {
+                System.out.printf("%-5d %-30s %-20s %-12s %d%n", comp.getId(), comp.getName(), comp.getType(),
+                    Money.format(comp.getPrice()), comp.getQuantity());
+            }
+            if (!result.hasMore()
+                    || !ConsoleUtils.readString("Показать ещё? (y/n)").trim().equalsIgnoreCase("y")) {
+                return;
+            }
+            query.setOffset(result.getOffset() + result.getComponents().size());
+        }
+    }
+
+    private void showInventoryReport() {
+        ConsoleUtils.printHeader("ОТЧЕТ ПО ОСТАТКАМ");
+        List<InventorySummary> summary = inventoryReportService.getSummary();
+        if (summary.isEmpty()) {
+            ConsoleUtils.printInfo("Склад пуст");
+            return;
+        }
+
+        System.out.printf("%-22s %-8s %-10s %-16s %-10s %s%n",
+            "Тип", "Позиций", "Штук", "Стоимость", "Мало", "Нет");
+        System.out.println("-".repeat(80));
+        for (InventorySummary row : summary) {
+            System.out.printf("%-22s %-8d %-10d %-16s %-10d %d%n", row.getType(), row.getItemCount(),
+                row.getUnits(), Money.format(row.getStockValue()), row.getLowStockItems(), row.getOutOfStockItems());
+        }
+        InventorySummary totals = inventoryReportService.getTotals();
+        if (totals != null) {
+            System.out.println("-".repeat(80));
+            System.out.printf("%-22s %-8d %-10d %-16s %-10d %d%n", "Итого", totals.getItemCount(),
+                totals.getUnits(), Money.format(totals.getStockValue()), totals.getLowStockItems(), totals.getOutOfStockItems());
+        }
+
+        List<Component> lowStock = inventoryReportService.getLowStockComponents();
+        if (!lowStock.isEmpty()) {
+            ConsoleUtils.printWarning("Мало на складе (меньше " + SchemaInitializer.LOW_STOCK_THRESHOLD + " шт.):");
+            for (Component comp : lowStock) {
+                System.out.printf("   - %s (%s): %d шт.%n", comp.getName(), comp.getType(), comp.getQuantity());
+            }
+        }
+    }
+
+    private void suggestBuilds() {
+        ConsoleUtils.printHeader("ПОДБОР СБОРКИ");
+
+        BuildRequest request = new BuildRequest(ConsoleUtils.readMoney("Бюджет, руб."), BuildSolver.DEFAULT_TYPES);
+        if (ConsoleUtils.readInt("Добавить видеокарту? (1 - да, 0 - нет)") == 1) {
+            request.getRequiredTypes().add(ComponentType.GPU);
+        }
+        if (ConsoleUtils.readInt("Критерий (1 - самые дешёвые, 2 - максимум в пределах бюджета)") == 2) {
+            request.setObjective(BuildRequest.Objective.BEST_VALUE);
+        }
+        while (true) {
+            int componentId = ConsoleUtils.readInt("ID обязательного комплектующего (0 для завершения)");
+            if (componentId == 0) break;
+            request.pin(componentId);
+        }
+
+        BuildSearchResult result = buildSolver.solve(request);
+        List<Configuration> builds = result.getBuilds();
+        if (builds.isEmpty()) {
+            ConsoleUtils.printInfo("Совместимых сборок в пределах бюджета не найдено");
+            return;
+        }
+
+        for (int i = 0; i < builds.size(); i++) {
+            Configuration build = builds.get(i);
+            System.out.printf("%d. Стоимость: %s руб. | Статус: %s%n", i + 1, Money.format(build.getTotalPrice()), build.getCompatibilityStatus());
+            for (Component comp : build.getComponents()) {
+                System.out.printf("   - %s (%s) - %s руб.%n", comp.getName(), comp.getType(), Money.format(comp.getPrice()));
+            }
+        }
+        ConsoleUtils.printInfo(String.format("Подбор занял %.1f мс%s", result.getElapsedMillis(),
+            result.isComplete() ? "" : " (перебор остановлен по лимиту)"));
+
+        int choice = ConsoleUtils.readInt("Номер сборки для сохранения (0 - не сохранять)");
+        if (choice < 1 || choice > builds.size()) return;
+
+        List<Integer> componentIds = new ArrayList<>();
+        for (Component comp : builds.get(choice - 1).getComponents()) {
+            componentIds.add(comp.getId());
+        }
+        Configuration config = configurationService.createConfiguration(ConsoleUtils.readString("Название конфигурации"), componentIds);
+        if (config != null) {
+            ConsoleUtils.printSuccess("Конфигурация создана: " + config.getName());
+        }
+    }
+
+    private void importCatalog() {
+        ConsoleUtils.printHeader("ИМПОРТ ПРАЙС-ЛИСТА");
+
+        Path file = Path.of(ConsoleUtils.readString("Путь к файлу (.csv, .jsonl, .json, в том числе .gz)").trim());
+        if (!Files.isRegularFile(file)) {
+            ConsoleUtils.printError("Файл не найден: " + file);
+            return;
+        }
+
+        ImportReport report = catalogImporter.importFile(file);
+        System.out.printf("Строк: %d | Добавлено: %d | Обновлено: %d | Отклонено: %d%n",
+            report.getRows(), report.getInserted(), report.getUpdated(), report.getRejected());
+        System.out.printf("Время: %.1f с (%.0f строк/с)%n", report.getElapsedSeconds(), report.getRowsPerSecond());
+
+        List<ImportRejection> rejections = report.getRejections();
+        for (int i = 0; i < Math.min(20, rejections.size()); i++) {
+            System.out.println("   - " + rejections.get(i));
+        }
+        if (report.getRejected() > 20) {
+            ConsoleUtils.printInfo("Показаны первые 20 отклонённых строк из " + report.getRejected());
+        }
+
+        if (report.isSuccessful()) {
+            ConsoleUtils.printSuccess("Импорт завершён");
+        } else {
+            ConsoleUtils.printError(report.getError());
+        }
+    }
+
+    private void exportCatalog() {
+        ConsoleUtils.printHeader("ЭКСПОРТ КАТАЛОГА");
+        System.out.println("1. Каталог в один файл");
+        System.out.println("2. Каталог, конфигурации и их состав (три файла из одного снимка БД)");
+        int mode = ConsoleUtils.readInt("Выберите вариант");
+
+        ExportReport report;
+        if (mode == 1) {
+            report = catalogExporter.exportCatalog(
+                Path.of(ConsoleUtils.readString("Путь к файлу (.csv, .jsonl, в том числе .gz)").trim()));
+        } else if (mode == 2) {
+            Path directory = Path.of(ConsoleUtils.readString("Каталог для выгрузки").trim());
+            CatalogFormat format = ConsoleUtils.readString("Формат (csv / jsonl)").trim().equalsIgnoreCase("csv")
+                ? CatalogFormat.CSV : CatalogFormat.JSON_LINES;
+            boolean gzip = ConsoleUtils.readString("Сжать gzip? (y/n)").trim().equalsIgnoreCase("y");
+            report = catalogExporter.exportAll(directory, format, gzip);
+        } else {
+            ConsoleUtils.printError("Неверный выбор");
+            return;
+        }
+
+        if (!report.isSuccessful()) {
+            ConsoleUtils.printError(report.getError());
+            return;
+        }
+        report.getRowsByTable().forEach((table, rows) -> System.out.printf("%-20s %d строк%n", table, rows));
+        System.out.printf("Записано: %.1f КБ за %.1f с (%.0f строк/с)%n",
+            report.getBytes() / 1024.0, report.getElapsedSeconds(), report.getRowsPerSecond());
+        ConsoleUtils.printSuccess("Экспорт завершён");
+    }
+
+    private void showDiagnostics() {
+        ConsoleUtils.printHeader("ДИАГНОСТИКА");
+        System.out.print(diagnostics.report());
+        if (ConsoleUtils.readString("Сбросить статистику? (y/n)").trim().equalsIgnoreCase("y")) {
+            diagnostics.resetStatistics();
+            ConsoleUtils.printSuccess("Статистика сброшена");
+        }
+    }
+
+    private void reserveStock() {
+        ConsoleUtils.printHeader("РЕЗЕРВИРОВАНИЕ СКЛАДА");
+        System.out.println("1. Зарезервировать конфигурацию");
+        System.out.println("2. Подтвердить продажу по резерву");
+        System.out.println("3. Снять резерв");
+        int action = ConsoleUtils.readInt("Выберите действие");
+
+        switch (action) {
+            case 1 -> {
+                Reservation reservation = reservationService.reserveConfiguration(ConsoleUtils.readInt("ID конфигурации"));
+                if (reservation == null) {
+                    ConsoleUtils.printError("Не удалось создать резерв");
+                } else if (!reservation.isActive()) {
+                    Component lacking = componentService.getComponentById(reservation.getRejectedComponentId());
+                    ConsoleUtils.printError("Недостаточно на складе: "
+                        + (lacking != null ? lacking.getName() : "ID " + reservation.getRejectedComponentId()));
+                } else {
+                    ConsoleUtils.printSuccess(String.format("Резерв #%d создан, действует %d мин.",
+                        reservation.getId(), StockReservationService.DEFAULT_TTL.toMinutes()));
+                }
+            }
+            case 2 -> {
+                if (reservationService.commit(ConsoleUtils.readInt("ID резерва"))) {
+                    ConsoleUtils.printSuccess("Продажа подтверждена");
+                } else {
+                    ConsoleUtils.printError("Резерв не найден или уже не активен");
+                }
+            }
+            case 3 -> {
+                if (reservationService.release(ConsoleUtils.readInt("ID резерва"))) {
+                    ConsoleUtils.printSuccess("Резерв снят, остаток возвращён");
+                } else {
+                    ConsoleUtils.printError("Резерв не найден или уже не активен");
+                }
+            }
+            default -> ConsoleUtils.printError("Неверный выбор");
+        }
+    }
+
+    private void receiveStock() {
+        ConsoleUtils.printHeader("ПРИЁМКА ТОВАРА");
+        ConsoleUtils.printInfo("Вводите ID и количество; ID 0 завершает приёмку");
+        // Последняя запись и экземпляр, на котором она основана, по каждой позиции
+        Map<Integer, CompletableFuture<Boolean>> writes = new LinkedHashMap<>();
+        Map<Integer, Component> received = new HashMap<>();
+
+        while (true) {
+            int id = ConsoleUtils.readInt("ID комплектующего");
+            if (id == 0) break;
+            Component component = received.get(id);
+            if (component == null && (component = componentService.getComponentById(id)) == null) {
+                ConsoleUtils.printError("Комплектующее не найдено");
+                continue;
+            }
+            int amount = ConsoleUtils.readInt("Принято, шт.");
+            if (amount <= 0) {
+                ConsoleUtils.printError("Количество должно быть положительным");
+                continue;
+            }
+            // Повторный скан правит тот же экземпляр без ожидания: очередь сливает его с предыдущим
+            // или проверяет по версии, которую тот записал. Отклонённую запись сканировать поверх нельзя
+            CompletableFuture<Boolean> previous = writes.get(id);
+            if (previous != null && previous.isDone() && !previous.join()) {
+                ConsoleUtils.printError("Предыдущий скан позиции не записан, остаток перечитан из каталога");
+                component = componentService.getComponentById(id);
+                if (component == null) continue;
+            }
+            component.setQuantity(component.getQuantity() + amount);
+            received.put(id, component);
+            writes.put(id, componentService.updateComponentAsync(component));
+            System.out.println("   " + component.getName() + ": " + component.getQuantity() + " шт.");
+        }
+
+        if (writes.isEmpty()) return;
+        long saved = writes.values().stream().filter(CompletableFuture::join).count();
+        if (saved == writes.size()) {
+            ConsoleUtils.printSuccess("Приёмка записана: " + saved + " поз.");
+        } else {
+            ConsoleUtils.printError("Записано " + saved + " из " + writes.size() + " поз., остальные проверьте");
+        }
+    }
+
+    private void showPriceHistory() {
+        ConsoleUtils.printHeader("ИСТОРИЯ ЦЕН");
+        System.out.println("1. Изменения цены и остатка комплектующего");
+        System.out.println("2. Дневная статистика комплектующего");
+        System.out.println("3. Стоимость конфигурации на дату");
+
+        switch (ConsoleUtils.readInt("Выберите действие")) {
+            case 1 -> {
+                int id = ConsoleUtils.readInt("ID комплектующего");
+                int days = ConsoleUtils.readInt("За сколько дней");
+                Instant to = Instant.now();
+                List<PricePoint> points = priceHistoryService.getHistory(id, to.minus(Duration.ofDays(days)), to);
+                if (points.isEmpty()) {
+                    ConsoleUtils.printInfo("Изменений не найдено");
+                    return;
+                }
+                DateTimeFormatter format = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+                    .withZone(ZoneId.systemDefault());
+                System.out.printf("%-20s %-15s %s%n", "Время", "Цена", "Остаток");
+                for (PricePoint point : points) {
+                    System.out.printf("%-20s %-15s %d%n", format.format(Instant.ofEpochMilli(point.getChangedAt())),
+                        Money.format(point.getPrice()), point.getQuantity());
+                }
+            }
+            case 2 -> {
+                int id = ConsoleUtils.readInt("ID комплектующего");
+                int days = ConsoleUtils.readInt("За сколько дней");
+                LocalDate today = LocalDate.now();
+                List<DailyPriceStats> stats = priceHistoryService.getDailyStats(id, today.minusDays(days), today);
+                if (stats.isEmpty()) {
+                    ConsoleUtils.printInfo("Изменений не найдено");
+                    return;
+                }
+                System.out.printf("%-12s %-13s %-13s %-13s %-13s %s%n",
+                    "День", "Мин.", "Макс.", "Средняя", "Закрытие", "Изменений");
+                for (DailyPriceStats day : stats) {
+                    System.out.printf("%-12s %-13s %-13s %-13s %-13s %d%n", day.getDay(),
+                        Money.format(day.getMinPrice()), Money.format(day.getMaxPrice()),
+                        Money.format(day.getAvgPrice()), Money.format(day.getClosePrice()), day.getChanges());
+                }
+            }
+            case 3 -> {
+                int configId = ConsoleUtils.readInt("ID конфигурации");
+                String text = ConsoleUtils.readString("Дата (гггг-мм-дд, на начало дня, или гггг-мм-дд чч:мм)");
+                LocalDateTime dateTime;
+                try {
+                    dateTime = text.contains(" ")
+                        ? LocalDateTime.parse(text, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"))
+                        : LocalDate.parse(text).atStartOfDay();
+                } catch (DateTimeParseException e) {
+                    ConsoleUtils.printError("Некорректная дата: " + text);
+                    return;
+                }
+                ConfigurationCost cost = priceHistoryService.getConfigurationCostAt(configId,
+                    dateTime.atZone(ZoneId.systemDefault()).toInstant());
+                if (cost == null) {
+                    ConsoleUtils.printError("Конфигурация не найдена");
+                    return;
+                }
+                System.out.println("Стоимость на " + text + ": " + Money.format(cost.getTotal()) + " руб.");
+                System.out.println("Сейчас: " + Money.format(cost.getStoredTotal()) + " руб.");
+                if (!cost.isComplete()) {
+                    ConsoleUtils.printWarning("Нет цены на эту дату для " + (cost.getItemCount() - cost.getPricedItems())
+                        + " из " + cost.getItemCount() + " поз.");
+                }
+            }
+            default -> ConsoleUtils.printError("Неверный выбор");
         }
     }
 
@@ -158,7 +604,47 @@ public class Main {
         }
         
         for (Configuration config : configs) {
-            System.out.printf("ID: %d | Название: %s | Стоимость: %.2f руб. | Статус: %s%n",
-                config.getId(), config.getName(), config.getTotalPrice(), config.getCompatibilityStatus());
+            System.out.printf("ID: %d | Название: %s | Стоимость: %s руб. | Статус: %s%n",
+                config.getId(), config.getName(), Money.format(config.getTotalPrice()), config.getCompatibilityStatus());
             
-            System.out.println("Компон
+            System.out.println("Компоненты:");
+            for (Component comp : config.getComponents()) {
+                System.out.printf("   - %s (%s) - %s руб.%n", comp.getName(), comp.getType(), Money.format(comp.getPrice()));
+            }
+            System.out.println();
+        }
+    }
+
+    private void checkCompatibility() {
+        ConsoleUtils.printHeader("ПРОВЕРКА СОВМЕСТИМОСТИ КОНФИГУРАЦИИ");
+        int configId = ConsoleUtils.readInt("ID конфигурации");
+        Configuration config = configurationService.getAllConfigurations().stream()
+            .filter(c -> c.getId() == configId)
+            .findFirst()
+            .orElse(null);
+        if (config == null) {
+            ConsoleUtils.printError("Конфигурация не найдена");
+            return;
+        }
+
+        List<CompatibilityIssue> issues = compatibilityService.validateConfiguration(config);
+        if (issues.isEmpty()) {
+            ConsoleUtils.printSuccess("Все компоненты совместимы");
+            return;
+        }
+        for (CompatibilityIssue issue : issues) {
+            System.out.println(issue);
+        }
+        ConsoleUtils.printInfo("Статус: " + CompatibilityService.statusOf(issues));
+    }
+
+    private void shutdown() {
+        reservationService.shutdown();
+        catalogSnapshots.close();
+        // Очередь отложенной записи и история цен дописываются хуками закрытия базы,
+        // поэтому фоновая перепроверка останавливается после них
+        dbManager.closeConnection();
+        configurationRevalidator.shutdown();
+        ConsoleUtils.printSuccess("До свидания!");
+    }
+}
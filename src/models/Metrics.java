@@ -0,0 +1,119 @@
+package utils;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Метрики горячих путей приложения: гистограммы длительности SQL-запросов и методов
+ * сервисов, счётчики прочитанных и записанных строк, проблем совместимости по типам
+ * и медленных запросов. Все счётчики без блокировок, поэтому сбор включён всегда.
+ * Единственный экземпляр — global(): запросы и методы регистрируются в нём по имени.
+ */
+public class Metrics {
+    /** Порог медленного запроса по умолчанию; переопределяется -Dpcconfigurator.slowQueryMs */
+    public static final long DEFAULT_SLOW_QUERY_MILLIS = 200;
+    /** Длина текста запроса в журнале медленных запросов и в именах гистограмм */
+    private static final int MAX_SQL_LENGTH = 160;
+
+    private static final Metrics GLOBAL = new Metrics(
+            Long.getLong("pcconfigurator.slowQueryMs", DEFAULT_SLOW_QUERY_MILLIS));
+
+    private final Map<String, LatencyHistogram> queries = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> operations = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> issues = new ConcurrentHashMap<>();
+    private final LongAdder rowsRead = new LongAdder();
+    private final LongAdder rowsWritten = new LongAdder();
+    private final LongAdder slowQueries = new LongAdder();
+    private volatile long slowQueryNanos;
+
+    public Metrics(long slowQueryMillis) {
+        setSlowQueryMillis(slowQueryMillis);
+    }
+
+    public static Metrics global() {
+        return GLOBAL;
+    }
+
+    /** Гистограмма SQL-запроса; пробелы в тексте схлопываются, длинный текст обрезается */
+    public LatencyHistogram query(String sql) {
+        return queries.computeIfAbsent(normalize(sql), s -> new LatencyHistogram());
+    }
+
+    /** Гистограмма метода сервиса, например "ComponentService.getAllComponents" */
+    public LatencyHistogram operation(String name) {
+        return operation(name, 1);
+    }
+
+    /** То же с выборочным замером, см. LatencyHistogram(int) */
+    public LatencyHistogram operation(String name, int sampleInterval) {
+        return operations.computeIfAbsent(name, n -> new LatencyHistogram(sampleInterval));
+    }
+
+    /** Записывает выполнение запроса; запросы дольше порога выводятся в журнал */
+    public void recordQuery(LatencyHistogram histogram, String sql, long start) {
+        long nanos = histogram.recordSince(start);
+        if (nanos >= slowQueryNanos) {
+            slowQueries.increment();
+            System.err.printf("⚠️ Медленный запрос (%.1f мс): %s%n", nanos / 1e6, normalize(sql));
+        }
+    }
+
+    public void addRowsRead(long rows) { rowsRead.add(rows); }
+
+    public void addRowsWritten(long rows) { rowsWritten.add(rows); }
+
+    public void countIssue(String type) {
+        LongAdder count = issues.get(type);
+        if (count == null) {
+            count = issues.computeIfAbsent(type, t -> new LongAdder());
+        }
+        count.increment();
+    }
+
+    public long getRowsRead() { return rowsRead.sum(); }
+
+    public long getRowsWritten() { return rowsWritten.sum(); }
+
+    public long getSlowQueryCount() { return slowQueries.sum(); }
+
+    public long getSlowQueryMillis() { return slowQueryNanos / 1_000_000; }
+
+    public void setSlowQueryMillis(long millis) {
+        slowQueryNanos = Math.max(0, millis) * 1_000_000;
+    }
+
+    /** Запросы и их гистограммы, по тексту запроса */
+    public Map<String, LatencyHistogram> getQueries() {
+        return new TreeMap<>(queries);
+    }
+
+    /** Методы сервисов и их гистограммы, по имени */
+    public Map<String, LatencyHistogram> getOperations() {
+        return new TreeMap<>(operations);
+    }
+
+    /** Найденные проблемы совместимости по типу */
+    public Map<String, Long> getIssueCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        issues.forEach((type, count) -> counts.put(type, count.sum()));
+        return counts;
+    }
+
+    /** Обнуляет значения; зарегистрированные гистограммы остаются у своих владельцев */
+    public void reset() {
+        queries.values().forEach(LatencyHistogram::reset);
+        operations.values().forEach(LatencyHistogram::reset);
+        issues.values().forEach(LongAdder::reset);
+        rowsRead.reset();
+        rowsWritten.reset();
+        slowQueries.reset();
+    }
+
+    private static String normalize(String sql) {
+        // Списки IN (?, ?, ...) разной длины считаются одним запросом
+        String text = sql.strip().replaceAll("\\s+", " ").replaceAll("\\?(\\s*,\\s*\\?)+", "?, …");
+        return text.length() <= MAX_SQL_LENGTH ? text : text.substring(0, MAX_SQL_LENGTH - 1) + "…";
+    }
+}
@@ -0,0 +1,94 @@
+package utils;
+
+/**
+ * Денежные суммы в копейках (long). Цены, стоимости конфигураций и остатков хранятся
+ * и складываются целыми копейками — точно и без BigDecimal; рубли с дробной частью
+ * появляются только при разборе ввода и выводе.
+ */
+public final class Money {
+    public static final long KOPECKS_PER_RUBLE = 100;
+
+    private Money() {}
+
+    /**
+     * Разбирает сумму в рублях: «35000», «1234.5», «1 234,50», «-10.05».
+     * @throws IllegalArgumentException не число или больше двух знаков после запятой
+     */
+    public static long parse(String text) {
+        if (text == null) throw new IllegalArgumentException("сумма не указана");
+        long rubles = 0;
+        long kopecks = 0;
+        int fractionDigits = -1;
+        boolean negative = false;
+        boolean digits = false;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits = true;
+                if (fractionDigits < 0) {
+                    rubles = Math.addExact(Math.multiplyExact(rubles, 10), c - '0');
+                } else if (++fractionDigits <= 2) {
+                    kopecks = kopecks * 10 + (c - '0');
+                } else if (c != '0') {
+                    throw new IllegalArgumentException("больше двух знаков после запятой: «" + text + "»");
+                }
+            } else if ((c == '.' || c == ',') && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else if (c == '-' && i == 0) {
+                negative = true;
+            } else if (c != ' ' && c != ' ' && c != ' ' && !(c == '+' && i == 0)) {
+                throw new IllegalArgumentException("некорректная сумма «" + text + "»");
+            }
+        }
+        if (!digits) throw new IllegalArgumentException("некорректная сумма «" + text + "»");
+        if (fractionDigits == 1) kopecks *= 10;
+
+        long amount = Math.addExact(Math.multiplyExact(rubles, KOPECKS_PER_RUBLE), kopecks);
+        return negative ? -amount : amount;
+    }
+
+    /** Рубли из double, например из устаревших полей; округляется до копейки */
+    public static long fromRubles(double rubles) {
+        return Math.round(rubles * KOPECKS_PER_RUBLE);
+    }
+
+    /** Рубли для мест, где нужен double (JMX, графики); для расчётов не использовать */
+    public static double toRubles(long kopecks) {
+        return kopecks / (double) KOPECKS_PER_RUBLE;
+    }
+
+    /** Стоимость количества штук; переполнение — ArithmeticException, а не неверная сумма */
+    public static long multiply(long kopecks, long quantity) {
+        return Math.multiplyExact(kopecks, quantity);
+    }
+
+    /** Машинная запись: «1234.50», «-0.05» — для CSV, JSON и параметров запросов */
+    public static String toPlainString(long kopecks) {
+        return appendPlain(new StringBuilder(24), kopecks).toString();
+    }
+
+    /** Дописывает машинную запись суммы без промежуточных строк */
+    public static StringBuilder appendPlain(StringBuilder sb, long kopecks) {
+        if (kopecks < 0) {
+            sb.append('-');
+        }
+        long rubles = Math.abs(kopecks / KOPECKS_PER_RUBLE);
+        int rest = (int) Math.abs(kopecks % KOPECKS_PER_RUBLE);
+        return sb.append(rubles).append('.').append((char) ('0' + rest / 10)).append((char) ('0' + rest % 10));
+    }
+
+    /** Запись для людей: «35 000,00», разряды через пробел */
+    public static String format(long kopecks) {
+        String plain = toPlainString(kopecks);
+        int point = plain.length() - 3;
+        int start = kopecks < 0 ? 1 : 0;
+        StringBuilder sb = new StringBuilder(plain.length() + 8);
+        sb.append(plain, 0, start);
+        for (int i = start; i < point; i++) {
+            if (i > start && (point - i) % 3 == 0) sb.append(' ');
+            sb.append(plain.charAt(i));
+        }
+        return sb.append(',').append(plain, point + 1, plain.length()).toString();
+    }
+}
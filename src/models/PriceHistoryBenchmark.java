@@ -0,0 +1,131 @@
+package benchmarks;
+
+import database.ConnectionLease;
+import database.DatabaseManager;
+import models.Component;
+import services.ComponentService;
+import services.PriceHistoryService;
+
+import java.sql.*;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Random;
+
+/**
+ * История цен: запись потока изменений пакетами и стоимость конфигурации на дату при
+ * разной глубине истории — через первичный ключ и, для сравнения, полным просмотром
+ * истории. В конце — сжатие истории старше полугода.
+ * Запуск: java benchmarks.PriceHistoryBenchmark [точек на комплектующее...], по умолчанию 10 100 1000.
+ */
+public class PriceHistoryBenchmark {
+    private static final int CATALOG_SIZE = 2_000;
+    private static final int EVENTS = 20_000;
+    private static final int COST_QUERIES = 2_000;
+    private static final int SCAN_QUERIES = 3;
+    private static final long YEAR_MILLIS = Duration.ofDays(365).toMillis();
+
+    /** Тот же запрос, что в PriceHistoryService, но «+ 0» не даёт использовать первичный ключ */
+    private static final String SCAN_COST_SQL = """
+        SELECT COALESCE(SUM(ci.quantity * (
+            SELECT h.price FROM component_history h
+            WHERE h.component_id + 0 = ci.component_id AND h.changed_at <= ?
+            ORDER BY h.changed_at DESC LIMIT 1)), 0)
+        FROM configuration_items ci WHERE ci.config_id = ?
+        """;
+
+    public static void main(String[] args) throws SQLException {
+        int[] depths = BenchmarkSupport.parseSizes(args, 10, 100, 1_000);
+        System.out.printf("%-8s %-12s %-14s %-16s %-16s %s%n",
+                "Точек", "Строк", "Запись, в с", "На дату, мкс", "Просмотр, мкс", "Сжатие, мс");
+
+        for (int depth : depths) {
+            DatabaseManager dbManager = BenchmarkSupport.openTempDatabase("price-history");
+            BenchmarkSupport.seed(dbManager, CATALOG_SIZE);
+            ComponentService componentService = new ComponentService(dbManager);
+            PriceHistoryService history = new PriceHistoryService(dbManager, componentService, Duration.ofHours(1));
+            history.flush();
+
+            double recordRate = record(componentService, history);
+            long now = System.currentTimeMillis();
+            long rows = fillHistory(dbManager, depth, now);
+            int configurations = CATALOG_SIZE / 10;
+
+            Random random = new Random(5);
+            long start = System.nanoTime();
+            for (int i = 0; i < COST_QUERIES; i++) {
+                history.getConfigurationCostAt(1 + random.nextInt(configurations),
+                        Instant.ofEpochMilli(now - (long) (random.nextDouble() * YEAR_MILLIS)));
+            }
+            double indexedMicros = (System.nanoTime() - start) / 1e3 / COST_QUERIES;
+
+            start = System.nanoTime();
+            for (int i = 0; i < SCAN_QUERIES; i++) {
+                scanCost(dbManager, 1 + random.nextInt(configurations),
+                        now - (long) (random.nextDouble() * YEAR_MILLIS));
+            }
+            double scanMicros = (System.nanoTime() - start) / 1e3 / SCAN_QUERIES;
+
+            start = System.nanoTime();
+            int deleted = history.compact(Duration.ofDays(180), PriceHistoryService.DEFAULT_DAILY_RETENTION);
+            double compactMillis = (System.nanoTime() - start) / 1e6;
+
+            System.out.printf("%-8d %-12d %-14.0f %-16.1f %-16.0f %.0f (удалено %d)%n",
+                    depth, rows, recordRate, indexedMicros, scanMicros, compactMillis, deleted);
+            dbManager.closeConnection();
+        }
+    }
+
+    /** Изменения цены и остатка через очередь истории; возвращает записей в секунду с учётом записи в БД */
+    private static double record(ComponentService componentService, PriceHistoryService history) {
+        Random random = new Random(3);
+        long start = System.nanoTime();
+        for (int i = 0; i < EVENTS; i++) {
+            Component component = componentService.getComponentById(1 + random.nextInt(CATALOG_SIZE));
+            if (random.nextBoolean()) {
+                component.setPrice(component.getPrice() + random.nextInt(1_000) - 500);
+            } else {
+                component.setQuantity(component.getQuantity() + 1);
+            }
+            history.record(component);
+        }
+        history.flush();
+        return EVENTS / ((System.nanoTime() - start) / 1e9);
+    }
+
+    /** depth точек на каждое комплектующее, равномерно за прошедший год */
+    private static long fillHistory(DatabaseManager dbManager, int depth, long now) throws SQLException {
+        Random random = new Random(7);
+        long step = YEAR_MILLIS / depth;
+        try (ConnectionLease lease = dbManager.lease()) {
+            lease.beginWriteTransaction();
+            PreparedStatement insert = lease.prepareStatement(
+                    "INSERT OR IGNORE INTO component_history (component_id, changed_at, price, quantity) VALUES (?, ?, ?, ?)");
+            for (int id = 1; id <= CATALOG_SIZE; id++) {
+                for (int i = 0; i < depth; i++) {
+                    insert.setInt(1, id);
+                    insert.setLong(2, now - YEAR_MILLIS - Duration.ofDays(1).toMillis() + i * step + random.nextInt(1_000));
+                    insert.setLong(3, 100_000 + random.nextInt(10_000_000));
+                    insert.setInt(4, random.nextInt(50));
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+            lease.commit();
+
+            try (ResultSet rs = lease.prepareStatement("SELECT COUNT(*) FROM component_history").executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    private static long scanCost(DatabaseManager dbManager, int configId, long at) throws SQLException {
+        try (ConnectionLease lease = dbManager.lease()) {
+            PreparedStatement stmt = lease.prepareStatement(SCAN_COST_SQL);
+            stmt.setLong(1, at);
+            stmt.setInt(2, configId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+}
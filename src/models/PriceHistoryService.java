@@ -0,0 +1,457 @@
+package services;
+
+import database.ConnectionLease;
+import database.DatabaseManager;
+import models.Component;
+import models.ConfigurationCost;
+import models.DailyPriceStats;
+import models.PricePoint;
+import utils.LatencyHistogram;
+import utils.Metrics;
+
+import java.sql.*;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * История цен и остатков комплектующих (таблицы component_history и component_price_daily).
+ *
+ * Изменения каталога приходят как события ComponentService и копятся в очереди; фоновый
+ * поток раз в DEFAULT_FLUSH_INTERVAL пишет их пакетами по BATCH_SIZE в одной транзакции.
+ * Строка вставляется, только если цена или остаток отличаются от предыдущей точки того же
+ * комплектующего, поэтому правки названия и повторные события историю не раздувают.
+ * Вместе с точкой обновляется дневной агрегат (min/max/среднее/закрытие). Точки одного
+ * комплектующего в одну миллисекунду схлопываются до последней; если точка заменила уже
+ * записанную, агрегат её дня пересчитывается по сырым точкам, а не дополняется.
+ *
+ * compact() удаляет точки старше срока хранения, кроме последней до границы: она задаёт
+ * состояние на границе, а более ранние моменты оцениваются по закрытию дня из агрегатов.
+ * Точки видны запросам после записи очереди, то есть с задержкой до интервала записи.
+ */
+public class PriceHistoryService implements ComponentChangeListener {
+    public static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofSeconds(1);
+    public static final Duration DEFAULT_RAW_RETENTION = Duration.ofDays(90);
+    public static final Duration DEFAULT_DAILY_RETENTION = Duration.ofDays(5 * 365);
+    /** Точек в одной транзакции записи */
+    private static final int BATCH_SIZE = 1000;
+
+    /** Точка в ту же миллисекунду заменяет предыдущую; совпадающая с предыдущей не пишется */
+    private static final String INSERT_SQL = """
+        INSERT OR REPLACE INTO component_history (component_id, changed_at, price, quantity)
+        SELECT ?1, ?2, ?3, ?4
+        WHERE NOT EXISTS (
+            SELECT 1 FROM (
+                SELECT price, quantity FROM component_history
+                WHERE component_id = ?1 AND changed_at <= ?2
+                ORDER BY changed_at DESC LIMIT 1)
+            WHERE price = ?3 AND quantity = ?4)
+        """;
+    private static final String DAILY_UPSERT_SQL = """
+        INSERT INTO component_price_daily
+            (component_id, day, min_price, max_price, price_sum, samples, close_price, close_quantity)
+        VALUES (?1, ?2, ?3, ?3, ?3, 1, ?3, ?4)
+        ON CONFLICT(component_id, day) DO UPDATE SET
+            min_price = MIN(min_price, excluded.min_price),
+            max_price = MAX(max_price, excluded.max_price),
+            price_sum = price_sum + excluded.price_sum,
+            samples = samples + 1,
+            close_price = excluded.close_price,
+            close_quantity = excluded.close_quantity
+        """;
+    /** Точки окна вместе с действовавшей на его начало */
+    private static final String RANGE_SQL = """
+        SELECT changed_at, price, quantity FROM component_history
+        WHERE component_id = ?1 AND changed_at <= ?3 AND changed_at >= COALESCE(
+            (SELECT MAX(changed_at) FROM component_history WHERE component_id = ?1 AND changed_at <= ?2), ?2)
+        ORDER BY changed_at
+        """;
+    private static final String DAILY_SQL = """
+        SELECT day, min_price, max_price, price_sum / samples, close_price, close_quantity, samples
+        FROM component_price_daily
+        WHERE component_id = ? AND day BETWEEN ? AND ?
+        ORDER BY day
+        """;
+    /**
+     * Цена каждой позиции — последняя точка не позже момента (поиск по первичному ключу),
+     * а если точки уже свёрнуты — закрытие последнего дня перед днём этого момента.
+     */
+    private static final String COST_SQL = """
+        SELECT (SELECT total_price FROM configurations WHERE id = ?3),
+               COUNT(*), COUNT(price), COALESCE(SUM(quantity * price), 0)
+        FROM (
+            SELECT ci.quantity, COALESCE(
+                (SELECT h.price FROM component_history h
+                 WHERE h.component_id = ci.component_id AND h.changed_at <= ?1
+                 ORDER BY h.changed_at DESC LIMIT 1),
+                (SELECT d.close_price FROM component_price_daily d
+                 WHERE d.component_id = ci.component_id AND d.day < ?2
+                 ORDER BY d.day DESC LIMIT 1)) AS price
+            FROM configuration_items ci
+            WHERE ci.config_id = ?3)
+        """;
+    private static final String EXISTS_SQL = "SELECT 1 FROM component_history WHERE component_id = ? AND changed_at = ?";
+    /** Агрегат дня заново по точкам [?3, ?4] — после замены точки, уже учтённой в нём */
+    private static final String DAILY_REBUILD_SQL = """
+        INSERT OR REPLACE INTO component_price_daily
+            (component_id, day, min_price, max_price, price_sum, samples, close_price, close_quantity)
+        SELECT ?1, ?2, MIN(price), MAX(price), SUM(price), COUNT(*),
+               (SELECT price FROM component_history
+                WHERE component_id = ?1 AND changed_at BETWEEN ?3 AND ?4 ORDER BY changed_at DESC LIMIT 1),
+               (SELECT quantity FROM component_history
+                WHERE component_id = ?1 AND changed_at BETWEEN ?3 AND ?4 ORDER BY changed_at DESC LIMIT 1)
+        FROM component_history
+        WHERE component_id = ?1 AND changed_at BETWEEN ?3 AND ?4
+        HAVING COUNT(*) > 0
+        """;
+    private static final String COMPACT_SQL = """
+        DELETE FROM component_history
+        WHERE changed_at < ?1 AND changed_at < (
+            SELECT MAX(h.changed_at) FROM component_history h
+            WHERE h.component_id = component_history.component_id AND h.changed_at < ?1)
+        """;
+    private static final String COMPACT_DAILY_SQL = "DELETE FROM component_price_daily WHERE day < ?";
+
+    private static final LatencyHistogram FLUSH_LATENCY = Metrics.global().operation("PriceHistoryService.flush");
+    private static final LatencyHistogram HISTORY_LATENCY = Metrics.global().operation("PriceHistoryService.getHistory");
+    private static final LatencyHistogram COST_LATENCY = Metrics.global().operation("PriceHistoryService.getConfigurationCostAt");
+
+    private final DatabaseManager dbManager;
+    private final ComponentService componentService;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final ConcurrentLinkedQueue<PricePoint> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicLong recordedCount = new AtomicLong();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "price-history");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private boolean compactionStarted;
+    /** Самая поздняя записанная точка: более ранние и равные ей могут совпасть с записанными по времени */
+    private long lastWrittenAt = System.currentTimeMillis();
+
+    /**
+     * Подписывается на изменения каталога и запускает фоновую запись. Если история пуста
+     * (первый запуск), в неё записывается текущее состояние каталога. Очередь дописывается
+     * при закрытии базы.
+     */
+    public PriceHistoryService(DatabaseManager dbManager, ComponentService componentService, Duration flushInterval) {
+        this.dbManager = dbManager;
+        this.componentService = componentService;
+        componentService.addListener(this);
+        if (isEmpty()) {
+            recordCatalog();
+        }
+        long millis = flushInterval.toMillis();
+        executor.scheduleWithFixedDelay(this::flush, millis, millis, TimeUnit.MILLISECONDS);
+        dbManager.addCloseHook(this::close);
+    }
+
+    public PriceHistoryService(DatabaseManager dbManager, ComponentService componentService) {
+        this(dbManager, componentService, DEFAULT_FLUSH_INTERVAL);
+    }
+
+    /** Ставит текущие цену и остаток комплектующего в очередь записи */
+    public void record(Component component) {
+        pending.add(new PricePoint(component.getId(), System.currentTimeMillis(),
+                component.getPrice(), component.getQuantity()));
+        pendingCount.incrementAndGet();
+    }
+
+    /** Ставит в очередь весь каталог из кэша; неизменившиеся позиции при записи пропускаются */
+    public void recordCatalog() {
+        for (Component component : componentService.getCache().getAll()) {
+            record(component);
+        }
+    }
+
+    /** Записывает накопленные точки; вызывается фоновым потоком и при закрытии */
+    public synchronized void flush() {
+        if (pending.isEmpty()) return;
+        long start = System.nanoTime();
+        try {
+            List<PricePoint> batch = new ArrayList<>(BATCH_SIZE);
+            PricePoint point;
+            while ((point = pending.poll()) != null) {
+                batch.add(point);
+                if (batch.size() == BATCH_SIZE) {
+                    write(batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+            }
+        } finally {
+            FLUSH_LATENCY.recordSince(start);
+        }
+    }
+
+    private void write(List<PricePoint> batch) {
+        pendingCount.addAndGet(-batch.size());
+        List<PricePoint> points = collapse(batch);
+        try (ConnectionLease lease = dbManager.lease()) {
+            lease.beginWriteTransaction();
+            // Точки, которые INSERT OR REPLACE может заменить: их нельзя второй раз учесть в агрегате
+            boolean[] replacing = new boolean[points.size()];
+            PreparedStatement exists = lease.prepareStatement(EXISTS_SQL);
+            for (int i = 0; i < points.size(); i++) {
+                PricePoint point = points.get(i);
+                if (point.getChangedAt() > lastWrittenAt) continue;
+                exists.setInt(1, point.getComponentId());
+                exists.setLong(2, point.getChangedAt());
+                try (ResultSet rs = exists.executeQuery()) {
+                    replacing[i] = rs.next();
+                }
+            }
+
+            PreparedStatement insert = lease.prepareStatement(INSERT_SQL);
+            long latest = lastWrittenAt;
+            for (PricePoint point : points) {
+                insert.setInt(1, point.getComponentId());
+                insert.setLong(2, point.getChangedAt());
+                insert.setLong(3, point.getPrice());
+                insert.setInt(4, point.getQuantity());
+                insert.addBatch();
+                latest = Math.max(latest, point.getChangedAt());
+            }
+            int[] inserted = insert.executeBatch();
+
+            // Дни с заменённой точкой пересчитываются целиком, остальные дополняются
+            // записанными точками в порядке их времени
+            Set<List<Long>> rebuild = new LinkedHashSet<>();
+            int replaced = 0;
+            for (int i = 0; i < inserted.length; i++) {
+                if (inserted[i] > 0 && replacing[i]) {
+                    replaced++;
+                    PricePoint point = points.get(i);
+                    rebuild.add(List.of((long) point.getComponentId(), epochDay(point.getChangedAt())));
+                }
+            }
+            PreparedStatement daily = lease.prepareStatement(DAILY_UPSERT_SQL);
+            int written = 0;
+            int upserts = 0;
+            for (int i = 0; i < inserted.length; i++) {
+                if (inserted[i] <= 0) continue;
+                written++;
+                PricePoint point = points.get(i);
+                long day = epochDay(point.getChangedAt());
+                if (rebuild.contains(List.of((long) point.getComponentId(), day))) continue;
+                daily.setInt(1, point.getComponentId());
+                daily.setLong(2, day);
+                daily.setLong(3, point.getPrice());
+                daily.setInt(4, point.getQuantity());
+                daily.addBatch();
+                upserts++;
+            }
+            if (upserts > 0) {
+                daily.executeBatch();
+            }
+            if (!rebuild.isEmpty()) {
+                PreparedStatement recount = lease.prepareStatement(DAILY_REBUILD_SQL);
+                for (List<Long> key : rebuild) {
+                    LocalDate day = LocalDate.ofEpochDay(key.get(1));
+                    recount.setLong(1, key.get(0));
+                    recount.setLong(2, key.get(1));
+                    recount.setLong(3, day.atStartOfDay(zone).toInstant().toEpochMilli());
+                    recount.setLong(4, day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli() - 1);
+                    recount.addBatch();
+                }
+                recount.executeBatch();
+            }
+            lease.commit();
+            lastWrittenAt = latest;
+            recordedCount.addAndGet(written - replaced);
+        } catch (SQLException e) {
+            // История не источник истины: пакет теряется, но каталог не затронут
+            System.err.println("❌ Ошибка записи истории цен: " + e.getMessage());
+        }
+    }
+
+    /** Оставляет из точек одного комплектующего в одну миллисекунду последнюю, на месте последней */
+    private static List<PricePoint> collapse(List<PricePoint> batch) {
+        Map<List<Long>, PricePoint> latest = new LinkedHashMap<>();
+        for (PricePoint point : batch) {
+            List<Long> key = List.of((long) point.getComponentId(), point.getChangedAt());
+            latest.remove(key);
+            latest.put(key, point);
+        }
+        return latest.size() == batch.size() ? batch : new ArrayList<>(latest.values());
+    }
+
+    /** Точки комплектующего в окне [from, to], первой идёт действовавшая на момент from */
+    public List<PricePoint> getHistory(int componentId, Instant from, Instant to) {
+        long start = System.nanoTime();
+        List<PricePoint> points = new ArrayList<>();
+        try (ConnectionLease lease = dbManager.lease()) {
+            PreparedStatement stmt = lease.prepareStatement(RANGE_SQL);
+            stmt.setInt(1, componentId);
+            stmt.setLong(2, from.toEpochMilli());
+            stmt.setLong(3, to.toEpochMilli());
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    points.add(new PricePoint(componentId, rs.getLong(1), rs.getLong(2), rs.getInt(3)));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Ошибка чтения истории цен: " + e.getMessage());
+        } finally {
+            HISTORY_LATENCY.recordSince(start);
+        }
+        return points;
+    }
+
+    /** Дневные агрегаты комплектующего за дни [from, to] включительно; дни без изменений пропущены */
+    public List<DailyPriceStats> getDailyStats(int componentId, LocalDate from, LocalDate to) {
+        List<DailyPriceStats> days = new ArrayList<>();
+        try (ConnectionLease lease = dbManager.lease()) {
+            PreparedStatement stmt = lease.prepareStatement(DAILY_SQL);
+            stmt.setInt(1, componentId);
+            stmt.setLong(2, from.toEpochDay());
+            stmt.setLong(3, to.toEpochDay());
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    days.add(new DailyPriceStats(componentId, LocalDate.ofEpochDay(rs.getLong(1)),
+                            rs.getLong(2), rs.getLong(3), rs.getLong(4), rs.getLong(5), rs.getInt(6), rs.getInt(7)));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Ошибка чтения дневной статистики цен: " + e.getMessage());
+        }
+        return days;
+    }
+
+    /**
+     * Стоимость конфигурации по ценам на момент at: по одному поиску в индексе на позицию,
+     * без просмотра истории. Для свёрнутого периода точность — день.
+     *
+     * @return null, если конфигурации нет или произошла ошибка
+     */
+    public ConfigurationCost getConfigurationCostAt(int configId, Instant at) {
+        long start = System.nanoTime();
+        try (ConnectionLease lease = dbManager.lease()) {
+            PreparedStatement stmt = lease.prepareStatement(COST_SQL);
+            stmt.setLong(1, at.toEpochMilli());
+            stmt.setLong(2, epochDay(at.toEpochMilli()));
+            stmt.setInt(3, configId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next() || rs.getObject(1) == null) return null;
+                return new ConfigurationCost(configId, at.toEpochMilli(), rs.getLong(4),
+                        rs.getInt(2), rs.getInt(3), rs.getLong(1));
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Ошибка расчёта стоимости конфигурации по истории: " + e.getMessage());
+            return null;
+        } finally {
+            COST_LATENCY.recordSince(start);
+        }
+    }
+
+    /**
+     * Удаляет точки старше rawRetention (кроме последней до границы у каждого комплектующего)
+     * и дневные агрегаты старше dailyRetention.
+     *
+     * @return удалено точек и дней или -1 при ошибке
+     */
+    public int compact(Duration rawRetention, Duration dailyRetention) {
+        long now = System.currentTimeMillis();
+        try (ConnectionLease lease = dbManager.lease()) {
+            lease.beginWriteTransaction();
+            PreparedStatement raw = lease.prepareStatement(COMPACT_SQL);
+            raw.setLong(1, now - rawRetention.toMillis());
+            int deleted = raw.executeUpdate();
+
+            PreparedStatement daily = lease.prepareStatement(COMPACT_DAILY_SQL);
+            daily.setLong(1, epochDay(now - dailyRetention.toMillis()));
+            deleted += daily.executeUpdate();
+            lease.commit();
+            return deleted;
+        } catch (SQLException e) {
+            System.err.println("❌ Ошибка сжатия истории цен: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /** Запускает compact() по расписанию в потоке записи истории */
+    public synchronized void startCompaction(Duration period, Duration rawRetention, Duration dailyRetention) {
+        if (compactionStarted) return;
+        compactionStarted = true;
+        long millis = period.toMillis();
+        executor.scheduleWithFixedDelay(() -> {
+            int deleted = compact(rawRetention, dailyRetention);
+            if (deleted > 0) {
+                System.out.println("🗜 Сжата история цен, удалено строк: " + deleted);
+            }
+        }, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /** Останавливает фоновые задачи, дожидаясь начатой, и дописывает очередь */
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    /** Записано точек с запуска (без пропущенных неизменившихся) */
+    public long getRecordedCount() {
+        return recordedCount.get();
+    }
+
+    private long epochDay(long millis) {
+        return LocalDate.ofInstant(Instant.ofEpochMilli(millis), zone).toEpochDay();
+    }
+
+    private boolean isEmpty() {
+        try (ConnectionLease lease = dbManager.lease()) {
+            PreparedStatement stmt = lease.prepareStatement("SELECT 1 FROM component_history LIMIT 1");
+            try (ResultSet rs = stmt.executeQuery()) {
+                return !rs.next();
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Ошибка чтения истории цен: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public void onComponentAdded(Component component) {
+        record(component);
+    }
+
+    @Override
+    public void onComponentUpdated(Component component) {
+        record(component);
+    }
+
+    @Override
+    public void onStockChanged(Component component) {
+        record(component);
+    }
+
+    @Override
+    public void onCatalogReloaded() {
+        recordCatalog();
+    }
+}
@@ -0,0 +1,38 @@
+package models;
+
+import utils.Money;
+
+/**
+ * Состояние комплектующего в истории цен: цена и остаток, действовавшие с момента changedAt
+ * до следующей точки того же комплектующего
+ */
+public class PricePoint {
+    private int componentId;
+    private long changedAt;
+    private long price;
+    private int quantity;
+
+    public PricePoint(int componentId, long changedAt, long price, int quantity) {
+        this.componentId = componentId;
+        this.changedAt = changedAt;
+        this.price = price;
+        this.quantity = quantity;
+    }
+
+    // Getters
+    public int getComponentId() { return componentId; }
+
+    /** Время изменения, мс от эпохи */
+    public long getChangedAt() { return changedAt; }
+
+    /** Цена в копейках */
+    public long getPrice() { return price; }
+
+    public int getQuantity() { return quantity; }
+
+    @Override
+    public String toString() {
+        return String.format("PricePoint{componentId=%d, changedAt=%d, price=%s, quantity=%d}",
+                componentId, changedAt, Money.toPlainString(price), quantity);
+    }
+}
@@ -0,0 +1,85 @@
+package api;
+
+import utils.Money;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Параметры запроса: строка запроса URL и тело application/x-www-form-urlencoded.
+ * Значения с ошибкой формата превращаются в ответ 400.
+ */
+final class RequestParams {
+    private final Map<String, String> values = new HashMap<>();
+
+    RequestParams(String query, String body) {
+        parse(query);
+        parse(body);
+    }
+
+    String get(String name) {
+        String value = values.get(name);
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    int getInt(String name, int defaultValue, int min, int max) {
+        String value = get(name);
+        if (value == null) return defaultValue;
+        try {
+            return Math.max(min, Math.min(max, Integer.parseInt(value)));
+        } catch (NumberFormatException e) {
+            throw ApiServer.badRequest("параметр " + name + " должен быть целым числом");
+        }
+    }
+
+    /** Сумма в рублях, например 1234.50; возвращается в копейках */
+    Long getMoney(String name) {
+        String value = get(name);
+        if (value == null) return null;
+        try {
+            return Money.parse(value);
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            throw ApiServer.badRequest("параметр " + name + " должен быть суммой в рублях, не больше двух знаков после запятой");
+        }
+    }
+
+    boolean getBoolean(String name) {
+        return "true".equalsIgnoreCase(get(name)) || "1".equals(get(name));
+    }
+
+    /** Список id через запятую, например ids=1,2,3; повторяющиеся id сохраняются */
+    List<Integer> getIds(String name) {
+        String value = get(name);
+        if (value == null) throw ApiServer.badRequest("не указан параметр " + name);
+        List<Integer> ids = new ArrayList<>();
+        for (String part : value.split(",")) {
+            if (part.isBlank()) continue;
+            try {
+                ids.add(Integer.parseInt(part.trim()));
+            } catch (NumberFormatException e) {
+                throw ApiServer.badRequest("некорректный id «" + part.trim() + "» в " + name);
+            }
+        }
+        if (ids.isEmpty()) throw ApiServer.badRequest("пустой список " + name);
+        return ids;
+    }
+
+    private void parse(String text) {
+        if (text == null || text.isEmpty()) return;
+        for (String pair : text.split("&")) {
+            if (pair.isEmpty()) continue;
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            try {
+                values.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                throw ApiServer.badRequest("некорректное кодирование параметра " + key);
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package models;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Резерв склада под конфигурацию или произвольный набор комплектующих.
+ * Пока резерв активен, его количество уже списано из остатка; до expiresAt его нужно
+ * подтвердить (продажа) или снять, иначе он истекает и остаток возвращается.
+ */
+public class Reservation {
+    /** Значения reservations.status */
+    public static final String STATUS_ACTIVE = "ACTIVE";
+    public static final String STATUS_COMMITTED = "COMMITTED";
+    public static final String STATUS_RELEASED = "RELEASED";
+    public static final String STATUS_EXPIRED = "EXPIRED";
+    /** Не сохраняется: резерв не создан, потому что одного из комплектующих не хватило */
+    public static final String STATUS_REJECTED = "REJECTED";
+
+    private int id;
+    private Integer configId;
+    private String status;
+    private long createdAt;
+    private long expiresAt;
+    private Map<Integer, Integer> items;
+    private int rejectedComponentId;
+
+    public Reservation(Integer configId, Map<Integer, Integer> items, long createdAt, long expiresAt) {
+        this.configId = configId;
+        this.items = Collections.unmodifiableMap(new LinkedHashMap<>(items));
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+        this.status = STATUS_ACTIVE;
+    }
+
+    // Getters and Setters
+    public int getId() { return id; }
+    public void setId(int id) { this.id = id; }
+
+    public Integer getConfigId() { return configId; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public boolean isActive() { return STATUS_ACTIVE.equals(status); }
+
+    /** Время создания и истечения, мс от эпохи */
+    public long getCreatedAt() { return createdAt; }
+    public long getExpiresAt() { return expiresAt; }
+
+    /** Количество по id комплектующего */
+    public Map<Integer, Integer> getItems() { return items; }
+
+    /** Комплектующее, которого не хватило; 0, если резерв не отклонён */
+    public int getRejectedComponentId() { return rejectedComponentId; }
+
+    public void reject(int componentId) {
+        this.status = STATUS_REJECTED;
+        this.rejectedComponentId = componentId;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Reservation{id=%d, configId=%s, status=%s, items=%d}",
+                id, configId, status, items.size());
+    }
+}
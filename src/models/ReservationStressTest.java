@@ -0,0 +1,322 @@
+package benchmarks;
+
+import database.DatabaseManager;
+import models.Component;
+import models.Reservation;
+import services.ComponentCatalogCache;
+import services.ComponentService;
+import services.StockCounters;
+import services.StockReservationService;
+
+import java.sql.*;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Нагрузочная проверка резервирования склада.
+ *
+ * 1. Много потоков одновременно резервируют, подтверждают, снимают и бросают резервы
+ *    на небольшом складе; после снятия просроченных проверяется, что остаток нигде
+ *    не ушёл в минус и что для каждого комплектующего начальный остаток равен текущему
+ *    плюс количеству в активных и подтверждённых резервах — ничего не продано дважды.
+ * 2. Гонка за последней единицей: ровно один резерв из всех потоков должен пройти.
+ * 3. Правка карточки по устаревшей версии после резерва отклоняется.
+ * 4. Масштабирование счётчиков StockCounters: резервы разных комплектующих против
+ *    резервов одного и того же, для разного числа потоков.
+ *
+ * Запуск: java benchmarks.ReservationStressTest [потоков...], по умолчанию 1 2 4 8 16.
+ * При нарушении инварианта завершается с кодом 1.
+ */
+public class ReservationStressTest {
+    private static final int SKUS = 40;
+    private static final int INITIAL_STOCK = 25;
+    private static final int ATTEMPTS_PER_THREAD = 300;
+    private static final int STRESS_THREADS = 32;
+    private static final long COUNTER_RUN_MILLIS = 500;
+
+    private static final String INSERT_SQL =
+        "INSERT INTO components (name, type, price, quantity) VALUES (?, 'Видеокарта', 100000, ?)";
+
+    public static void main(String[] args) throws Exception {
+        int[] threadCounts = BenchmarkSupport.parseSizes(args, 1, 2, 4, 8, 16);
+        System.out.printf("Процессоров: %d%n", Runtime.getRuntime().availableProcessors());
+
+        boolean ok = stress();
+        ok &= lastUnit();
+        ok &= staleUpdate();
+        counterScaling(threadCounts);
+
+        if (!ok) {
+            System.err.println("❌ Инварианты резервирования нарушены");
+            System.exit(1);
+        }
+        System.out.println("✅ Перепродаж нет, инварианты выполнены");
+    }
+
+    private static boolean stress() throws Exception {
+        DatabaseManager dbManager = BenchmarkSupport.openTempDatabase("reservation-stress");
+        int[] ids = seed(dbManager, SKUS, INITIAL_STOCK);
+        ComponentService componentService = new ComponentService(dbManager);
+        StockReservationService reservations = new StockReservationService(dbManager, componentService);
+
+        LongAdder reserved = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        LongAdder committed = new LongAdder();
+        LongAdder released = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[STRESS_THREADS];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    Map<Integer, Integer> items = new HashMap<>();
+                    int lines = 1 + random.nextInt(3);
+                    for (int l = 0; l < lines; l++) {
+                        items.merge(ids[random.nextInt(ids.length)], 1 + random.nextInt(2), Integer::sum);
+                    }
+                    // Часть резервов бросается и истекает сама
+                    Duration ttl = random.nextInt(4) == 0 ? Duration.ofMillis(5) : Duration.ofMinutes(5);
+                    Reservation reservation = reservations.reserve(items, null, ttl);
+                    if (reservation == null || !reservation.isActive()) {
+                        rejected.increment();
+                        continue;
+                    }
+                    reserved.increment();
+                    int action = random.nextInt(3);
+                    if (action == 0 && reservations.commit(reservation.getId())) committed.increment();
+                    if (action == 1 && reservations.release(reservation.getId())) released.increment();
+                }
+            });
+            threads[t].start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        Thread.sleep(10);
+        int expired = reservations.expireOverdue();
+
+        System.out.printf("Потоков: %d, попыток: %d за %.2f с (%.0f/с)%n", STRESS_THREADS,
+                STRESS_THREADS * ATTEMPTS_PER_THREAD, seconds, STRESS_THREADS * ATTEMPTS_PER_THREAD / seconds);
+        System.out.printf("  резервов: %d, отклонено: %d, продано: %d, снято: %d, истекло: %d%n",
+                reserved.sum(), rejected.sum(), committed.sum(), released.sum(), expired);
+
+        boolean ok = checkInvariants(dbManager, ids, INITIAL_STOCK);
+        ok &= checkCache(componentService, dbManager, ids);
+        dbManager.closeConnection();
+        return ok;
+    }
+
+    /** Остаток не отрицателен, и начальный остаток = текущий + активные и подтверждённые резервы */
+    private static boolean checkInvariants(DatabaseManager dbManager, int[] ids, int initial) throws SQLException {
+        String sql = """
+            SELECT c.id, c.quantity, COALESCE(SUM(ri.quantity), 0)
+            FROM components c
+            LEFT JOIN reservation_items ri ON ri.component_id = c.id
+            LEFT JOIN reservations r ON r.id = ri.reservation_id
+            WHERE r.id IS NULL OR r.status IN ('ACTIVE', 'COMMITTED')
+            GROUP BY c.id
+            """;
+        Map<Integer, int[]> rows = new HashMap<>();
+        try (Statement stmt = dbManager.getConnection().createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                rows.put(rs.getInt(1), new int[] {rs.getInt(2), rs.getInt(3)});
+            }
+        }
+
+        boolean ok = true;
+        long sold = 0;
+        for (int id : ids) {
+            int quantity = quantityOf(dbManager, id);
+            int[] row = rows.get(id);
+            int held = row != null ? row[1] : 0;
+            sold += held;
+            if (quantity < 0 || quantity + held != initial) {
+                System.err.printf("❌ Комплектующее %d: остаток %d, в резервах %d, было %d%n", id, quantity, held, initial);
+                ok = false;
+            }
+        }
+        System.out.printf("  в резервах и продано единиц: %d из %d%n", sold, (long) initial * ids.length);
+        return ok;
+    }
+
+    /** Кэш каталога после всех резервов показывает тот же остаток, что и БД */
+    private static boolean checkCache(ComponentService componentService, DatabaseManager dbManager, int[] ids)
+            throws SQLException {
+        boolean ok = true;
+        for (int id : ids) {
+            Component cached = componentService.getCache().peek(id);
+            int quantity = quantityOf(dbManager, id);
+            if (cached == null || cached.getQuantity() != quantity) {
+                System.err.printf("❌ Кэш расходится с БД для %d: %s, в БД %d%n", id, cached, quantity);
+                ok = false;
+            }
+        }
+        return ok;
+    }
+
+    private static boolean lastUnit() throws Exception {
+        DatabaseManager dbManager = BenchmarkSupport.openTempDatabase("reservation-last-unit");
+        int id = seed(dbManager, 1, 1)[0];
+        StockReservationService reservations = new StockReservationService(dbManager, new ComponentService(dbManager));
+
+        AtomicInteger winners = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[STRESS_THREADS];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                Reservation reservation = reservations.reserve(Map.of(id, 1), null, Duration.ofMinutes(5));
+                if (reservation != null && reservation.isActive()) {
+                    winners.incrementAndGet();
+                }
+            });
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        int left = quantityOf(dbManager, id);
+        dbManager.closeConnection();
+        System.out.printf("Последняя единица, %d потоков: резервов %d, остаток %d%n", threads.length, winners.get(), left);
+        if (winners.get() != 1 || left != 0) {
+            System.err.println("❌ Последняя единица продана не ровно один раз");
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean staleUpdate() throws SQLException {
+        DatabaseManager dbManager = BenchmarkSupport.openTempDatabase("reservation-stale");
+        int id = seed(dbManager, 1, 5)[0];
+        ComponentService componentService = new ComponentService(dbManager);
+        StockReservationService reservations = new StockReservationService(dbManager, componentService);
+
+        // Карточка, открытая на редактирование до резерва: резерв не должен менять её версию
+        Component edited = componentService.getComponentById(id);
+        edited.setPrice(900);
+
+        reservations.reserve(Map.of(id, 2), null, Duration.ofMinutes(5));
+        boolean staleAccepted = componentService.updateComponent(edited);
+        int left = quantityOf(dbManager, id);
+        dbManager.closeConnection();
+
+        System.out.printf("Правка по устаревшей версии: %s, остаток %d%n", staleAccepted ? "принята" : "отклонена", left);
+        if (staleAccepted || left != 3) {
+            System.err.println("❌ Правка карточки затёрла зарезервированный остаток");
+            return false;
+        }
+        return true;
+    }
+
+    private static void counterScaling(int[] threadCounts) throws InterruptedException {
+        int maxThreads = 0;
+        for (int threads : threadCounts) maxThreads = Math.max(maxThreads, threads);
+        ComponentCatalogCache catalog = new ComponentCatalogCache();
+        for (int i = 1; i <= maxThreads; i++) {
+            Component component = new Component("SKU " + i, "Видеокарта", 1000, Integer.MAX_VALUE / 2,
+                    null, null, null, null, 0, 0);
+            component.setId(i);
+            catalog.put(component);
+        }
+
+        System.out.println("StockCounters, резерв и возврат одной позиции, млн операций/с:");
+        System.out.printf("  %-8s %-14s %-14s%n", "потоков", "разные SKU", "один SKU");
+        // Прогрев JIT, иначе первая строка таблицы занижена
+        runCounters(new StockCounters(catalog), 1, true);
+        double single = 0;
+        for (int threads : threadCounts) {
+            double disjoint = runCounters(new StockCounters(catalog), threads, true);
+            double shared = runCounters(new StockCounters(catalog), threads, false);
+            if (threads == 1) single = disjoint;
+            System.out.printf("  %-8d %-14.1f %-14.1f%s%n", threads, disjoint, shared,
+                    single > 0 ? String.format("  x%.2f к одному потоку", disjoint / single) : "");
+        }
+    }
+
+    private static double runCounters(StockCounters counters, int threadCount, boolean disjoint)
+            throws InterruptedException {
+        LongAdder operations = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        long[] deadline = new long[1];
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            Map<Integer, Integer> items = Map.of(disjoint ? t + 1 : 1, 1);
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long count = 0;
+                while (System.nanoTime() < deadline[0]) {
+                    for (int i = 0; i < 1000; i++) {
+                        if (counters.tryAcquire(items) == 0) {
+                            counters.release(items);
+                        }
+                    }
+                    count += 1000;
+                }
+                operations.add(count);
+            });
+            threads[t].start();
+        }
+        long begin = System.nanoTime();
+        deadline[0] = begin + COUNTER_RUN_MILLIS * 1_000_000;
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return operations.sum() / ((System.nanoTime() - begin) / 1e9) / 1e6;
+    }
+
+    private static int[] seed(DatabaseManager dbManager, int count, int stock) throws SQLException {
+        Connection conn = dbManager.getConnection();
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM configuration_items");
+            stmt.executeUpdate("DELETE FROM components");
+        }
+        int[] ids = new int[count];
+        try (PreparedStatement insert = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < count; i++) {
+                insert.setString(1, "Видеокарта " + (i + 1));
+                insert.setInt(2, stock);
+                insert.executeUpdate();
+                try (ResultSet keys = insert.getGeneratedKeys()) {
+                    keys.next();
+                    ids[i] = keys.getInt(1);
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static int quantityOf(DatabaseManager dbManager, int id) throws SQLException {
+        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(
+                "SELECT quantity FROM components WHERE id = ?")) {
+            pstmt.setInt(1, id);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : -1;
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package benchmarks;
+
+import database.DatabaseManager;
+import models.CompatibilityRule;
+import models.RevalidationReport;
+import services.CompatibilityService;
+import services.ComponentService;
+import services.ConfigurationService;
+import services.ConfigurationRevalidator;
+
+import java.sql.*;
+import java.util.Random;
+
+/**
+ * Пропускная способность массовой перепроверки: один поток против всех ядер.
+ * Запуск: java benchmarks.RevalidationBenchmark [конфигураций...], по умолчанию 100000.
+ */
+public class RevalidationBenchmark {
+    private static final String[][] CATALOG = {
+        // тип, сокет, тип памяти, форм-фактор, мощность
+        { "Процессор", "LGA1700", null, null, "125" },
+        { "Процессор", "AM5", null, null, "105" },
+        { "Материнская плата", "LGA1700", "DDR5", "ATX", "0" },
+        { "Материнская плата", "AM5", "DDR5", "Micro-ATX", "0" },
+        { "Материнская плата", "LGA1700", "DDR4", "Mini-ITX", "0" },
+        { "Оперативная память", null, "DDR5", null, "0" },
+        { "Оперативная память", null, "DDR4", null, "0" },
+        { "Видеокарта", null, null, null, "200" },
+        { "Видеокарта", null, null, null, "320" },
+        { "Корпус", null, null, "ATX", "0" },
+        { "Корпус", null, null, "Mini-ITX", "0" },
+        { "Блок питания", null, null, null, "550" },
+        { "Блок питания", null, null, null, "850" },
+        { "Накопитель", null, null, null, "0" },
+    };
+    /** Типы позиций сборки: процессор, плата, память, видеокарта, корпус, БП, накопитель */
+    private static final int[][] SLOTS = { { 0, 1 }, { 2, 3, 4 }, { 5, 6 }, { 7, 8 }, { 9, 10 }, { 11, 12 }, { 13 } };
+
+    public static void main(String[] args) throws SQLException {
+        int[] sizes = BenchmarkSupport.parseSizes(args, 100_000);
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("%-12s %-8s %-10s %-14s %s%n", "Конфигураций", "Потоков", "Секунд", "Конфигураций/с", "Несовместимых");
+        for (int size : sizes) {
+            DatabaseManager dbManager = BenchmarkSupport.openTempDatabase("revalidation-bench");
+            seed(dbManager.getConnection(), size);
+            ComponentService componentService = new ComponentService(dbManager);
+            ConfigurationService configurationService = new ConfigurationService(dbManager, componentService);
+            CompatibilityService compatibilityService = new CompatibilityService(CompatibilityRule.defaults());
+
+            for (int parallelism : new int[] { 1, cores }) {
+                // Каждый прогон записывает все статусы заново
+                try (Statement reset = dbManager.getConnection().createStatement()) {
+                    reset.executeUpdate("UPDATE configurations SET compatibility_status = 'UNCHECKED'");
+                }
+                ConfigurationRevalidator revalidator = new ConfigurationRevalidator(dbManager, componentService,
+                        configurationService, compatibilityService, parallelism, ConfigurationRevalidator.DEFAULT_CHUNK_SIZE);
+                RevalidationReport report = revalidator.revalidateAll();
+                System.out.printf("%-12d %-8d %-10.2f %-14.0f %d%n", size, parallelism,
+                        report.getElapsedSeconds(), report.getThroughput(), report.getIncompatible());
+                revalidator.shutdown();
+            }
+
+            // Изменение процессора: только конфигурации из обратного индекса
+            int[] affected = configurationService.getUsageIndex().configurationsOf(1);
+            ConfigurationRevalidator revalidator = new ConfigurationRevalidator(dbManager, componentService,
+                    configurationService, compatibilityService);
+            RevalidationReport report = revalidator.revalidate(affected, null);
+            System.out.printf("Изменение процессора: %d из %d конфигураций, %.3f с%n",
+                    report.getChecked(), size, report.getElapsedSeconds());
+            revalidator.shutdown();
+            dbManager.closeConnection();
+        }
+    }
+
+    private static void seed(Connection conn, int configurations) throws SQLException {
+        conn.setAutoCommit(false);
+        try (PreparedStatement component = conn.prepareStatement(
+                "INSERT INTO components (id, name, type, price, quantity, specifications, socket, memory_type, " +
+                "form_factor, power_requirements) VALUES (?, ?, ?, 1000, 10, 'bench', ?, ?, ?, ?)");
+             PreparedStatement config = conn.prepareStatement(
+                "INSERT INTO configurations (id, name, total_price) VALUES (?, ?, 0)");
+             PreparedStatement item = conn.prepareStatement(
+                "INSERT INTO configuration_items (config_id, component_id, quantity) VALUES (?, ?, 1)")) {
+
+            try (Statement clear = conn.createStatement()) {
+                clear.executeUpdate("DELETE FROM components");
+            }
+            for (int i = 0; i < CATALOG.length; i++) {
+                component.setInt(1, i + 1);
+                component.setString(2, "Компонент " + i);
+                component.setString(3, CATALOG[i][0]);
+                component.setString(4, CATALOG[i][1]);
+                component.setString(5, CATALOG[i][2]);
+                component.setString(6, CATALOG[i][3]);
+                component.setInt(7, Integer.parseInt(CATALOG[i][4]));
+                component.addBatch();
+            }
+            component.executeBatch();
+
+            Random random = new Random(7);
+            for (int id = 1; id <= configurations; id++) {
+                config.setInt(1, id);
+                config.setString(2, "Сборка " + id);
+                config.addBatch();
+                for (int[] slot : SLOTS) {
+                    item.setInt(1, id);
+                    item.setInt(2, slot[random.nextInt(slot.length)] + 1);
+                    item.addBatch();
+                }
+                if (id % 10_000 == 0) {
+                    config.executeBatch();
+                    item.executeBatch();
+                }
+            }
+            config.executeBatch();
+            item.executeBatch();
+            conn.commit();
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package models;
+
+/**
+ * Итог массовой перепроверки сохранённых конфигураций
+ */
+public class RevalidationReport {
+    private long checked;
+    private long compatible;
+    private long warnings;
+    private long incompatible;
+    private long changed;
+    private long elapsedNanos;
+
+    public RevalidationReport(long checked, long compatible, long warnings, long incompatible,
+                              long changed, long elapsedNanos) {
+        this.checked = checked;
+        this.compatible = compatible;
+        this.warnings = warnings;
+        this.incompatible = incompatible;
+        this.changed = changed;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    // Getters
+    public long getChecked() { return checked; }
+
+    public long getCompatible() { return compatible; }
+
+    public long getWarnings() { return warnings; }
+
+    public long getIncompatible() { return incompatible; }
+
+    /** Сколько конфигураций сменили статус */
+    public long getChanged() { return changed; }
+
+    public double getElapsedSeconds() { return elapsedNanos / 1e9; }
+
+    public double getThroughput() {
+        return elapsedNanos == 0 ? 0 : checked / getElapsedSeconds();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RevalidationReport{checked=%d, compatible=%d, warnings=%d, incompatible=%d, changed=%d, " +
+                "elapsed=%.2fs, throughput=%.0f/s}", checked, compatible, warnings, incompatible, changed,
+                getElapsedSeconds(), getThroughput());
+    }
+}
@@ -1,18 +1,92 @@
 package database;
 
+import models.CompatibilityRule;
+
 import java.sql.*;
 
 /**
  * Инициализатор схемы базы данных
  */
 public class SchemaInitializer {
+    /**
+     * Версия схемы в PRAGMA user_version. База с этой версией уже содержит все таблицы,
+     * индексы, триггеры и правила, и DDL при запуске не выполняется.
+     * Увеличивается при каждом изменении схемы ниже.
+     */
+    public static final int SCHEMA_VERSION = 4;
+    /** С этой версии price, total_price и stock_value хранятся целыми копейками */
+    private static final int KOPECKS_VERSION = 3;
+
+    /** Остаток меньше порога (но не ноль) считается низким; порог зашит в триггеры inventory_summary */
+    public static final int LOW_STOCK_THRESHOLD = 5;
+
+    /** Заполнение пустой inventory_summary агрегацией всего каталога */
+    public static final String FILL_INVENTORY_SUMMARY_SQL = """
+        INSERT INTO inventory_summary
+        SELECT type, COUNT(*), COALESCE(SUM(quantity), 0), COALESCE(SUM(price * quantity), 0),
+               SUM(quantity > 0 AND quantity < %1$d), SUM(quantity <= 0)
+        FROM components GROUP BY type
+        """.formatted(LOW_STOCK_THRESHOLD);
+
+    /*
+     * Триггеры на вставку в components. Массовый импорт снимает их на время своей транзакции
+     * и обновляет поисковый индекс и сводку остатков одним запросом на пакет строк.
+     */
+    public static final String SEARCH_INDEX_INSERT_TRIGGER_SQL = """
+        CREATE TRIGGER IF NOT EXISTS components_fts_insert AFTER INSERT ON components BEGIN
+            INSERT INTO components_fts(rowid, name, specifications)
+            VALUES (new.id, new.name, new.specifications);
+        END
+        """;
+    public static final String INVENTORY_INSERT_TRIGGER_SQL = """
+        CREATE TRIGGER IF NOT EXISTS inventory_summary_insert AFTER INSERT ON components BEGIN
+            INSERT INTO inventory_summary VALUES (new.type, 1, new.quantity, new.price * new.quantity,
+                new.quantity > 0 AND new.quantity < %1$d, new.quantity <= 0)
+            ON CONFLICT(type) DO UPDATE SET
+                item_count = item_count + 1,
+                units = units + excluded.units,
+                stock_value = stock_value + excluded.stock_value,
+                low_stock_items = low_stock_items + excluded.low_stock_items,
+                out_of_stock_items = out_of_stock_items + excluded.out_of_stock_items;
+        END
+        """.formatted(LOW_STOCK_THRESHOLD);
+    public static final String CATALOG_VERSION_INSERT_TRIGGER_SQL = """
+        CREATE TRIGGER IF NOT EXISTS catalog_version_insert AFTER INSERT ON components BEGIN
+            UPDATE catalog_version SET version = version + 1;
+        END
+        """;
+
     private DatabaseManager dbManager;
 
     public SchemaInitializer(DatabaseManager dbManager) {
         this.dbManager = dbManager;
+        int version = schemaVersion();
+        if (version == SCHEMA_VERSION) {
+            System.out.println("✅ Схема базы данных актуальна");
+            return;
+        }
+
         createTables();
+        createSearchIndex();
+        createInventorySummary();
+        createCatalogVersion();
+        createReservations();
+        createPriceHistory();
+        if (version < KOPECKS_VERSION && !migratePricesToKopecks()) {
+            return;
+        }
         insertSampleData();
         insertCompatibilityRules();
+        dbManager.executeUpdate("PRAGMA user_version = " + SCHEMA_VERSION);
+    }
+
+    private int schemaVersion() {
+        try (ResultSet rs = dbManager.executeQuery("PRAGMA user_version")) {
+            return rs != null && rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) {
+            System.err.println("❌ Ошибка чтения версии схемы: " + e.getMessage());
+            return 0;
+        }
     }
 
     private void createTables() {
@@ -22,21 +96,22 @@ public class SchemaInitializer {
                 id INTEGER PRIMARY KEY AUTOINCREMENT,
                 name TEXT NOT NULL,
                 type TEXT NOT NULL,
-                price DECIMAL(10,2) NOT NULL,
+                price INTEGER NOT NULL,
                 quantity INTEGER NOT NULL,
                 specifications TEXT,
                 socket TEXT,
                 memory_type TEXT,
                 form_factor TEXT,
                 power_requirements INTEGER,
-                max_memory INTEGER
+                max_memory INTEGER,
+                version INTEGER NOT NULL DEFAULT 0
             )
             """,
             """
             CREATE TABLE IF NOT EXISTS configurations (
                 id INTEGER PRIMARY KEY AUTOINCREMENT,
                 name TEXT NOT NULL,
-                total_price DECIMAL(10,2) NOT NULL,
+                total_price INTEGER NOT NULL,
                 created_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
                 compatibility_status TEXT DEFAULT 'UNCHECKED'
             )
@@ -60,7 +135,11 @@ public class SchemaInitializer {
                 condition TEXT NOT NULL,
                 description TEXT NOT NULL
             )
-            """
+            """,
+            // Поиск конфигураций по комплектующему (PRIMARY KEY начинается с config_id)
+            "CREATE INDEX IF NOT EXISTS idx_configuration_items_component ON configuration_items(component_id)",
+            // Упорядоченный обход и keyset-пагинация каталога по (type, name, id)
+            "CREATE INDEX IF NOT EXISTS idx_components_type_name ON components(type, name)"
         };
 
         for (String sql : createTables) {
@@ -69,20 +148,294 @@ public class SchemaInitializer {
         System.out.println("✅ Таблицы базы данных созданы успешно");
     }
 
+    /**
+     * Полнотекстовый индекс FTS5 по названию и характеристикам. Таблица внешнего содержимого
+     * поддерживается триггерами; в существующей базе индекс один раз строится заново.
+     */
+    private void createSearchIndex() {
+        boolean exists = tableExists("components_fts");
+
+        String[] statements = {
+            """
+            CREATE VIRTUAL TABLE IF NOT EXISTS components_fts USING fts5(
+                name, specifications,
+                content='components', content_rowid='id',
+                tokenize='unicode61 remove_diacritics 2'
+            )
+            """,
+            SEARCH_INDEX_INSERT_TRIGGER_SQL,
+            """
+            CREATE TRIGGER IF NOT EXISTS components_fts_delete AFTER DELETE ON components BEGIN
+                INSERT INTO components_fts(components_fts, rowid, name, specifications)
+                VALUES ('delete', old.id, old.name, old.specifications);
+            END
+            """,
+            // Изменение цены или остатка не затрагивает полнотекстовый индекс
+            """
+            CREATE TRIGGER IF NOT EXISTS components_fts_update AFTER UPDATE ON components
+            WHEN old.name IS NOT new.name OR old.specifications IS NOT new.specifications BEGIN
+                INSERT INTO components_fts(components_fts, rowid, name, specifications)
+                VALUES ('delete', old.id, old.name, old.specifications);
+                INSERT INTO components_fts(rowid, name, specifications)
+                VALUES (new.id, new.name, new.specifications);
+            END
+            """
+        };
+
+        for (String sql : statements) {
+            dbManager.executeUpdate(sql);
+        }
+        if (!exists) {
+            dbManager.executeUpdate("INSERT INTO components_fts(components_fts) VALUES('rebuild')");
+        }
+    }
+
+    /**
+     * Сводка остатков по типам, которую триггеры обновляют на разницу при каждом изменении
+     * components. Отчёт по складу читает её вместо агрегации всего каталога.
+     */
+    private void createInventorySummary() {
+        boolean exists = tableExists("inventory_summary");
+        String low = String.valueOf(LOW_STOCK_THRESHOLD);
+
+        String[] statements = {
+            """
+            CREATE TABLE IF NOT EXISTS inventory_summary (
+                type TEXT PRIMARY KEY,
+                item_count INTEGER NOT NULL,
+                units INTEGER NOT NULL,
+                stock_value INTEGER NOT NULL,
+                low_stock_items INTEGER NOT NULL,
+                out_of_stock_items INTEGER NOT NULL
+            ) WITHOUT ROWID
+            """,
+            // Мало на складе: от 1 до LOW_STOCK_THRESHOLD - 1 штук
+            "CREATE INDEX IF NOT EXISTS idx_components_low_stock ON components(type, quantity) WHERE quantity < " + low,
+            INVENTORY_INSERT_TRIGGER_SQL,
+            """
+            CREATE TRIGGER IF NOT EXISTS inventory_summary_delete AFTER DELETE ON components BEGIN
+                UPDATE inventory_summary SET
+                    item_count = item_count - 1,
+                    units = units - old.quantity,
+                    stock_value = stock_value - old.price * old.quantity,
+                    low_stock_items = low_stock_items - (old.quantity > 0 AND old.quantity < %1$s),
+                    out_of_stock_items = out_of_stock_items - (old.quantity <= 0)
+                WHERE type = old.type;
+                DELETE FROM inventory_summary WHERE type = old.type AND item_count <= 0;
+            END
+            """.formatted(low),
+            // Переименование или изменение характеристик сводку не затрагивает
+            """
+            CREATE TRIGGER IF NOT EXISTS inventory_summary_update AFTER UPDATE OF type, price, quantity ON components
+            WHEN old.type IS NOT new.type OR old.price IS NOT new.price OR old.quantity IS NOT new.quantity BEGIN
+                UPDATE inventory_summary SET
+                    item_count = item_count - 1,
+                    units = units - old.quantity,
+                    stock_value = stock_value - old.price * old.quantity,
+                    low_stock_items = low_stock_items - (old.quantity > 0 AND old.quantity < %1$s),
+                    out_of_stock_items = out_of_stock_items - (old.quantity <= 0)
+                WHERE type = old.type;
+                INSERT INTO inventory_summary VALUES (new.type, 1, new.quantity, new.price * new.quantity,
+                    new.quantity > 0 AND new.quantity < %1$s, new.quantity <= 0)
+                ON CONFLICT(type) DO UPDATE SET
+                    item_count = item_count + 1,
+                    units = units + excluded.units,
+                    stock_value = stock_value + excluded.stock_value,
+                    low_stock_items = low_stock_items + excluded.low_stock_items,
+                    out_of_stock_items = out_of_stock_items + excluded.out_of_stock_items;
+                DELETE FROM inventory_summary WHERE type = old.type AND item_count <= 0;
+            END
+            """.formatted(low)
+        };
+
+        for (String sql : statements) {
+            dbManager.executeUpdate(sql);
+        }
+        if (!exists) {
+            dbManager.executeUpdate(FILL_INVENTORY_SUMMARY_SQL);
+        }
+    }
+
+    /**
+     * Счётчик изменений каталога: триггеры увеличивают version при любом изменении components.
+     * instance — случайный идентификатор базы, чтобы снимок каталога от другой базы
+     * с тем же номером версии не считался актуальным.
+     */
+    private void createCatalogVersion() {
+        String[] statements = {
+            """
+            CREATE TABLE IF NOT EXISTS catalog_version (
+                id INTEGER PRIMARY KEY CHECK (id = 1),
+                instance TEXT NOT NULL,
+                version INTEGER NOT NULL
+            )
+            """,
+            "INSERT OR IGNORE INTO catalog_version VALUES (1, lower(hex(randomblob(8))), 0)",
+            CATALOG_VERSION_INSERT_TRIGGER_SQL,
+            """
+            CREATE TRIGGER IF NOT EXISTS catalog_version_update AFTER UPDATE ON components BEGIN
+                UPDATE catalog_version SET version = version + 1;
+            END
+            """,
+            """
+            CREATE TRIGGER IF NOT EXISTS catalog_version_delete AFTER DELETE ON components BEGIN
+                UPDATE catalog_version SET version = version + 1;
+            END
+            """
+        };
+
+        for (String sql : statements) {
+            dbManager.executeUpdate(sql);
+        }
+    }
+
+    /**
+     * Резервы склада. components.version растёт при каждом изменении строки и служит
+     * для условного обновления: запись по устаревшей версии не затирает чужие изменения.
+     * Резерв сразу списывает количество из components.quantity; снятый или просроченный
+     * резерв возвращает его, подтверждённый (продажа) — нет.
+     */
+    private void createReservations() {
+        if (!columnExists("components", "version")) {
+            dbManager.executeUpdate("ALTER TABLE components ADD COLUMN version INTEGER NOT NULL DEFAULT 0");
+        }
+
+        String[] statements = {
+            """
+            CREATE TABLE IF NOT EXISTS reservations (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                config_id INTEGER,
+                status TEXT NOT NULL,
+                created_at INTEGER NOT NULL,
+                expires_at INTEGER NOT NULL,
+                FOREIGN KEY (config_id) REFERENCES configurations(id)
+            )
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS reservation_items (
+                reservation_id INTEGER NOT NULL,
+                component_id INTEGER NOT NULL,
+                quantity INTEGER NOT NULL,
+                FOREIGN KEY (reservation_id) REFERENCES reservations(id),
+                FOREIGN KEY (component_id) REFERENCES components(id),
+                PRIMARY KEY (reservation_id, component_id)
+            ) WITHOUT ROWID
+            """,
+            // Поиск просроченных резервов: в индексе только активные
+            "CREATE INDEX IF NOT EXISTS idx_reservations_active ON reservations(expires_at) WHERE status = 'ACTIVE'"
+        };
+
+        for (String sql : statements) {
+            dbManager.executeUpdate(sql);
+        }
+    }
+
+    /**
+     * История цен и остатков. В component_history строка пишется только при изменении цены
+     * или остатка; первичный ключ (component_id, changed_at) без rowid хранит все столбцы,
+     * поэтому цена на момент времени — один поиск по ключу без чтения таблицы.
+     * component_price_daily — дневные агрегаты, в которые сворачивается старая история.
+     * Внешнего ключа на components нет: история удалённых комплектующих остаётся для
+     * оценки старых конфигураций. Строки пишет services.PriceHistoryService.
+     */
+    private void createPriceHistory() {
+        String[] statements = {
+            """
+            CREATE TABLE IF NOT EXISTS component_history (
+                component_id INTEGER NOT NULL,
+                changed_at INTEGER NOT NULL,
+                price INTEGER NOT NULL,
+                quantity INTEGER NOT NULL,
+                PRIMARY KEY (component_id, changed_at)
+            ) WITHOUT ROWID
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS component_price_daily (
+                component_id INTEGER NOT NULL,
+                day INTEGER NOT NULL,
+                min_price INTEGER NOT NULL,
+                max_price INTEGER NOT NULL,
+                price_sum INTEGER NOT NULL,
+                samples INTEGER NOT NULL,
+                close_price INTEGER NOT NULL,
+                close_quantity INTEGER NOT NULL,
+                PRIMARY KEY (component_id, day)
+            ) WITHOUT ROWID
+            """
+        };
+
+        for (String sql : statements) {
+            dbManager.executeUpdate(sql);
+        }
+    }
+
+    /**
+     * Переводит цены из рублей DECIMAL(10,2) в целые копейки и пересобирает сводку остатков.
+     * Выполняется одной транзакцией вместе с записью версии схемы, чтобы прерванный запуск
+     * не умножил цены на 100 повторно. В пустой (новой) базе ничего не меняет.
+     */
+    private boolean migratePricesToKopecks() {
+        String[] statements = {
+            "UPDATE components SET price = CAST(ROUND(price * 100) AS INTEGER)",
+            "UPDATE configurations SET total_price = CAST(ROUND(total_price * 100) AS INTEGER)",
+            "DELETE FROM inventory_summary",
+            FILL_INVENTORY_SUMMARY_SQL,
+            "PRAGMA user_version = " + KOPECKS_VERSION
+        };
+
+        try (Statement stmt = dbManager.getConnection().createStatement()) {
+            stmt.execute("BEGIN IMMEDIATE");
+            try {
+                for (String sql : statements) {
+                    stmt.executeUpdate(sql);
+                }
+                stmt.execute("COMMIT");
+            } catch (SQLException e) {
+                stmt.execute("ROLLBACK");
+                throw e;
+            }
+            return true;
+        } catch (SQLException e) {
+            System.err.println("❌ Ошибка перевода цен в копейки: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean columnExists(String table, String column) {
+        try (ResultSet rs = dbManager.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs != null && rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) return true;
+            }
+            return false;
+        } catch (SQLException e) {
+            System.err.println("❌ Ошибка чтения структуры таблицы " + table + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean tableExists(String name) {
+        try (ResultSet rs = dbManager.executeQuery(
+                "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = '" + name + "'")) {
+            return rs != null && rs.next();
+        } catch (SQLException e) {
+            System.err.println("❌ Ошибка проверки таблицы " + name + ": " + e.getMessage());
+            return false;
+        }
+    }
+
     private void insertSampleData() {
-        try {
-            // Проверяем, есть ли уже данные
-            ResultSet rs = dbManager.executeQuery("SELECT COUNT(*) FROM components");
+        // Проверяем, есть ли уже данные; цены в копейках
+        try (ResultSet rs = dbManager.executeQuery("SELECT COUNT(*) FROM components")) {
             if (rs != null && rs.next() && rs.getInt(1) == 0) {
                 String[] components = {
                     "INSERT INTO components (name, type, price, quantity, specifications, socket, memory_type, power_requirements) VALUES " +
-                    "('Intel Core i7-13700K', 'Процессор', 35000, 10, '16 ядер, 3.4 ГГц', 'LGA1700', 'DDR5', 125)",
+                    "('Intel Core i7-13700K', 'Процессор', 3500000, 10, '16 ядер, 3.4 ГГц', 'LGA1700', 'DDR5', 125)",
                     
                     "INSERT INTO components (name, type, price, quantity, specifications, socket, memory_type, form_factor) VALUES " +
-                    "('ASUS ROG Strix B650', 'Материнская плата', 25000, 15, 'Socket AM5, DDR5', 'AM5', 'DDR5', 'ATX')",
+                    "('ASUS ROG Strix B650', 'Материнская плата', 2500000, 15, 'Socket AM5, DDR5', 'AM5', 'DDR5', 'ATX')",
                     
                     "INSERT INTO components (name, type, price, quantity, specifications, memory_type) VALUES " +
-                    "('Kingston Fury 32GB DDR5', 'Оперативная память', 12000, 20, '32GB, 5600MHz', 'DDR5')"
+                    "('Kingston Fury 32GB DDR5', 'Оперативная память', 1200000, 20, '32GB, 5600MHz', 'DDR5')"
                 };
 
                 for (String sql : components) {
@@ -96,14 +449,26 @@ public class SchemaInitializer {
     }
 
     private void insertCompatibilityRules() {
-        String[] rules = {
-            "INSERT OR IGNORE INTO compatibility_rules (rule_type, component_type1, component_type2, condition, description) VALUES " +
-            "('SOCKET_MATCH', 'Процессор', 'Материнская плата', 'socket = socket', 'Сокет процессора должен соответствовать сокету материнской платы')"
-        };
+        // Правило добавляется, только если правила такого вида ещё нет
+        String sql = """
+            INSERT INTO compatibility_rules (rule_type, component_type1, component_type2, condition, description)
+            SELECT ?, ?, ?, ?, ?
+            WHERE NOT EXISTS (SELECT 1 FROM compatibility_rules WHERE rule_type = ?)
+            """;
 
-        for (String sql : rules) {
-            dbManager.executeUpdate(sql);
+        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
+            for (CompatibilityRule rule : CompatibilityRule.defaults()) {
+                pstmt.setString(1, rule.getRuleType());
+                pstmt.setString(2, rule.getComponentType1());
+                pstmt.setString(3, rule.getComponentType2());
+                pstmt.setString(4, rule.getCondition());
+                pstmt.setString(5, rule.getDescription());
+                pstmt.setString(6, rule.getRuleType());
+                pstmt.executeUpdate();
+            }
+            System.out.println("✅ Правила совместимости добавлены");
+        } catch (SQLException e) {
+            System.err.println("❌ Ошибка добавления правил совместимости: " + e.getMessage());
         }
-        System.out.println("✅ Правила совместимости добавлены");
     }
 }
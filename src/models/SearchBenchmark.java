@@ -0,0 +1,133 @@
+package benchmarks;
+
+import database.DatabaseManager;
+import models.ComponentQuery;
+import services.ComponentService;
+import services.ComponentSearchService;
+import utils.Money;
+
+import java.sql.*;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Задержка поиска на синтетическом каталоге: подсказки по префиксу, фильтры по атрибутам
+ * и полнотекстовый поиск.
+ * Запуск: java benchmarks.SearchBenchmark [комплектующих...], по умолчанию 500000.
+ */
+public class SearchBenchmark {
+    private static final String[] BRANDS = { "AMD", "Intel", "NVIDIA", "ASUS", "MSI", "Gigabyte", "Kingston",
+                                             "Corsair", "Samsung", "Seasonic", "be quiet!", "Noctua", "Fractal" };
+    private static final String[][] TYPES = {
+        // тип, сокет, тип памяти, форм-фактор, серия
+        { "Процессор", "AM5", null, null, "Ryzen" },
+        { "Процессор", "LGA1700", null, null, "Core" },
+        { "Материнская плата", "AM5", "DDR5", "ATX", "ROG Strix" },
+        { "Материнская плата", "LGA1700", "DDR4", "Micro-ATX", "Prime" },
+        { "Оперативная память", null, "DDR5", null, "Fury Beast" },
+        { "Видеокарта", null, null, null, "GeForce RTX" },
+        { "Видеокарта", null, null, null, "Radeon RX" },
+        { "Накопитель", null, null, null, "NVMe SSD" },
+        { "Блок питания", null, null, null, "Focus Gold" },
+        { "Корпус", null, null, "ATX", "Define Tower" },
+        { "Охлаждение", null, null, null, "Dark Rock" },
+    };
+    private static final String[] PREFIXES = { "r", "ry", "ryz", "ryzen 7", "gef", "geforce rtx 40", "kin",
+                                               "corsair fu", "nvme", "dark r", "prime b", "sea" };
+    private static final int SAMPLES = 20_000;
+
+    public static void main(String[] args) throws SQLException {
+        int[] sizes = BenchmarkSupport.parseSizes(args, 500_000);
+
+        for (int size : sizes) {
+            DatabaseManager dbManager = BenchmarkSupport.openTempDatabase("search-bench");
+            seed(dbManager.getConnection(), size);
+
+            long start = System.nanoTime();
+            ComponentService componentService = new ComponentService(dbManager);
+            ComponentSearchService searchService = new ComponentSearchService(dbManager, componentService);
+            System.out.printf("Комплектующих: %d, загрузка каталога и индекса: %.0f мс%n",
+                    size, (System.nanoTime() - start) / 1_000_000.0);
+
+            Random random = new Random(11);
+            long[] latencies = new long[SAMPLES];
+            for (int round = 0; round < 2; round++) { // первый проход — прогрев
+                for (int i = 0; i < SAMPLES; i++) {
+                    String prefix = PREFIXES[random.nextInt(PREFIXES.length)];
+                    long t = System.nanoTime();
+                    searchService.suggest(prefix, 10);
+                    latencies[i] = System.nanoTime() - t;
+                }
+            }
+            report("Подсказки по префиксу", latencies, SAMPLES);
+
+            ComponentQuery facets = new ComponentQuery();
+            facets.setType("Материнская плата");
+            facets.setSocket("AM5");
+            facets.setMaxPrice(20_000 * Money.KOPECKS_PER_RUBLE);
+            facets.setInStockOnly(true);
+            measure("Фильтры без текста", searchService, facets, 200);
+
+            ComponentQuery text = new ComponentQuery("ryzen 7");
+            measure("Полнотекстовый, bm25", searchService, text, 50);
+
+            ComponentQuery textWithFacets = new ComponentQuery("geforce rtx");
+            textWithFacets.setMaxPrice(40_000 * Money.KOPECKS_PER_RUBLE);
+            textWithFacets.setSort(ComponentQuery.Sort.PRICE_ASC);
+            measure("Текст и фильтры, по цене", searchService, textWithFacets, 50);
+
+            dbManager.closeConnection();
+        }
+    }
+
+    private static void measure(String label, ComponentSearchService searchService, ComponentQuery query, int runs) {
+        long[] latencies = new long[runs];
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < runs; i++) {
+                long t = System.nanoTime();
+                searchService.search(query);
+                latencies[i] = System.nanoTime() - t;
+            }
+        }
+        report(label + " (найдено " + searchService.search(query).getTotal() + ")", latencies, runs);
+    }
+
+    private static void report(String label, long[] latencies, int count) {
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        double average = Arrays.stream(sorted).average().orElse(0) / 1_000_000.0;
+        double p99 = sorted[Math.min(count - 1, (int) (count * 0.99))] / 1_000_000.0;
+        System.out.printf("  %-45s среднее %.3f мс, p99 %.3f мс%n", label, average, p99);
+    }
+
+    private static void seed(Connection conn, int size) throws SQLException {
+        Random random = new Random(5);
+        conn.setAutoCommit(false);
+        try (PreparedStatement component = conn.prepareStatement(
+                "INSERT INTO components (name, type, price, quantity, specifications, socket, memory_type, " +
+                "form_factor, power_requirements) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < size; i++) {
+                String[] type = TYPES[random.nextInt(TYPES.length)];
+                String brand = BRANDS[random.nextInt(BRANDS.length)];
+                int model = 1000 + random.nextInt(9000);
+                component.setString(1, brand + " " + type[4] + " " + (random.nextInt(9) + 1) + " " + model);
+                component.setString(2, type[0]);
+                component.setLong(3, (1000 + random.nextInt(200) * 250) * Money.KOPECKS_PER_RUBLE);
+                component.setInt(4, random.nextInt(4) == 0 ? 0 : random.nextInt(50));
+                component.setString(5, "Модель " + model + ", гарантия " + (1 + random.nextInt(5)) + " г.");
+                component.setString(6, type[1]);
+                component.setString(7, type[2]);
+                component.setString(8, type[3]);
+                component.setInt(9, random.nextInt(300));
+                component.addBatch();
+                if (i % 10_000 == 0) {
+                    component.executeBatch();
+                }
+            }
+            component.executeBatch();
+            conn.commit();
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+}
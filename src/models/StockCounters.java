@@ -0,0 +1,143 @@
+package services;
+
+import models.Component;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Счётчики свободного остатка в памяти — предварительный фильтр резервирования.
+ * У каждого комплектующего своя ячейка, изменяемая CAS без блокировок и выровненная
+ * по строке кэша, поэтому резервы разных комплектующих друг другу не мешают, а заведомо
+ * неисполнимый резерв (товар закончился) отклоняется без транзакции в БД.
+ *
+ * Окончательное решение принимает условное списание в БД; ячейка начинается с остатка
+ * из кэша каталога и сбрасывается при любом расхождении, после чего перечитывается заново.
+ */
+public class StockCounters implements ComponentChangeListener {
+    private final ComponentCatalogCache catalog;
+    private final Map<Integer, Cell> cells = new ConcurrentHashMap<>();
+
+    /** Поля выравнивания отделяют счётчик от соседних объектов в куче */
+    @SuppressWarnings("unused")
+    private abstract static class LeftPadding {
+        long p1, p2, p3, p4, p5, p6, p7;
+    }
+
+    private abstract static class Value extends LeftPadding {
+        volatile int available;
+    }
+
+    @SuppressWarnings("unused")
+    private static final class Cell extends Value {
+        long q1, q2, q3, q4, q5, q6, q7;
+
+        Cell(int available) {
+            this.available = available;
+        }
+
+        boolean tryTake(int quantity) {
+            int current;
+            do {
+                current = available;
+                if (current < quantity) return false;
+            } while (!AVAILABLE.compareAndSet(this, current, current - quantity));
+            return true;
+        }
+
+        void put(int quantity) {
+            AVAILABLE.getAndAdd(this, quantity);
+        }
+    }
+
+    private static final VarHandle AVAILABLE;
+
+    static {
+        try {
+            AVAILABLE = MethodHandles.lookup().findVarHandle(Value.class, "available", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    public StockCounters(ComponentCatalogCache catalog) {
+        this.catalog = catalog;
+    }
+
+    /**
+     * Списывает всё количество или ничего. Возвращает 0 или id комплектующего,
+     * которого не хватило; комплектующие, которых нет в кэше, не проверяются.
+     */
+    public int tryAcquire(Map<Integer, Integer> items) {
+        for (Map.Entry<Integer, Integer> item : items.entrySet()) {
+            Cell cell = cellFor(item.getKey());
+            if (cell != null && !cell.tryTake(item.getValue())) {
+                // Откатываются только уже списанные позиции — они идут в порядке обхода до текущей
+                for (Map.Entry<Integer, Integer> taken : items.entrySet()) {
+                    if (taken.getKey().equals(item.getKey())) break;
+                    release(taken.getKey(), taken.getValue());
+                }
+                return item.getKey();
+            }
+        }
+        return 0;
+    }
+
+    /** Возвращает количество, списанное tryAcquire, если резерв в БД не состоялся */
+    public void release(Map<Integer, Integer> items) {
+        items.forEach(this::release);
+    }
+
+    /** Забывает ячейку: следующее обращение прочитает остаток из кэша каталога */
+    public void invalidate(int componentId) {
+        cells.remove(componentId);
+    }
+
+    /** Свободный остаток по счётчику; -1, если ячейки нет */
+    public int available(int componentId) {
+        Cell cell = cells.get(componentId);
+        return cell != null ? cell.available : -1;
+    }
+
+    public int size() {
+        return cells.size();
+    }
+
+    private void release(int componentId, int quantity) {
+        Cell cell = cells.get(componentId);
+        if (cell != null) {
+            cell.put(quantity);
+        }
+    }
+
+    private Cell cellFor(int componentId) {
+        Cell cell = cells.get(componentId);
+        if (cell != null) return cell;
+
+        Component component = catalog.peek(componentId);
+        if (component == null) return null;
+        return cells.computeIfAbsent(componentId, id -> new Cell(component.getQuantity()));
+    }
+
+    @Override
+    public void onComponentUpdated(Component component) {
+        invalidate(component.getId());
+    }
+
+    @Override
+    public void onComponentDeleted(int componentId) {
+        invalidate(componentId);
+    }
+
+    @Override
+    public void onCatalogReloaded() {
+        cells.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "StockCounters{cells=" + cells.size() + "}";
+    }
+}
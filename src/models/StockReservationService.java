@@ -0,0 +1,307 @@
+package services;
+
+import database.ConnectionLease;
+import database.DatabaseManager;
+import models.Reservation;
+import utils.LatencyHistogram;
+import utils.Metrics;
+
+import java.sql.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Резервирование склада под конфигурации.
+ *
+ * Резерв списывает остаток всех позиций в одной транзакции условным обновлением
+ * "quantity = quantity - n WHERE quantity >= n": это сравнение с обменом на стороне БД,
+ * поэтому два терминала не продадут последнюю единицу, даже работая через разные
+ * соединения. Каждое изменение строки увеличивает components.version, так что правка
+ * карточки, начатая до резерва, не затрёт списанный остаток (см. ComponentService.updateComponent).
+ * Перед транзакцией резерв проходит через StockCounters и при нехватке отклоняется в памяти.
+ *
+ * Активный резерв подтверждается (commit) или снимается (release); просроченные
+ * снимает expireOverdue(), который можно запускать по расписанию через startSweeper().
+ */
+public class StockReservationService {
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(15);
+
+    private static final String TAKE_SQL = """
+        UPDATE components SET quantity = quantity - ?, version = version + 1
+        WHERE id = ? AND quantity >= ?
+        RETURNING quantity, version
+        """;
+    private static final String RETURN_SQL = """
+        UPDATE components SET quantity = quantity + ?, version = version + 1
+        WHERE id = ?
+        RETURNING quantity, version
+        """;
+    private static final String INSERT_SQL =
+        "INSERT INTO reservations (config_id, status, created_at, expires_at) VALUES (?, ?, ?, ?)";
+    private static final String INSERT_ITEM_SQL =
+        "INSERT INTO reservation_items (reservation_id, component_id, quantity) VALUES (?, ?, ?)";
+    /** Переход из ACTIVE выполняется ровно один раз, даже если его пытаются сделать параллельно */
+    private static final String FINISH_SQL =
+        "UPDATE reservations SET status = ? WHERE id = ? AND status = '" + Reservation.STATUS_ACTIVE + "'";
+    private static final String ITEMS_SQL =
+        "SELECT component_id, quantity FROM reservation_items WHERE reservation_id = ?";
+    private static final String OVERDUE_SQL =
+        "SELECT id FROM reservations WHERE status = '" + Reservation.STATUS_ACTIVE + "' AND expires_at <= ?";
+    private static final String CONFIGURATION_ITEMS_SQL =
+        "SELECT component_id, quantity FROM configuration_items WHERE config_id = ?";
+
+    private static final LatencyHistogram RESERVE_LATENCY = Metrics.global().operation("StockReservationService.reserve");
+    private static final LatencyHistogram FINISH_LATENCY = Metrics.global().operation("StockReservationService.finish");
+
+    private final DatabaseManager dbManager;
+    private final ComponentService componentService;
+    private final StockCounters counters;
+    private ScheduledExecutorService sweeper;
+
+    public StockReservationService(DatabaseManager dbManager, ComponentService componentService) {
+        this.dbManager = dbManager;
+        this.componentService = componentService;
+        this.counters = new StockCounters(componentService.getCache());
+        componentService.addListener(counters);
+    }
+
+    public StockCounters getCounters() {
+        return counters;
+    }
+
+    /** Резервирует все комплектующие сохранённой конфигурации на DEFAULT_TTL */
+    public Reservation reserveConfiguration(int configId) {
+        Map<Integer, Integer> items = new TreeMap<>();
+        try (ConnectionLease lease = dbManager.lease()) {
+            PreparedStatement pstmt = lease.prepareStatement(CONFIGURATION_ITEMS_SQL);
+            pstmt.setInt(1, configId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    items.merge(rs.getInt("component_id"), rs.getInt("quantity"), Integer::sum);
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Ошибка чтения конфигурации: " + e.getMessage());
+            return null;
+        }
+        if (items.isEmpty()) {
+            System.err.println("❌ Конфигурация " + configId + " не найдена или пуста");
+            return null;
+        }
+        return reserve(items, configId, DEFAULT_TTL);
+    }
+
+    /**
+     * Резервирует все позиции или ни одной. Возвращает активный резерв, резерв со статусом
+     * REJECTED, если какого-то комплектующего не хватило, или null при ошибке БД.
+     */
+    public Reservation reserve(Map<Integer, Integer> items, Integer configId, Duration ttl) {
+        long start = System.nanoTime();
+        try {
+            // Строки всегда списываются по возрастанию id — одинаковый порядок блокировок у всех
+            Map<Integer, Integer> sorted = new TreeMap<>();
+            for (Map.Entry<Integer, Integer> item : items.entrySet()) {
+                if (item.getValue() <= 0) {
+                    System.err.println("❌ Количество должно быть положительным: " + item);
+                    return null;
+                }
+                sorted.merge(item.getKey(), item.getValue(), Integer::sum);
+            }
+            long now = System.currentTimeMillis();
+            Reservation reservation = new Reservation(configId, sorted, now, now + ttl.toMillis());
+
+            int lacking = counters.tryAcquire(sorted);
+            if (lacking != 0) {
+                reservation.reject(lacking);
+                return reservation;
+            }
+            boolean taken = false;
+            try {
+                taken = takeStock(reservation);
+                return reservation;
+            } finally {
+                if (!taken) {
+                    counters.release(sorted);
+                    if (reservation.getRejectedComponentId() != 0) {
+                        // Счётчик разошёлся с БД — пусть перечитается
+                        counters.invalidate(reservation.getRejectedComponentId());
+                    }
+                }
+            }
+        } finally {
+            RESERVE_LATENCY.recordSince(start);
+        }
+    }
+
+    /** Подтверждает продажу: остаток остаётся списанным. false, если резерв уже не активен */
+    public boolean commit(int reservationId) {
+        return finish(reservationId, Reservation.STATUS_COMMITTED);
+    }
+
+    /** Снимает резерв и возвращает остаток. false, если резерв уже не активен */
+    public boolean release(int reservationId) {
+        return finish(reservationId, Reservation.STATUS_RELEASED);
+    }
+
+    /** Снимает все просроченные активные резервы; возвращает их число */
+    public int expireOverdue() {
+        List<Integer> overdue = new ArrayList<>();
+        try (ConnectionLease lease = dbManager.lease()) {
+            PreparedStatement pstmt = lease.prepareStatement(OVERDUE_SQL);
+            pstmt.setLong(1, System.currentTimeMillis());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    overdue.add(rs.getInt(1));
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Ошибка поиска просроченных резервов: " + e.getMessage());
+            return 0;
+        }
+
+        int expired = 0;
+        for (int id : overdue) {
+            // Резерв мог быть подтверждён между выборкой и переходом — тогда finish() вернёт false
+            if (finish(id, Reservation.STATUS_EXPIRED)) {
+                expired++;
+            }
+        }
+        return expired;
+    }
+
+    /** Запускает фоновое снятие просроченных резервов с заданным периодом */
+    public synchronized void startSweeper(Duration period) {
+        if (sweeper != null) return;
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "reservation-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = period.toMillis();
+        sweeper.scheduleWithFixedDelay(() -> {
+            int expired = expireOverdue();
+            if (expired > 0) {
+                System.out.println("⏰ Снято просроченных резервов: " + expired);
+            }
+        }, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void shutdown() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+            sweeper = null;
+        }
+    }
+
+    /** Списывает остаток и сохраняет резерв; при нехватке отмечает резерв отклонённым и откатывает транзакцию */
+    private boolean takeStock(Reservation reservation) {
+        int[][] stock = new int[reservation.getItems().size()][];
+        try (ConnectionLease lease = dbManager.lease()) {
+            lease.beginWriteTransaction();
+            PreparedStatement take = lease.prepareStatement(TAKE_SQL);
+            int i = 0;
+            for (Map.Entry<Integer, Integer> item : reservation.getItems().entrySet()) {
+                take.setInt(1, item.getValue());
+                take.setInt(2, item.getKey());
+                take.setInt(3, item.getValue());
+                try (ResultSet rs = take.executeQuery()) {
+                    if (!rs.next()) {
+                        reservation.reject(item.getKey());
+                        return false;
+                    }
+                    stock[i++] = new int[] {item.getKey(), rs.getInt(1), rs.getInt(2)};
+                }
+            }
+
+            PreparedStatement insert = lease.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+            if (reservation.getConfigId() != null) {
+                insert.setInt(1, reservation.getConfigId());
+            } else {
+                insert.setNull(1, Types.INTEGER);
+            }
+            insert.setString(2, Reservation.STATUS_ACTIVE);
+            insert.setLong(3, reservation.getCreatedAt());
+            insert.setLong(4, reservation.getExpiresAt());
+            insert.executeUpdate();
+            try (ResultSet keys = insert.getGeneratedKeys()) {
+                if (!keys.next()) throw new SQLException("не получен id резерва");
+                reservation.setId(keys.getInt(1));
+            }
+
+            PreparedStatement insertItem = lease.prepareStatement(INSERT_ITEM_SQL);
+            for (Map.Entry<Integer, Integer> item : reservation.getItems().entrySet()) {
+                insertItem.setInt(1, reservation.getId());
+                insertItem.setInt(2, item.getKey());
+                insertItem.setInt(3, item.getValue());
+                insertItem.addBatch();
+            }
+            insertItem.executeBatch();
+            lease.commit();
+        } catch (SQLException e) {
+            System.err.println("❌ Ошибка резервирования: " + e.getMessage());
+            return false;
+        }
+
+        for (int[] row : stock) {
+            componentService.stockChanged(row[0], row[1], row[2]);
+        }
+        return true;
+    }
+
+    /** Переводит активный резерв в status; снятый и просроченный возвращают остаток */
+    private boolean finish(int reservationId, String status) {
+        long start = System.nanoTime();
+        boolean restore = !Reservation.STATUS_COMMITTED.equals(status);
+        List<int[]> stock = new ArrayList<>();
+        try (ConnectionLease lease = dbManager.lease()) {
+            lease.beginWriteTransaction();
+            PreparedStatement transition = lease.prepareStatement(FINISH_SQL);
+            transition.setString(1, status);
+            transition.setInt(2, reservationId);
+            if (transition.executeUpdate() == 0) {
+                return false;
+            }
+
+            if (restore) {
+                Map<Integer, Integer> items = new TreeMap<>();
+                PreparedStatement select = lease.prepareStatement(ITEMS_SQL);
+                select.setInt(1, reservationId);
+                try (ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        items.put(rs.getInt(1), rs.getInt(2));
+                    }
+                }
+                PreparedStatement giveBack = lease.prepareStatement(RETURN_SQL);
+                for (Map.Entry<Integer, Integer> item : items.entrySet()) {
+                    giveBack.setInt(1, item.getValue());
+                    giveBack.setInt(2, item.getKey());
+                    try (ResultSet rs = giveBack.executeQuery()) {
+                        // Удалённое комплектующее вернуть некуда
+                        if (rs.next()) {
+                            stock.add(new int[] {item.getKey(), rs.getInt(1), rs.getInt(2)});
+                        }
+                    }
+                }
+            }
+            lease.commit();
+        } catch (SQLException e) {
+            System.err.println("❌ Ошибка завершения резерва " + reservationId + ": " + e.getMessage());
+            return false;
+        } finally {
+            FINISH_LATENCY.recordSince(start);
+        }
+
+        for (int[] row : stock) {
+            componentService.stockChanged(row[0], row[1], row[2]);
+            // Возврат сбрасывает счётчик: он перечитается из обновлённого кэша
+            counters.invalidate(row[0]);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,82 @@
+package database;
+
+import utils.LatencyHistogram;
+import utils.Metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Обёртки подготовленных запросов для Metrics: время выполнения execute* попадает
+ * в гистограмму запроса, число строк — в счётчики прочитанных и записанных строк.
+ * Обёртка создаётся один раз при подготовке запроса и живёт в кэше ConnectionLease;
+ * прокси нужен только для execute*, строки курсора считает CountingResultSet.
+ */
+final class TimedStatements {
+    private TimedStatements() {}
+
+    static PreparedStatement wrap(PreparedStatement statement, String sql, Metrics metrics) {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class },
+                new StatementHandler(statement, sql, metrics, metrics.query(sql)));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static final class StatementHandler implements InvocationHandler {
+        private final PreparedStatement statement;
+        private final String sql;
+        private final Metrics metrics;
+        private final LatencyHistogram histogram;
+
+        StatementHandler(PreparedStatement statement, String sql, Metrics metrics, LatencyHistogram histogram) {
+            this.statement = statement;
+            this.sql = sql;
+            this.metrics = metrics;
+            this.histogram = histogram;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (!name.startsWith("execute")) {
+                return TimedStatements.invoke(statement, method, args);
+            }
+
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = TimedStatements.invoke(statement, method, args);
+            } finally {
+                metrics.recordQuery(histogram, sql, start);
+            }
+
+            if (result instanceof ResultSet rs) {
+                return new CountingResultSet(rs, metrics);
+            }
+            if (result instanceof Integer rows) {
+                metrics.addRowsWritten(rows);
+            } else if (result instanceof Long rows) {
+                metrics.addRowsWritten(rows);
+            } else if (result instanceof int[] batch) {
+                long rows = 0;
+                for (int count : batch) {
+                    rows += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(0, count);
+                }
+                metrics.addRowsWritten(rows);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package services;
+
+import models.CompatibilityIssue;
+import models.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Кэш результатов проверки совместимости по набору комплектующих.
+ *
+ * Ключ — отпечаток набора: id комплектующих по возрастанию и номер набора правил, поэтому
+ * после перезагрузки правил старые записи просто перестают находиться и вытесняются.
+ * Записи помечаются номером изменения каталога на момент начала проверки; изменение или
+ * удаление комплектующего отмечает его номер, и записи с ним при следующем чтении
+ * считаются устаревшими. Вытеснение — LRU в сегментах, выбираемых по хэшу ключа,
+ * чтобы параллельная перепроверка не упиралась в одну блокировку.
+ */
+public class ValidationCache implements ComponentChangeListener {
+    public static final int DEFAULT_CAPACITY = 16_384;
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<Integer, Long> changedAt = new ConcurrentHashMap<>();
+    private volatile long reloadedAt;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /** Отпечаток набора комплектующих; null, если набор нельзя кэшировать */
+    public static final class Fingerprint {
+        private final long ruleVersion;
+        private final int[] ids;
+        private final int hash;
+
+        private Fingerprint(long ruleVersion, int[] ids) {
+            this.ruleVersion = ruleVersion;
+            this.ids = ids;
+            this.hash = 31 * Long.hashCode(ruleVersion) + Arrays.hashCode(ids);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Fingerprint)) return false;
+            Fingerprint other = (Fingerprint) o;
+            return ruleVersion == other.ruleVersion && Arrays.equals(ids, other.ids);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Entry {
+        final List<CompatibilityIssue> issues;
+        final long stamp;
+
+        Entry(List<CompatibilityIssue> issues, long stamp) {
+            this.issues = issues;
+            this.stamp = stamp;
+        }
+    }
+
+    private final class Segment extends LinkedHashMap<Fingerprint, Entry> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Fingerprint, Entry> eldest) {
+            if (size() <= capacity) return false;
+            evictions.increment();
+            return true;
+        }
+    }
+
+    public ValidationCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ValidationCache(int capacity) {
+        int perSegment = Math.max(1, capacity / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+    /**
+     * Отпечаток набора для версии правил ruleVersion. Проверка учитывает первый компонент
+     * каждого слота, поэтому при повторяющихся слотах (duplicateSlots) порядок значим
+     * и id не сортируются. Комплектующие без id (ещё не сохранённые) не кэшируются.
+     */
+    public static Fingerprint fingerprint(List<Component> components, long ruleVersion, boolean duplicateSlots) {
+        int[] ids = new int[components.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = components.get(i).getId();
+            if (ids[i] <= 0) return null;
+        }
+        if (!duplicateSlots) {
+            Arrays.sort(ids);
+        }
+        return new Fingerprint(ruleVersion, ids);
+    }
+
+    /** Номер изменения каталога; берётся до проверки и передаётся в put() */
+    public long stamp() {
+        return sequence.get();
+    }
+
+    /** Сохранённый результат или null, если его нет или входящие в набор комплектующие изменились */
+    public List<CompatibilityIssue> get(Fingerprint key) {
+        Segment segment = segmentFor(key);
+        Entry entry;
+        synchronized (segment) {
+            entry = segment.get(key);
+        }
+        if (entry != null && isCurrent(key, entry.stamp)) {
+            hits.increment();
+            return entry.issues;
+        }
+        if (entry != null) {
+            synchronized (segment) {
+                segment.remove(key, entry);
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /** Сохраняет результат проверки, начатой при номере изменения stamp */
+    public void put(Fingerprint key, long stamp, List<CompatibilityIssue> issues) {
+        if (!isCurrent(key, stamp)) return;
+
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, new Entry(List.copyOf(issues), stamp));
+        }
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public long getHitCount() { return hits.sum(); }
+
+    public long getMissCount() { return misses.sum(); }
+
+    public long getEvictionCount() { return evictions.sum(); }
+
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    public void resetStatistics() {
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+    }
+
+    @Override
+    public void onComponentAdded(Component component) {
+        // Новое комплектующее не входит ни в один сохранённый набор
+    }
+
+    @Override
+    public void onComponentUpdated(Component component) {
+        changedAt.put(component.getId(), sequence.incrementAndGet());
+    }
+
+    @Override
+    public void onComponentDeleted(int componentId) {
+        changedAt.put(componentId, sequence.incrementAndGet());
+    }
+
+    @Override
+    public void onCatalogReloaded() {
+        reloadedAt = sequence.incrementAndGet();
+        changedAt.clear();
+        clear();
+    }
+
+    /** Запись действительна, если после её номера не менялись ни каталог целиком, ни её комплектующие */
+    private boolean isCurrent(Fingerprint key, long stamp) {
+        if (reloadedAt > stamp) return false;
+        for (int id : key.ids) {
+            Long changed = changedAt.get(id);
+            if (changed != null && changed > stamp) return false;
+        }
+        return true;
+    }
+
+    private Segment segmentFor(Fingerprint key) {
+        int h = key.hash;
+        return segments[(h ^ (h >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ValidationCache{size=%d, hits=%d, misses=%d, evictions=%d, hitRate=%.2f}",
+                size(), getHitCount(), getMissCount(), getEvictionCount(), getHitRate());
+    }
+}
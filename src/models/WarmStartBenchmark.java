@@ -0,0 +1,120 @@
+package benchmarks;
+
+import database.DatabaseManager;
+import database.SchemaInitializer;
+import models.CatalogVersion;
+import services.CatalogSnapshot;
+import services.CatalogSnapshotStore;
+import services.ComponentService;
+import utils.Money;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.*;
+import java.util.Random;
+
+/**
+ * Запуск приложения: инициализация схемы с DDL и без него (PRAGMA user_version),
+ * заполнение кэша каталога построчно из SQLite и из снимка CatalogSnapshot.
+ * Запуск: java benchmarks.WarmStartBenchmark [комплектующих...], по умолчанию 500000.
+ */
+public class WarmStartBenchmark {
+    private static final String[] TYPES = { "Процессор", "Материнская плата", "Оперативная память", "Видеокарта",
+                                            "Накопитель", "Блок питания", "Корпус", "Охлаждение" };
+    private static final String[] SOCKETS = { "AM5", "AM4", "LGA1700", "LGA1851" };
+
+    public static void main(String[] args) throws IOException, SQLException {
+        int[] sizes = BenchmarkSupport.parseSizes(args, 500_000);
+
+        for (int size : sizes) {
+            File dbFile = File.createTempFile("warm-start", ".db");
+            dbFile.deleteOnExit();
+            Path snapshotFile = Path.of(dbFile.getPath() + ".snapshot");
+            String url = "jdbc:sqlite:" + dbFile.getAbsolutePath();
+
+            DatabaseManager setup = new DatabaseManager(url);
+            new SchemaInitializer(setup);
+            seed(setup.getConnection(), size);
+            ComponentService componentService = new ComponentService(setup);
+            CatalogSnapshotStore store = new CatalogSnapshotStore(setup, snapshotFile);
+            long start = System.nanoTime();
+            store.attach(componentService); // снимка нет — он пишется в фоне, close() дожидается записи
+            store.close();
+            double writeMillis = (System.nanoTime() - start) / 1_000_000.0;
+            boolean saved = Files.exists(snapshotFile);
+            setup.closeConnection();
+            System.out.printf("Комплектующих: %d (БД %.1f МБ, снимок %.1f МБ, запись снимка %.0f мс%s)%n", size,
+                    dbFile.length() / 1048576.0, Files.size(snapshotFile) / 1048576.0, writeMillis, saved ? "" : " ❌");
+
+            double ddl = BenchmarkSupport.bestOfMillis(1, 5, () -> openSchema(url, true));
+            double noDdl = BenchmarkSupport.bestOfMillis(1, 5, () -> openSchema(url, false));
+            System.out.printf("  Схема: с DDL %.1f мс, по user_version %.1f мс%n", ddl, noDdl);
+
+            double rows = BenchmarkSupport.bestOfMillis(1, 3, () -> startCatalog(url, null));
+            double snapshot = BenchmarkSupport.bestOfMillis(1, 3, () -> startCatalog(url, snapshotFile));
+            double mapOnly = BenchmarkSupport.bestOfMillis(1, 5, () -> CatalogSnapshot.open(snapshotFile).size());
+            System.out.printf("  Кэш каталога: из SQLite %.0f мс, из снимка %.0f мс (x%.1f); отображение снимка %.1f мс%n",
+                    rows, snapshot, rows / snapshot, mapOnly);
+
+            Files.deleteIfExists(snapshotFile);
+        }
+    }
+
+    /** Открытие базы и инициализация схемы; withDdl сбрасывает user_version, как у базы старой версии */
+    private static int openSchema(String url, boolean withDdl) {
+        DatabaseManager dbManager = new DatabaseManager(url);
+        if (withDdl) {
+            dbManager.executeUpdate("PRAGMA user_version = 0");
+        }
+        new SchemaInitializer(dbManager);
+        dbManager.closeConnection();
+        return 0;
+    }
+
+    private static int startCatalog(String url, Path snapshotFile) {
+        DatabaseManager dbManager = new DatabaseManager(url);
+        int size;
+        if (snapshotFile != null) {
+            CatalogSnapshotStore store = new CatalogSnapshotStore(dbManager, snapshotFile);
+            size = new ComponentService(dbManager, store).getCache().size();
+            CatalogVersion saved = store.getSavedVersion();
+            if (!saved.equals(store.currentVersion())) {
+                System.err.println("❌ Снимок устарел: " + saved);
+            }
+            store.close();
+        } else {
+            size = new ComponentService(dbManager).getCache().size();
+        }
+        dbManager.closeConnection();
+        return size;
+    }
+
+    private static void seed(Connection conn, int size) throws SQLException {
+        Random random = new Random(5);
+        conn.setAutoCommit(false);
+        try (PreparedStatement component = conn.prepareStatement("""
+                INSERT INTO components (name, type, price, quantity, specifications, socket, power_requirements)
+                VALUES (?, ?, ?, ?, ?, ?, ?)
+                """)) {
+            for (int i = 0; i < size; i++) {
+                component.setString(1, "Компонент " + i);
+                component.setString(2, TYPES[random.nextInt(TYPES.length)]);
+                component.setLong(3, (500 + random.nextInt(100_000)) * Money.KOPECKS_PER_RUBLE);
+                component.setInt(4, random.nextInt(20));
+                component.setString(5, "Гарантия " + (12 + random.nextInt(24)) + " мес.");
+                component.setString(6, SOCKETS[random.nextInt(SOCKETS.length)]);
+                component.setInt(7, random.nextInt(300));
+                component.addBatch();
+                if (i % 10_000 == 0) {
+                    component.executeBatch();
+                }
+            }
+            component.executeBatch();
+            conn.commit();
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+}
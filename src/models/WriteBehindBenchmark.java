@@ -0,0 +1,115 @@
+package benchmarks;
+
+import database.DatabaseManager;
+import database.SchemaInitializer;
+import models.Component;
+import services.ComponentService;
+import services.ComponentWriteBehind;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Приёмка товара: поток сканов по ITEMS позициям с повторами, как на приёмке, через
+ * updateComponent с записью каждого скана и через отложенную запись группами. При отложенной
+ * записи каждая позиция правится в одном рабочем экземпляре, как в Main.receiveStock, и
+ * повторные сканы не ждут записи предыдущих. Сверяет итоговые остатки в БД и проверяет,
+ * что закрытие базы дописывает очередь.
+ * Запуск: java benchmarks.WriteBehindBenchmark [сканов...], по умолчанию 20000.
+ */
+public class WriteBehindBenchmark {
+    private static final int ITEMS = 300;
+
+    public static void main(String[] args) throws SQLException, IOException {
+        int[] sizes = BenchmarkSupport.parseSizes(args, 20_000);
+
+        for (int scans : sizes) {
+            File file = File.createTempFile("write-behind", ".db");
+            file.deleteOnExit();
+            String url = "jdbc:sqlite:" + file.getAbsolutePath();
+            DatabaseManager dbManager = new DatabaseManager(url);
+            new SchemaInitializer(dbManager);
+            BenchmarkSupport.seed(dbManager, ITEMS);
+            ComponentService componentService = new ComponentService(dbManager);
+
+            long before = totalQuantity(dbManager);
+            long start = System.nanoTime();
+            receive(componentService, scans, false);
+            double direct = (System.nanoTime() - start) / 1e6;
+            long afterDirect = totalQuantity(dbManager);
+
+            ComponentWriteBehind writeBehind = componentService.enableWriteBehind(ComponentWriteBehind.DEFAULT_CAPACITY,
+                ComponentWriteBehind.DEFAULT_BATCH_SIZE, ComponentWriteBehind.DEFAULT_FLUSH_INTERVAL);
+            start = System.nanoTime();
+            receive(componentService, scans, true);
+            double queued = (System.nanoTime() - start) / 1e6;
+            long afterQueued = totalQuantity(dbManager);
+
+            System.out.printf("Сканов: %d по %d позициям%n", scans, ITEMS);
+            System.out.printf("  Запись каждого скана:  %.0f мс (%.0f в с), остатки %s%n",
+                direct, scans / direct * 1000, afterDirect - before == scans ? "сходятся" : "НЕ СХОДЯТСЯ");
+            System.out.printf("  Отложенная запись:     %.0f мс (%.0f в с), остатки %s%n",
+                queued, scans / queued * 1000, afterQueued - afterDirect == scans ? "сходятся" : "НЕ СХОДЯТСЯ");
+            System.out.println("  " + writeBehind);
+
+            // Закрытие сразу после постановки в очередь: ничего не должно потеряться
+            receiveWithoutWaiting(componentService, scans);
+            dbManager.closeConnection();
+            DatabaseManager reopened = new DatabaseManager(url);
+            long afterClose = totalQuantity(reopened);
+            System.out.printf("  Закрытие с непустой очередью: %s%n",
+                afterClose - afterQueued == scans ? "всё дописано" : "ПОТЕРЯНО " + (scans - (afterClose - afterQueued)));
+            reopened.closeConnection();
+        }
+    }
+
+    private static void receive(ComponentService componentService, int scans, boolean async) {
+        Map<Integer, Component> received = new HashMap<>();
+        List<CompletableFuture<Boolean>> all = new ArrayList<>();
+        Random random = new Random(11);
+        for (int i = 0; i < scans; i++) {
+            int id = 1 + random.nextInt(ITEMS);
+            if (!async) {
+                Component component = componentService.getComponentById(id);
+                component.setQuantity(component.getQuantity() + 1);
+                if (!componentService.updateComponent(component)) {
+                    System.err.println("❌ Скан не записан");
+                }
+                continue;
+            }
+            Component component = received.computeIfAbsent(id, componentService::getComponentById);
+            component.setQuantity(component.getQuantity() + 1);
+            all.add(componentService.updateComponentAsync(component));
+        }
+        long failed = all.stream().filter(write -> !write.join()).count();
+        if (failed > 0) {
+            System.err.println("❌ Не записано сканов: " + failed);
+        }
+    }
+
+    /** Те же сканы через очередь; результат не ожидается */
+    private static void receiveWithoutWaiting(ComponentService componentService, int scans) {
+        Map<Integer, Component> received = new HashMap<>();
+        Random random = new Random(12);
+        for (int i = 0; i < scans; i++) {
+            Component component = received.computeIfAbsent(1 + random.nextInt(ITEMS), componentService::getComponentById);
+            component.setQuantity(component.getQuantity() + 1);
+            componentService.updateComponentAsync(component);
+        }
+    }
+
+    private static long totalQuantity(DatabaseManager dbManager) throws SQLException {
+        try (Statement stmt = dbManager.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT SUM(quantity) FROM components")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+}